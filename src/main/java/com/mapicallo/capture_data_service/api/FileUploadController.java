@@ -1,9 +1,12 @@
 package com.mapicallo.capture_data_service.api;
 
+import com.mapicallo.capture_data_service.application.similarity.SimilarityIndex;
+import com.mapicallo.capture_data_service.application.text.KeywordExtractor;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -11,6 +14,7 @@ import org.springframework.web.multipart.MultipartFile;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Path;
 
 @RestController
 @RequestMapping("/api/v1/files")
@@ -20,6 +24,14 @@ public class FileUploadController {
     private static final Logger logger = LoggerFactory.getLogger(FileUploadController.class);
     private static final String UPLOAD_DIR = "C:/uploaded_files/";
 
+    // los ficheros JSON subidos alimentan la tabla de frecuencias del modo TF-IDF de palabras clave
+    @Autowired
+    private KeywordExtractor keywordExtractor;
+
+    // y el índice de documentos similares (/similar)
+    @Autowired
+    private SimilarityIndex similarityIndex;
+
     @Operation(summary = "Upload a file", description = "Allows users to upload a file (CSV, JSON, etc.) and stores it in a local directory.")
     @PostMapping(value = "/upload", consumes = "multipart/form-data")
     public ResponseEntity<String> uploadFile(
@@ -42,6 +54,8 @@ public class FileUploadController {
             String filePath = UPLOAD_DIR + file.getOriginalFilename();
             file.transferTo(new File(filePath));
             logger.info("File uploaded to: {}", filePath);
+            keywordExtractor.ingestFileAsync(Path.of(filePath));
+            similarityIndex.addFileAsync(Path.of(filePath));
 
             return ResponseEntity.status(HttpStatus.OK).body("File uploaded successfully to: " + filePath);
         } catch (IOException e) {
@@ -0,0 +1,167 @@
+package com.mapicallo.capture_data_service.api;
+
+import com.mapicallo.capture_data_service.application.nlp.AnnotationCache;
+import com.mapicallo.capture_data_service.application.nlp.AnnotationStore;
+import com.mapicallo.capture_data_service.application.nlp.NlpPipelinePool;
+import com.mapicallo.capture_data_service.application.nlp.NlpPipelineRegistry;
+import com.mapicallo.capture_data_service.application.nlp.NlpWarmupService;
+import com.mapicallo.capture_data_service.application.nlp.ParserBenchmark;
+import com.mapicallo.capture_data_service.application.nlp.ParserModel;
+import com.mapicallo.capture_data_service.application.nlp.ParserSelection;
+import com.mapicallo.capture_data_service.application.nlp.SentenceSentimentMemo;
+import com.mapicallo.capture_data_service.application.numeric.NumericKernels;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/v1/nlp")
+@Tag(name = "NLP Monitoring", description = "Endpoints to inspect the shared NLP models")
+public class NlpController {
+
+    @Autowired
+    private NlpPipelineRegistry pipelineRegistry;
+
+    @Autowired
+    private NlpPipelinePool pipelinePool;
+
+    @Autowired
+    private NlpWarmupService warmupService;
+
+    @Autowired
+    private AnnotationCache annotationCache;
+
+    @Autowired
+    private AnnotationStore annotationStore;
+
+    @Autowired
+    private SentenceSentimentMemo sentimentMemo;
+
+    @Autowired
+    private ParserSelection parserSelection;
+
+    @Autowired
+    private ParserBenchmark parserBenchmark;
+
+    private static final String UPLOAD_DIR = "C:/uploaded_files/";
+
+    /**
+     * Lista los pipelines de CoreNLP cargados, con su tiempo de carga y la memoria estimada que ocupan.
+     */
+    @Operation(summary = "List loaded CoreNLP pipelines", description = "Returns every loaded CoreNLP pipeline with its annotators, load time and estimated heap footprint.")
+    @GetMapping("/pipelines")
+    public ResponseEntity<List<NlpPipelineRegistry.PipelineStats>> listPipelines() {
+        return ResponseEntity.ok(pipelineRegistry.getStats());
+    }
+
+
+    /**
+     * Estado de los pools de pipelines: tamaño máximo, instancias creadas y libres por configuración.
+     */
+    @Operation(summary = "List CoreNLP pipeline pools", description = "Returns the size, created and available instances of every pipeline pool used for parallel annotation.")
+    @GetMapping("/pools")
+    public ResponseEntity<List<NlpPipelinePool.PoolStats>> listPools() {
+        return ResponseEntity.ok(pipelinePool.getStats());
+    }
+
+
+    /**
+     * Estado de la precarga de modelos al arranque, con los tiempos de carga de cada perfil.
+     */
+    @Operation(summary = "Show NLP warm-up status", description = "Returns whether the startup warm-up has finished and the model load time of every warmed-up profile.")
+    @GetMapping("/warmup")
+    public ResponseEntity<Map<String, Object>> warmupStatus() {
+        return ResponseEntity.ok(Map.of(
+                "ready", warmupService.isReady(),
+                "profiles", warmupService.getResults()
+        ));
+    }
+
+
+    /**
+     * Estadísticas de la caché de anotaciones: aciertos, fallos, expulsiones y memoria estimada.
+     */
+    @Operation(summary = "Show annotation cache statistics", description = "Returns hit/miss counts, evictions and estimated memory of the content-hash annotation cache shared by the NLP endpoints.")
+    @GetMapping("/cache")
+    public ResponseEntity<AnnotationCache.CacheReport> cacheStats() {
+        return ResponseEntity.ok(annotationCache.getStats());
+    }
+
+
+    /**
+     * Estado del almacén persistente de anotaciones: entradas, lecturas desde disco y tamaño del segmento.
+     */
+    @Operation(summary = "Show persistent annotation store statistics", description = "Returns the number of serialized annotations kept on disk, how many requests were rehydrated from it and the segment file size.")
+    @GetMapping("/store")
+    public ResponseEntity<AnnotationStore.StoreReport> storeStats() {
+        return ResponseEntity.ok(annotationStore.getStats());
+    }
+
+
+    /**
+     * Estado de la memoización de sentimiento por frase: frases vistas, analizadas y ahorradas.
+     */
+    @Operation(summary = "Show sentence sentiment memo statistics", description = "Returns how many sentences went through /sentiment-analysis, how many needed the parser and the share served from the sentence-level memo.")
+    @GetMapping("/sentiment-memo")
+    public ResponseEntity<SentenceSentimentMemo.MemoReport> sentimentMemoStats() {
+        return ResponseEntity.ok(sentimentMemo.getStats());
+    }
+
+
+    /**
+     * Parser configurado para el sentimiento y para las tripletas.
+     */
+    @Operation(summary = "Show configured parsers", description = "Returns the parser used by the sentiment and triple extraction pipelines (pcfg, shift-reduce or dependency), after falling back to pcfg when the shift-reduce model is not installed.")
+    @GetMapping("/parsers")
+    public ResponseEntity<Map<String, String>> parsers() {
+        return ResponseEntity.ok(Map.of(
+                "sentiment", parserSelection.sentimentParser().key(),
+                "triples", parserSelection.triplesParser().key()
+        ));
+    }
+
+
+    /**
+     * Implementación de los núcleos numéricos en uso: Vector API o bucles escalares.
+     */
+    @Operation(summary = "Show numeric kernel implementation", description = "Returns the numeric kernels used by /bigdata/summary and clustering: 'vector-<bits>' when the JVM runs with --add-modules jdk.incubator.vector (spring-boot:run and the tests add it; java -jar needs it on the command line), otherwise 'scalar'.")
+    @GetMapping("/numeric-kernels")
+    public ResponseEntity<Map<String, String>> numericKernels() {
+        return ResponseEntity.ok(Map.of("implementation", NumericKernels.implementation()));
+    }
+
+
+    /**
+     * Compara un parser con el PCFG sobre un archivo JSON ya subido: rendimiento y concordancia de resultados.
+     */
+    @Operation(summary = "Benchmark a parser against the PCFG parser", description = "Annotates the text entries of an uploaded JSON file with the PCFG parser and with 'parser' (shift-reduce or dependency) for the 'task' pipeline (sentiment or triples), bypassing the annotation cache. Returns documents and sentences per second of each run and the agreement of the candidate with the PCFG results: sentence label agreement for sentiment, triple precision/recall/F1 for triples. 'limit' caps the number of documents (0 = all).")
+    @PostMapping("/parser-benchmark")
+    public ResponseEntity<Object> parserBenchmark(@RequestParam String fileName,
+                                                 @RequestParam(defaultValue = "sentiment") String task,
+                                                 @RequestParam(defaultValue = "shift-reduce") String parser,
+                                                 @RequestParam(defaultValue = "50") int limit) {
+        try {
+            ParserBenchmark.Task benchmarkTask = ParserBenchmark.Task.valueOf(task.trim().toUpperCase(Locale.ROOT));
+            ParserModel candidate = ParserModel.of(parser);
+            return ResponseEntity.ok(parserBenchmark.run(benchmarkTask, candidate, Path.of(UPLOAD_DIR, fileName), Math.max(0, limit)));
+        } catch (NoSuchFileException e) {
+            return ResponseEntity.status(404).body(Map.of("error", "Archivo no encontrado: " + fileName));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.status(500).body(Map.of("error", e.getMessage()));
+        }
+    }
+}
@@ -3,6 +3,13 @@ package com.mapicallo.capture_data_service.api;
 import com.google.gson.Gson;
 import com.mapicallo.capture_data_service.application.OpenSearchService;
 import com.mapicallo.capture_data_service.application.TextAnonymizerService;
+import com.mapicallo.capture_data_service.application.TieredAnonymizer;
+import com.mapicallo.capture_data_service.application.clustering.TermWeighting;
+import com.mapicallo.capture_data_service.application.entities.EntityIndex;
+import com.mapicallo.capture_data_service.application.nlp.Deadline;
+import com.mapicallo.capture_data_service.application.nlp.Degradation;
+import com.mapicallo.capture_data_service.application.similarity.SimilarityIndex;
+import com.mapicallo.capture_data_service.application.triples.TripleStore;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -13,9 +20,11 @@ import com.google.gson.reflect.TypeToken;
 import java.io.*;
 import java.lang.reflect.Type;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.time.Instant;
 import java.util.*;
+import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/v1/opensearch")
@@ -27,6 +36,18 @@ public class OpenSearchController {
     @Autowired
     private TextAnonymizerService textAnonymizerService;
 
+    @Autowired
+    private TieredAnonymizer tieredAnonymizer;
+
+    @Autowired
+    private SimilarityIndex similarityIndex;
+
+    @Autowired
+    private TripleStore tripleStore;
+
+    @Autowired
+    private EntityIndex entityIndex;
+
     private static final String UPLOAD_DIR = "C:/uploaded_files/";
 
     // ================================
@@ -140,16 +161,21 @@ public class OpenSearchController {
      */
     @Tag(name = "Data Processing")
     @PostMapping("/extract-triples")
-    @Operation(summary = "ESemantic triple extraction service (subject–relation–object)", description = "Extracts structured knowledge in the form of triples (subject, relation, object) from natural language text.")
-    public ResponseEntity<String> extractTriples(@RequestParam String fileName) {
+    @Operation(summary = "ESemantic triple extraction service (subject–relation–object)", description = "Extracts structured knowledge in the form of triples (subject, relation, object) from natural language text. With collapse=true, near-duplicate documents (MinHash/LSH) are processed once and receive the representative's result. Each document has a time budget (nlp.budget.document-ms) and deadlineMs bounds the whole request; documents that run out are annotated without parse/coref/kbp (no triples) and listed in the X-Timed-Out-Documents header, as are documents with sentences longer than the parser limit (nlp.budget.parse-maxlen), which yield no triples. With prefilter (default nlp.triples.prefilter.enabled), a cheap NER pass keeps only sentences with enough entity mentions for a relation; X-Sentences and X-Filtered-Sentences report how many were analyzed and skipped.")
+    public ResponseEntity<String> extractTriples(@RequestParam String fileName,
+                                                 @RequestParam(defaultValue = "false") boolean collapse,
+                                                 @RequestParam(required = false) Long deadlineMs,
+                                                 @RequestParam(required = false) Boolean prefilter) {
         try {
-            String json = openSearchService.extractTriplesFromFile(fileName);
+            Deadline deadline = Deadline.afterMillis(deadlineMs);
+            OpenSearchService.TripleExtraction extraction = prefilter == null
+                    ? openSearchService.extractTriplesFromFile(fileName, collapse, deadline)
+                    : openSearchService.extractTriplesFromFile(fileName, collapse, deadline, prefilter);
+            String json = extraction.json();
 
 
             try {
-                Gson gson = new Gson();
-                Type type = new TypeToken<List<Map<String, Object>>>() {}.getType();
-                List<Map<String, Object>> triples = gson.fromJson(json, type);
+                List<Map<String, Object>> triples = extraction.triples();
 
                 String indexName = "result-extract-triples-" + fileName.replaceAll("\\W+", "-").toLowerCase();
                 for (Map<String, Object> triple : triples) {
@@ -160,7 +186,13 @@ public class OpenSearchController {
 
             }
 
-            return ResponseEntity.ok(json);
+            ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                    .header("X-Sentences", String.valueOf(extraction.sentences()))
+                    .header("X-Filtered-Sentences", String.valueOf(extraction.filteredSentences()));
+            if (!extraction.timedOut().isEmpty()) {
+                response.header("X-Timed-Out-Documents", extraction.timedOut().stream().map(String::valueOf).collect(Collectors.joining(",")));
+            }
+            return response.body(json);
         } catch (Exception e) {
             return ResponseEntity.status(500).body("{\"error\": \"" + e.getMessage() + "\"}");
         }
@@ -169,12 +201,12 @@ public class OpenSearchController {
 
     /**
      * Generación de resúmenes estadísticos sobre datasets grandes (CSV).
-     * Aplica media, desviación típica, etc. por campo.
+     * Aplica media, desviación típica, mediana, percentiles, etc. por campo, en una sola lectura del fichero.
      */
     @Tag(name = "Data Processing")
     @Operation(
             summary = "Big data statistical summary service",
-            description = "Computes basic statistical metrics (mean, std. deviation, min, max) for numerical fields in CSV datasets."
+            description = "Computes statistical metrics for numerical fields in CSV datasets in a single streaming pass with memory independent of the number of rows: count, mean, std. deviation, min and max (exact), and median, p95 and p99 from a KLL quantile sketch. 'quantile_rank_error' is the sketch's rank error bound (fraction of the values, 99% confidence); 0 means the quantiles are exact."
     )
     @PostMapping("/bigdata/summary")
     public ResponseEntity<String> summarizeBigData(@RequestParam String fileName) {
@@ -210,13 +242,17 @@ public class OpenSearchController {
 
 
     /**
-     * Resumen de texto clínico o narrativo usando NLP generativo.
-     * Emplea modelos preentrenados tipo BART o T5.
+     * Resumen extractivo de texto clínico o narrativo: las frases con mayor puntuación por frecuencia
+     * de términos, en su orden original. {@code sentences} fija la longitud del resumen (3 por defecto).
      */
     @Tag(name = "Data Processing")
-    @Operation(summary = "Text summarization service", description = "Generates a concise summary from a JSON file containing medical or clinical descriptions.")
+    @Operation(summary = "Text summarization service", description = "Generates a concise summary from a JSON file containing medical or clinical descriptions. 'sentences' sets the summary length (default 3).")
     @PostMapping("/ai/summarize")
-    public ResponseEntity<Object> summarizeAI(@RequestParam String fileName) {
+    public ResponseEntity<Object> summarizeAI(@RequestParam String fileName,
+                                              @RequestParam(defaultValue = "3") int sentences) {
+        if (sentences < 1) {
+            return ResponseEntity.badRequest().body(Map.of("error", "El parámetro sentences debe ser mayor que 0"));
+        }
         try {
             Path filePath = Path.of(UPLOAD_DIR, fileName);
             String content = Files.readString(filePath);
@@ -230,7 +266,7 @@ public class OpenSearchController {
 
             for (Map<String, Object> entry : entries) {
                 String description = (String) entry.get("description");
-                Map<String, Object> summaryResult = openSearchService.summarizeText(description);
+                Map<String, Object> summaryResult = openSearchService.summarizeText(description, sentences);
 
                 Map<String, Object> enriched = new HashMap<>();
                 enriched.put("id", entry.get("id"));
@@ -296,8 +332,20 @@ public class OpenSearchController {
      */
     @Tag(name = "Data Processing")
     @PostMapping("/keyword-extract")
-    @Operation(summary = "Keyword extraction service from text", description = "Extracts the most relevant keywords from input text based on term frequency filtering.")
-    public ResponseEntity<Object> extractKeywords(@RequestParam String fileName) {
+    @Operation(summary = "Keyword extraction service from text", description = "Extracts the most relevant keywords from input text based on term frequency filtering, or on TF-IDF (BM25) weights against the corpus of uploaded documents when mode=tfidf.")
+    public ResponseEntity<Object> extractKeywords(@RequestParam String fileName,
+                                                  @RequestParam(defaultValue = "frequency") String mode,
+                                                  @RequestParam(defaultValue = "10") int top) {
+        OpenSearchService.KeywordMode keywordMode;
+        try {
+            keywordMode = OpenSearchService.KeywordMode.fromName(mode);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+        if (top < 1) {
+            return ResponseEntity.badRequest().body(Map.of("error", "El parámetro top debe ser mayor que 0"));
+        }
+
         try {
             File file = new File(UPLOAD_DIR + fileName);
             if (!file.exists()) {
@@ -317,11 +365,21 @@ public class OpenSearchController {
             List<Map<String, Object>> indexedDocs = new ArrayList<>();
             String indexName = "result-keyword-extract-" + fileName.replaceAll("\\W+", "-").toLowerCase();
 
+            if (keywordMode == OpenSearchService.KeywordMode.TFIDF) {
+                // el propio fichero forma parte del corpus (los documentos ya contados no se repiten)
+                List<String> texts = new ArrayList<>();
+                for (Map<String, Object> doc : inputDocs) {
+                    String text = (String) doc.getOrDefault("description", doc.get("text"));
+                    if (text != null && !text.isBlank()) texts.add(text);
+                }
+                openSearchService.addToKeywordCorpus(texts);
+            }
+
             for (Map<String, Object> doc : inputDocs) {
                 String text = (String) doc.getOrDefault("description", doc.get("text"));
                 if (text == null || text.isBlank()) continue;
 
-                List<String> keywords = openSearchService.extractKeywords(text);
+                List<String> keywords = openSearchService.extractKeywords(text, keywordMode, top);
 
                 Map<String, Object> resultDoc = new LinkedHashMap<>();
                 resultDoc.put("id", doc.get("id"));
@@ -354,7 +412,11 @@ public class OpenSearchController {
     @Tag(name = "Data Processing")
     @Operation(summary = "Text anonymization service", description = "Automatically removes or masks personal, clinical, or institutional identifiers from free-text documents.")
     @PostMapping("/anonymize-text")
-    public ResponseEntity<Map<String, Object>> anonymizeText(@RequestParam String fileName) {
+    public ResponseEntity<Map<String, Object>> anonymizeText(@RequestParam String fileName,
+                                                             @RequestParam(defaultValue = "ner") String mode) {
+        if (!mode.equalsIgnoreCase("ner") && !mode.equalsIgnoreCase("tiered")) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Modo no válido: " + mode + " (ner o tiered)"));
+        }
         try {
             File file = new File(UPLOAD_DIR + fileName);
             if (!file.exists()) {
@@ -372,14 +434,30 @@ public class OpenSearchController {
             }
 
             List<Map<String, Object>> results = new ArrayList<>();
-            TextAnonymizerService anonymizer = new TextAnonymizerService();
             String indexName = "result-anonymize-text-" + fileName.replaceAll("\\W+", "-").toLowerCase();
 
+            // Anonimización en paralelo sobre el pool de pipelines NER, conservando el orden
+            List<Map<String, Object>> textDocuments = new ArrayList<>();
+            List<String> originals = new ArrayList<>();
             for (Map<String, Object> doc : documents) {
                 String original = (String) doc.get("text");
                 if (original == null) continue;
+                textDocuments.add(doc);
+                originals.add(original);
+            }
+            TieredAnonymizer.TieredResult tiered = null;
+            List<String> anonymizedTexts;
+            if (mode.equalsIgnoreCase("tiered")) {
+                // reglas y diccionario primero; NER solo en frases con candidatos en mayúscula
+                tiered = tieredAnonymizer.anonymizeAll(originals);
+                anonymizedTexts = tiered.texts();
+            } else {
+                anonymizedTexts = textAnonymizerService.anonymizeAll(originals);
+            }
 
-                String anonymized = anonymizer.anonymizeTextFromFileContent(original);
+            for (int i = 0; i < textDocuments.size(); i++) {
+                Map<String, Object> doc = textDocuments.get(i);
+                String anonymized = anonymizedTexts.get(i);
 
                 Map<String, Object> resultDoc = new HashMap<>();
                 resultDoc.put("id", doc.get("id"));
@@ -396,11 +474,16 @@ public class OpenSearchController {
                 results.add(resultDoc);
             }
 
-            return ResponseEntity.ok(Map.of(
-                    "file", fileName,
-                    "documents_indexed", results.size(),
-                    "anonymized_documents", results
-            ));
+            Map<String, Object> response = new LinkedHashMap<>();
+            response.put("file", fileName);
+            response.put("documents_indexed", results.size());
+            response.put("anonymized_documents", results);
+            if (tiered != null) {
+                response.put("replacements_by_tier", tiered.replacementsByTier());
+                response.put("sentences_without_ner", tiered.sentencesWithoutNer());
+                response.put("sentences_with_ner", tiered.sentencesWithNer());
+            }
+            return ResponseEntity.ok(response);
 
         } catch (IOException e) {
             return ResponseEntity.status(500).body(Map.of("error", "No se pudo leer o procesar el archivo: " + e.getMessage()));
@@ -410,14 +493,29 @@ public class OpenSearchController {
 
     /**
      * Agrupa documentos en clusters temáticos basados en contenido textual.
-     * Aplica KMeans o clustering jerárquico.
+     * Aplica K-Means esférico (similitud coseno) sobre vectores dispersos TF o TF-IDF.
      */
     @Tag(name = "Data Processing")
-    @Operation(summary = "Thematic text clustering service", description = "Groups similar text entries into clusters based on shared vocabulary and term frequency (TF).")
+    @Operation(summary = "Thematic text clustering service", description = "Groups similar text entries into k clusters (default 2) by cosine similarity of their sparse term vectors. 'weighting' is tf (default) or tfidf; 'maxIterations' bounds the K-means iterations. With 'model', the centroids, vocabulary and IDF are saved under that name for /clustering/assign.")
     @PostMapping("/clustering")
-    public ResponseEntity<Object> clusterData(@RequestParam String fileName) {
+    public ResponseEntity<Object> clusterData(@RequestParam String fileName,
+                                              @RequestParam(defaultValue = "2") int k,
+                                              @RequestParam(defaultValue = "100") int maxIterations,
+                                              @RequestParam(defaultValue = "tf") String weighting,
+                                              @RequestParam(required = false) String model) {
+        TermWeighting termWeighting;
         try {
-            Map<Integer, List<Map<String, Object>>> clusters = openSearchService.clusterDocumentsFromFile(fileName);
+            termWeighting = TermWeighting.fromName(weighting);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+        if (k < 1 || maxIterations < 1) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Los parámetros k y maxIterations deben ser mayores que 0"));
+        }
+        try {
+            OpenSearchService.DocumentClusters result =
+                    openSearchService.clusterDocumentsFromFile(fileName, k, maxIterations, termWeighting, model);
+            Map<Integer, List<Map<String, Object>>> clusters = result.clusters();
 
             List<Map<String, Object>> indexedDocs = new ArrayList<>();
             String indexName = "result-clustering-" + fileName.replaceAll("\\W+", "-").toLowerCase();
@@ -442,10 +540,57 @@ public class OpenSearchController {
             Map<String, Object> response = new LinkedHashMap<>();
             response.put("file", fileName);
             response.put("documents_indexed", indexedDocs.size());
+            response.put("k", k);
+            response.put("iterations", result.iterations());
+            response.put("converged", result.converged());
+            if (model != null) response.put("model", model);
             response.put("clusters", clusters);
 
             return ResponseEntity.ok(response);
 
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.status(500).body(Map.of("error", e.getMessage()));
+        }
+    }
+
+
+    /**
+     * Asigna los documentos de un archivo a los clústeres de un modelo guardado por /clustering,
+     * sin volver a agrupar el histórico. Con {@code update=true} los centroides se ajustan con el lote.
+     */
+    @Tag(name = "Data Processing")
+    @Operation(summary = "Assign documents to a saved clustering model", description = "Labels each text entry with the nearest centroid (cosine) of a model saved by /clustering?model=... Terms outside the model vocabulary are ignored (cluster_id -1 if none is known). With update=true the centroids are moved towards the new documents (mini-batch K-means) and the model is saved again.")
+    @PostMapping("/clustering/assign")
+    public ResponseEntity<Object> assignClusters(@RequestParam String fileName,
+                                                 @RequestParam String model,
+                                                 @RequestParam(defaultValue = "false") boolean update) {
+        try {
+            List<Map<String, Object>> results = openSearchService.assignDocumentsFromFile(fileName, model, update);
+
+            String indexName = "result-clustering-assign-" + fileName.replaceAll("\\W+", "-").toLowerCase();
+            for (Map<String, Object> doc : results) {
+                doc.put("model", model);
+                doc.put("source_endpoint", "clustering/assign");
+                doc.putIfAbsent("timestamp", Instant.now().toString());
+                try {
+                    openSearchService.indexGeneric(indexName, doc);
+                } catch (Exception ex) {
+                    System.err.println("[OpenSearch] Fallo indexando asignación de cluster: " + ex.getMessage());
+                }
+            }
+
+            Map<String, Object> response = new LinkedHashMap<>();
+            response.put("file", fileName);
+            response.put("model", model);
+            response.put("updated", update);
+            response.put("documents", results.size());
+            response.put("results", results);
+            return ResponseEntity.ok(response);
+
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
         } catch (Exception e) {
             return ResponseEntity.status(500).body(Map.of("error", e.getMessage()));
         }
@@ -457,11 +602,13 @@ public class OpenSearchController {
      * Útil para ver evolución emocional en informes.
      */
     @Tag(name = "Data Processing")
-    @Operation(summary = "Sentiment analysis service for clinical text",description = "Evaluates the sentiment of each sentence in a clinical report and computes an overall emotional tone.")
+    @Operation(summary = "Sentiment analysis service for clinical text",description = "Evaluates the sentiment of each sentence in a clinical report and computes an overall emotional tone. With collapse=true, near-duplicate documents (MinHash/LSH) are processed once and receive the representative's result. Sentences that exceed the per-document time budget, the request deadline (deadlineMs) or the parser length limit (nlp.budget.parse-maxlen) are left out; each result carries its degradation level and 'timed_out' lists the affected documents.")
     @PostMapping("/sentiment-analysis")
-    public ResponseEntity<Object> sentimentAnalysis(@RequestParam String fileName) {
+    public ResponseEntity<Object> sentimentAnalysis(@RequestParam String fileName,
+                                                    @RequestParam(defaultValue = "false") boolean collapse,
+                                                    @RequestParam(required = false) Long deadlineMs) {
         try {
-            List<Map<String, Object>> results = openSearchService.analyzeSentimentFromFile(fileName);
+            List<Map<String, Object>> results = openSearchService.analyzeSentimentFromFile(fileName, collapse, Deadline.afterMillis(deadlineMs));
 
             String indexName = "result-sentiment-" + fileName.replaceAll("\\W+", "-").toLowerCase();
             int count = 0;
@@ -478,6 +625,7 @@ public class OpenSearchController {
             return ResponseEntity.ok(Map.of(
                     "file", fileName,
                     "documents_indexed", count,
+                    "timed_out", timedOutIds(results),
                     "results", results  // <--- todos los resultados
             ));
         } catch (Exception e) {
@@ -491,11 +639,12 @@ public class OpenSearchController {
      * Usa modelos tipo spaCy o Med7.
      */
     @Tag(name = "Data Processing")
-    @Operation(summary = "Named entity recognition (NER) service",description = "Identifies and classifies named entities such as people, organizations, dates, or places in clinical text.")
+    @Operation(summary = "Named entity recognition (NER) service",description = "Identifies and classifies named entities such as people, organizations, dates, or places in clinical text. With collapse=true, near-duplicate documents (MinHash/LSH) are processed once and receive the representative's result.")
     @PostMapping("/entity-recognition")
-    public ResponseEntity<Map<String, Object>> recognizeEntities(@RequestParam String fileName) {
+    public ResponseEntity<Map<String, Object>> recognizeEntities(@RequestParam String fileName,
+                                                                 @RequestParam(defaultValue = "false") boolean collapse) {
         try {
-            List<Map<String, Object>> results = openSearchService.recognizeEntitiesFromJsonFile(fileName);
+            List<Map<String, Object>> results = openSearchService.recognizeEntitiesFromJsonFile(fileName, collapse);
             String indexName = "result-entities-" + fileName.replaceAll("\\W+", "-").toLowerCase();
 
             int count = 0;
@@ -519,6 +668,265 @@ public class OpenSearchController {
     }
 
 
+    /**
+     * Análisis combinado en una sola pasada: entidades, palabras clave, segmentos, anonimización y sentimiento.
+     * Cada documento se anota una única vez y todos los resultados se derivan de esa anotación.
+     */
+    @Tag(name = "Data Processing")
+    @Operation(summary = "Single-pass combined NLP analysis", description = "Annotates each document once and derives entities, segments and anonymization from the same annotation; keywords and sentiment are computed as in their own endpoints (lowercased keyword pass, per-sentence cached sentiment), so every output matches the individual endpoint. With collapse=true, near-duplicate documents (MinHash/LSH) are processed once and receive the representative's result, except anonymized_text, which is always computed from the document's own text. Documents that exceed the per-document time budget or the request deadline (deadlineMs) are skipped, and sentences that run out of time or exceed the parser limit (nlp.budget.parse-maxlen) are left out of the sentiment (degradation 'reduced'); each result carries its degradation level and 'timed_out' lists the affected documents.")
+    @PostMapping("/analyze-all")
+    public ResponseEntity<Object> analyzeAll(@RequestParam String fileName,
+                                            @RequestParam(required = false) List<String> outputs,
+                                            @RequestParam(defaultValue = "false") boolean collapse,
+                                            @RequestParam(required = false) Long deadlineMs) {
+        try {
+            Set<OpenSearchService.AnalysisOutput> requested = EnumSet.noneOf(OpenSearchService.AnalysisOutput.class);
+            if (outputs != null) {
+                for (String output : outputs) requested.add(OpenSearchService.AnalysisOutput.fromName(output));
+            }
+
+            List<Map<String, Object>> results = openSearchService.analyzeAllFromFile(fileName, requested, collapse, Deadline.afterMillis(deadlineMs));
+            String indexName = "result-analyze-all-" + fileName.replaceAll("\\W+", "-").toLowerCase();
+
+            int count = 0;
+            for (Map<String, Object> doc : results) {
+                try {
+                    openSearchService.indexGeneric(indexName, doc);
+                    count++;
+                } catch (Exception e) {
+                    System.err.println("[OpenSearch] Error indexando doc ID " + doc.get("id") + ": " + e.getMessage());
+                }
+            }
+
+            return ResponseEntity.ok(Map.of(
+                    "file", fileName,
+                    "documents_indexed", count,
+                    "timed_out", timedOutIds(results),
+                    "results", results
+            ));
+        } catch (FileNotFoundException e) {
+            return ResponseEntity.status(404).body(Map.of("error", e.getMessage()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Resultado no soportado: " + e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.status(500).body(Map.of("error", "Error procesando archivo: " + e.getMessage()));
+        }
+    }
+
+    // Ids de los resultados que no se anotaron completos por falta de tiempo.
+    private static List<Object> timedOutIds(List<Map<String, Object>> results) {
+        List<Object> ids = new ArrayList<>();
+        for (Map<String, Object> result : results) {
+            if (!Degradation.NONE.tag().equals(result.get("degradation"))) ids.add(result.get("id"));
+        }
+        return ids;
+    }
+
+
+    /**
+     * Documentos indexados más parecidos a un texto (vecinos aproximados sobre vectores TF-IDF).
+     * Los ficheros JSON subidos se indexan automáticamente; /similar/index añade uno ya subido.
+     */
+    @Tag(name = "Data Processing")
+    @Operation(summary = "Similar documents search", description = "Returns the keys (<fileName>#<id>, or <fileName>#<position> for entries without id, as in /entities/documents) of the k indexed documents most similar (TF-IDF cosine, approximate HNSW search) to the given text, with their scores. Uploaded JSON files are indexed automatically. 'ef' trades speed for recall (default nlp.similarity.ef-search).")
+    @PostMapping("/similar")
+    public ResponseEntity<Object> similarDocuments(@RequestParam String text,
+                                                   @RequestParam(defaultValue = "10") int k,
+                                                   @RequestParam(defaultValue = "0") int ef) {
+        if (k < 1 || ef < 0) {
+            return ResponseEntity.badRequest().body(Map.of("error", "El parámetro k debe ser mayor que 0 y ef no puede ser negativo"));
+        }
+        long start = System.nanoTime();
+        List<SimilarityIndex.Match> matches = similarityIndex.search(text, k, ef);
+        double tookMs = (System.nanoTime() - start) / 1_000_000.0;
+
+        List<Map<String, Object>> results = new ArrayList<>(matches.size());
+        for (SimilarityIndex.Match match : matches) {
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("id", match.id());
+            result.put("score", match.score());
+            results.add(result);
+        }
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("indexed_documents", similarityIndex.size());
+        response.put("took_ms", tookMs);
+        response.put("results", results);
+        return ResponseEntity.ok(response);
+    }
+
+
+    /**
+     * Añade al índice de documentos similares un archivo JSON ya subido (campo "text" e "id").
+     */
+    @Tag(name = "Data Processing")
+    @Operation(summary = "Add a file to the similar documents index", description = "Indexes the text entries of an uploaded JSON file for /similar. Texts already indexed are skipped. The index is snapshotted to local disk in the background.")
+    @PostMapping("/similar/index")
+    public ResponseEntity<Object> indexSimilarDocuments(@RequestParam String fileName) {
+        try {
+            int added = similarityIndex.addFile(Path.of(UPLOAD_DIR, fileName));
+            return ResponseEntity.ok(Map.of(
+                    "file", fileName,
+                    "documents_added", added,
+                    "indexed_documents", similarityIndex.size()
+            ));
+        } catch (NoSuchFileException e) {
+            return ResponseEntity.status(404).body(Map.of("error", "Archivo no encontrado: " + fileName));
+        } catch (Exception e) {
+            return ResponseEntity.status(500).body(Map.of("error", e.getMessage()));
+        }
+    }
+
+
+    /**
+     * Consulta por patrón del almacén de tripletas: cada término es fijo o comodín ("*" u omitido).
+     * Las tripletas se añaden al almacén con cada llamada a /extract-triples.
+     */
+    @Tag(name = "Data Processing")
+    @Operation(summary = "Triple pattern query", description = "Looks up the in-memory triple store filled by /extract-triples. Each of subject, relation and object is a fixed term (case-insensitive) or a wildcard ('*' or omitted), e.g. ?subject=paciente&relation=*. Triples are deduplicated across files; 'confidence' combines the confidence of every source document and 'sources' counts them. Returns at most 'limit' triples plus the total number of matches.")
+    @GetMapping("/triples")
+    public ResponseEntity<Object> queryTriples(@RequestParam(required = false) String subject,
+                                               @RequestParam(required = false) String relation,
+                                               @RequestParam(required = false) String object,
+                                               @RequestParam(defaultValue = "100") int limit) {
+        if (limit < 1) {
+            return ResponseEntity.badRequest().body(Map.of("error", "El parámetro limit debe ser mayor que 0"));
+        }
+        long start = System.nanoTime();
+        List<TripleStore.Match> matches = tripleStore.match(subject, relation, object, limit);
+        int total = tripleStore.count(subject, relation, object);
+        double tookMicros = (System.nanoTime() - start) / 1_000.0;
+
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("stored_triples", tripleStore.size());
+        response.put("total", total);
+        response.put("took_us", tookMicros);
+        response.put("results", matches);
+        return ResponseEntity.ok(response);
+    }
+
+
+    /**
+     * Vecindario a un salto de un término en el almacén de tripletas: relaciones salientes y entrantes.
+     */
+    @Tag(name = "Data Processing")
+    @Operation(summary = "Triple neighbourhood query", description = "Returns the triples of the in-memory triple store where 'entity' is the subject (outgoing) or the object (incoming), at most 'limit' of each.")
+    @GetMapping("/triples/neighbours")
+    public ResponseEntity<Object> tripleNeighbours(@RequestParam String entity,
+                                                   @RequestParam(defaultValue = "100") int limit) {
+        if (limit < 1) {
+            return ResponseEntity.badRequest().body(Map.of("error", "El parámetro limit debe ser mayor que 0"));
+        }
+        long start = System.nanoTime();
+        TripleStore.Neighbourhood neighbourhood = tripleStore.neighbourhood(entity, limit);
+        double tookMicros = (System.nanoTime() - start) / 1_000.0;
+
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("entity", neighbourhood.entity());
+        response.put("took_us", tookMicros);
+        response.put("outgoing", neighbourhood.outgoing());
+        response.put("incoming", neighbourhood.incoming());
+        return ResponseEntity.ok(response);
+    }
+
+
+    /**
+     * Documentos en los que aparecen las entidades indicadas (todas con mode=and, alguna con mode=or).
+     * El índice se alimenta con /entity-recognition y con /analyze-all cuando se piden entidades.
+     */
+    @Tag(name = "Data Processing")
+    @Operation(summary = "Entity document lookup", description = "Looks up the in-memory entity index filled by /entity-recognition and /analyze-all. Each 'entity' is 'TYPE:text' (e.g. PERSON:Pérez) or plain text matching any type, case-insensitive. mode=and returns the documents containing every entity, mode=or those containing any. Documents are identified as 'fileName#id'. Returns at most 'limit' documents plus the total number of matches and, for each entity, its posting list size.")
+    @GetMapping("/entities/documents")
+    public ResponseEntity<Object> entityDocuments(@RequestParam List<String> entity,
+                                                  @RequestParam(defaultValue = "and") String mode,
+                                                  @RequestParam(defaultValue = "100") int limit) {
+        if (limit < 1) {
+            return ResponseEntity.badRequest().body(Map.of("error", "El parámetro limit debe ser mayor que 0"));
+        }
+        if (!mode.equalsIgnoreCase("and") && !mode.equalsIgnoreCase("or")) {
+            return ResponseEntity.badRequest().body(Map.of("error", "El parámetro mode debe ser 'and' u 'or'"));
+        }
+        long start = System.nanoTime();
+        EntityIndex.DocumentMatches matches = entityIndex.documents(entity, mode.equalsIgnoreCase("and"), limit);
+        double tookMicros = (System.nanoTime() - start) / 1_000.0;
+
+        Map<String, Object> lookups = new LinkedHashMap<>();
+        for (String e : entity) lookups.put(e, entityIndex.lookup(e));
+
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("indexed_documents", entityIndex.documentCount());
+        response.put("indexed_entities", entityIndex.entityCount());
+        response.put("entities", lookups);
+        response.put("total", matches.total());
+        response.put("took_us", tookMicros);
+        response.put("documents", matches.documents());
+        return ResponseEntity.ok(response);
+    }
+
+
+    /**
+     * Entidades que aparecen en más documentos junto con la indicada.
+     */
+    @Tag(name = "Data Processing")
+    @Operation(summary = "Co-occurring entities", description = "Returns the 'k' entities of the in-memory entity index that share the most documents with 'entity' ('TYPE:text' or plain text), with the number of shared documents.")
+    @GetMapping("/entities/co-occurring")
+    public ResponseEntity<Object> coOccurringEntities(@RequestParam String entity,
+                                                      @RequestParam(defaultValue = "10") int k) {
+        if (k < 1) {
+            return ResponseEntity.badRequest().body(Map.of("error", "El parámetro k debe ser mayor que 0"));
+        }
+        long start = System.nanoTime();
+        List<EntityIndex.CoOccurrence> coOccurring = entityIndex.coOccurring(entity, k);
+        double tookMicros = (System.nanoTime() - start) / 1_000.0;
+
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("entity", entity);
+        response.put("matches", entityIndex.lookup(entity));
+        response.put("took_us", tookMicros);
+        response.put("co_occurring", coOccurring);
+        return ResponseEntity.ok(response);
+    }
+
+
+    /**
+     * Detección de documentos casi duplicados (MinHash sobre shingles de palabras + LSH).
+     * Útil para saber cuánto trabajo ahorra {@code collapse=true} en los endpoints de NLP.
+     */
+    @Tag(name = "Data Processing")
+    @Operation(summary = "Near-duplicate detection service", description = "Groups text entries whose word-shingle Jaccard similarity is at least 'threshold' (default nlp.dedup.threshold) using MinHash signatures and LSH buckets, verified with the exact similarity.")
+    @PostMapping("/near-duplicates")
+    public ResponseEntity<Object> nearDuplicates(@RequestParam String fileName,
+                                                 @RequestParam(required = false) Double threshold) {
+        try {
+            Map<String, Object> result = openSearchService.findNearDuplicatesFromFile(fileName, threshold);
+
+            String indexName = "result-near-duplicates-" + fileName.replaceAll("\\W+", "-").toLowerCase();
+            try {
+                @SuppressWarnings("unchecked")
+                List<Map<String, Object>> groups = (List<Map<String, Object>>) result.get("groups");
+                for (Map<String, Object> group : groups) {
+                    Map<String, Object> doc = new LinkedHashMap<>(group);
+                    doc.put("source_endpoint", "near-duplicates");
+                    doc.put("timestamp", Instant.now().toString());
+                    openSearchService.indexGeneric(indexName, doc);
+                }
+            } catch (Exception e) {
+                System.err.println("[OpenSearch] No se pudieron indexar los grupos de duplicados: " + e.getMessage());
+            }
+
+            Map<String, Object> response = new LinkedHashMap<>();
+            response.put("file", fileName);
+            response.putAll(result);
+            return ResponseEntity.ok(response);
+        } catch (FileNotFoundException e) {
+            return ResponseEntity.status(404).body(Map.of("error", e.getMessage()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.status(500).body(Map.of("error", "Error procesando archivo: " + e.getMessage()));
+        }
+    }
+
+
     /**
      * Divide un texto clínico en segmentos temáticos: síntomas, antecedentes, tratamiento, etc.
      * Útil para análisis estructurado de informes médicos.
@@ -1,8 +1,10 @@
 package com.mapicallo.capture_data_service.api;
 
 
+import com.mapicallo.capture_data_service.application.nlp.NlpWarmupService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -14,10 +16,16 @@ import org.springframework.web.bind.annotation.RestController;
 @Tag(name = "Health Check", description = "Endpoints for health checking")
 public class isAlive {
 
-    @Operation(summary = "Check if the service is alive", description = "Returns 200 OK if the service is running")
+    @Autowired
+    private NlpWarmupService warmupService;
+
+    @Operation(summary = "Check if the service is alive", description = "Returns 200 OK if the service is running and its NLP models are warmed up, 503 while they are still loading")
     @GetMapping("/isAlive")
     public ResponseEntity<String> isAlive(){
 
+        if (!warmupService.isReady()) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body("Service is warming up NLP models");
+        }
         return ResponseEntity.status(HttpStatus.OK).body("Service is running");
     }
 
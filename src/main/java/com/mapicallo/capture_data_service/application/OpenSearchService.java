@@ -4,6 +4,34 @@ import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import com.google.gson.reflect.TypeToken;
 import com.google.gson.stream.JsonReader;
+import com.mapicallo.capture_data_service.application.clustering.CentroidModel;
+import com.mapicallo.capture_data_service.application.clustering.CentroidModelStore;
+import com.mapicallo.capture_data_service.application.clustering.DocumentVectorizer;
+import com.mapicallo.capture_data_service.application.clustering.SparseVectors;
+import com.mapicallo.capture_data_service.application.clustering.SphericalKMeans;
+import com.mapicallo.capture_data_service.application.clustering.TermWeighting;
+import com.mapicallo.capture_data_service.application.dedup.DuplicateGroups;
+import com.mapicallo.capture_data_service.application.dedup.NearDuplicateDetector;
+import com.mapicallo.capture_data_service.application.entities.EntityIndex;
+import com.mapicallo.capture_data_service.application.nlp.BudgetedAnnotator;
+import com.mapicallo.capture_data_service.application.nlp.Deadline;
+import com.mapicallo.capture_data_service.application.nlp.Degradation;
+import com.mapicallo.capture_data_service.application.nlp.NlpProfile;
+import com.mapicallo.capture_data_service.application.nlp.ParallelAnnotator;
+import com.mapicallo.capture_data_service.application.nlp.ParserSelection;
+import com.mapicallo.capture_data_service.application.nlp.SentenceSentimentMemo;
+import com.mapicallo.capture_data_service.application.nlp.TripleCandidateFilter;
+import com.mapicallo.capture_data_service.application.triples.TripleStore;
+import com.mapicallo.capture_data_service.application.numeric.ColumnStatistics;
+import com.mapicallo.capture_data_service.application.numeric.ColumnSummarizer;
+import com.mapicallo.capture_data_service.application.numeric.KllSketch;
+import com.mapicallo.capture_data_service.application.numeric.RunningMoments;
+import com.mapicallo.capture_data_service.application.storage.DocumentKey;
+import com.mapicallo.capture_data_service.application.text.BagOfWords;
+import com.mapicallo.capture_data_service.application.text.ExtractiveSummarizer;
+import com.mapicallo.capture_data_service.application.text.KeywordExtractor;
+import com.mapicallo.capture_data_service.application.text.SegmentationEngine;
+import com.mapicallo.capture_data_service.application.text.TermDictionary;
 import com.opencsv.CSVReader;
 import com.opencsv.exceptions.CsvValidationException;
 import edu.stanford.nlp.ie.util.RelationTriple;
@@ -12,9 +40,6 @@ import edu.stanford.nlp.ling.CoreLabel;
 import edu.stanford.nlp.pipeline.*;
 import edu.stanford.nlp.util.CoreMap;
 import jakarta.annotation.PostConstruct;
-import org.apache.commons.math3.ml.clustering.CentroidCluster;
-import org.apache.commons.math3.ml.clustering.Clusterable;
-import org.apache.commons.math3.ml.clustering.KMeansPlusPlusClusterer;
 import org.apache.commons.math3.stat.regression.SimpleRegression;
 import org.opensearch.action.admin.indices.delete.DeleteIndexRequest;
 import org.opensearch.action.index.IndexRequest;
@@ -44,9 +69,6 @@ public class OpenSearchService {
     //carpeta donde se alojan los ficheros subidos por el usuario.
     private static final String UPLOAD_DIR = "C:/uploaded_files/";
 
-    // pipeline para análisis de sentimiento con CoreNLP.
-    private StanfordCoreNLP sentimentPipeline;
-
     //cliente oficial de OpenSearch para operaciones CRUD.
     @Autowired
     private RestHighLevelClient restHighLevelClient;
@@ -54,6 +76,62 @@ public class OpenSearchService {
     @Autowired
     private TextAnonymizerService textAnonymizerService;
 
+    // anotación paralela de listas de documentos sobre el pool de pipelines.
+    @Autowired
+    private ParallelAnnotator parallelAnnotator;
+
+    // palabras clave por frecuencia o TF-IDF sobre el corpus
+    @Autowired
+    private KeywordExtractor keywordExtractor;
+
+    // segmentación por diccionario de palabras clave (Aho-Corasick)
+    @Autowired
+    private SegmentationEngine segmentationEngine;
+
+    // etiquetas de sentimiento memoizadas por frase
+    @Autowired
+    private SentenceSentimentMemo sentimentMemo;
+
+    // resumen extractivo con tokenizador por recorrido de caracteres
+    @Autowired
+    private ExtractiveSummarizer extractiveSummarizer;
+
+    // K-Means esférico sobre vectores dispersos (asignación en paralelo)
+    @Autowired
+    private SphericalKMeans sphericalKMeans;
+
+    // detección de casi duplicados (MinHash + LSH) para colapsar documentos antes de CoreNLP
+    @Autowired
+    private NearDuplicateDetector nearDuplicateDetector;
+
+    // modelos de centroides con nombre, para asignar documentos nuevos sin re-agrupar
+    @Autowired
+    private CentroidModelStore centroidModelStore;
+
+    // anotación con presupuesto de tiempo por documento y alternativa barata al agotarse
+    @Autowired
+    private BudgetedAnnotator budgetedAnnotator;
+
+    // parser configurado para los pipelines de sentimiento y tripletas
+    @Autowired
+    private ParserSelection parserSelection;
+
+    // primera etapa barata de la extracción de tripletas (frases candidatas)
+    @Autowired
+    private TripleCandidateFilter tripleCandidateFilter;
+
+    // almacén en memoria de las tripletas extraídas, con índices por sujeto, relación y objeto
+    @Autowired
+    private TripleStore tripleStore;
+
+    // índice invertido de entidades reconocidas a documentos
+    @Autowired
+    private EntityIndex entityIndex;
+
+    // estadísticos de columnas CSV en streaming (momentos y cuantiles aproximados)
+    @Autowired
+    private ColumnSummarizer columnSummarizer;
+
 
 
     // ================================
@@ -136,6 +214,26 @@ public class OpenSearchService {
      * @throws IOException si el archivo no se encuentra o no puede leerse correctamente.
      */
     public List<Map<String, Object>> analyzeSentimentFromFile(String fileName) throws IOException {
+        return analyzeSentimentFromFile(fileName, false);
+    }
+
+    /**
+     * Como {@link #analyzeSentimentFromFile(String)}; con {@code collapse} los casi duplicados
+     * ({@link NearDuplicateDetector}) se analizan una sola vez y reciben el resultado de su representante.
+     */
+    public List<Map<String, Object>> analyzeSentimentFromFile(String fileName, boolean collapse) throws IOException {
+        return analyzeSentimentFromFile(fileName, collapse, Deadline.NONE);
+    }
+
+    /**
+     * Como {@link #analyzeSentimentFromFile(String, boolean)}, sin pasar del límite de la petición.
+     * Cada frase tiene además el presupuesto por documento ({@link BudgetedAnnotator}); las que no
+     * se analizan a tiempo, o que pasan del límite de longitud del parser, no cuentan en el
+     * sentimiento, y cada resultado lleva en "degradation" si se analizaron todas sus frases ("none"),
+     * solo algunas ("reduced") o ninguna ("skipped").
+     */
+    public List<Map<String, Object>> analyzeSentimentFromFile(String fileName, boolean collapse,
+                                                              Deadline deadline) throws IOException {
         File file = new File(UPLOAD_DIR + fileName);
         if (!file.exists()) throw new FileNotFoundException("Archivo no encontrado: " + fileName);
 
@@ -145,32 +243,39 @@ public class OpenSearchService {
             documents = gson.fromJson(reader, new TypeToken<List<Map<String, Object>>>() {}.getType());
         }
 
+        List<Map<String, Object>> textDocuments = documentsWithText(documents);
+        List<String> texts = textsOf(textDocuments);
+        DuplicateGroups groups = duplicateGroups(texts, collapse);
+        List<List<String>> sentenceLabels = groups.expand(sentimentMemo.sentenceLabels(groups.select(texts), deadline));
+
         List<Map<String, Object>> results = new ArrayList<>();
 
-        for (Map<String, Object> doc : documents) {
+        for (int i = 0; i < textDocuments.size(); i++) {
+            Map<String, Object> doc = textDocuments.get(i);
             String text = (String) doc.get("text");
-            if (text == null || text.isBlank()) continue;
 
-            Map<String, Object> sentiment = analyzeTextSentiment(text);
+            Map<String, Object> sentiment = sentimentOf(sentenceLabels.get(i));
+            sentiment.put("degradation", degradationOf(sentenceLabels.get(i)).tag());
             sentiment.put("id", doc.get("id"));
             sentiment.put("timestamp", doc.get("timestamp"));
             sentiment.put("source_endpoint", doc.get("source_endpoint"));
             sentiment.put("original_text", text);
+            markDuplicate(sentiment, groups, textDocuments, i);
             results.add(sentiment);
         }
 
         return results;
     }
 
-    private Map<String, Object> analyzeTextSentiment(String text) {
-        // Inicialización lazy del pipeline si no está hecho
-        if (sentimentPipeline == null) {
-            Properties props = new Properties();
-            props.setProperty("annotators", "tokenize,ssplit,parse,sentiment");
-            props.setProperty("tokenize.language", "es");
-            sentimentPipeline = new StanfordCoreNLP(props);
-        }
+    // Frases sin etiqueta (null) por falta de tiempo: ninguna, algunas o todas.
+    private static Degradation degradationOf(List<String> sentenceLabels) {
+        long missing = sentenceLabels.stream().filter(Objects::isNull).count();
+        if (missing == 0) return Degradation.NONE;
+        return missing < sentenceLabels.size() ? Degradation.REDUCED : Degradation.SKIPPED;
+    }
 
+    // Distribución y media de sentimiento a partir de las etiquetas de cada frase (las null se ignoran).
+    private Map<String, Object> sentimentOf(List<String> sentenceLabels) {
         Map<String, Object> result = new HashMap<>();
         Map<String, Integer> sentimentCount = new HashMap<>(Map.of(
                 "Very Negative", 0,
@@ -181,11 +286,9 @@ public class OpenSearchService {
         ));
 
         List<Integer> scores = new ArrayList<>();
-        CoreDocument document = new CoreDocument(text);
-        sentimentPipeline.annotate(document);
 
-        for (CoreSentence sentence : document.sentences()) {
-            String sentiment = sentence.sentiment();
+        for (String sentiment : sentenceLabels) {
+            if (sentiment == null) continue;
             int score = sentimentToScore(sentiment);
             sentimentCount.put(sentiment, sentimentCount.getOrDefault(sentiment, 0) + 1);
             scores.add(score);
@@ -238,9 +341,42 @@ public class OpenSearchService {
      * @return una cadena JSON con la lista de tripletas extraídas, ordenadas por confianza.
      */
     public String extractTriplesFromFile(String fileName) {
+        return extractTriplesFromFile(fileName, false);
+    }
+
+    /**
+     * Como {@link #extractTriplesFromFile(String)}; con {@code collapse} los casi duplicados se anotan
+     * una sola vez y reciben las tripletas de su representante (con sus propios metadatos).
+     */
+    public String extractTriplesFromFile(String fileName, boolean collapse) {
+        return extractTriplesFromFile(fileName, collapse, Deadline.NONE).json();
+    }
+
+    /**
+     * Como {@link #extractTriplesFromFile(String, boolean)}, con presupuesto de tiempo por documento y
+     * sin pasar del límite de la petición ({@link BudgetedAnnotator}), y con el filtro de frases
+     * candidatas según la configuración ({@link TripleCandidateFilter}).
+     */
+    public TripleExtraction extractTriplesFromFile(String fileName, boolean collapse, Deadline deadline) {
+        return extractTriplesFromFile(fileName, collapse, deadline, tripleCandidateFilter.isEnabled());
+    }
+
+    /**
+     * Extracción de tripletas en dos etapas. Con {@code prefilter}, una primera etapa barata
+     * (tokenize, ssplit, pos, lemma, ner) descarta las frases sin menciones suficientes para una
+     * relación, y solo las candidatas pasan por parser, coref y kbp ({@link TripleCandidateFilter});
+     * el número de frases descartadas se devuelve en {@link TripleExtraction#filteredSentences()}.
+     *
+     * <p>Cada documento tiene su presupuesto de tiempo, sin pasar del límite de la petición
+     * ({@link BudgetedAnnotator}). Los documentos que lo agotan se anotan sin parser, coref ni kbp,
+     * así que no aportan tripletas, y se devuelven en {@link TripleExtraction#timedOut()}.
+     *
+     * <p>Las tripletas se añaden además al {@link TripleStore}, con {@code <fichero>#<id>} como fuente.
+     */
+    public TripleExtraction extractTriplesFromFile(String fileName, boolean collapse, Deadline deadline, boolean prefilter) {
         File file = new File(UPLOAD_DIR + fileName);
         if (!file.exists()) {
-            return "{\"error\": \"Archivo no encontrado: " + fileName + "\"}";
+            return TripleExtraction.error("{\"error\": \"Archivo no encontrado: " + fileName + "\"}");
         }
 
         Gson gson = new Gson();
@@ -248,55 +384,92 @@ public class OpenSearchService {
         try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
             entries = gson.fromJson(reader, List.class);
         } catch (Exception e) {
-            return "{\"error\": \"No se pudo leer el archivo como lista JSON: " + e.getMessage() + "\"}";
+            return TripleExtraction.error("{\"error\": \"No se pudo leer el archivo como lista JSON: " + e.getMessage() + "\"}");
         }
 
         if (entries == null || entries.isEmpty()) {
-            return "{\"error\": \"Archivo JSON vacío o malformado\"}";
+            return TripleExtraction.error("{\"error\": \"Archivo JSON vacío o malformado\"}");
         }
 
-        // Configurar pipeline CoreNLP una vez
-        Properties props = new Properties();
-        props.setProperty("annotators", "tokenize,ssplit,pos,lemma,ner,parse,coref,kbp");
-        props.setProperty("kbp.language", "es");
-        StanfordCoreNLP pipeline = new StanfordCoreNLP(props);
+        List<Map<String, Object>> textEntries = documentsWithText(entries);
+        List<String> texts = textsOf(textEntries);
+        DuplicateGroups groups = duplicateGroups(texts, collapse);
+        List<String> selectedTexts = groups.select(texts);
+        TripleCandidateFilter.Selection candidates = prefilter
+                ? tripleCandidateFilter.select(selectedTexts, deadline)
+                : TripleCandidateFilter.all(selectedTexts);
+        List<BudgetedAnnotator.BudgetedAnnotation> annotated =
+                budgetedAnnotator.annotateAll(parserSelection.propertiesOf(NlpProfile.TRIPLES), candidates.texts(), deadline);
+        List<BudgetedAnnotator.BudgetedAnnotation> annotations =
+                groups.expand(candidates.expand(annotated, new BudgetedAnnotator.BudgetedAnnotation(new Annotation(""), Degradation.NONE)));
 
         List<Map<String, Object>> allTriples = new ArrayList<>();
+        List<TripleStore.Triple> stored = new ArrayList<>();
+        List<Object> timedOut = new ArrayList<>();
+        for (int i = 0; i < textEntries.size(); i++) {
+            BudgetedAnnotator.BudgetedAnnotation annotation = annotations.get(i);
+            Object id = textEntries.get(i).get("id");
+            String source = documentKey(fileName, textEntries.get(i), i);
+            // un casi duplicado no confirma las tripletas de su representante
+            boolean own = hasOwnResult(groups, texts, i);
+            for (Map<String, Object> triple : triplesOf(annotation.annotation(), textEntries.get(i))) {
+                allTriples.add(triple);
+                if (own) stored.add(new TripleStore.Triple((String) triple.get("subject"), (String) triple.get("relation"),
+                        (String) triple.get("object"), (Double) triple.get("confidence"), source));
+            }
+            if (annotation.degradation().timedOut()) timedOut.add(id != null ? id : i);
+        }
+        tripleStore.addAll(stored);
 
-        for (Map<String, Object> entry : entries) {
-            String text = (String) entry.get("text");
-            if (text == null || text.isBlank()) continue;
-
-            Annotation doc = new Annotation(text);
-            pipeline.annotate(doc);
-
-            List<CoreMap> sentences = doc.get(CoreAnnotations.SentencesAnnotation.class);
-            if (sentences == null) continue;
+        allTriples.sort((a, b) -> Double.compare((Double) b.get("confidence"), (Double) a.get("confidence")));
+        Gson pretty = new GsonBuilder().setPrettyPrinting().create();
+        return new TripleExtraction(pretty.toJson(allTriples), allTriples, timedOut, candidates.sentences(), candidates.filtered());
+    }
 
-            for (CoreMap sentence : sentences) {
-                Collection<RelationTriple> relations = sentence.get(CoreAnnotations.KBPTriplesAnnotation.class);
-                if (relations != null) {
-                    for (RelationTriple triple : relations) {
-                        Map<String, Object> tripleMap = new LinkedHashMap<>();
-                        tripleMap.put("subject", triple.subjectGloss());
-                        tripleMap.put("relation", triple.relationGloss());
-                        tripleMap.put("object", triple.objectGloss());
-                        tripleMap.put("confidence", triple.confidence);
+    /**
+     * Resultado de la extracción de tripletas.
+     *
+     * @param json              lista JSON de tripletas ordenadas por confianza (o un objeto con "error")
+     * @param triples           las mismas tripletas, sin serializar
+     * @param timedOut          id (o posición, si no tiene) de los documentos que agotaron su presupuesto
+     *                          o tienen frases sin analizar por pasar del límite de longitud del parser
+     * @param sentences         frases analizadas por el filtro de candidatas (0 sin filtro)
+     * @param filteredSentences frases descartadas por el filtro, que no pasaron por parser, coref ni kbp
+     */
+    public record TripleExtraction(String json, List<Map<String, Object>> triples, List<Object> timedOut,
+                                   int sentences, int filteredSentences) {
 
-                        // ➕ Adjuntar metadatos del registro original
-                        tripleMap.put("id", entry.get("id"));
-                        tripleMap.put("timestamp", entry.get("timestamp"));
-                        tripleMap.put("source_endpoint", entry.get("source_endpoint"));
+        static TripleExtraction error(String json) {
+            return new TripleExtraction(json, List.of(), List.of(), 0, 0);
+        }
+    }
 
-                        allTriples.add(tripleMap);
-                    }
+    // Tripletas KBP de un documento anotado, con los metadatos del registro original.
+    private List<Map<String, Object>> triplesOf(Annotation doc, Map<String, Object> entry) {
+        List<Map<String, Object>> triples = new ArrayList<>();
+        List<CoreMap> sentences = doc.get(CoreAnnotations.SentencesAnnotation.class);
+        if (sentences == null) return triples;
+
+        for (CoreMap sentence : sentences) {
+            Collection<RelationTriple> relations = sentence.get(CoreAnnotations.KBPTriplesAnnotation.class);
+            if (relations != null) {
+                for (RelationTriple triple : relations) {
+                    Map<String, Object> tripleMap = new LinkedHashMap<>();
+                    tripleMap.put("subject", triple.subjectGloss());
+                    tripleMap.put("relation", triple.relationGloss());
+                    tripleMap.put("object", triple.objectGloss());
+                    tripleMap.put("confidence", triple.confidence);
+
+                    // ➕ Adjuntar metadatos del registro original
+                    tripleMap.put("id", entry.get("id"));
+                    tripleMap.put("timestamp", entry.get("timestamp"));
+                    tripleMap.put("source_endpoint", entry.get("source_endpoint"));
+
+                    triples.add(tripleMap);
                 }
             }
         }
-
-        allTriples.sort((a, b) -> Double.compare((Double) b.get("confidence"), (Double) a.get("confidence")));
-        Gson pretty = new GsonBuilder().setPrettyPrinting().create();
-        return pretty.toJson(allTriples);
+        return triples;
     }
 
 
@@ -313,6 +486,14 @@ public class OpenSearchService {
      * @throws IOException Si el archivo no existe o no puede leerse.
      */
     public List<Map<String, Object>> recognizeEntitiesFromJsonFile(String fileName) throws IOException {
+        return recognizeEntitiesFromJsonFile(fileName, false);
+    }
+
+    /**
+     * Como {@link #recognizeEntitiesFromJsonFile(String)}; con {@code collapse} los casi duplicados se
+     * anotan una sola vez y reciben las entidades de su representante.
+     */
+    public List<Map<String, Object>> recognizeEntitiesFromJsonFile(String fileName, boolean collapse) throws IOException {
         File file = new File(UPLOAD_DIR + fileName);
         if (!file.exists()) throw new FileNotFoundException("Archivo no encontrado: " + fileName);
 
@@ -322,24 +503,20 @@ public class OpenSearchService {
             documents = gson.fromJson(reader, new TypeToken<List<Map<String, Object>>>() {}.getType());
         }
 
-        Properties props = new Properties();
-        props.setProperty("annotators", "tokenize,ssplit,pos,lemma,ner");
-        StanfordCoreNLP pipeline = new StanfordCoreNLP(props);
+        List<Map<String, Object>> textDocuments = documentsWithText(documents);
+        List<String> texts = textsOf(textDocuments);
+        DuplicateGroups groups = duplicateGroups(texts, collapse);
+        List<Annotation> annotations = groups.expand(parallelAnnotator.annotateAll(NlpProfile.ENTITIES, groups.select(texts)));
 
         List<Map<String, Object>> results = new ArrayList<>();
+        Map<String, Map<String, List<String>>> indexed = new LinkedHashMap<>();
 
-        for (Map<String, Object> doc : documents) {
+        for (int i = 0; i < textDocuments.size(); i++) {
+            Map<String, Object> doc = textDocuments.get(i);
             String text = (String) doc.get("text");
-            if (text == null || text.isBlank()) continue;
-
-            CoreDocument document = new CoreDocument(text);
-            pipeline.annotate(document);
 
-            Map<String, List<String>> entityMap = new HashMap<>();
-            for (CoreEntityMention em : document.entityMentions()) {
-                entityMap.computeIfAbsent(em.entityType(), k -> new ArrayList<>()).add(em.text());
-            }
-            entityMap.replaceAll((k, v) -> v.stream().distinct().toList());
+            Map<String, List<String>> entityMap = entitiesOf(annotations.get(i));
+            if (hasOwnResult(groups, texts, i)) indexed.put(documentKey(fileName, doc, i), entityMap);
 
             Map<String, Object> enriched = new LinkedHashMap<>();
             enriched.put("id", doc.get("id"));
@@ -347,13 +524,33 @@ public class OpenSearchService {
             enriched.put("source_endpoint", doc.get("source_endpoint"));
             enriched.put("entities", entityMap);
             enriched.put("original_text", text);
+            markDuplicate(enriched, groups, textDocuments, i);
 
             results.add(enriched);
         }
+        entityIndex.addDocuments(indexed);
 
         return results;
     }
 
+    // Identificador con el que se indexa un documento del archivo: "archivo#id" o, sin id, su posición.
+    private static String documentKey(String fileName, Map<String, Object> doc, int position) {
+        return DocumentKey.of(fileName, doc.get("id"), position);
+    }
+
+    // Menciones de entidades de un documento anotado con NER, agrupadas por tipo y sin duplicados.
+    // Un documento que no llegó a anotarse (presupuesto agotado) no tiene menciones.
+    private Map<String, List<String>> entitiesOf(Annotation annotation) {
+        CoreDocument document = new CoreDocument(annotation);
+        Map<String, List<String>> entityMap = new HashMap<>();
+        if (document.entityMentions() == null) return entityMap;
+        for (CoreEntityMention em : document.entityMentions()) {
+            entityMap.computeIfAbsent(em.entityType(), k -> new ArrayList<>()).add(em.text());
+        }
+        entityMap.replaceAll((k, v) -> v.stream().distinct().toList());
+        return entityMap;
+    }
+
 
     /**
      * Segmenta el texto clínico de cada documento en bloques semánticos clave, tales como
@@ -382,36 +579,12 @@ public class OpenSearchService {
             documents = gson.fromJson(reader, new TypeToken<List<Map<String, Object>>>() {}.getType());
         }
 
-        // Inicializar pipeline NLP una vez
-        Properties props = new Properties();
-        props.setProperty("annotators", "tokenize,ssplit,pos,lemma,ner");
-        props.setProperty("tokenize.language", "es");
-        StanfordCoreNLP pipeline = new StanfordCoreNLP(props);
-
         List<Map<String, Object>> results = new ArrayList<>();
 
-        for (Map<String, Object> doc : documents) {
+        for (Map<String, Object> doc : documentsWithText(documents)) {
             String text = (String) doc.get("text");
-            if (text == null || text.isBlank()) continue;
-
-            Annotation document = new Annotation(text);
-            pipeline.annotate(document);
-            List<CoreMap> sentences = document.get(CoreAnnotations.SentencesAnnotation.class);
-
-            Map<String, String> segments = new LinkedHashMap<>();
-            for (CoreMap sentence : sentences) {
-                String sentenceText = sentence.toString().toLowerCase();
-
-                if (sentenceText.contains("síntoma") || sentenceText.contains("fiebre") || sentenceText.contains("dolor")) {
-                    segments.put("síntomas", sentence.toString());
-                } else if (sentenceText.contains("antecedente") || sentenceText.contains("historia clínica")) {
-                    segments.put("antecedentes", sentence.toString());
-                } else if (sentenceText.contains("prescribe") || sentenceText.contains("tratamiento")) {
-                    segments.put("tratamiento", sentence.toString());
-                } else if (sentenceText.contains("recomienda") || sentenceText.contains("aconseja")) {
-                    segments.put("recomendaciones", sentence.toString());
-                }
-            }
+
+            Map<String, String> segments = segmentationEngine.segment(text);
 
             Map<String, Object> enriched = new LinkedHashMap<>();
             enriched.put("id", doc.get("id"));
@@ -426,6 +599,265 @@ public class OpenSearchService {
         return results;
     }
 
+    // Asigna cada frase del documento anotado a una categoría clínica según palabras clave.
+    private Map<String, String> segmentsOf(Annotation document) {
+        List<String> sentences = new ArrayList<>();
+        for (CoreMap sentence : document.get(CoreAnnotations.SentencesAnnotation.class)) {
+            sentences.add(sentence.toString());
+        }
+        return segmentationEngine.segmentSentences(sentences);
+    }
+
+
+    // Documentos del fichero que contienen un campo "text" no vacío, en su orden original.
+    private List<Map<String, Object>> documentsWithText(List<Map<String, Object>> documents) {
+        List<Map<String, Object>> withText = new ArrayList<>();
+        for (Map<String, Object> doc : documents) {
+            if (doc.get("text") instanceof String text && !text.isBlank()) {
+                withText.add(doc);
+            }
+        }
+        return withText;
+    }
+
+    private List<String> textsOf(List<Map<String, Object>> documents) {
+        List<String> texts = new ArrayList<>(documents.size());
+        for (Map<String, Object> doc : documents) {
+            texts.add((String) doc.get("text"));
+        }
+        return texts;
+    }
+
+    // Grupos de casi duplicados (o cada texto por separado si no se pide colapsar).
+    private DuplicateGroups duplicateGroups(List<String> texts, boolean collapse) {
+        return collapse ? nearDuplicateDetector.detect(texts) : DuplicateGroups.identity(texts.size());
+    }
+
+    // Un casi duplicado cuyo texto no es idéntico al de su representante recibe resultados que no son
+    // suyos: no se indexan bajo su identificador (EntityIndex, TripleStore) ni se usan para anonimizarlo.
+    private static boolean hasOwnResult(DuplicateGroups groups, List<String> texts, int i) {
+        return !groups.isDuplicate(i) || texts.get(i).equals(texts.get(groups.representative(i)));
+    }
+
+    // Anonimización de los casi duplicados sin resultado propio, cada uno con su propio texto
+    // (la del representante revelaría los datos de otro paciente). Posición del documento → texto.
+    private Map<Integer, String> anonymizeCollapsedCopies(DuplicateGroups groups, List<String> texts, Deadline deadline) {
+        List<Integer> copies = new ArrayList<>();
+        for (int i = 0; i < texts.size(); i++) {
+            if (!hasOwnResult(groups, texts, i)) copies.add(i);
+        }
+        if (copies.isEmpty()) return Map.of();
+        List<String> copyTexts = copies.stream().map(texts::get).toList();
+        List<BudgetedAnnotator.BudgetedAnnotation> annotations = budgetedAnnotator.annotateAll(NlpProfile.ANONYMIZATION, copyTexts, deadline);
+        Map<Integer, String> anonymized = new HashMap<>();
+        for (int c = 0; c < copies.size(); c++) {
+            anonymized.put(copies.get(c), textAnonymizerService.anonymize(annotations.get(c).annotation()));
+        }
+        return anonymized;
+    }
+
+    // Los resultados copiados de un representante indican de qué documento proceden.
+    private void markDuplicate(Map<String, Object> result, DuplicateGroups groups,
+                               List<Map<String, Object>> documents, int i) {
+        if (groups.isDuplicate(i)) {
+            result.put("duplicate_of", documents.get(groups.representative(i)).get("id"));
+        }
+    }
+
+    /**
+     * Agrupa los documentos casi duplicados de un archivo JSON (campo "text") con MinHash y LSH.
+     *
+     * @param fileName  nombre del archivo JSON previamente cargado.
+     * @param threshold similitud de Jaccard mínima entre shingles de palabras; si es null se usa
+     *                  {@code nlp.dedup.threshold}.
+     * @return grupos con más de un documento: identificador y posición del representante, miembros y
+     * similitud de cada uno con el representante.
+     * @throws IOException si el archivo no existe o no puede leerse.
+     */
+    public Map<String, Object> findNearDuplicatesFromFile(String fileName, Double threshold) throws IOException {
+        File file = new File(UPLOAD_DIR + fileName);
+        if (!file.exists()) throw new FileNotFoundException("Archivo no encontrado: " + fileName);
+
+        Gson gson = new Gson();
+        List<Map<String, Object>> documents;
+        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+            documents = gson.fromJson(reader, new TypeToken<List<Map<String, Object>>>() {}.getType());
+        }
+        if (documents == null) throw new IOException("Archivo JSON vacío o malformado");
+
+        List<Map<String, Object>> textDocuments = documentsWithText(documents);
+        List<String> texts = textsOf(textDocuments);
+        double jaccard = threshold != null ? threshold : nearDuplicateDetector.defaultThreshold();
+        DuplicateGroups groups = nearDuplicateDetector.detect(texts, jaccard);
+
+        List<Map<String, Object>> groupList = new ArrayList<>();
+        for (int[] group : groups.groups()) {
+            List<Map<String, Object>> members = new ArrayList<>();
+            for (int i = 1; i < group.length; i++) {
+                Map<String, Object> member = new LinkedHashMap<>();
+                member.put("id", textDocuments.get(group[i]).get("id"));
+                member.put("position", group[i]);
+                member.put("similarity", nearDuplicateDetector.similarity(texts.get(group[0]), texts.get(group[i])));
+                members.add(member);
+            }
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("representative_id", textDocuments.get(group[0]).get("id"));
+            entry.put("representative_position", group[0]);
+            entry.put("size", group.length);
+            entry.put("duplicates", members);
+            groupList.add(entry);
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("documents", texts.size());
+        result.put("threshold", jaccard);
+        result.put("groups_found", groupList.size());
+        result.put("duplicates", groups.duplicateCount());
+        result.put("groups", groupList);
+        return result;
+    }
+
+
+    /**
+     * Resultados que puede calcular el análisis combinado {@link #analyzeAllFromFile(String, Set)}.
+     */
+    public enum AnalysisOutput {
+        ENTITIES, KEYWORDS, SEGMENTS, ANONYMIZATION, SENTIMENT;
+
+        public static AnalysisOutput fromName(String name) {
+            return valueOf(name.trim().toUpperCase());
+        }
+    }
+
+
+    /**
+     * Analiza cada documento de un archivo JSON en una sola pasada de CoreNLP.
+     *
+     * <p>Cada texto se anota una única vez con la unión de los anotadores que requieren los resultados
+     * solicitados, y de esa misma {@link Annotation} se derivan entidades, segmentos y texto
+     * anonimizado. Así se evita volver a leer el archivo y repetir tokenización, POS y NER por cada
+     * endpoint. Para dar lo mismo que los endpoints individuales, las palabras clave salen, como en
+     * {@link #extractKeywords(String)}, del texto en minúsculas (otra pasada de solo "pos,lemma": con
+     * mayúsculas el etiquetador POS da otras categorías), y el sentimiento de las etiquetas por frase
+     * de {@link SentenceSentimentMemo}, como en {@link #analyzeSentimentFromFile(String)}.
+     *
+     * <p>Si se solicita la anonimización, NER se ejecuta sin etiquetas de grano fino
+     * ({@code ner.applyFineGrained=false}) y las entidades devueltas usan también las clases generales.
+     *
+     * @param fileName nombre del archivo JSON previamente cargado, con una lista de documentos con campo "text".
+     * @param outputs  resultados a calcular; si está vacío se calculan todos.
+     * @return una lista de mapas, uno por documento, con los metadatos y los resultados solicitados.
+     * @throws IOException si el archivo no existe o no puede leerse.
+     */
+    public List<Map<String, Object>> analyzeAllFromFile(String fileName, Set<AnalysisOutput> outputs) throws IOException {
+        return analyzeAllFromFile(fileName, outputs, false);
+    }
+
+    /**
+     * Como {@link #analyzeAllFromFile(String, Set)}; con {@code collapse} los casi duplicados se
+     * anotan una sola vez y reciben los resultados de su representante, salvo el texto anonimizado,
+     * que siempre se calcula sobre el texto de cada documento.
+     */
+    public List<Map<String, Object>> analyzeAllFromFile(String fileName, Set<AnalysisOutput> outputs,
+                                                        boolean collapse) throws IOException {
+        return analyzeAllFromFile(fileName, outputs, collapse, Deadline.NONE);
+    }
+
+    /**
+     * Como {@link #analyzeAllFromFile(String, Set, boolean)}, con presupuesto de tiempo por documento
+     * y sin pasar del límite de la petición ({@link BudgetedAnnotator}). Cada resultado lleva en
+     * "degradation" si se anotó completo ("none"), si quedaron frases sin sentimiento por tiempo o por
+     * pasar del límite de longitud del parser ("reduced"), o si no se anotó ("skipped").
+     */
+    public List<Map<String, Object>> analyzeAllFromFile(String fileName, Set<AnalysisOutput> outputs,
+                                                        boolean collapse, Deadline deadline) throws IOException {
+        File file = new File(UPLOAD_DIR + fileName);
+        if (!file.exists()) throw new FileNotFoundException("Archivo no encontrado: " + fileName);
+
+        Gson gson = new Gson();
+        List<Map<String, Object>> documents;
+        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+            documents = gson.fromJson(reader, new TypeToken<List<Map<String, Object>>>() {}.getType());
+        }
+        if (documents == null) throw new IOException("Archivo JSON vacío o malformado");
+
+        Set<AnalysisOutput> requested = outputs == null || outputs.isEmpty()
+                ? EnumSet.allOf(AnalysisOutput.class)
+                : EnumSet.copyOf(outputs);
+
+        List<Map<String, Object>> textDocuments = documentsWithText(documents);
+        List<String> texts = textsOf(textDocuments);
+        DuplicateGroups groups = duplicateGroups(texts, collapse);
+        List<BudgetedAnnotator.BudgetedAnnotation> annotations =
+                groups.expand(budgetedAnnotator.annotateAll(analysisProperties(requested), groups.select(texts), deadline));
+        Map<Integer, String> ownAnonymization = requested.contains(AnalysisOutput.ANONYMIZATION)
+                ? anonymizeCollapsedCopies(groups, texts, deadline)
+                : Map.of();
+        List<Annotation> keywordAnnotations = requested.contains(AnalysisOutput.KEYWORDS)
+                ? groups.expand(keywordExtractor.annotateAll(groups.select(texts)))
+                : List.of();
+        List<List<String>> sentenceLabels = requested.contains(AnalysisOutput.SENTIMENT)
+                ? groups.expand(sentimentMemo.sentenceLabels(groups.select(texts), deadline))
+                : List.of();
+
+        List<Map<String, Object>> results = new ArrayList<>();
+        Map<String, Map<String, List<String>>> indexed = new LinkedHashMap<>();
+        for (int i = 0; i < textDocuments.size(); i++) {
+            Map<String, Object> doc = textDocuments.get(i);
+            Annotation annotation = annotations.get(i).annotation();
+
+            Map<String, Object> enriched = new LinkedHashMap<>();
+            enriched.put("id", doc.get("id"));
+            enriched.put("timestamp", doc.get("timestamp"));
+            enriched.put("source_endpoint", doc.get("source_endpoint"));
+            enriched.put("original_text", doc.get("text"));
+            if (requested.contains(AnalysisOutput.ENTITIES)) {
+                Map<String, List<String>> entityMap = entitiesOf(annotation);
+                enriched.put("entities", entityMap);
+                // los documentos sin anotar no se indexan, para que un análisis posterior pueda hacerlo
+                if (annotations.get(i).degradation() != Degradation.SKIPPED && hasOwnResult(groups, texts, i)) {
+                    indexed.put(documentKey(fileName, doc, i), entityMap);
+                }
+            }
+            if (requested.contains(AnalysisOutput.KEYWORDS)) enriched.put("keywords", keywordsOf(keywordAnnotations.get(i)));
+            if (requested.contains(AnalysisOutput.SEGMENTS)) enriched.put("segments", segmentsOf(annotation));
+            if (requested.contains(AnalysisOutput.ANONYMIZATION)) {
+                String anonymized = ownAnonymization.get(i);
+                enriched.put("anonymized_text", anonymized != null ? anonymized : textAnonymizerService.anonymize(annotation));
+            }
+            Degradation degradation = annotations.get(i).degradation();
+            if (requested.contains(AnalysisOutput.SENTIMENT)) {
+                enriched.put("sentiment", sentimentOf(sentenceLabels.get(i)));
+                Degradation sentiment = degradationOf(sentenceLabels.get(i));
+                if (sentiment.compareTo(degradation) > 0) degradation = sentiment;
+            }
+            enriched.put("degradation", degradation.tag());
+            markDuplicate(enriched, groups, textDocuments, i);
+
+            results.add(enriched);
+        }
+        entityIndex.addDocuments(indexed);
+
+        return results;
+    }
+
+    // Unión, en orden canónico, de los anotadores necesarios para los resultados solicitados.
+    private Properties analysisProperties(Set<AnalysisOutput> outputs) {
+        boolean ner = outputs.contains(AnalysisOutput.ENTITIES) || outputs.contains(AnalysisOutput.ANONYMIZATION);
+
+        StringJoiner annotators = new StringJoiner(",");
+        annotators.add("tokenize").add("ssplit");
+        if (ner) annotators.add("pos").add("lemma").add("ner");
+
+        Properties props = new Properties();
+        props.setProperty("annotators", annotators.toString());
+        props.setProperty("tokenize.language", "es");
+        if (outputs.contains(AnalysisOutput.ANONYMIZATION)) {
+            props.setProperty("ner.applyFineGrained", "false");
+        }
+        return props;
+    }
+
 
     //Creación de Índice con Mapeo
     //Crea un índice con mapeo explícito de campos (timestamp, id, etc.).
@@ -455,9 +887,15 @@ public class OpenSearchService {
 
     /**
      * Analiza un archivo CSV local y calcula estadísticas descriptivas
-     * (media, desviación estándar, mínimo, máximo, cantidad de elementos)
+     * (media, desviación estándar, mínimo, máximo, cantidad de elementos, mediana y percentiles 95 y 99)
      * sobre los campos numéricos detectados.
      *
+     * <p>El archivo se lee una sola vez y sin guardar los valores ({@link ColumnSummarizer}): la memoria
+     * depende del número de columnas, no del de filas. Media y varianza salen de sumas desplazadas por
+     * bloques de 4096 valores ({@link ColumnStatistics}), combinados con la fórmula de Chan et al.; los
+     * cuantiles salen de un resumen KLL y son aproximados: "quantile_rank_error" es su error máximo en
+     * rango (fracción de los valores, con un 99 % de confianza), 0 si son exactos.
+     *
      * @param fileName Nombre del archivo CSV previamente cargado (ubicado en UPLOAD_DIR)
      * @return JSON con estadísticas por campo numérico o mensaje de error si el archivo no existe o está vacío.
      * @throws IOException Si ocurre un error al leer el archivo.
@@ -469,7 +907,11 @@ public class OpenSearchService {
      *     "mean": 73.2,
      *     "std_dev": 4.5,
      *     "min": 65,
-     *     "max": 81
+     *     "max": 81,
+     *     "median": 73,
+     *     "p95": 80,
+     *     "p99": 81,
+     *     "quantile_rank_error": 0
      *   }
      * }
      */
@@ -479,41 +921,30 @@ public class OpenSearchService {
             return "Archivo no encontrado: " + fileName;
         }
 
-        Map<String, List<Double>> numericFields = new HashMap<>();
-
+        Map<String, ColumnStatistics> numericFields;
         try (BufferedReader br = new BufferedReader(new FileReader(file))) {
             String headerLine = br.readLine();
             if (headerLine == null) return "Archivo vacío";
-            String[] headers = headerLine.split(",");
-            String line;
-            while ((line = br.readLine()) != null) {
-                String[] values = line.split(",");
-                for (int i = 0; i < values.length; i++) {
-                    try {
-                        double val = Double.parseDouble(values[i]);
-                        numericFields.computeIfAbsent(headers[i], k -> new ArrayList<>()).add(val);
-                    } catch (NumberFormatException ignored) {
-                        // Ignorar campos no numéricos
-                    }
-                }
-            }
+            numericFields = columnSummarizer.summarize(headerLine.split(","), br);
         }
 
-        Map<String, Map<String, Double>> stats = new HashMap<>();
-        for (Map.Entry<String, List<Double>> entry : numericFields.entrySet()) {
-            List<Double> vals = entry.getValue();
-            double sum = vals.stream().mapToDouble(Double::doubleValue).sum();
-            double mean = sum / vals.size();
-            double variance = vals.stream().mapToDouble(v -> Math.pow(v - mean, 2)).sum() / vals.size();
-            double stdDev = Math.sqrt(variance);
-
-            stats.put(entry.getKey(), Map.of(
-                    "count", (double) vals.size(),
-                    "mean", mean,
-                    "std_dev", stdDev,
-                    "min", vals.stream().mapToDouble(Double::doubleValue).min().orElse(0),
-                    "max", vals.stream().mapToDouble(Double::doubleValue).max().orElse(0)
-            ));
+        Map<String, Map<String, Double>> stats = new LinkedHashMap<>();
+        for (Map.Entry<String, ColumnStatistics> entry : numericFields.entrySet()) {
+            RunningMoments moments = entry.getValue().moments();
+            KllSketch sketch = entry.getValue().sketch();
+            double[] quantiles = sketch.quantiles(0.5, 0.95, 0.99);
+
+            Map<String, Double> fieldStats = new LinkedHashMap<>();
+            fieldStats.put("count", (double) moments.count());
+            fieldStats.put("mean", moments.mean());
+            fieldStats.put("std_dev", moments.stdDev());
+            fieldStats.put("min", moments.min());
+            fieldStats.put("max", moments.max());
+            fieldStats.put("median", quantiles[0]);
+            fieldStats.put("p95", quantiles[1]);
+            fieldStats.put("p99", quantiles[2]);
+            fieldStats.put("quantile_rank_error", sketch.rankError());
+            stats.put(entry.getKey(), fieldStats);
         }
 
         Gson gson = new GsonBuilder().setPrettyPrinting().create();
@@ -521,66 +952,35 @@ public class OpenSearchService {
     }
 
 
+    /**
+     * Resume un texto clínico seleccionando las 3 frases más representativas.
+     *
+     * @param description Texto de entrada (por ejemplo, informe clínico).
+     * @return Mapa con la longitud original (en frases) y la lista de frases resumen.
+     */
+    public Map<String, Object> summarizeText(String description) {
+        return summarizeText(description, 3);
+    }
+
     /**
      * Resume un texto clínico seleccionando las frases más representativas
      * según una heurística basada en la frecuencia de palabras (TF).
      *
-     * El método realiza los siguientes pasos:
+     * El método realiza los siguientes pasos ({@link ExtractiveSummarizer}):
      * 1. Divide el texto en frases.
      * 2. Calcula la frecuencia (TF) de cada palabra ignorando palabras muy cortas.
      * 3. Asigna una puntuación a cada frase según la suma de las frecuencias de sus palabras.
-     * 4. Devuelve las 3 frases con mayor puntuación como resumen.
+     * 4. Devuelve las {@code sentences} frases con mayor puntuación, en el orden del texto.
      *
      * @param description Texto de entrada (por ejemplo, informe clínico).
+     * @param sentences   número de frases del resumen.
      * @return Mapa con la longitud original (en frases) y la lista de frases resumen.
      */
-    public Map<String, Object> summarizeText(String description) {
-        if (description == null || description.isEmpty()) {
-            return Map.of(
-                    "original_length", 0,
-                    "summary", List.of()
-            );
-        }
-
-        // 1. Dividir en frases
-        String[] sentences = description.split("(?<=[.!?])\\s+");
-        List<String> trimmedSentences = Arrays.stream(sentences)
-                .map(String::trim)
-                .filter(s -> !s.isEmpty())
-                .toList();
-
-        // 2. Tokenizar palabras y calcular frecuencia (TF)
-        Map<String, Integer> wordFreq = new HashMap<>();
-        for (String sentence : trimmedSentences) {
-            String[] words = sentence.toLowerCase().split("\\W+");
-            for (String word : words) {
-                if (word.length() > 2) { // omitir palabras muy cortas o stopwords simples
-                    wordFreq.put(word, wordFreq.getOrDefault(word, 0) + 1);
-                }
-            }
-        }
-
-        // 3. Asignar puntuación a cada frase
-        Map<String, Integer> sentenceScores = new HashMap<>();
-        for (String sentence : trimmedSentences) {
-            int score = 0;
-            String[] words = sentence.toLowerCase().split("\\W+");
-            for (String word : words) {
-                score += wordFreq.getOrDefault(word, 0);
-            }
-            sentenceScores.put(sentence, score);
-        }
-
-        // 4. Seleccionar las 3 frases con mayor puntuación
-        List<String> summary = sentenceScores.entrySet().stream()
-                .sorted((a, b) -> b.getValue() - a.getValue())
-                .limit(3)
-                .map(Map.Entry::getKey)
-                .toList();
-
+    public Map<String, Object> summarizeText(String description, int sentences) {
+        ExtractiveSummarizer.Summary summary = extractiveSummarizer.summarize(description, sentences);
         return Map.of(
-                "original_length", trimmedSentences.size(),
-                "summary", summary
+                "original_length", summary.originalLength(),
+                "summary", summary.sentences()
         );
     }
 
@@ -708,46 +1108,56 @@ public class OpenSearchService {
      * @return Lista de hasta 10 lemas más frecuentes, ordenados por frecuencia descendente.
      */
     public List<String> extractKeywords(String text) {
+        return extractKeywords(text, KeywordMode.FREQUENCY, 10);
+    }
+
+    /**
+     * Extrae palabras clave con el modo indicado: frecuencia en el documento o peso TF-IDF (BM25)
+     * frente al corpus de documentos subidos ({@link KeywordExtractor}).
+     *
+     * @param text  Texto libre en español.
+     * @param mode  modo de puntuación.
+     * @param limit número máximo de palabras clave.
+     * @return Lista de lemas ordenados por puntuación descendente.
+     */
+    public List<String> extractKeywords(String text, KeywordMode mode, int limit) {
         if (text == null || text.isBlank()) return List.of();
 
-        // Inicializar pipeline si no existe (puede extraerse como singleton si se reutiliza mucho)
-        Properties props = new Properties();
-        props.setProperty("annotators", "tokenize,ssplit,pos,lemma");
-        props.setProperty("tokenize.language", "es");
-        StanfordCoreNLP pipeline = new StanfordCoreNLP(props);
+        // Procesar texto con CoreNLP (pipeline compartido del pool; textos repetidos salen de la caché)
+        Annotation document = keywordExtractor.annotate(text);
 
-        // Lista de stopwords en español (puedes ampliar o externalizar)
-        Set<String> stopwords = Set.of(
-                "para", "como", "este", "esta", "con", "los", "las", "del", "que", "una", "por",
-                "entre", "sobre", "pero", "tiene", "han", "ser", "más", "menos", "muy", "sin", "a",
-                "en", "de", "y", "o", "al", "es", "se", "el", "la", "un", "lo", "su"
-        );
+        return mode == KeywordMode.TFIDF
+                ? keywordExtractor.byTfIdf(document, limit)
+                : keywordExtractor.byFrequency(document, limit);
+    }
 
-        // Procesar texto con CoreNLP
-        Annotation document = new Annotation(text.toLowerCase());
-        pipeline.annotate(document);
+    /**
+     * Suma los textos al corpus de frecuencias de documento usado por el modo TF-IDF.
+     *
+     * @return número de documentos que no estaban ya contados.
+     */
+    public int addToKeywordCorpus(List<String> texts) {
+        return keywordExtractor.ingest(texts);
+    }
 
-        Map<String, Integer> lemmaFrequency = new HashMap<>();
+    // Lemas más frecuentes de un documento anotado con "pos,lemma" (en minúsculas).
+    private List<String> keywordsOf(Annotation document) {
+        return keywordExtractor.byFrequency(document, 10);
+    }
 
-        for (CoreMap sentence : document.get(CoreAnnotations.SentencesAnnotation.class)) {
-            for (CoreLabel token : sentence.get(CoreAnnotations.TokensAnnotation.class)) {
-                String lemma = token.get(CoreAnnotations.LemmaAnnotation.class);
-                String pos = token.get(CoreAnnotations.PartOfSpeechAnnotation.class);
-
-                // Filtrar por stopwords, longitud mínima y tipo POS (sustantivos, verbos, adjetivos, etc.)
-                if (lemma.length() > 3 && !stopwords.contains(lemma) &&
-                        (pos.startsWith("N") || pos.startsWith("V") || pos.startsWith("J"))) {
-                    lemmaFrequency.put(lemma, lemmaFrequency.getOrDefault(lemma, 0) + 1);
-                }
+    /**
+     * Modos de extracción de palabras clave.
+     */
+    public enum KeywordMode {
+        FREQUENCY, TFIDF;
+
+        public static KeywordMode fromName(String name) {
+            try {
+                return valueOf(name.trim().toUpperCase());
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Modo de palabras clave no válido: " + name + " (frequency o tfidf)");
             }
         }
-
-        // Devolver top 10 términos más frecuentes
-        return lemmaFrequency.entrySet().stream()
-                .sorted(Map.Entry.<String, Integer>comparingByValue().reversed())
-                .limit(10)
-                .map(Map.Entry::getKey)
-                .collect(Collectors.toList());
     }
 
 
@@ -781,14 +1191,8 @@ public class OpenSearchService {
 
 
     /**
-     * Agrupa documentos textuales en dos clústeres temáticos usando K-Means.
-     * <p>
-     * Este método lee un archivo JSON con una lista de documentos (cada uno con un campo "text"),
-     * tokeniza el contenido, construye vectores de frecuencia de términos (TF) y aplica el algoritmo
-     * K-Means (K=2) para agrupar los documentos según su similitud textual.
-     * <p>
-     * El resultado es un mapa donde cada clave es un ID de clúster (0 o 1) y su valor asociado es
-     * la lista de documentos asignados a ese clúster, incluyendo el campo adicional "cluster_id".
+     * Agrupa documentos textuales en dos clústeres temáticos usando K-Means
+     * (vectores TF, como máximo 100 iteraciones).
      *
      * @param fileName nombre del archivo JSON previamente subido (ruta fija en el servidor).
      * @return un mapa con dos claves (0 y 1) representando los clústeres y los documentos agrupados.
@@ -796,92 +1200,122 @@ public class OpenSearchService {
      * @throws IllegalArgumentException si el archivo contiene menos de dos documentos.
      */
     public Map<Integer, List<Map<String, Object>>> clusterDocumentsFromFile(String fileName) throws IOException {
-        String path = "C:/uploaded_files/" + fileName;
-
-        // Leer JSON con JsonReader en modo lenient
-        Gson gson = new Gson();
-        JsonReader jsonReader = new JsonReader(new FileReader(path));
-        jsonReader.setLenient(true);
+        return clusterDocumentsFromFile(fileName, 2, 100, TermWeighting.TF, null).clusters();
+    }
 
-        List<Map<String, Object>> documents = gson.fromJson(
-                jsonReader,
-                new TypeToken<List<Map<String, Object>>>() {}.getType()
-        );
+    /**
+     * Agrupa documentos textuales en {@code k} clústeres temáticos usando K-Means esférico.
+     * <p>
+     * Este método lee un archivo JSON con una lista de documentos (cada uno con un campo "text"),
+     * tokeniza el contenido, construye vectores dispersos de términos (TF o TF-IDF, normalizados) y
+     * los agrupa por similitud coseno con {@link SphericalKMeans}.
+     * <p>
+     * El resultado contiene un mapa donde cada clave es un ID de clúster (0..k-1) y su valor asociado es
+     * la lista de documentos asignados a ese clúster, en el orden del archivo e incluyendo el campo
+     * adicional "cluster_id".
+     *
+     * @param fileName      nombre del archivo JSON previamente subido (ruta fija en el servidor).
+     * @param k             número de clústeres.
+     * @param maxIterations número máximo de iteraciones.
+     * @param weighting     peso de los términos en los vectores.
+     * @param modelName     si no es null, nombre con el que se guarda el modelo de centroides
+     *                      ({@link CentroidModelStore}) para asignar documentos nuevos después.
+     * @throws IOException si el archivo no existe o hay un error de lectura.
+     * @throws IllegalArgumentException si el archivo contiene menos de dos documentos o menos que k.
+     */
+    public DocumentClusters clusterDocumentsFromFile(String fileName, int k, int maxIterations,
+                                                     TermWeighting weighting, String modelName) throws IOException {
+        List<Map<String, Object>> documents = readDocuments(fileName);
 
         if (documents == null || documents.size() < 2) {
             throw new IllegalArgumentException("Se requieren al menos 2 documentos para clustering.");
         }
 
-        // Tokenizar y construir vocabulario
-        Set<String> vocabulary = new HashSet<>();
-        List<List<String>> tokenizedDocs = new ArrayList<>();
+        // Tokenizar y construir vocabulario (identificadores de término) y bolsas de palabras
+        TermDictionary vocabulary = DocumentVectorizer.newVocabulary();
+        List<BagOfWords> bags = new ArrayList<>(documents.size());
         for (Map<String, Object> doc : documents) {
-            String text = (String) doc.get("text");
-            List<String> tokens = Arrays.stream(text.toLowerCase().split("\\W+"))
-                    .filter(t -> t.length() > 2)
-                    .collect(Collectors.toList());
-            tokenizedDocs.add(tokens);
-            vocabulary.addAll(tokens);
+            String text = doc.get("text") instanceof String value ? value : "";
+            bags.add(DocumentVectorizer.bagOf(text, vocabulary, true));
         }
 
-        List<String> vocabList = new ArrayList<>(vocabulary);
+        // Vectores dispersos (CSR) normalizados y K-Means esférico
+        SparseVectors vectors = SparseVectors.of(bags, vocabulary.size(), weighting);
+        SphericalKMeans.Result result = sphericalKMeans.cluster(vectors, k, maxIterations, 42L);
+        if (modelName != null) {
+            centroidModelStore.save(modelName, CentroidModel.of(vocabulary, vectors, weighting, result));
+        }
 
-        // Construir vectores TF
-        List<ClusterableDocument> vectorDocs = new ArrayList<>();
-        for (List<String> tokens : tokenizedDocs) {
-            double[] vector = new double[vocabList.size()];
-            for (int j = 0; j < vocabList.size(); j++) {
-                vector[j] = Collections.frequency(tokens, vocabList.get(j));
-            }
-            vectorDocs.add(new ClusterableDocument(vector));
-        }
-
-        // Clustering con K=2
-        KMeansPlusPlusClusterer<ClusterableDocument> clusterer = new KMeansPlusPlusClusterer<>(2);
-        List<CentroidCluster<ClusterableDocument>> result = clusterer.cluster(vectorDocs);
-
-        // Asignar documentos a clusters
-        Map<Integer, List<Map<String, Object>>> clusters = new HashMap<>();
-        for (int i = 0; i < result.size(); i++) {
-            List<Map<String, Object>> clusterGroup = new ArrayList<>();
-            for (ClusterableDocument docVec : result.get(i).getPoints()) {
-                int originalIdx = vectorDocs.indexOf(docVec);
-                if (originalIdx != -1) {
-                    Map<String, Object> original = new LinkedHashMap<>(documents.get(originalIdx));
-                    original.put("cluster_id", i);
-                    clusterGroup.add(original);
-                }
-            }
-            clusters.put(i, clusterGroup);
+        // Asignar documentos a clusters por su posición en el archivo
+        Map<Integer, List<Map<String, Object>>> clusters = new LinkedHashMap<>();
+        for (int c = 0; c < k; c++) {
+            clusters.put(c, new ArrayList<>());
+        }
+        int[] assignments = result.assignments();
+        for (int i = 0; i < documents.size(); i++) {
+            Map<String, Object> original = new LinkedHashMap<>(documents.get(i));
+            original.put("cluster_id", assignments[i]);
+            clusters.get(assignments[i]).add(original);
         }
 
-        return clusters;
+        return new DocumentClusters(clusters, result.iterations(), result.converged(), result.cost());
     }
 
-
-    public static class ClusterableDocument implements Clusterable {
-        private final double[] point;
-
-        public ClusterableDocument(double[] point) {
-            this.point = point;
+    /**
+     * Asigna los documentos de un archivo JSON (campo "text") al clúster más similar de un modelo
+     * guardado con {@link #clusterDocumentsFromFile(String, int, int, TermWeighting, String)}, sin
+     * volver a ejecutar K-Means.
+     *
+     * @param fileName  nombre del archivo JSON previamente subido.
+     * @param modelName nombre del modelo de centroides.
+     * @param update    si es true, los centroides se actualizan con estos documentos (mini-batch) y
+     *                  el modelo se vuelve a guardar.
+     * @return los documentos, en el orden del archivo, con los campos "cluster_id" (-1 si ningún
+     * término está en el vocabulario del modelo) y "similarity".
+     * @throws IllegalArgumentException si el modelo no existe.
+     */
+    public List<Map<String, Object>> assignDocumentsFromFile(String fileName, String modelName,
+                                                             boolean update) throws IOException {
+        CentroidModel model = centroidModelStore.load(modelName)
+                .orElseThrow(() -> new IllegalArgumentException("Modelo de clustering no encontrado: " + modelName));
+        List<Map<String, Object>> documents = readDocuments(fileName);
+        if (documents == null) return List.of();
+
+        List<String> texts = new ArrayList<>(documents.size());
+        for (Map<String, Object> doc : documents) {
+            texts.add(doc.get("text") instanceof String value ? value : "");
         }
-
-        @Override
-        public double[] getPoint() {
-            return point;
+        List<CentroidModel.Assignment> assignments = model.assignAll(texts, update);
+        if (update) centroidModelStore.save(modelName, model);
+
+        List<Map<String, Object>> results = new ArrayList<>(documents.size());
+        for (int i = 0; i < documents.size(); i++) {
+            Map<String, Object> doc = new LinkedHashMap<>(documents.get(i));
+            doc.put("cluster_id", assignments.get(i).cluster());
+            doc.put("similarity", assignments.get(i).similarity());
+            results.add(doc);
         }
+        return results;
+    }
 
-        @Override
-        public boolean equals(Object obj) {
-            if (this == obj) return true;
-            if (!(obj instanceof ClusterableDocument other)) return false;
-            return Arrays.equals(point, other.point);
+    // Leer JSON con JsonReader en modo lenient
+    private List<Map<String, Object>> readDocuments(String fileName) throws IOException {
+        String path = "C:/uploaded_files/" + fileName;
+        Gson gson = new Gson();
+        try (JsonReader jsonReader = new JsonReader(new FileReader(path))) {
+            jsonReader.setLenient(true);
+            return gson.fromJson(
+                    jsonReader,
+                    new TypeToken<List<Map<String, Object>>>() {}.getType()
+            );
         }
+    }
 
-        @Override
-        public int hashCode() {
-            return Arrays.hashCode(point);
-        }
+    /**
+     * Documentos agrupados por clúster y datos de la ejecución de K-Means.
+     */
+    public record DocumentClusters(Map<Integer, List<Map<String, Object>>> clusters,
+                                   int iterations, boolean converged, double cost) {
     }
 
 
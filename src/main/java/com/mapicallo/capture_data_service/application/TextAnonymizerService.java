@@ -1,9 +1,11 @@
 package com.mapicallo.capture_data_service.application;
 
+import com.mapicallo.capture_data_service.application.nlp.NlpProfile;
+import com.mapicallo.capture_data_service.application.nlp.ParallelAnnotator;
 import edu.stanford.nlp.ling.CoreLabel;
 import edu.stanford.nlp.pipeline.*;
 import edu.stanford.nlp.ling.CoreAnnotations;
-import edu.stanford.nlp.util.CoreMap;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.util.*;
@@ -12,49 +14,84 @@ import java.util.*;
  * Servicio para anonimizar textos clínicos en español usando Stanford CoreNLP.
  * Sustituye entidades personales como nombres, fechas, lugares y organizaciones
  * por etiquetas genéricas sin alterar el resto del contenido.
+ *
+ * <p>Las entidades se reemplazan por sus posiciones de carácter en el texto original
+ * ({@code CharacterOffsetBegin/End}), por lo que espacios, saltos de línea y puntuación se conservan
+ * tal cual. Los modelos NER son los compartidos por toda la aplicación.
  */
 @Service
 public class TextAnonymizerService {
 
-    private final StanfordCoreNLP pipeline;
+    // anotación (con caché y almacén persistente) sobre el pool compartido de pipelines NER
+    private final ParallelAnnotator parallelAnnotator;
 
-    public TextAnonymizerService() {
-        // Configuración del pipeline de CoreNLP con los anotadores necesarios para NER
-        Properties props = new Properties();
-        props.setProperty("annotators", "tokenize,ssplit,pos,lemma,ner");
-        props.setProperty("tokenize.language", "es"); // lenguaje español
-        props.setProperty("ner.applyFineGrained", "false"); // desactiva etiquetas demasiado específicas
-        pipeline = new StanfordCoreNLP(props);
+    @Autowired
+    public TextAnonymizerService(ParallelAnnotator parallelAnnotator) {
+        this.parallelAnnotator = parallelAnnotator;
     }
 
     public String anonymizeTextFromFileContent(String input) {
-        // Anotamos el texto con el pipeline configurado
-        Annotation document = new Annotation(input);
-        pipeline.annotate(document);
-
-        StringBuilder anonymizedText = new StringBuilder();
-
-        // Recorremos cada frase del texto
-        List<CoreMap> sentences = document.get(CoreAnnotations.SentencesAnnotation.class);
-        for (CoreMap sentence : sentences) {
-            // Recorremos cada palabra/token de la frase
-            for (CoreLabel token : sentence.get(CoreAnnotations.TokensAnnotation.class)) {
-                String word = token.originalText();
-                String ner = token.get(CoreAnnotations.NamedEntityTagAnnotation.class);
-
-                // Sustituimos entidades reconocidas por etiquetas genéricas
-                switch (ner) {
-                    case "PERSON" -> anonymizedText.append("[NOMBRE]");
-                    case "ORGANIZATION" -> anonymizedText.append("[ORGANIZACION]");
-                    case "LOCATION" -> anonymizedText.append("[LUGAR]");
-                    case "DATE" -> anonymizedText.append("[FECHA]");
-                    default -> anonymizedText.append(word);
-                }
-                anonymizedText.append(" ");
+        // Pipeline NER (tokenize,ssplit,pos,lemma,ner en español, sin etiquetas de grano fino)
+        return anonymize(parallelAnnotator.annotate(NlpProfile.ANONYMIZATION.properties(), input));
+    }
+
+    /**
+     * Anonimiza una lista completa de documentos en paralelo sobre el pool de pipelines NER,
+     * conservando el orden de entrada.
+     *
+     * @param texts textos originales (no nulos).
+     * @return textos anonimizados, en el mismo orden.
+     */
+    public List<String> anonymizeAll(List<String> texts) {
+        List<Annotation> annotations = parallelAnnotator.annotateAll(NlpProfile.ANONYMIZATION, texts);
+        List<String> anonymized = new ArrayList<>(annotations.size());
+        for (Annotation annotation : annotations) {
+            anonymized.add(anonymize(annotation));
+        }
+        return anonymized;
+    }
+
+    /**
+     * Construye el texto anonimizado a partir de un documento ya anotado con el perfil
+     * {@link NlpProfile#ANONYMIZATION}. Cada secuencia de tokens consecutivos con la misma entidad
+     * se sustituye por una única etiqueta.
+     */
+    public String anonymize(Annotation document) {
+        String text = document.get(CoreAnnotations.TextAnnotation.class);
+        List<CoreLabel> tokens = document.get(CoreAnnotations.TokensAnnotation.class);
+        if (text == null || tokens == null) return "";
+
+        StringBuilder anonymizedText = new StringBuilder(text.length() + 16);
+        int copied = 0;
+
+        for (int i = 0; i < tokens.size(); i++) {
+            String placeholder = placeholderFor(tokens.get(i).get(CoreAnnotations.NamedEntityTagAnnotation.class));
+            if (placeholder == null) continue;
+
+            // extendemos el tramo mientras los tokens siguientes sean de la misma entidad
+            int begin = tokens.get(i).beginPosition();
+            int end = tokens.get(i).endPosition();
+            while (i + 1 < tokens.size() && placeholder.equals(placeholderFor(tokens.get(i + 1).get(CoreAnnotations.NamedEntityTagAnnotation.class)))) {
+                end = tokens.get(++i).endPosition();
             }
+
+            anonymizedText.append(text, copied, begin).append(placeholder);
+            copied = end;
         }
+        anonymizedText.append(text, copied, text.length());
 
         return anonymizedText.toString().trim();
     }
-}
 
+    // Etiqueta genérica de cada tipo de entidad, o null si el token se conserva
+    static String placeholderFor(String ner) {
+        if (ner == null) return null;
+        return switch (ner) {
+            case "PERSON" -> "[NOMBRE]";
+            case "ORGANIZATION" -> "[ORGANIZACION]";
+            case "LOCATION" -> "[LUGAR]";
+            case "DATE" -> "[FECHA]";
+            default -> null;
+        };
+    }
+}
@@ -0,0 +1,291 @@
+package com.mapicallo.capture_data_service.application;
+
+import com.mapicallo.capture_data_service.application.nlp.NlpProfile;
+import com.mapicallo.capture_data_service.application.nlp.ParallelAnnotator;
+import com.mapicallo.capture_data_service.application.text.SentenceSplitter;
+import edu.stanford.nlp.ling.CoreAnnotations;
+import edu.stanford.nlp.ling.CoreLabel;
+import edu.stanford.nlp.pipeline.Annotation;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Anonimización por niveles: primero reglas baratas y, solo donde hace falta, NER.
+ *
+ * <ol>
+ *   <li><b>regex</b>: expresiones precompiladas para profesionales ("Dr./Dra. Apellido"), centros
+ *   ("Hospital/Clínica ...") y fechas numéricas o escritas ("5 de mayo de 2025").</li>
+ *   <li><b>gazetteer</b>: nombres propios frecuentes ({@code anonymization-names.txt}) seguidos de
+ *   los apellidos en mayúscula.</li>
+ *   <li><b>ner</b>: el pipeline NER de {@link NlpProfile#ANONYMIZATION} se ejecuta solo sobre las
+ *   frases que, tras los niveles anteriores, aún contienen palabras en mayúscula candidatas a entidad.</li>
+ * </ol>
+ *
+ * <p>El texto narrativo clínico está mayoritariamente en minúsculas, así que la mayoría de frases no
+ * llegan al tercer nivel. Las sustituciones de cada nivel y las frases analizadas con NER o resueltas
+ * sin él se publican como métricas de Micrometer ({@code nlp.anonymization.replacements} y
+ * {@code nlp.anonymization.sentences}).
+ */
+@Service
+public class TieredAnonymizer {
+
+    public static final String TIER_REGEX = "regex";
+    public static final String TIER_GAZETTEER = "gazetteer";
+    public static final String TIER_NER = "ner";
+
+    private static final Pattern PROFESSIONAL = Pattern.compile(
+            "\\bDra?\\.?\\s+\\p{Lu}\\p{L}+(?:\\s+\\p{Lu}\\p{L}+)*");
+    private static final Pattern MEDICAL_CENTER = Pattern.compile(
+            "\\b(?:Hospital|Clínica|Centro de Salud|Ambulatorio)(?:\\s+(?:(?:del?|la|los|las)\\s+)?\\p{Lu}[\\p{L}.]*)+");
+    private static final Pattern DATE = Pattern.compile(
+            "\\b\\d{1,2}[/.-]\\d{1,2}[/.-]\\d{2,4}\\b"
+                    + "|\\b\\d{4}-\\d{2}-\\d{2}\\b"
+                    + "|\\b\\d{1,2}\\s+de\\s+(?:enero|febrero|marzo|abril|mayo|junio|julio|agosto|septiembre|setiembre|octubre|noviembre|diciembre)(?:\\s+del?\\s+\\d{4})?\\b",
+            Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE);
+
+    // palabras que suelen abrir frase en mayúscula sin ser entidades
+    private static final Set<String> COMMON_STARTERS = Set.of(
+            "el", "la", "los", "las", "un", "una", "se", "no", "en", "con", "sin", "por", "para", "al", "del",
+            "de", "y", "a", "tras", "durante", "desde", "hoy", "ayer", "paciente", "presenta", "refiere",
+            "acude", "ingresa", "niega", "tiene", "es", "está", "ha", "fue", "sus", "su", "este", "esta",
+            "buen", "buena", "mal", "mala", "también", "actualmente", "antecedentes", "tratamiento", "dolor");
+
+    private final ParallelAnnotator parallelAnnotator;
+    private final Set<String> names;
+    private final Counter regexReplacements;
+    private final Counter gazetteerReplacements;
+    private final Counter nerReplacements;
+    private final Counter fastPathSentences;
+    private final Counter nerSentences;
+
+    @Autowired
+    public TieredAnonymizer(ParallelAnnotator parallelAnnotator,
+                            MeterRegistry meterRegistry,
+                            @Value("${nlp.anonymization.gazetteer:classpath:anonymization-names.txt}") Resource gazetteer) {
+        this(parallelAnnotator, meterRegistry, readNames(gazetteer));
+    }
+
+    TieredAnonymizer(ParallelAnnotator parallelAnnotator, MeterRegistry meterRegistry, Set<String> names) {
+        this.parallelAnnotator = parallelAnnotator;
+        this.names = names;
+        this.regexReplacements = replacements(meterRegistry, TIER_REGEX);
+        this.gazetteerReplacements = replacements(meterRegistry, TIER_GAZETTEER);
+        this.nerReplacements = replacements(meterRegistry, TIER_NER);
+        this.fastPathSentences = Counter.builder("nlp.anonymization.sentences").tag("path", "fast")
+                .description("Frases anonimizadas sin NER").register(meterRegistry);
+        this.nerSentences = Counter.builder("nlp.anonymization.sentences").tag("path", TIER_NER)
+                .description("Frases que requirieron NER").register(meterRegistry);
+    }
+
+    /**
+     * Anonimiza una lista de textos. Las frases candidatas de todos los textos se anotan juntas, en
+     * paralelo, sobre el pool de pipelines NER.
+     */
+    public TieredResult anonymizeAll(List<String> texts) {
+        List<List<Span>> spans = new ArrayList<>(texts.size());
+        long[] byTier = new long[3];
+
+        // niveles 1 y 2 y selección de frases candidatas
+        List<String> candidates = new ArrayList<>();
+        List<int[]> candidateOrigins = new ArrayList<>(); // {texto, inicio de la frase}
+        long fastSentences = 0;
+        for (int t = 0; t < texts.size(); t++) {
+            String text = texts.get(t);
+            List<Span> found = new ArrayList<>();
+            applyRegex(text, found);
+            applyGazetteer(text, found);
+            spans.add(found);
+
+            int[] bounds = SentenceSplitter.boundaries(text);
+            for (int i = 0; i < bounds.length; i += 2) {
+                if (hasCandidate(text, bounds[i], bounds[i + 1], found)) {
+                    candidates.add(text.substring(bounds[i], bounds[i + 1]));
+                    candidateOrigins.add(new int[]{t, bounds[i]});
+                } else {
+                    fastSentences++;
+                }
+            }
+        }
+
+        // nivel 3: NER solo sobre las frases candidatas
+        if (!candidates.isEmpty()) {
+            List<Annotation> annotations = parallelAnnotator.annotateAll(NlpProfile.ANONYMIZATION, candidates);
+            for (int c = 0; c < annotations.size(); c++) {
+                int[] origin = candidateOrigins.get(c);
+                addNerSpans(annotations.get(c), origin[1], spans.get(origin[0]));
+            }
+        }
+
+        List<String> anonymized = new ArrayList<>(texts.size());
+        for (int t = 0; t < texts.size(); t++) {
+            List<Span> found = spans.get(t);
+            for (Span span : found) byTier[span.tier]++;
+            anonymized.add(splice(texts.get(t), found));
+        }
+
+        regexReplacements.increment(byTier[0]);
+        gazetteerReplacements.increment(byTier[1]);
+        nerReplacements.increment(byTier[2]);
+        fastPathSentences.increment(fastSentences);
+        nerSentences.increment(candidates.size());
+
+        Map<String, Long> replacements = new LinkedHashMap<>();
+        replacements.put(TIER_REGEX, byTier[0]);
+        replacements.put(TIER_GAZETTEER, byTier[1]);
+        replacements.put(TIER_NER, byTier[2]);
+        return new TieredResult(anonymized, replacements, fastSentences, candidates.size());
+    }
+
+    private void applyRegex(String text, List<Span> spans) {
+        addMatches(PROFESSIONAL.matcher(text), "[PROFESIONAL]", spans);
+        addMatches(MEDICAL_CENTER.matcher(text), "[CENTRO_MEDICO]", spans);
+        addMatches(DATE.matcher(text), "[FECHA]", spans);
+    }
+
+    private static void addMatches(Matcher matcher, String placeholder, List<Span> spans) {
+        while (matcher.find()) {
+            addIfFree(spans, new Span(matcher.start(), matcher.end(), placeholder, 0));
+        }
+    }
+
+    // nombre del diccionario en mayúscula, ampliado con las palabras en mayúscula que lo siguen
+    private void applyGazetteer(String text, List<Span> spans) {
+        int i = 0;
+        int length = text.length();
+        while (i < length) {
+            int start = nextWordStart(text, i);
+            if (start >= length) break;
+            int end = wordEnd(text, start);
+            if (Character.isUpperCase(text.charAt(start)) && names.contains(text.substring(start, end).toLowerCase())) {
+                int spanEnd = end;
+                int next = spanEnd;
+                while (next < length && text.charAt(next) == ' ') next++;
+                while (next > spanEnd && next < length && Character.isUpperCase(text.charAt(next))) {
+                    spanEnd = wordEnd(text, next);
+                    next = spanEnd;
+                    while (next < length && text.charAt(next) == ' ') next++;
+                }
+                addIfFree(spans, new Span(start, spanEnd, "[NOMBRE]", 1));
+                end = spanEnd;
+            }
+            i = end;
+        }
+    }
+
+    // ¿queda alguna palabra en mayúscula, fuera de lo ya sustituido, que pueda ser una entidad?
+    private static boolean hasCandidate(String text, int start, int end, List<Span> spans) {
+        int i = start;
+        boolean first = true;
+        while (i < end) {
+            int wordStart = nextWordStart(text, i);
+            if (wordStart >= end) break;
+            int wordEnd = Math.min(wordEnd(text, wordStart), end);
+            if (Character.isUpperCase(text.charAt(wordStart)) && !covered(spans, wordStart)) {
+                if (!first || !COMMON_STARTERS.contains(text.substring(wordStart, wordEnd).toLowerCase())) return true;
+            }
+            first = false;
+            i = wordEnd;
+        }
+        return false;
+    }
+
+    private static void addNerSpans(Annotation sentence, int offset, List<Span> spans) {
+        List<CoreLabel> tokens = sentence.get(CoreAnnotations.TokensAnnotation.class);
+        for (int i = 0; i < tokens.size(); i++) {
+            String placeholder = TextAnonymizerService.placeholderFor(tokens.get(i).get(CoreAnnotations.NamedEntityTagAnnotation.class));
+            if (placeholder == null) continue;
+            int begin = tokens.get(i).beginPosition();
+            int end = tokens.get(i).endPosition();
+            while (i + 1 < tokens.size() && placeholder.equals(TextAnonymizerService.placeholderFor(tokens.get(i + 1).get(CoreAnnotations.NamedEntityTagAnnotation.class)))) {
+                end = tokens.get(++i).endPosition();
+            }
+            addIfFree(spans, new Span(offset + begin, offset + end, placeholder, 2));
+        }
+    }
+
+    // los niveles anteriores tienen prioridad: se descarta cualquier tramo que se solape
+    private static void addIfFree(List<Span> spans, Span candidate) {
+        for (Span span : spans) {
+            if (candidate.start < span.end && span.start < candidate.end) return;
+        }
+        spans.add(candidate);
+    }
+
+    private static boolean covered(List<Span> spans, int position) {
+        for (Span span : spans) {
+            if (position >= span.start && position < span.end) return true;
+        }
+        return false;
+    }
+
+    private static String splice(String text, List<Span> spans) {
+        spans.sort(Comparator.comparingInt(Span::start));
+        StringBuilder result = new StringBuilder(text.length() + 16);
+        int copied = 0;
+        for (Span span : spans) {
+            result.append(text, copied, span.start).append(span.placeholder);
+            copied = span.end;
+        }
+        return result.append(text, copied, text.length()).toString().trim();
+    }
+
+    private static int nextWordStart(String text, int from) {
+        int i = from;
+        while (i < text.length() && !Character.isLetter(text.charAt(i))) i++;
+        return i;
+    }
+
+    private static int wordEnd(String text, int from) {
+        int i = from;
+        while (i < text.length() && Character.isLetter(text.charAt(i))) i++;
+        return i;
+    }
+
+    private static Counter replacements(MeterRegistry registry, String tier) {
+        return Counter.builder("nlp.anonymization.replacements").tag("tier", tier)
+                .description("Entidades sustituidas por cada nivel del anonimizador").register(registry);
+    }
+
+    private static Set<String> readNames(Resource resource) {
+        Set<String> names = new HashSet<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(resource.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (!line.isEmpty() && !line.startsWith("#")) names.add(line.toLowerCase());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo leer el diccionario de nombres " + resource, e);
+        }
+        return names;
+    }
+
+
+    private record Span(int start, int end, String placeholder, int tier) {
+    }
+
+    /**
+     * Resultado de una anonimización por niveles.
+     *
+     * @param texts                  textos anonimizados, en el orden de entrada
+     * @param replacementsByTier     entidades sustituidas por cada nivel
+     * @param sentencesWithoutNer    frases resueltas solo con reglas
+     * @param sentencesWithNer       frases que pasaron por NER
+     */
+    public record TieredResult(List<String> texts, Map<String, Long> replacementsByTier,
+                               long sentencesWithoutNer, long sentencesWithNer) {
+    }
+}
@@ -0,0 +1,240 @@
+package com.mapicallo.capture_data_service.application.clustering;
+
+import com.mapicallo.capture_data_service.application.numeric.NumericKernels;
+import com.mapicallo.capture_data_service.application.text.BagOfWords;
+import com.mapicallo.capture_data_service.application.text.TermDictionary;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Modelo de temas resultado de un clustering: vocabulario, pesos IDF y centroides normalizados.
+ *
+ * <p>Permite asignar documentos nuevos al centroide más similar (coseno) sin volver a ejecutar
+ * K-Means: el documento se tokeniza con {@link DocumentVectorizer}, los términos fuera del
+ * vocabulario se ignoran y el coste es O(valores no nulos × k). Opcionalmente los centroides se
+ * actualizan con cada lote (mini-batch K-means): cada centroide se mueve hacia la media de los
+ * documentos nuevos que recibe con peso proporcional a su número, y se vuelve a normalizar.
+ *
+ * <p>Las asignaciones pueden hacerse en paralelo; las actualizaciones se serializan.
+ */
+public final class CentroidModel {
+
+    private static final int MAGIC = 0x434B4D31; // "CKM1"
+
+    private final TermWeighting weighting;
+    private final TermDictionary vocabulary;
+    private final double[] idf;
+    private final double[][] centroids;
+    // documentos que ha recibido cada centroide (entrenamiento + actualizaciones)
+    private final long[] sizes;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private CentroidModel(TermWeighting weighting, TermDictionary vocabulary, double[] idf,
+                          double[][] centroids, long[] sizes) {
+        this.weighting = weighting;
+        this.vocabulary = vocabulary;
+        this.idf = idf;
+        this.centroids = centroids;
+        this.sizes = sizes;
+    }
+
+    /**
+     * Crea el modelo a partir de un clustering.
+     *
+     * @param vocabulary vocabulario con el que se construyeron los vectores (no debe modificarse después)
+     */
+    public static CentroidModel of(TermDictionary vocabulary, SparseVectors vectors, TermWeighting weighting,
+                                   SphericalKMeans.Result result) {
+        double[] idf = new double[vectors.columns()];
+        for (int t = 0; t < idf.length; t++) idf[t] = vectors.idf(t);
+        double[][] centroids = new double[result.centroids().length][];
+        for (int c = 0; c < centroids.length; c++) centroids[c] = result.centroids()[c].clone();
+        long[] sizes = new long[centroids.length];
+        for (int cluster : result.assignments()) sizes[cluster]++;
+        return new CentroidModel(weighting, vocabulary, idf, centroids, sizes);
+    }
+
+    /**
+     * Asigna un documento al centroide más similar.
+     */
+    public Assignment assign(String text) {
+        lock.readLock().lock();
+        try {
+            return assign(vectorOf(text));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Asigna un lote de documentos y, si {@code update} es true, actualiza los centroides con él.
+     *
+     * @return asignaciones en el orden de entrada (calculadas con los centroides anteriores al lote).
+     */
+    public List<Assignment> assignAll(List<String> texts, boolean update) {
+        List<Vector> vectors = new ArrayList<>(texts.size());
+        for (String text : texts) vectors.add(vectorOf(text));
+
+        Lock batchLock = update ? lock.writeLock() : lock.readLock();
+        batchLock.lock();
+        try {
+            List<Assignment> assignments = new ArrayList<>(vectors.size());
+            for (Vector vector : vectors) assignments.add(assign(vector));
+            if (update) update(vectors, assignments);
+            return assignments;
+        } finally {
+            batchLock.unlock();
+        }
+    }
+
+    public int k() {
+        return centroids.length;
+    }
+
+    public int dimensions() {
+        return idf.length;
+    }
+
+    public TermWeighting weighting() {
+        return weighting;
+    }
+
+    /**
+     * Documentos recibidos por cada centroide.
+     */
+    public long[] sizes() {
+        lock.readLock().lock();
+        try {
+            return sizes.clone();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private Assignment assign(Vector vector) {
+        if (vector.columns.length == 0) return new Assignment(-1, 0);
+        int best = 0;
+        double bestSimilarity = Double.NEGATIVE_INFINITY;
+        for (int c = 0; c < centroids.length; c++) {
+            double similarity = 0;
+            for (int p = 0; p < vector.columns.length; p++) {
+                similarity += vector.values[p] * centroids[c][vector.columns[p]];
+            }
+            if (similarity > bestSimilarity) {
+                bestSimilarity = similarity;
+                best = c;
+            }
+        }
+        return new Assignment(best, bestSimilarity);
+    }
+
+    // centroide nuevo = normalizar(n · centroide + suma de los documentos del lote); n += documentos del lote
+    private void update(List<Vector> vectors, List<Assignment> assignments) {
+        double[][] sums = new double[centroids.length][];
+        int[] received = new int[centroids.length];
+        for (int i = 0; i < vectors.size(); i++) {
+            int cluster = assignments.get(i).cluster();
+            if (cluster < 0) continue;
+            if (sums[cluster] == null) sums[cluster] = new double[idf.length];
+            Vector vector = vectors.get(i);
+            for (int p = 0; p < vector.columns.length; p++) {
+                sums[cluster][vector.columns[p]] += vector.values[p];
+            }
+            received[cluster]++;
+        }
+        for (int c = 0; c < centroids.length; c++) {
+            if (received[c] == 0) continue;
+            NumericKernels.scaleAndAdd(centroids[c], sizes[c], sums[c]);
+            NumericKernels.normalize(centroids[c]);
+            sizes[c] += received[c];
+        }
+    }
+
+    private Vector vectorOf(String text) {
+        BagOfWords bag = DocumentVectorizer.bagOf(text, vocabulary, false);
+        int[] columns = new int[bag.size()];
+        double[] values = new double[bag.size()];
+        double norm = 0;
+        for (int j = 0; j < bag.size(); j++) {
+            columns[j] = bag.termId(j);
+            values[j] = bag.count(j) * idf[columns[j]];
+            norm += values[j] * values[j];
+        }
+        if (norm > 0) {
+            double scale = 1.0 / Math.sqrt(norm);
+            for (int j = 0; j < values.length; j++) values[j] *= scale;
+        }
+        return new Vector(columns, values);
+    }
+
+    /**
+     * Escribe el modelo: cabecera, peso, vocabulario con su IDF y, por centroide, su tamaño y sus
+     * valores no nulos.
+     */
+    public void writeTo(DataOutput out) throws IOException {
+        lock.readLock().lock();
+        try {
+            out.writeInt(MAGIC);
+            out.writeUTF(weighting.name());
+            out.writeInt(idf.length);
+            for (int t = 0; t < idf.length; t++) {
+                out.writeUTF(vocabulary.term(t));
+                out.writeDouble(idf[t]);
+            }
+            out.writeInt(centroids.length);
+            for (int c = 0; c < centroids.length; c++) {
+                out.writeLong(sizes[c]);
+                int nonZeros = 0;
+                for (double v : centroids[c]) if (v != 0) nonZeros++;
+                out.writeInt(nonZeros);
+                for (int t = 0; t < centroids[c].length; t++) {
+                    if (centroids[c][t] == 0) continue;
+                    out.writeInt(t);
+                    out.writeDouble(centroids[c][t]);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public static CentroidModel readFrom(DataInput in) throws IOException {
+        if (in.readInt() != MAGIC) throw new IOException("Formato de modelo de clustering no reconocido");
+        TermWeighting weighting = TermWeighting.valueOf(in.readUTF());
+        int dimensions = in.readInt();
+        TermDictionary vocabulary = DocumentVectorizer.newVocabulary();
+        double[] idf = new double[dimensions];
+        for (int t = 0; t < dimensions; t++) {
+            if (vocabulary.intern(in.readUTF()) != t) throw new IOException("Vocabulario con términos repetidos");
+            idf[t] = in.readDouble();
+        }
+        int k = in.readInt();
+        double[][] centroids = new double[k][dimensions];
+        long[] sizes = new long[k];
+        for (int c = 0; c < k; c++) {
+            sizes[c] = in.readLong();
+            int nonZeros = in.readInt();
+            for (int p = 0; p < nonZeros; p++) {
+                int t = in.readInt();
+                centroids[c][t] = in.readDouble();
+            }
+        }
+        return new CentroidModel(weighting, vocabulary, idf, centroids, sizes);
+    }
+
+    /**
+     * Asignación de un documento: clúster (-1 si no tiene ningún término del vocabulario) y
+     * similitud coseno con su centroide.
+     */
+    public record Assignment(int cluster, double similarity) {
+    }
+
+    private record Vector(int[] columns, double[] values) {
+    }
+}
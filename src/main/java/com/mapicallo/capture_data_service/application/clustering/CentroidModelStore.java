@@ -0,0 +1,75 @@
+package com.mapicallo.capture_data_service.application.clustering;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * Modelos de clustering con nombre guardados en disco local ({@code <nombre>.model}).
+ *
+ * <p>Los modelos usados se mantienen en memoria; al guardar, el fichero se escribe en un temporal
+ * que después sustituye al anterior.
+ */
+@Component
+public class CentroidModelStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(CentroidModelStore.class);
+
+    private static final Pattern NAME = Pattern.compile("[A-Za-z0-9_-]{1,64}");
+
+    private final Path directory;
+    private final Map<String, CentroidModel> models = new ConcurrentHashMap<>();
+
+    @Autowired
+    public CentroidModelStore(@Value("${nlp.clustering.model-dir:C:/capture_data/clustering/}") String directory) {
+        this.directory = Path.of(directory);
+    }
+
+    /**
+     * Guarda el modelo con ese nombre, sustituyendo al anterior si existía.
+     */
+    public void save(String name, CentroidModel model) throws IOException {
+        Path file = fileOf(name);
+        Files.createDirectories(directory);
+        Path temp = Files.createTempFile(directory, "model", ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+            model.writeTo(out);
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        models.put(name, model);
+        logger.info("Clustering model '{}' saved: k={}, {} terms", name, model.k(), model.dimensions());
+    }
+
+    /**
+     * Modelo con ese nombre, leído de disco la primera vez.
+     */
+    public Optional<CentroidModel> load(String name) throws IOException {
+        CentroidModel cached = models.get(name);
+        if (cached != null) return Optional.of(cached);
+        Path file = fileOf(name);
+        if (!Files.exists(file)) return Optional.empty();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            CentroidModel model = CentroidModel.readFrom(in);
+            CentroidModel previous = models.putIfAbsent(name, model);
+            return Optional.of(previous != null ? previous : model);
+        }
+    }
+
+    private Path fileOf(String name) {
+        if (name == null || !NAME.matcher(name).matches()) {
+            throw new IllegalArgumentException("Nombre de modelo no válido: " + name + " (letras, dígitos, '-' o '_')");
+        }
+        return directory.resolve(name + ".model");
+    }
+}
@@ -0,0 +1,48 @@
+package com.mapicallo.capture_data_service.application.clustering;
+
+import com.mapicallo.capture_data_service.application.text.BagOfWords;
+import com.mapicallo.capture_data_service.application.text.IntIntCounter;
+import com.mapicallo.capture_data_service.application.text.TermDictionary;
+import com.mapicallo.capture_data_service.application.text.TextScanner;
+
+/**
+ * Tokenización común de los documentos que se agrupan: palabras de más de 2 caracteres, sin
+ * distinguir mayúsculas, con identificadores de un vocabulario {@link TermDictionary}.
+ *
+ * <p>El clustering y la asignación de documentos nuevos a un {@link CentroidModel} tienen que
+ * tokenizar igual para que los identificadores de término signifiquen lo mismo.
+ */
+public final class DocumentVectorizer {
+
+    static final int MIN_TOKEN_LENGTH = 3;
+
+    private DocumentVectorizer() {
+    }
+
+    /**
+     * Vocabulario vacío con la configuración esperada (sin distinguir mayúsculas).
+     */
+    public static TermDictionary newVocabulary() {
+        return new TermDictionary(true);
+    }
+
+    /**
+     * Bolsa de palabras del texto.
+     *
+     * @param addNewTerms si es false, los términos que no están en el vocabulario se ignoran.
+     */
+    public static BagOfWords bagOf(String text, TermDictionary vocabulary, boolean addNewTerms) {
+        IntIntCounter counts = new IntIntCounter();
+        if (text != null) {
+            TextScanner scanner = new TextScanner().reset(text);
+            while (scanner.next()) {
+                if (scanner.tokenLength() < MIN_TOKEN_LENGTH) continue;
+                int id = addNewTerms
+                        ? vocabulary.intern(text, scanner.tokenStart(), scanner.tokenEnd())
+                        : vocabulary.idOf(text, scanner.tokenStart(), scanner.tokenEnd());
+                if (id >= 0) counts.increment(id);
+            }
+        }
+        return counts.toBagOfWords();
+    }
+}
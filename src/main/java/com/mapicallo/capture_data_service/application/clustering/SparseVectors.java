@@ -0,0 +1,137 @@
+package com.mapicallo.capture_data_service.application.clustering;
+
+import com.mapicallo.capture_data_service.application.text.BagOfWords;
+
+import java.util.List;
+
+/**
+ * Matriz dispersa de documentos × términos en formato CSR (filas comprimidas), con filas
+ * normalizadas a norma L2 = 1.
+ *
+ * <p>Los valores distintos de cero de la fila {@code i} ocupan las posiciones
+ * {@code [rowStart(i), rowEnd(i))} de los arrays de columnas y valores, con las columnas en orden
+ * creciente. La memoria es O(documentos + valores no nulos), independiente del tamaño del
+ * vocabulario, y como las filas son unitarias el producto escalar entre dos filas es su similitud
+ * coseno.
+ */
+public final class SparseVectors {
+
+    private final int columns;
+    private final int[] rowPointers;
+    private final int[] columnIndices;
+    private final double[] values;
+    private final double[] idf;
+
+    SparseVectors(int columns, int[] rowPointers, int[] columnIndices, double[] values, double[] idf) {
+        this.columns = columns;
+        this.rowPointers = rowPointers;
+        this.columnIndices = columnIndices;
+        this.values = values;
+        this.idf = idf;
+    }
+
+    /**
+     * Construye la matriz a partir de las bolsas de palabras de los documentos, en el mismo orden.
+     *
+     * @param bags      bolsas de palabras; la fila i corresponde a {@code bags.get(i)}
+     * @param columns   tamaño del vocabulario (identificadores de término en [0, columns))
+     * @param weighting peso de cada término: frecuencia (TF) o TF-IDF sobre estos mismos documentos
+     */
+    public static SparseVectors of(List<BagOfWords> bags, int columns, TermWeighting weighting) {
+        int[] rowPointers = new int[bags.size() + 1];
+        int[] documentFrequencies = new int[columns];
+        for (int i = 0; i < bags.size(); i++) {
+            BagOfWords bag = bags.get(i);
+            rowPointers[i + 1] = rowPointers[i] + bag.size();
+            for (int j = 0; j < bag.size(); j++) {
+                documentFrequencies[bag.termId(j)]++;
+            }
+        }
+
+        double[] idf = new double[columns];
+        for (int t = 0; t < columns; t++) {
+            // IDF suavizado: nunca es 0, así que un término presente en todos los documentos sigue contando
+            idf[t] = weighting == TermWeighting.TFIDF
+                    ? Math.log((1.0 + bags.size()) / (1.0 + documentFrequencies[t])) + 1.0
+                    : 1.0;
+        }
+
+        int[] columnIndices = new int[rowPointers[bags.size()]];
+        double[] values = new double[columnIndices.length];
+        for (int i = 0; i < bags.size(); i++) {
+            BagOfWords bag = bags.get(i);
+            int offset = rowPointers[i];
+            double norm = 0;
+            for (int j = 0; j < bag.size(); j++) {
+                int term = bag.termId(j);
+                double weight = bag.count(j) * idf[term];
+                columnIndices[offset + j] = term;
+                values[offset + j] = weight;
+                norm += weight * weight;
+            }
+            if (norm > 0) {
+                double scale = 1.0 / Math.sqrt(norm);
+                for (int p = offset; p < offset + bag.size(); p++) values[p] *= scale;
+            }
+        }
+        return new SparseVectors(columns, rowPointers, columnIndices, values, idf);
+    }
+
+    public int rows() {
+        return rowPointers.length - 1;
+    }
+
+    public int columns() {
+        return columns;
+    }
+
+    public int rowStart(int row) {
+        return rowPointers[row];
+    }
+
+    public int rowEnd(int row) {
+        return rowPointers[row + 1];
+    }
+
+    public int column(int position) {
+        return columnIndices[position];
+    }
+
+    public double value(int position) {
+        return values[position];
+    }
+
+    /**
+     * Número total de valores no nulos.
+     */
+    public int nonZeros() {
+        return columnIndices.length;
+    }
+
+    /**
+     * Peso IDF aplicado a cada columna (1 con {@link TermWeighting#TF}).
+     */
+    public double idf(int column) {
+        return idf[column];
+    }
+
+    /**
+     * Producto escalar de una fila con un vector denso de longitud {@link #columns()}.
+     */
+    public double dot(int row, double[] dense) {
+        double sum = 0;
+        for (int p = rowPointers[row]; p < rowPointers[row + 1]; p++) {
+            sum += values[p] * dense[columnIndices[p]];
+        }
+        return sum;
+    }
+
+    /**
+     * Suma {@code factor} veces la fila a un vector denso.
+     */
+    public void addTo(int row, double[] dense, double factor) {
+        for (int p = rowPointers[row]; p < rowPointers[row + 1]; p++) {
+            dense[columnIndices[p]] += factor * values[p];
+        }
+    }
+}
@@ -0,0 +1,232 @@
+package com.mapicallo.capture_data_service.application.clustering;
+
+import com.mapicallo.capture_data_service.application.numeric.NumericKernels;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.IntStream;
+
+/**
+ * K-means esférico sobre vectores dispersos normalizados ({@link SparseVectors}), con distancia
+ * coseno ({@code 1 - similitud}).
+ *
+ * <p>Los centroides iniciales se eligen con k-means++ y después se itera al estilo de Lloyd: cada
+ * documento se asigna al centroide más similar y cada centroide pasa a ser la media normalizada de
+ * sus documentos. La asignación, que es la parte cara (O(valores no nulos × k) por iteración), se
+ * reparte en tramos de filas sobre un {@link ForkJoinPool}; la actualización de centroides es
+ * secuencial y lineal en los valores no nulos. Se para cuando ninguna asignación cambia o al agotar
+ * el número máximo de iteraciones.
+ *
+ * <p>El resultado se indexa por fila, es decir, por la posición del documento en la entrada, así
+ * que documentos con vectores idénticos no se confunden. Con la misma semilla el resultado es
+ * determinista.
+ */
+@Component
+public class SphericalKMeans {
+
+    // filas por tarea de fork-join
+    private static final int CHUNK = 512;
+
+    private final ForkJoinPool pool;
+
+    @Autowired
+    public SphericalKMeans(@Value("${nlp.clustering.threads:0}") int threads) {
+        this.pool = new ForkJoinPool(threads > 0 ? threads : Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Agrupa las filas de {@code data} en {@code k} clústeres.
+     *
+     * @param maxIterations número máximo de iteraciones de asignación
+     * @param seed          semilla de la inicialización k-means++
+     */
+    public Result cluster(SparseVectors data, int k, int maxIterations, long seed) {
+        int n = data.rows();
+        if (k < 1 || k > n) {
+            throw new IllegalArgumentException("k debe estar entre 1 y el número de documentos (" + n + ")");
+        }
+        if (maxIterations < 1) throw new IllegalArgumentException("El número de iteraciones debe ser mayor que 0");
+
+        double[][] centroids = initialCentroids(data, k, new Random(seed));
+        int[] assignments = new int[n];
+        Arrays.fill(assignments, -1);
+        double[] similarities = new double[n];
+
+        int iterations = 0;
+        boolean converged = false;
+        while (iterations < maxIterations) {
+            iterations++;
+            if (assign(data, centroids, assignments, similarities) == 0) {
+                converged = true;
+                break;
+            }
+            updateCentroids(data, centroids, assignments, similarities);
+        }
+
+        double cost = 0;
+        for (double similarity : similarities) cost += 1 - similarity;
+        return new Result(assignments, centroids, iterations, converged, cost);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    // asigna cada fila al centroide más similar; devuelve cuántas asignaciones han cambiado
+    private long assign(SparseVectors data, double[][] centroids, int[] assignments, double[] similarities) {
+        LongAdder changed = new LongAdder();
+        parallelFor(data.rows(), (from, to) -> {
+            int local = 0;
+            for (int i = from; i < to; i++) {
+                int best = 0;
+                double bestSimilarity = Double.NEGATIVE_INFINITY;
+                for (int c = 0; c < centroids.length; c++) {
+                    double similarity = data.dot(i, centroids[c]);
+                    if (similarity > bestSimilarity) {
+                        bestSimilarity = similarity;
+                        best = c;
+                    }
+                }
+                if (assignments[i] != best) {
+                    assignments[i] = best;
+                    local++;
+                }
+                similarities[i] = bestSimilarity;
+            }
+            changed.add(local);
+        });
+        return changed.sum();
+    }
+
+    private void updateCentroids(SparseVectors data, double[][] centroids, int[] assignments, double[] similarities) {
+        int k = centroids.length;
+        int[] sizes = new int[k];
+        for (int cluster : assignments) sizes[cluster]++;
+
+        // un clúster vacío se queda con el documento peor representado de entre los clústeres con más de uno
+        for (int c = 0; c < k; c++) {
+            if (sizes[c] > 0) continue;
+            int worst = -1;
+            for (int i = 0; i < assignments.length; i++) {
+                if (sizes[assignments[i]] > 1 && (worst < 0 || similarities[i] < similarities[worst])) worst = i;
+            }
+            sizes[assignments[worst]]--;
+            assignments[worst] = c;
+            similarities[worst] = 1;
+            sizes[c] = 1;
+        }
+
+        for (double[] centroid : centroids) Arrays.fill(centroid, 0);
+        for (int i = 0; i < assignments.length; i++) {
+            data.addTo(i, centroids[assignments[i]], 1);
+        }
+        for (double[] centroid : centroids) NumericKernels.normalize(centroid);
+    }
+
+    // k-means++: cada nuevo centroide se elige con probabilidad proporcional a la distancia al cuadrado
+    // al centroide más cercano de los ya elegidos
+    private double[][] initialCentroids(SparseVectors data, int k, Random random) {
+        int n = data.rows();
+        double[][] centroids = new double[k][];
+        double[] distances = new double[n];
+        Arrays.fill(distances, Double.POSITIVE_INFINITY);
+        boolean[] chosen = new boolean[n];
+
+        int next = random.nextInt(n);
+        for (int c = 0; c < k; c++) {
+            chosen[next] = true;
+            double[] centroid = new double[data.columns()];
+            data.addTo(next, centroid, 1);
+            centroids[c] = centroid;
+            if (c == k - 1) break;
+
+            parallelFor(n, (from, to) -> {
+                for (int i = from; i < to; i++) {
+                    double distance = Math.max(0, 1 - data.dot(i, centroid));
+                    if (distance < distances[i]) distances[i] = distance;
+                }
+            });
+
+            double total = 0;
+            for (int i = 0; i < n; i++) {
+                if (!chosen[i]) total += distances[i] * distances[i];
+            }
+            next = -1;
+            if (total > 0) {
+                double target = random.nextDouble() * total;
+                for (int i = 0; i < n; i++) {
+                    if (chosen[i]) continue;
+                    target -= distances[i] * distances[i];
+                    next = i;
+                    if (target <= 0) break;
+                }
+            } else {
+                // todos los documentos restantes coinciden con algún centroide: el primero libre
+                for (int i = 0; i < n && next < 0; i++) {
+                    if (!chosen[i]) next = i;
+                }
+            }
+        }
+        return centroids;
+    }
+
+    private void parallelFor(int n, RangeAction action) {
+        pool.invoke(new RangeTask(action, 0, n));
+    }
+
+    @FunctionalInterface
+    private interface RangeAction {
+        void run(int from, int to);
+    }
+
+    private static final class RangeTask extends RecursiveAction {
+        private final RangeAction action;
+        private final int from;
+        private final int to;
+
+        RangeTask(RangeAction action, int from, int to) {
+            this.action = action;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= CHUNK) {
+                action.run(from, to);
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new RangeTask(action, from, middle), new RangeTask(action, middle, to));
+        }
+    }
+
+    /**
+     * Resultado del clustering.
+     *
+     * @param assignments clúster de cada fila, en el orden de entrada
+     * @param centroids   centroides normalizados, densos sobre el vocabulario
+     * @param iterations  iteraciones de asignación realizadas
+     * @param converged   true si la última iteración no cambió ninguna asignación
+     * @param cost        suma de las distancias coseno de cada documento a su centroide
+     */
+    public record Result(int[] assignments, double[][] centroids, int iterations, boolean converged, double cost) {
+
+        /**
+         * Filas asignadas al clúster, en orden creciente.
+         */
+        public int[] members(int cluster) {
+            return IntStream.range(0, assignments.length)
+                    .filter(i -> assignments[i] == cluster)
+                    .toArray();
+        }
+    }
+}
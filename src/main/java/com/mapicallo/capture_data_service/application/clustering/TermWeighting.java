@@ -0,0 +1,16 @@
+package com.mapicallo.capture_data_service.application.clustering;
+
+/**
+ * Peso de los términos en los vectores de documento.
+ */
+public enum TermWeighting {
+    TF, TFIDF;
+
+    public static TermWeighting fromName(String name) {
+        try {
+            return valueOf(name.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Peso de términos no válido: " + name + " (tf o tfidf)");
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.mapicallo.capture_data_service.application.dedup;
+
+import java.util.*;
+
+/**
+ * Agrupación de una lista de documentos en grupos de casi duplicados.
+ *
+ * <p>Cada documento tiene un representante: el primer documento (menor posición) de su grupo. Los
+ * documentos sin duplicados son su propio representante. Permite procesar solo los representantes
+ * ({@link #select(List)}) y copiar después sus resultados al resto de su grupo ({@link #expand(List)}).
+ */
+public final class DuplicateGroups {
+
+    private final int[] representativeOf;
+    private final int[] representatives;
+    // posición de cada representante dentro de representatives
+    private final int[] slotOf;
+
+    DuplicateGroups(int[] representativeOf) {
+        this.representativeOf = representativeOf;
+        int[] slots = new int[representativeOf.length];
+        int count = 0;
+        for (int i = 0; i < representativeOf.length; i++) {
+            if (representativeOf[i] == i) slots[i] = count++;
+        }
+        this.representatives = new int[count];
+        for (int i = 0; i < representativeOf.length; i++) {
+            if (representativeOf[i] == i) representatives[slots[i]] = i;
+        }
+        this.slotOf = slots;
+    }
+
+    /**
+     * Agrupación sin duplicados: cada documento es su propio representante.
+     */
+    public static DuplicateGroups identity(int size) {
+        int[] representativeOf = new int[size];
+        for (int i = 0; i < size; i++) representativeOf[i] = i;
+        return new DuplicateGroups(representativeOf);
+    }
+
+    public int size() {
+        return representativeOf.length;
+    }
+
+    /**
+     * Posición del representante del grupo del documento {@code i}.
+     */
+    public int representative(int i) {
+        return representativeOf[i];
+    }
+
+    public boolean isDuplicate(int i) {
+        return representativeOf[i] != i;
+    }
+
+    /**
+     * Número de documentos que no son representantes (los que se ahorra el procesamiento).
+     */
+    public int duplicateCount() {
+        return representativeOf.length - representatives.length;
+    }
+
+    /**
+     * Elementos de {@code items} (alineada con los documentos) que corresponden a los representantes.
+     */
+    public <T> List<T> select(List<T> items) {
+        List<T> selected = new ArrayList<>(representatives.length);
+        for (int i : representatives) selected.add(items.get(i));
+        return selected;
+    }
+
+    /**
+     * Resultados por documento a partir de los resultados de los representantes (en el orden de
+     * {@link #select(List)}): cada documento recibe el resultado de su representante.
+     */
+    public <T> List<T> expand(List<T> representativeResults) {
+        List<T> expanded = new ArrayList<>(representativeOf.length);
+        for (int representative : representativeOf) {
+            expanded.add(representativeResults.get(slotOf[representative]));
+        }
+        return expanded;
+    }
+
+    /**
+     * Grupos con más de un documento, cada uno con las posiciones en orden creciente (el primero es
+     * el representante).
+     */
+    public List<int[]> groups() {
+        Map<Integer, List<Integer>> members = new LinkedHashMap<>();
+        for (int i = 0; i < representativeOf.length; i++) {
+            if (isDuplicate(i)) {
+                members.computeIfAbsent(representativeOf[i], r -> new ArrayList<>(List.of(r))).add(i);
+            }
+        }
+        List<int[]> groups = new ArrayList<>(members.size());
+        for (List<Integer> group : members.values()) {
+            groups.add(group.stream().mapToInt(Integer::intValue).toArray());
+        }
+        return groups;
+    }
+}
@@ -0,0 +1,232 @@
+package com.mapicallo.capture_data_service.application.dedup;
+
+import com.mapicallo.capture_data_service.application.text.TextScanner;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+
+/**
+ * Detección de documentos casi duplicados con MinHash y LSH.
+ *
+ * <ol>
+ *   <li>Cada texto se convierte en el conjunto de sus <i>shingles</i>: secuencias de
+ *   {@code shingleSize} palabras consecutivas (sin distinguir mayúsculas), representadas por un
+ *   hash de 64 bits.</li>
+ *   <li>De cada conjunto se calcula una firma MinHash de {@code hashes} valores: la probabilidad de
+ *   que dos firmas coincidan en una posición es la similitud de Jaccard de los conjuntos.</li>
+ *   <li>Las firmas se dividen en bandas (LSH); dos documentos son candidatos si coinciden en todas
+ *   las filas de alguna banda. El número de bandas se elige para que el umbral de la curva de LSH
+ *   quede cerca del umbral de Jaccard pedido.</li>
+ *   <li>Los grupos se forman alrededor de un líder: en orden de entrada, cada documento se une al
+ *   grupo del primer líder anterior que sea candidato y cuya similitud de Jaccard exacta con él
+ *   alcance el umbral; si no hay ninguno, es líder de un grupo nuevo. Así todo documento se parece
+ *   al representante cuyo resultado recibe, aunque dos miembros del mismo grupo no se parezcan entre
+ *   sí: una cadena A~B~C con A y C distintos no junta A y C.</li>
+ * </ol>
+ *
+ * <p>El coste es lineal en el tamaño del texto y en el número de documentos salvo por los pares
+ * candidatos, que con un umbral alto son pocos.
+ */
+@Component
+public class NearDuplicateDetector {
+
+    private final double defaultThreshold;
+    private final int hashes;
+    private final int shingleSize;
+    private final long[] seeds;
+
+    @Autowired
+    public NearDuplicateDetector(@Value("${nlp.dedup.threshold:0.8}") double defaultThreshold,
+                                 @Value("${nlp.dedup.hashes:128}") int hashes,
+                                 @Value("${nlp.dedup.shingle-size:3}") int shingleSize) {
+        if (hashes < 1 || shingleSize < 1) throw new IllegalArgumentException("nlp.dedup.hashes y nlp.dedup.shingle-size deben ser mayores que 0");
+        this.defaultThreshold = checkThreshold(defaultThreshold);
+        this.hashes = hashes;
+        this.shingleSize = shingleSize;
+        this.seeds = new long[hashes];
+        Random random = new Random(0x5EEDL);
+        for (int i = 0; i < hashes; i++) seeds[i] = random.nextLong();
+    }
+
+    public double defaultThreshold() {
+        return defaultThreshold;
+    }
+
+    /**
+     * Agrupa los textos con el umbral de Jaccard por defecto.
+     */
+    public DuplicateGroups detect(List<String> texts) {
+        return detect(texts, defaultThreshold);
+    }
+
+    /**
+     * Agrupa los textos cuya similitud de Jaccard (sobre shingles) con el representante de su grupo
+     * es mayor o igual que {@code threshold}.
+     */
+    public DuplicateGroups detect(List<String> texts, double threshold) {
+        checkThreshold(threshold);
+        int n = texts.size();
+        long[][] shingles = new long[n][];
+        int[][] signatures = new int[n][];
+        for (int i = 0; i < n; i++) {
+            shingles[i] = shinglesOf(texts.get(i));
+            signatures[i] = signatureOf(shingles[i]);
+        }
+
+        int rows = rowsPerBand(threshold);
+        int bands = hashes / rows;
+        // candidatos anteriores de cada documento, en orden
+        Map<Integer, TreeSet<Integer>> earlierCandidates = new HashMap<>();
+        for (int band = 0; band < bands; band++) {
+            Map<Long, List<Integer>> buckets = new HashMap<>();
+            for (int i = 0; i < n; i++) {
+                if (shingles[i].length == 0) continue;
+                buckets.computeIfAbsent(bandKey(signatures[i], band * rows, rows), key -> new ArrayList<>(2)).add(i);
+            }
+            for (List<Integer> bucket : buckets.values()) {
+                // los índices de cada cubeta van en orden creciente
+                for (int b = 1; b < bucket.size(); b++) {
+                    earlierCandidates.computeIfAbsent(bucket.get(b), key -> new TreeSet<>()).addAll(bucket.subList(0, b));
+                }
+            }
+        }
+
+        int[] representativeOf = new int[n];
+        for (int i = 0; i < n; i++) {
+            representativeOf[i] = i;
+            TreeSet<Integer> candidates = earlierCandidates.get(i);
+            if (candidates == null) continue;
+            for (int leader : candidates) {
+                if (representativeOf[leader] == leader && jaccard(shingles[leader], shingles[i]) >= threshold) {
+                    representativeOf[i] = leader;
+                    break;
+                }
+            }
+        }
+        return new DuplicateGroups(representativeOf);
+    }
+
+    /**
+     * Similitud de Jaccard exacta entre los shingles de dos textos.
+     */
+    public double similarity(String a, String b) {
+        return jaccard(shinglesOf(a), shinglesOf(b));
+    }
+
+    // hashes de los shingles del texto, ordenados y sin repetidos
+    long[] shinglesOf(String text) {
+        if (text == null) return new long[0];
+        TextScanner scanner = new TextScanner().reset(text);
+        long[] window = new long[shingleSize];
+        long[] result = new long[16];
+        int tokens = 0;
+        int count = 0;
+        while (scanner.next()) {
+            window[tokens % shingleSize] = tokenHash(text, scanner.tokenStart(), scanner.tokenEnd());
+            tokens++;
+            if (tokens >= shingleSize) {
+                if (count == result.length) result = Arrays.copyOf(result, count * 2);
+                result[count++] = shingleHash(window, tokens);
+            }
+        }
+        if (tokens > 0 && tokens < shingleSize) {
+            // texto más corto que un shingle: un único shingle con todas sus palabras
+            result[count++] = shingleHash(window, tokens);
+        }
+        Arrays.sort(result, 0, count);
+        int unique = 0;
+        for (int i = 0; i < count; i++) {
+            if (unique == 0 || result[unique - 1] != result[i]) result[unique++] = result[i];
+        }
+        return Arrays.copyOf(result, unique);
+    }
+
+    private int[] signatureOf(long[] shingles) {
+        int[] signature = new int[hashes];
+        Arrays.fill(signature, Integer.MAX_VALUE);
+        for (long shingle : shingles) {
+            for (int h = 0; h < hashes; h++) {
+                int value = (int) (mix(shingle ^ seeds[h]) >>> 33);
+                if (value < signature[h]) signature[h] = value;
+            }
+        }
+        return signature;
+    }
+
+    // filas por banda tales que el umbral aproximado de LSH, (1/b)^(1/r), quede más cerca del pedido
+    private int rowsPerBand(double threshold) {
+        int bestRows = 1;
+        double bestError = Double.MAX_VALUE;
+        for (int rows = 1; rows <= hashes; rows++) {
+            int bands = hashes / rows;
+            double error = Math.abs(Math.pow(1.0 / bands, 1.0 / rows) - threshold);
+            if (error < bestError) {
+                bestError = error;
+                bestRows = rows;
+            }
+        }
+        // un poco por debajo del umbral para perder menos pares verdaderos; la verificación exacta filtra el resto
+        return Math.max(1, bestRows - 1);
+    }
+
+    private static long bandKey(int[] signature, int from, int rows) {
+        long key = from;
+        for (int i = from; i < from + rows; i++) key = mix(key * 31 + signature[i]);
+        return key;
+    }
+
+    static double jaccard(long[] a, long[] b) {
+        if (a.length == 0 && b.length == 0) return 1.0;
+        int i = 0;
+        int j = 0;
+        int intersection = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] == b[j]) {
+                intersection++;
+                i++;
+                j++;
+            } else if (a[i] < b[j]) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return (double) intersection / (a.length + b.length - intersection);
+    }
+
+    // FNV-1a de 64 bits sobre los caracteres del token en minúsculas
+    private static long tokenHash(CharSequence text, int start, int end) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = start; i < end; i++) {
+            h ^= Character.toLowerCase(text.charAt(i));
+            h *= 0x100000001b3L;
+        }
+        return h;
+    }
+
+    // hash de los últimos tokens de la ventana circular, en orden
+    private long shingleHash(long[] window, int tokens) {
+        int length = Math.min(tokens, shingleSize);
+        long h = length;
+        for (int k = tokens - length; k < tokens; k++) {
+            h = mix(h * 31 + window[k % shingleSize]);
+        }
+        return h;
+    }
+
+    // finalizador de SplitMix64
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    private static double checkThreshold(double threshold) {
+        if (!(threshold > 0 && threshold <= 1)) {
+            throw new IllegalArgumentException("El umbral de similitud debe estar en (0, 1]: " + threshold);
+        }
+        return threshold;
+    }
+}
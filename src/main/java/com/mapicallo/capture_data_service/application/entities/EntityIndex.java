@@ -0,0 +1,345 @@
+package com.mapicallo.capture_data_service.application.entities;
+
+import com.mapicallo.capture_data_service.application.storage.SnapshotFile;
+import com.mapicallo.capture_data_service.application.text.IntIntCounter;
+import com.mapicallo.capture_data_service.application.text.TermDictionary;
+import com.mapicallo.capture_data_service.application.text.TopK;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Índice invertido en memoria de las entidades reconocidas por NER: de cada entidad (tipo + texto
+ * normalizado) a los documentos en los que aparece.
+ *
+ * <p>Cada entidad distinta recibe un ordinal; dos menciones son la misma entidad si tienen el mismo
+ * tipo y el mismo texto salvo mayúsculas y espacios. Los documentos también se numeran, en orden de
+ * llegada, de modo que la {@link PostingList} de una entidad solo crece por el final y se guarda
+ * comprimida por diferencias. Un índice directo (documento → entidades), comprimido igual
+ * ({@link ForwardIndex}), responde a las coapariciones.
+ *
+ * <p>Una entidad se escribe {@code TIPO:texto} (por ejemplo {@code PERSON:Pérez}); sin tipo se
+ * refiere a todas las entidades con ese texto. Un documento ya indexado (mismo identificador) no se
+ * vuelve a indexar.
+ *
+ * <p>Un {@link ReentrantReadWriteLock} protege el índice. La instantánea
+ * ({@code nlp.entities.snapshot-file}, ver {@link SnapshotFile}) guarda solo las entidades y el índice
+ * directo; las listas de documentos se reconstruyen al cargarla.
+ */
+@Component
+public class EntityIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(EntityIndex.class);
+
+    private static final int MAGIC = 0x454E5431; // "ENT1"
+    private static final int[] NONE = new int[0];
+
+    private final SnapshotFile snapshot;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // entidades: clave "TIPO\ttexto", tipo y texto de cada identificador, y sus documentos
+    private TermDictionary entityKeys = new TermDictionary(true);
+    private List<String> types = new ArrayList<>();
+    private List<String> texts = new ArrayList<>();
+    private List<PostingList> postings = new ArrayList<>();
+    // entidades de cada texto, para las consultas sin tipo
+    private TermDictionary textKeys = new TermDictionary(true);
+    private List<int[]> entitiesByText = new ArrayList<>();
+    // documentos: identificador externo y entidades (ordenadas) de cada ordinal
+    private List<String> documents = new ArrayList<>();
+    private Map<String, Integer> ordinals = new HashMap<>();
+    private ForwardIndex documentEntities = new ForwardIndex();
+
+    @Autowired
+    public EntityIndex(@Value("${nlp.entities.snapshot-file:C:/capture_data/entities/index.bin}") String snapshotFile) {
+        this.snapshot = new SnapshotFile(SnapshotFile.pathOf(snapshotFile), MAGIC, "entities", this::writeTo);
+    }
+
+    @PostConstruct
+    public void load() {
+        lock.writeLock().lock();
+        try {
+            if (snapshot.read(this::readFrom)) {
+                logger.info("Entity index loaded from {}: {} documents, {} entities", snapshot.path(), documents.size(), types.size());
+            }
+        } catch (IOException e) {
+            clear();
+            logger.warn("Could not load entity index {}: {}", snapshot.path(), e.getMessage());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Guarda ya una instantánea del índice en disco.
+     */
+    public void save() throws IOException {
+        snapshot.save();
+    }
+
+    /**
+     * Espera a que se guarden en disco las inserciones anteriores.
+     */
+    public void flush() {
+        snapshot.flush();
+    }
+
+    /**
+     * Indexa las entidades de varios documentos (identificador del documento → tipo → menciones).
+     *
+     * @return número de documentos nuevos.
+     */
+    public int addDocuments(Map<String, Map<String, List<String>>> entitiesByDocument) {
+        int added = 0;
+        lock.writeLock().lock();
+        try {
+            for (Map.Entry<String, Map<String, List<String>>> document : entitiesByDocument.entrySet()) {
+                if (ordinals.containsKey(document.getKey())) continue;
+                Set<Integer> ids = new TreeSet<>();
+                for (Map.Entry<String, List<String>> mentions : document.getValue().entrySet()) {
+                    for (String mention : mentions.getValue()) {
+                        int entity = entityOf(mentions.getKey(), mention, true);
+                        if (entity >= 0) ids.add(entity);
+                    }
+                }
+                append(document.getKey(), ids.stream().mapToInt(Integer::intValue).toArray());
+                added++;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        if (added > 0) snapshot.changed();
+        return added;
+    }
+
+    /**
+     * Documentos que contienen todas ({@code matchAll}) o alguna de las entidades, en orden de
+     * indexación, como mucho {@code limit}. Con {@code matchAll}, una entidad desconocida deja el
+     * resultado vacío; sin él, se ignora.
+     */
+    public DocumentMatches documents(List<String> entities, boolean matchAll, int limit) {
+        lock.readLock().lock();
+        try {
+            int[] result = null;
+            for (String entity : entities) {
+                int[] found = documentsOf(resolve(entity));
+                if (result == null) {
+                    result = found;
+                } else {
+                    result = matchAll ? PostingList.intersect(result, found) : PostingList.union(result, found);
+                }
+                if (matchAll && result.length == 0) break;
+            }
+            if (result == null) result = NONE;
+            List<String> ids = new ArrayList<>(Math.min(result.length, Math.max(0, limit)));
+            for (int i = 0; i < result.length && i < limit; i++) ids.add(documents.get(result[i]));
+            return new DocumentMatches(result.length, ids);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Las {@code k} entidades que aparecen en más documentos junto con la indicada, de más a menos.
+     */
+    public List<CoOccurrence> coOccurring(String entity, int k) {
+        lock.readLock().lock();
+        try {
+            int[] self = resolve(entity);
+            if (self.length == 0 || k < 1) return List.of();
+            IntIntCounter counts = new IntIntCounter();
+            for (int document : documentsOf(self)) {
+                documentEntities.forEach(document, counts::increment);
+            }
+            for (int id : self) counts.add(id, -counts.get(id));
+
+            TopK top = new TopK(k);
+            counts.forEach((id, count) -> {
+                if (count > 0) top.offer(id, count);
+            });
+            List<CoOccurrence> result = new ArrayList<>();
+            for (int id : top.drainDescending()) result.add(new CoOccurrence(types.get(id), texts.get(id), counts.get(id)));
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Entidades que corresponden a {@code TIPO:texto} (o a {@code texto} con cualquier tipo), con su
+     * número de documentos.
+     */
+    public List<EntityPostings> lookup(String entity) {
+        lock.readLock().lock();
+        try {
+            List<EntityPostings> result = new ArrayList<>();
+            for (int id : resolve(entity)) {
+                result.add(new EntityPostings(types.get(id), texts.get(id), postings.get(id).size(), postings.get(id).byteSize()));
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int documentCount() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int entityCount() {
+        lock.readLock().lock();
+        try {
+            return types.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        snapshot.close();
+    }
+
+    // instantánea: entidades (tipo y texto) y, por documento, su identificador y sus entidades;
+    // las listas de documentos de cada entidad se reconstruyen al leerla
+    private void writeTo(DataOutputStream out) throws IOException {
+        lock.readLock().lock();
+        try {
+            out.writeInt(types.size());
+            for (int e = 0; e < types.size(); e++) {
+                out.writeUTF(types.get(e));
+                out.writeUTF(texts.get(e));
+            }
+            out.writeInt(documents.size());
+            for (int d = 0; d < documents.size(); d++) {
+                out.writeUTF(documents.get(d));
+                int[] documentEntityIds = documentEntities.toArray(d);
+                out.writeInt(documentEntityIds.length);
+                for (int entity : documentEntityIds) out.writeInt(entity);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void readFrom(DataInputStream in) throws IOException {
+        clear();
+        int entities = in.readInt();
+        for (int e = 0; e < entities; e++) {
+            if (entityOf(in.readUTF(), in.readUTF(), true) != e) throw new IOException("Índice de entidades incoherente");
+        }
+        int documentCount = in.readInt();
+        for (int d = 0; d < documentCount; d++) {
+            String id = in.readUTF();
+            int[] documentEntityIds = new int[in.readInt()];
+            for (int i = 0; i < documentEntityIds.length; i++) {
+                documentEntityIds[i] = in.readInt();
+                int previous = i == 0 ? -1 : documentEntityIds[i - 1];
+                if (documentEntityIds[i] <= previous || documentEntityIds[i] >= entities) throw new IOException("Índice de entidades incoherente");
+            }
+            append(id, documentEntityIds);
+        }
+    }
+
+    private void append(String id, int[] entityIds) {
+        int ordinal = documents.size();
+        documents.add(id);
+        ordinals.put(id, ordinal);
+        documentEntities.add(entityIds);
+        for (int entity : entityIds) postings.get(entity).add(ordinal);
+    }
+
+    // identificador de la entidad, creándola si {@code create}; -1 si no existe o el texto está vacío
+    private int entityOf(String type, String text, boolean create) {
+        String normalizedType = type == null ? "" : type.trim().toUpperCase(Locale.ROOT);
+        String normalizedText = normalize(text);
+        if (normalizedText == null) return -1;
+        String key = normalizedType + "\t" + normalizedText;
+        int id = entityKeys.idOf(key);
+        if (id >= 0 || !create) return id;
+
+        id = entityKeys.intern(key);
+        types.add(normalizedType);
+        texts.add(normalizedText);
+        postings.add(new PostingList());
+        int textId = textKeys.intern(normalizedText);
+        if (textId == entitiesByText.size()) entitiesByText.add(NONE);
+        int[] sameText = entitiesByText.get(textId);
+        int[] extended = Arrays.copyOf(sameText, sameText.length + 1);
+        extended[sameText.length] = id;
+        entitiesByText.set(textId, extended);
+        return id;
+    }
+
+    // entidades de "TIPO:texto" o, sin tipo, todas las del texto
+    private int[] resolve(String entity) {
+        if (entity == null) return NONE;
+        int colon = entity.indexOf(':');
+        if (colon > 0 && entity.substring(0, colon).matches("[A-Za-z_]+")) {
+            int id = entityOf(entity.substring(0, colon), entity.substring(colon + 1), false);
+            return id >= 0 ? new int[]{id} : NONE;
+        }
+        String normalized = normalize(entity);
+        int textId = normalized == null ? -1 : textKeys.idOf(normalized);
+        return textId >= 0 ? entitiesByText.get(textId) : NONE;
+    }
+
+    // documentos que contienen alguna de las entidades
+    private int[] documentsOf(int[] entities) {
+        int[] result = NONE;
+        for (int entity : entities) result = PostingList.union(result, postings.get(entity).toArray());
+        return result;
+    }
+
+    private void clear() {
+        entityKeys = new TermDictionary(true);
+        types = new ArrayList<>();
+        texts = new ArrayList<>();
+        postings = new ArrayList<>();
+        textKeys = new TermDictionary(true);
+        entitiesByText = new ArrayList<>();
+        documents = new ArrayList<>();
+        ordinals = new HashMap<>();
+        documentEntities = new ForwardIndex();
+    }
+
+    // espacios colapsados y recortados; null si queda vacío
+    private static String normalize(String text) {
+        if (text == null) return null;
+        String normalized = text.trim().replaceAll("\\s+", " ");
+        return normalized.isEmpty() ? null : normalized;
+    }
+
+    /**
+     * Documentos encontrados: número total e identificadores (como mucho el límite pedido).
+     */
+    public record DocumentMatches(int total, List<String> documents) {
+    }
+
+    /**
+     * Entidad que aparece junto a otra y número de documentos en los que coinciden.
+     */
+    public record CoOccurrence(String type, String text, int documents) {
+    }
+
+    /**
+     * Entidad indexada, con su número de documentos y el tamaño de su lista comprimida.
+     */
+    public record EntityPostings(String type, String text, int documents, int postingBytes) {
+    }
+}
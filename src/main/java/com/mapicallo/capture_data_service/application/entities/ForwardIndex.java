@@ -0,0 +1,79 @@
+package com.mapicallo.capture_data_service.application.entities;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Índice directo comprimido: las entidades (identificadores crecientes) de cada documento, por
+ * diferencias y en enteros de longitud variable como {@link PostingList}, seguidas en un único array
+ * de bytes. Cada documento ocupa su desplazamiento y sus huecos, sin un {@code int[]} propio.
+ *
+ * <p>No es seguro para uso concurrente: quien lo usa serializa las inserciones ({@link EntityIndex}).
+ */
+final class ForwardIndex {
+
+    private byte[] bytes = new byte[64];
+    private int length;
+    // inicio de cada documento en bytes; el documento d ocupa [offsets[d], offsets[d + 1])
+    private int[] offsets = new int[16];
+    private int size;
+
+    /**
+     * Añade el siguiente documento, con sus entidades en orden estrictamente creciente.
+     */
+    void add(int[] entities) {
+        if (length + 5L * entities.length > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.max(length + 5 * entities.length, bytes.length * 2));
+        }
+        int last = -1;
+        for (int entity : entities) {
+            if (entity <= last) throw new IllegalArgumentException("Entidad fuera de orden: " + entity + " <= " + last);
+            length = PostingList.writeGap(bytes, length, entity - last - 1);
+            last = entity;
+        }
+        if (size + 2 > offsets.length) offsets = Arrays.copyOf(offsets, offsets.length * 2);
+        offsets[++size] = length;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Bytes ocupados por las listas comprimidas.
+     */
+    int byteSize() {
+        return length;
+    }
+
+    /**
+     * Recorre las entidades del documento en orden creciente, sin copiarlas.
+     */
+    void forEach(int document, IntConsumer action) {
+        int position = offsets[document];
+        int end = offsets[document + 1];
+        int entity = -1;
+        while (position < end) {
+            int gap = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = bytes[position++];
+                gap |= (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            entity += gap + 1;
+            action.accept(entity);
+        }
+    }
+
+    /**
+     * Entidades del documento, en orden creciente.
+     */
+    int[] toArray(int document) {
+        int[] entities = new int[offsets[document + 1] - offsets[document]];
+        int[] count = new int[1];
+        forEach(document, entity -> entities[count[0]++] = entity);
+        return Arrays.copyOf(entities, count[0]);
+    }
+}
@@ -0,0 +1,120 @@
+package com.mapicallo.capture_data_service.application.entities;
+
+import java.util.Arrays;
+
+/**
+ * Lista de documentos (ordinales crecientes) comprimida: cada documento se guarda como la distancia
+ * al anterior menos uno, en un entero de longitud variable (7 bits por byte). Los documentos se
+ * numeran en orden de indexación, así que añadir uno nuevo es escribir al final.
+ *
+ * <p>No es seguro para uso concurrente: quien la usa serializa las inserciones ({@link EntityIndex}).
+ */
+final class PostingList {
+
+    private byte[] bytes = new byte[4];
+    private int length;
+    private int size;
+    private int last = -1;
+
+    /**
+     * Añade un documento mayor que todos los de la lista.
+     */
+    void add(int document) {
+        if (document <= last) throw new IllegalArgumentException("Documento fuera de orden: " + document + " <= " + last);
+        if (length + 5 > bytes.length) bytes = Arrays.copyOf(bytes, Math.max(length + 5, bytes.length * 2));
+        length = writeGap(bytes, length, document - last - 1);
+        last = document;
+        size++;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Bytes ocupados por la lista comprimida.
+     */
+    int byteSize() {
+        return length;
+    }
+
+    /**
+     * Documentos de la lista, en orden creciente.
+     */
+    int[] toArray() {
+        int[] documents = new int[size];
+        int position = 0;
+        int document = -1;
+        for (int i = 0; i < size; i++) {
+            int gap = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = bytes[position++];
+                gap |= (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            document += gap + 1;
+            documents[i] = document;
+        }
+        return documents;
+    }
+
+    /**
+     * Escribe un hueco no negativo en {@code bytes} a partir de {@code position}, 7 bits por byte
+     * (como mucho 5 bytes), y devuelve la posición siguiente.
+     */
+    static int writeGap(byte[] bytes, int position, int gap) {
+        while ((gap & ~0x7F) != 0) {
+            bytes[position++] = (byte) ((gap & 0x7F) | 0x80);
+            gap >>>= 7;
+        }
+        bytes[position++] = (byte) gap;
+        return position;
+    }
+
+    /**
+     * Intersección de dos listas ordenadas. Recorre la corta y busca en la larga por saltos
+     * exponenciales, de modo que una entidad rara no paga la longitud de una frecuente.
+     */
+    static int[] intersect(int[] a, int[] b) {
+        if (a.length > b.length) return intersect(b, a);
+        int[] result = new int[a.length];
+        int count = 0;
+        int from = 0;
+        for (int document : a) {
+            int bound = 1;
+            while (from + bound < b.length && b[from + bound] < document) bound <<= 1;
+            int index = Arrays.binarySearch(b, from, Math.min(from + bound + 1, b.length), document);
+            if (index >= 0) {
+                result[count++] = document;
+                from = index + 1;
+            } else {
+                from = -index - 1;
+            }
+            if (from >= b.length) break;
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    /**
+     * Unión de dos listas ordenadas, sin repetidos.
+     */
+    static int[] union(int[] a, int[] b) {
+        int[] result = new int[a.length + b.length];
+        int i = 0, j = 0, count = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) {
+                result[count++] = a[i++];
+            } else if (a[i] > b[j]) {
+                result[count++] = b[j++];
+            } else {
+                result[count++] = a[i++];
+                j++;
+            }
+        }
+        while (i < a.length) result[count++] = a[i++];
+        while (j < b.length) result[count++] = b[j++];
+        return Arrays.copyOf(result, count);
+    }
+}
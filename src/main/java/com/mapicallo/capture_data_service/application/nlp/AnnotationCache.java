@@ -0,0 +1,152 @@
+package com.mapicallo.capture_data_service.application.nlp;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import edu.stanford.nlp.ling.CoreAnnotations;
+import edu.stanford.nlp.pipeline.Annotation;
+import edu.stanford.nlp.trees.TreeCoreAnnotations;
+import edu.stanford.nlp.util.CoreMap;
+import edu.stanford.nlp.util.RuntimeInterruptedException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Caché en memoria de anotaciones de CoreNLP compartida por todos los endpoints de PLN.
+ *
+ * <p>La clave es la huella SHA-256 del texto junto con la configuración de anotadores
+ * ({@link ContentHash}), de modo que un texto repetido, dentro de un fichero o entre peticiones,
+ * cuesta una búsqueda en lugar de un análisis completo. El tamaño está acotado por una estimación
+ * de bytes ocupados por cada anotación y la expulsión usa W-TinyLFU (Caffeine).
+ *
+ * <p>La anotación de un texto que falta se calcula en el hilo que la pide, fuera de la caché: en la
+ * caché solo se registra un {@link CompletableFuture} que completa ese hilo y al que esperan las
+ * peticiones concurrentes del mismo texto. Así un análisis largo no bloquea a Caffeine ni a las
+ * demás claves, y el hilo que anota puede interrumpirse ({@link Watchdog}).
+ *
+ * <p>Las anotaciones devueltas se comparten entre hilos y peticiones: deben tratarse como de solo lectura.
+ */
+@Component
+public class AnnotationCache {
+
+    // estimación aproximada de memoria por token anotado (CoreLabel con sus anotaciones)
+    private static final long BYTES_PER_TOKEN = 1024;
+    // memoria adicional por token cuando la frase incluye árbol sintáctico
+    private static final long BYTES_PER_PARSED_TOKEN = 768;
+
+    private final boolean enabled;
+    private final AsyncCache<String, Annotation> cache;
+
+    @Autowired
+    public AnnotationCache(@Value("${nlp.cache.enabled:true}") boolean enabled,
+                           @Value("${nlp.cache.max-bytes:268435456}") long maxBytes) {
+        this.enabled = enabled;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((String key, Annotation annotation) -> (int) Math.min(Integer.MAX_VALUE, estimateBytes(annotation)))
+                .recordStats()
+                .buildAsync();
+    }
+
+    /**
+     * Devuelve la anotación cacheada del texto para esa configuración o la calcula con
+     * {@code annotator} y la guarda. Peticiones concurrentes del mismo texto esperan a un único cálculo;
+     * si ese cálculo falla, cada una vuelve a intentarlo.
+     */
+    public Annotation getOrAnnotate(Properties props, String text, Function<String, Annotation> annotator) {
+        if (!enabled) return annotator.apply(text);
+        return getOrAnnotate(ContentHash.of(NlpPipelineRegistry.keyOf(props), text), () -> annotator.apply(text));
+    }
+
+    /**
+     * Igual que {@link #getOrAnnotate(Properties, String, Function)} pero con la huella ya calculada
+     * ({@link ContentHash}), para quien la necesita también fuera de la caché.
+     */
+    public Annotation getOrAnnotate(String key, Supplier<Annotation> annotator) {
+        if (!enabled) return annotator.get();
+        while (true) {
+            CompletableFuture<Annotation> created = new CompletableFuture<>();
+            CompletableFuture<Annotation> future = cache.get(key, (k, executor) -> created);
+            if (future == created) return annotate(created, annotator);
+            try {
+                return future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeInterruptedException(e);
+            } catch (ExecutionException e) {
+                // el cálculo de otro hilo falló (o agotó su presupuesto) y ya salió de la caché
+            }
+        }
+    }
+
+    // anota en el hilo del llamante; un fallo completa el futuro con error y Caffeine lo descarta
+    private static Annotation annotate(CompletableFuture<Annotation> created, Supplier<Annotation> annotator) {
+        Annotation annotation;
+        try {
+            annotation = annotator.get();
+        } catch (RuntimeException | Error e) {
+            created.completeExceptionally(e);
+            throw e;
+        }
+        created.complete(annotation);
+        return annotation;
+    }
+
+    /**
+     * Estadísticas de uso: aciertos, fallos, expulsiones y ocupación estimada.
+     */
+    public CacheReport getStats() {
+        Cache<String, Annotation> cache = this.cache.synchronous();
+        CacheStats stats = cache.stats();
+        long weightedSize = cache.policy().eviction().map(eviction -> eviction.weightedSize().orElse(0L)).orElse(0L);
+        long maxBytes = cache.policy().eviction().map(eviction -> eviction.getMaximum()).orElse(0L);
+        return new CacheReport(enabled, stats.hitCount(), stats.missCount(), stats.hitRate(),
+                stats.evictionCount(), cache.estimatedSize(), weightedSize, maxBytes);
+    }
+
+    /**
+     * Estimación de la memoria que ocupa una anotación, en función de su texto y sus tokens.
+     */
+    static long estimateBytes(Annotation annotation) {
+        String text = annotation.get(CoreAnnotations.TextAnnotation.class);
+        long bytes = 2L * (text == null ? 0 : text.length());
+
+        List<CoreMap> sentences = annotation.get(CoreAnnotations.SentencesAnnotation.class);
+        if (sentences == null) return bytes;
+        for (CoreMap sentence : sentences) {
+            List<?> tokens = sentence.get(CoreAnnotations.TokensAnnotation.class);
+            int tokenCount = tokens == null ? 0 : tokens.size();
+            bytes += tokenCount * BYTES_PER_TOKEN;
+            if (sentence.containsKey(TreeCoreAnnotations.TreeAnnotation.class)) {
+                bytes += tokenCount * BYTES_PER_PARSED_TOKEN;
+            }
+        }
+        return bytes;
+    }
+
+
+    /**
+     * Estado de la caché.
+     *
+     * @param enabled        si la caché está activa
+     * @param hits           búsquedas resueltas desde la caché
+     * @param misses         búsquedas que requirieron anotar el texto
+     * @param hitRate        proporción de aciertos
+     * @param evictions      anotaciones expulsadas por falta de espacio
+     * @param entries        número aproximado de anotaciones guardadas
+     * @param estimatedBytes bytes estimados ocupados
+     * @param maxBytes       límite de bytes estimados
+     */
+    public record CacheReport(boolean enabled, long hits, long misses, double hitRate, long evictions,
+                              long entries, long estimatedBytes, long maxBytes) {
+    }
+}
@@ -0,0 +1,252 @@
+package com.mapicallo.capture_data_service.application.nlp;
+
+import edu.stanford.nlp.pipeline.Annotation;
+import edu.stanford.nlp.pipeline.CoreNLPProtos;
+import edu.stanford.nlp.pipeline.ProtobufAnnotationSerializer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Almacén persistente en disco de anotaciones de CoreNLP serializadas con protobuf.
+ *
+ * <p>Las anotaciones se añaden a un fichero de segmento de solo escritura al final
+ * ({@code annotations.seg}); cada registro contiene la huella {@link ContentHash} (32 bytes), la
+ * longitud y el documento serializado con {@link ProtobufAnnotationSerializer}. Un índice aparte
+ * ({@code annotations.idx}) guarda huella, posición y longitud de cada registro para cargarlo en
+ * memoria al arrancar sin recorrer el segmento.
+ *
+ * <p>Si la aplicación se detuvo entre la escritura del segmento y la del índice, al arrancar se
+ * recuperan los registros no indexados y se descarta un posible registro final incompleto.
+ */
+@Component
+public class AnnotationStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(AnnotationStore.class);
+
+    private static final int HASH_BYTES = 32;
+    private static final int RECORD_HEADER_BYTES = HASH_BYTES + Integer.BYTES;
+    private static final int INDEX_ENTRY_BYTES = HASH_BYTES + Long.BYTES + Integer.BYTES;
+
+    private final boolean enabled;
+    private final Path directory;
+    private final ProtobufAnnotationSerializer serializer = new ProtobufAnnotationSerializer(false);
+
+    // huella → {posición de los datos en el segmento, longitud}
+    private final ConcurrentMap<String, long[]> index = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private FileChannel segment;
+    private FileChannel indexFile;
+
+    @Autowired
+    public AnnotationStore(@Value("${nlp.store.enabled:true}") boolean enabled,
+                           @Value("${nlp.store.dir:C:/capture_data/annotations/}") String directory) {
+        this.enabled = enabled;
+        this.directory = Path.of(directory);
+    }
+
+    @PostConstruct
+    public void open() throws IOException {
+        if (!enabled) return;
+        Files.createDirectories(directory);
+        segment = FileChannel.open(directory.resolve("annotations.seg"),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        indexFile = FileChannel.open(directory.resolve("annotations.idx"),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+        long indexedEnd = loadIndex();
+        recoverUnindexed(indexedEnd);
+        logger.info("Annotation store opened at {} with {} entries", directory, index.size());
+    }
+
+    @PreDestroy
+    public synchronized void close() throws IOException {
+        if (segment != null) segment.close();
+        if (indexFile != null) indexFile.close();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Recupera la anotación guardada con esa huella, si existe.
+     */
+    public Optional<Annotation> load(String hash) {
+        if (!enabled) return Optional.empty();
+        long[] location = index.get(hash);
+        if (location == null) {
+            misses.increment();
+            return Optional.empty();
+        }
+
+        try {
+            ByteBuffer buffer = ByteBuffer.allocate((int) location[1]);
+            readFully(segment, buffer, location[0]);
+            CoreNLPProtos.Document proto = CoreNLPProtos.Document.parseFrom(buffer.array());
+            Annotation annotation = serializer.fromProto(proto);
+            hits.increment();
+            return Optional.of(annotation);
+        } catch (IOException | RuntimeException e) {
+            misses.increment();
+            logger.warn("Could not read stored annotation {}: {}", hash, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Añade la anotación al segmento y al índice. Si la huella ya está guardada no hace nada.
+     */
+    public void save(String hash, Annotation annotation) {
+        if (!enabled || index.containsKey(hash)) return;
+
+        byte[] data;
+        try {
+            data = serializer.toProto(annotation).toByteArray();
+        } catch (RuntimeException e) {
+            logger.warn("Could not serialize annotation {}: {}", hash, e.getMessage());
+            return;
+        }
+
+        synchronized (this) {
+            if (index.containsKey(hash)) return;
+            try {
+                byte[] hashBytes = HexFormat.of().parseHex(hash);
+                long recordOffset = segment.size();
+
+                ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER_BYTES + data.length);
+                record.put(hashBytes).putInt(data.length).put(data).flip();
+                writeFully(segment, record, recordOffset);
+
+                long dataOffset = recordOffset + RECORD_HEADER_BYTES;
+                ByteBuffer entry = ByteBuffer.allocate(INDEX_ENTRY_BYTES);
+                entry.put(hashBytes).putLong(dataOffset).putInt(data.length).flip();
+                writeFully(indexFile, entry, indexFile.size());
+
+                index.put(hash, new long[]{dataOffset, data.length});
+            } catch (IOException e) {
+                logger.warn("Could not store annotation {}: {}", hash, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Estado del almacén: anotaciones guardadas, lecturas resueltas y tamaño del segmento en disco.
+     */
+    public StoreReport getStats() {
+        long bytes = 0;
+        if (enabled) {
+            try {
+                bytes = segment.size();
+            } catch (IOException ignored) {
+                // el tamaño es solo informativo
+            }
+        }
+        return new StoreReport(enabled, directory.toString(), index.size(), hits.sum(), misses.sum(), bytes);
+    }
+
+    // Carga el índice y devuelve la posición del segmento hasta la que los registros están indexados.
+    private long loadIndex() throws IOException {
+        long segmentSize = segment.size();
+        long validEntries = indexFile.size() / INDEX_ENTRY_BYTES;
+        long indexedEnd = 0;
+
+        ByteBuffer entry = ByteBuffer.allocate(INDEX_ENTRY_BYTES);
+        byte[] hashBytes = new byte[HASH_BYTES];
+        for (long i = 0; i < validEntries; i++) {
+            entry.clear();
+            readFully(indexFile, entry, i * INDEX_ENTRY_BYTES);
+            entry.flip();
+            entry.get(hashBytes);
+            long offset = entry.getLong();
+            int length = entry.getInt();
+            if (offset + length > segmentSize) {
+                // entrada que apunta más allá del segmento: se descarta junto con las siguientes
+                validEntries = i;
+                break;
+            }
+            index.put(HexFormat.of().formatHex(hashBytes), new long[]{offset, length});
+            indexedEnd = Math.max(indexedEnd, offset + length);
+        }
+        indexFile.truncate(validEntries * INDEX_ENTRY_BYTES);
+        return indexedEnd;
+    }
+
+    // Indexa los registros completos escritos tras el último indexado y elimina un registro final truncado.
+    private void recoverUnindexed(long position) throws IOException {
+        long segmentSize = segment.size();
+        ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER_BYTES);
+        byte[] hashBytes = new byte[HASH_BYTES];
+        int recovered = 0;
+
+        while (position + RECORD_HEADER_BYTES <= segmentSize) {
+            header.clear();
+            readFully(segment, header, position);
+            header.flip();
+            header.get(hashBytes);
+            int length = header.getInt();
+            long dataOffset = position + RECORD_HEADER_BYTES;
+            if (length < 0 || dataOffset + length > segmentSize) break;
+
+            ByteBuffer entry = ByteBuffer.allocate(INDEX_ENTRY_BYTES);
+            entry.put(hashBytes).putLong(dataOffset).putInt(length).flip();
+            writeFully(indexFile, entry, indexFile.size());
+            index.put(HexFormat.of().formatHex(hashBytes), new long[]{dataOffset, length});
+
+            position = dataOffset + length;
+            recovered++;
+        }
+        if (position < segmentSize) {
+            segment.truncate(position);
+        }
+        if (recovered > 0) {
+            logger.info("Recovered {} unindexed annotations from {}", recovered, directory);
+        }
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position + buffer.position());
+            if (read < 0) throw new IOException("Fin de fichero inesperado en " + position);
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        long start = position - buffer.position();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer, start + buffer.position());
+        }
+    }
+
+
+    /**
+     * Estado del almacén.
+     *
+     * @param enabled      si el almacén está activo
+     * @param directory    directorio de los ficheros de segmento e índice
+     * @param entries      anotaciones guardadas
+     * @param hits         anotaciones recuperadas del disco en lugar de volver a anotarse
+     * @param misses       búsquedas sin anotación guardada
+     * @param segmentBytes tamaño del segmento en disco
+     */
+    public record StoreReport(boolean enabled, String directory, int entries, long hits, long misses,
+                              long segmentBytes) {
+    }
+}
@@ -0,0 +1,11 @@
+package com.mapicallo.capture_data_service.application.nlp;
+
+/**
+ * El trabajo vigilado por {@link Watchdog} no terminó dentro de su presupuesto de tiempo.
+ */
+public class BudgetExceededException extends RuntimeException {
+
+    public BudgetExceededException(long budgetMillis, Throwable cause) {
+        super("Presupuesto de " + budgetMillis + " ms agotado", cause);
+    }
+}
@@ -0,0 +1,153 @@
+package com.mapicallo.capture_data_service.application.nlp;
+
+import edu.stanford.nlp.ling.CoreAnnotations;
+import edu.stanford.nlp.pipeline.Annotation;
+import edu.stanford.nlp.trees.Tree;
+import edu.stanford.nlp.trees.TreeCoreAnnotations;
+import edu.stanford.nlp.util.CoreMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+
+/**
+ * Anotación con presupuesto de tiempo por documento y límite de la petición ({@link Deadline}).
+ *
+ * <p>Cada documento se anota con un tiempo máximo ({@code nlp.budget.document-ms}, recortado a lo
+ * que quede de la petición). Al agotarse, {@link Watchdog} interrumpe el hilo que anota y los
+ * anotadores de CoreNLP abandonan. El documento se vuelve a anotar entonces sin los anotadores caros
+ * ({@link #EXPENSIVE}), con su propio presupuesto ({@code nlp.budget.fallback-ms}); si tampoco cabe,
+ * se devuelve sin anotar. Cada resultado indica su {@link Degradation}.
+ *
+ * <p>Además, las configuraciones con parser limitan la longitud de frase que analiza
+ * ({@code parse.maxlen}): las frases más largas no se analizan, en lugar de ocupar el parser
+ * durante segundos. CoreNLP les deja un árbol plano con raíz "X" ({@link #isUnparsed(CoreMap)})
+ * sobre el que el sentimiento aún pone una etiqueta sin sentido; un documento con alguna frase así
+ * se marca como {@link Degradation#REDUCED}.
+ */
+@Component
+public class BudgetedAnnotator {
+
+    private static final Logger logger = LoggerFactory.getLogger(BudgetedAnnotator.class);
+
+    // anotadores que se quitan en la alternativa barata
+    static final Set<String> EXPENSIVE = Set.of("parse", "depparse", "sentiment", "coref", "kbp", "openie", "natlog");
+
+    private final ParallelAnnotator parallelAnnotator;
+    private final long documentBudgetMs;
+    private final long fallbackBudgetMs;
+    private final int parseMaxLength;
+
+    @Autowired
+    public BudgetedAnnotator(ParallelAnnotator parallelAnnotator,
+                             @Value("${nlp.budget.document-ms:30000}") long documentBudgetMs,
+                             @Value("${nlp.budget.fallback-ms:5000}") long fallbackBudgetMs,
+                             @Value("${nlp.budget.parse-maxlen:80}") int parseMaxLength) {
+        this.parallelAnnotator = parallelAnnotator;
+        this.documentBudgetMs = documentBudgetMs > 0 ? documentBudgetMs : Long.MAX_VALUE;
+        this.fallbackBudgetMs = fallbackBudgetMs > 0 ? fallbackBudgetMs : Long.MAX_VALUE;
+        this.parseMaxLength = parseMaxLength;
+    }
+
+    /**
+     * Anota todos los textos en paralelo con el perfil indicado, conservando el orden de entrada.
+     */
+    public List<BudgetedAnnotation> annotateAll(NlpProfile profile, List<String> texts, Deadline deadline) {
+        return annotateAll(profile.properties(), texts, deadline);
+    }
+
+    /**
+     * Anota todos los textos en paralelo con la configuración indicada, conservando el orden de entrada.
+     */
+    public List<BudgetedAnnotation> annotateAll(Properties props, List<String> texts, Deadline deadline) {
+        Properties full = limited(props);
+        Properties fallback = fallbackOf(full);
+        boolean splitSentences = parallelAnnotator.splitsSentences(texts.size());
+        return parallelAnnotator.mapOrdered(texts, text -> annotate(full, fallback, text, deadline, splitSentences));
+    }
+
+    private BudgetedAnnotation annotate(Properties full, Properties fallback, String text, Deadline deadline, boolean splitSentences) {
+        Optional<Annotation> annotation = parallelAnnotator.annotateWithin(full, text, deadline.cap(documentBudgetMs), splitSentences);
+        if (annotation.isPresent()) {
+            return new BudgetedAnnotation(annotation.get(), hasUnparsedSentences(annotation.get()) ? Degradation.REDUCED : Degradation.NONE);
+        }
+
+        if (fallback != null) {
+            annotation = parallelAnnotator.annotateWithin(fallback, text, deadline.cap(fallbackBudgetMs), false);
+            if (annotation.isPresent()) {
+                logger.debug("NLP budget exhausted, document annotated with {}", fallback.getProperty("annotators"));
+                return new BudgetedAnnotation(annotation.get(), Degradation.REDUCED);
+            }
+        }
+        Annotation empty = new Annotation(text);
+        empty.set(CoreAnnotations.SentencesAnnotation.class, new ArrayList<>());
+        return new BudgetedAnnotation(empty, Degradation.SKIPPED);
+    }
+
+    /**
+     * Indica si el parser no analizó la frase: por pasar de {@code parse.maxlen} o por una
+     * interrupción, CoreNLP le deja un árbol plano con raíz "X" en lugar de su análisis.
+     */
+    public static boolean isUnparsed(CoreMap sentence) {
+        Tree tree = sentence.get(TreeCoreAnnotations.TreeAnnotation.class);
+        return tree != null && "X".equals(tree.value());
+    }
+
+    private static boolean hasUnparsedSentences(Annotation annotation) {
+        List<CoreMap> sentences = annotation.get(CoreAnnotations.SentencesAnnotation.class);
+        return sentences != null && sentences.stream().anyMatch(BudgetedAnnotator::isUnparsed);
+    }
+
+    /**
+     * Presupuesto por documento configurado ({@link Long#MAX_VALUE} sin límite).
+     */
+    public long documentBudgetMillis() {
+        return documentBudgetMs;
+    }
+
+    /**
+     * Las mismas propiedades con {@code parse.maxlen} si la configuración usa el parser y no lo fija ya.
+     */
+    public Properties limited(Properties props) {
+        if (parseMaxLength <= 0 || props.containsKey("parse.maxlen") || !annotatorsOf(props).contains("parse")) return props;
+        Properties copy = copyOf(props);
+        copy.setProperty("parse.maxlen", Integer.toString(parseMaxLength));
+        return copy;
+    }
+
+    /**
+     * La configuración sin los anotadores caros, o null si no tiene ninguno.
+     */
+    static Properties fallbackOf(Properties props) {
+        List<String> annotators = annotatorsOf(props);
+        List<String> cheap = annotators.stream().filter(name -> !EXPENSIVE.contains(name)).toList();
+        if (cheap.size() == annotators.size()) return null;
+        Properties copy = copyOf(props);
+        copy.setProperty("annotators", String.join(",", cheap));
+        copy.remove("parse.maxlen");
+        return copy;
+    }
+
+    private static List<String> annotatorsOf(Properties props) {
+        List<String> annotators = new ArrayList<>();
+        for (String name : props.getProperty("annotators", "").split(",")) {
+            if (!name.isBlank()) annotators.add(name.trim());
+        }
+        return annotators;
+    }
+
+    private static Properties copyOf(Properties props) {
+        Properties copy = new Properties();
+        for (String name : props.stringPropertyNames()) copy.setProperty(name, props.getProperty(name));
+        return copy;
+    }
+
+    /**
+     * Anotación de un documento y su nivel de degradación.
+     */
+    public record BudgetedAnnotation(Annotation annotation, Degradation degradation) {
+    }
+}
@@ -0,0 +1,35 @@
+package com.mapicallo.capture_data_service.application.nlp;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Huella SHA-256 de un texto junto con la configuración de anotadores que se le aplica.
+ * Identifica de forma estable el resultado de anotar ese texto con esa configuración.
+ */
+public final class ContentHash {
+
+    private ContentHash() {
+    }
+
+    /**
+     * Devuelve la huella hexadecimal de {@code configKey + '\0' + text}.
+     */
+    public static String of(String configKey, String text) {
+        MessageDigest digest = sha256();
+        digest.update(configKey.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+        digest.update(text.getBytes(StandardCharsets.UTF_8));
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible en la JVM", e);
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.mapicallo.capture_data_service.application.nlp;
+
+/**
+ * Instante límite de una petición, medido con {@link System#nanoTime()}.
+ */
+public final class Deadline {
+
+    /**
+     * Sin límite: solo se aplican los presupuestos por documento.
+     */
+    public static final Deadline NONE = new Deadline(Long.MAX_VALUE);
+
+    private final long expiresAt;
+
+    private Deadline(long expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+
+    /**
+     * Límite a {@code millis} milisegundos desde ahora; null o un valor no positivo equivalen a {@link #NONE}.
+     */
+    public static Deadline afterMillis(Long millis) {
+        if (millis == null || millis <= 0) return NONE;
+        return new Deadline(System.nanoTime() + millis * 1_000_000);
+    }
+
+    public boolean isNone() {
+        return expiresAt == Long.MAX_VALUE;
+    }
+
+    /**
+     * Milisegundos que quedan (0 si ya pasó; {@link Long#MAX_VALUE} sin límite).
+     */
+    public long remainingMillis() {
+        if (isNone()) return Long.MAX_VALUE;
+        return Math.max(0, (expiresAt - System.nanoTime()) / 1_000_000);
+    }
+
+    public boolean expired() {
+        return remainingMillis() == 0;
+    }
+
+    /**
+     * El menor entre un presupuesto y el tiempo que queda.
+     */
+    public long cap(long budgetMillis) {
+        return Math.min(budgetMillis, remainingMillis());
+    }
+
+    /**
+     * El más cercano entre este límite y {@code budgetMillis} desde ahora ({@link Long#MAX_VALUE}: este límite).
+     */
+    public Deadline within(long budgetMillis) {
+        if (budgetMillis >= Long.MAX_VALUE / 1_000_000) return this;
+        return new Deadline(Math.min(expiresAt, System.nanoTime() + Math.max(0, budgetMillis) * 1_000_000));
+    }
+}
@@ -0,0 +1,27 @@
+package com.mapicallo.capture_data_service.application.nlp;
+
+/**
+ * Nivel de degradación de un resultado cuando su anotación no cabe en el tiempo disponible.
+ */
+public enum Degradation {
+
+    // anotación completa
+    NONE,
+
+    // anotadores más baratos (sin parser, coref ni kbp) o frases sin analizar
+    REDUCED,
+
+    // sin anotar: se agotó el tiempo también para la alternativa barata
+    SKIPPED;
+
+    /**
+     * Valor con el que se etiqueta cada resultado ("none", "reduced", "skipped").
+     */
+    public String tag() {
+        return name().toLowerCase();
+    }
+
+    public boolean timedOut() {
+        return this != NONE;
+    }
+}
@@ -0,0 +1,157 @@
+package com.mapicallo.capture_data_service.application.nlp;
+
+import edu.stanford.nlp.pipeline.StanfordCoreNLP;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * Pool acotado de pipelines de CoreNLP confinados a un hilo.
+ *
+ * <p>Cada configuración de anotadores tiene su propio pool de instancias. Un hilo toma una instancia
+ * en préstamo con {@link #lease(Properties)}, la usa en exclusiva y la devuelve al cerrar el
+ * {@link PipelineLease}. Si no hay instancias libres y no se ha alcanzado el tamaño máximo se crea
+ * una nueva; en caso contrario el hilo espera a que otra sea devuelta.
+ *
+ * <p>El tamaño por defecto es el número de procesadores y puede ajustarse por perfil con la
+ * propiedad {@code nlp.pool.size.<perfil>} (por ejemplo {@code nlp.pool.size.triples=2}).
+ */
+@Component
+public class NlpPipelinePool {
+
+    private final NlpPipelineRegistry pipelineRegistry;
+    private final Environment environment;
+    private final int defaultSize;
+
+    private final ConcurrentMap<String, ProfilePool> pools = new ConcurrentHashMap<>();
+
+    @Autowired
+    public NlpPipelinePool(NlpPipelineRegistry pipelineRegistry,
+                           Environment environment,
+                           @Value("${nlp.pool.default-size:0}") int defaultSize) {
+        this.pipelineRegistry = pipelineRegistry;
+        this.environment = environment;
+        this.defaultSize = defaultSize > 0 ? defaultSize : Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * Toma en préstamo un pipeline del perfil indicado, esperando si todos están ocupados.
+     */
+    public PipelineLease lease(NlpProfile profile) throws InterruptedException {
+        return lease(profile.properties());
+    }
+
+    /**
+     * Toma en préstamo un pipeline para una configuración arbitraria, esperando si todos están ocupados.
+     */
+    public PipelineLease lease(Properties props) throws InterruptedException {
+        String key = NlpPipelineRegistry.keyOf(props);
+        ProfilePool pool = pools.computeIfAbsent(key, k -> new ProfilePool(props, sizeFor(props)));
+        return new PipelineLease(pool, pool.take());
+    }
+
+    /**
+     * Estado de los pools: tamaño máximo, instancias creadas y disponibles por configuración.
+     */
+    public List<PoolStats> getStats() {
+        List<PoolStats> stats = new ArrayList<>();
+        for (Map.Entry<String, ProfilePool> entry : pools.entrySet()) {
+            ProfilePool pool = entry.getValue();
+            stats.add(new PoolStats(entry.getKey(), pool.maxSize, pool.created, pool.idle.size()));
+        }
+        stats.sort(Comparator.comparing(PoolStats::key));
+        return stats;
+    }
+
+    private int sizeFor(Properties props) {
+        return NlpProfile.fromProperties(props)
+                .map(profile -> environment.getProperty("nlp.pool.size." + profile.name().toLowerCase(), Integer.class, defaultSize))
+                .filter(size -> size > 0)
+                .orElse(defaultSize);
+    }
+
+
+    /**
+     * Estado de un pool.
+     *
+     * @param key       clave canónica de la configuración de anotadores
+     * @param maxSize   número máximo de instancias
+     * @param created   instancias creadas hasta el momento
+     * @param available instancias libres en este instante
+     */
+    public record PoolStats(String key, int maxSize, int created, int available) {
+    }
+
+
+    /**
+     * Préstamo de un pipeline. Debe cerrarse (try-with-resources) para devolver la instancia al pool.
+     */
+    public static final class PipelineLease implements AutoCloseable {
+        private final ProfilePool pool;
+        private StanfordCoreNLP pipeline;
+
+        private PipelineLease(ProfilePool pool, StanfordCoreNLP pipeline) {
+            this.pool = pool;
+            this.pipeline = pipeline;
+        }
+
+        public StanfordCoreNLP pipeline() {
+            if (pipeline == null) throw new IllegalStateException("El préstamo del pipeline ya fue devuelto");
+            return pipeline;
+        }
+
+        @Override
+        public void close() {
+            if (pipeline != null) {
+                pool.release(pipeline);
+                pipeline = null;
+            }
+        }
+    }
+
+
+    private final class ProfilePool {
+        private final Properties props;
+        private final int maxSize;
+        private final BlockingQueue<StanfordCoreNLP> idle = new LinkedBlockingQueue<>();
+        private volatile int created;
+
+        ProfilePool(Properties props, int maxSize) {
+            this.props = props;
+            this.maxSize = maxSize;
+        }
+
+        StanfordCoreNLP take() throws InterruptedException {
+            StanfordCoreNLP pipeline = idle.poll();
+            if (pipeline != null) return pipeline;
+
+            boolean mayCreate;
+            synchronized (this) {
+                mayCreate = created < maxSize;
+                if (mayCreate) created++;
+            }
+            if (mayCreate) {
+                try {
+                    return pipelineRegistry.createInstance(props);
+                } catch (RuntimeException e) {
+                    synchronized (this) {
+                        created--;
+                    }
+                    throw e;
+                }
+            }
+            return idle.take();
+        }
+
+        void release(StanfordCoreNLP pipeline) {
+            idle.offer(pipeline);
+        }
+    }
+}
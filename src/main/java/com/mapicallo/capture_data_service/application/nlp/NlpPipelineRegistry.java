@@ -0,0 +1,154 @@
+package com.mapicallo.capture_data_service.application.nlp;
+
+import edu.stanford.nlp.pipeline.StanfordCoreNLP;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Registro central de pipelines de Stanford CoreNLP.
+ *
+ * <p>Cada configuración distinta de anotadores (clave canónica de sus {@link Properties}) se construye
+ * una sola vez y se comparte entre todos los servicios. La construcción es perezosa y está protegida
+ * por un bloqueo por clave, de modo que peticiones concurrentes esperan al mismo pipeline en lugar de
+ * cargar los modelos varias veces.
+ *
+ * <p>Para cada pipeline se registra el tiempo de carga y una estimación de la memoria de heap
+ * consumida (diferencia de heap usado antes y después de construirlo).
+ */
+@Component
+public class NlpPipelineRegistry {
+
+    private static final Logger logger = LoggerFactory.getLogger(NlpPipelineRegistry.class);
+
+    private final ConcurrentMap<String, PipelineEntry> pipelines = new ConcurrentHashMap<>();
+
+    /**
+     * Devuelve el pipeline compartido del perfil indicado, construyéndolo si aún no existe.
+     */
+    public StanfordCoreNLP get(NlpProfile profile) {
+        return get(profile.properties());
+    }
+
+    /**
+     * Devuelve el pipeline compartido para una configuración arbitraria de propiedades.
+     */
+    public StanfordCoreNLP get(Properties props) {
+        String key = keyOf(props);
+        Properties snapshot = copyOf(props);
+        return pipelines.computeIfAbsent(key, k -> new PipelineEntry(k, snapshot)).pipeline();
+    }
+
+    /**
+     * Construye una instancia nueva, no compartida, para una configuración. La usa el pool de
+     * pipelines para confinar cada instancia a un hilo. CoreNLP reutiliza internamente los
+     * anotadores ya cargados con las mismas propiedades, por lo que los modelos no se duplican.
+     */
+    public StanfordCoreNLP createInstance(Properties props) {
+        get(props); // garantiza que la configuración esté registrada y sus modelos cargados
+        return new StanfordCoreNLP(copyOf(props));
+    }
+
+    /**
+     * Indica si el pipeline del perfil ya está cargado en memoria.
+     */
+    public boolean isLoaded(NlpProfile profile) {
+        PipelineEntry entry = pipelines.get(keyOf(profile.properties()));
+        return entry != null && entry.isLoaded();
+    }
+
+    /**
+     * Estadísticas de los pipelines cargados: anotadores, tiempo de carga y heap estimado.
+     */
+    public List<PipelineStats> getStats() {
+        List<PipelineStats> stats = new ArrayList<>();
+        for (PipelineEntry entry : pipelines.values()) {
+            if (entry.isLoaded()) stats.add(entry.stats);
+        }
+        stats.sort(Comparator.comparing(PipelineStats::key));
+        return stats;
+    }
+
+    /**
+     * Clave canónica de una configuración: propiedades ordenadas por nombre, en formato clave=valor.
+     */
+    public static String keyOf(Properties props) {
+        StringJoiner joiner = new StringJoiner(";");
+        for (String name : new TreeSet<>(props.stringPropertyNames())) {
+            joiner.add(name + "=" + props.getProperty(name));
+        }
+        return joiner.toString();
+    }
+
+    private static Properties copyOf(Properties props) {
+        Properties copy = new Properties();
+        for (String name : props.stringPropertyNames()) {
+            copy.setProperty(name, props.getProperty(name));
+        }
+        return copy;
+    }
+
+
+    /**
+     * Estadísticas de carga de un pipeline.
+     *
+     * @param key                clave canónica de la configuración
+     * @param annotators         anotadores del pipeline
+     * @param loadTimeMs         tiempo de construcción en milisegundos
+     * @param estimatedHeapBytes incremento de heap usado durante la construcción (aproximado:
+     *                           los modelos ya cargados por otro pipeline no vuelven a contarse)
+     */
+    public record PipelineStats(String key, String annotators, long loadTimeMs, long estimatedHeapBytes) {
+    }
+
+
+    private static final class PipelineEntry {
+        private final String key;
+        private final Properties props;
+        private volatile StanfordCoreNLP pipeline;
+        private volatile PipelineStats stats;
+
+        PipelineEntry(String key, Properties props) {
+            this.key = key;
+            this.props = props;
+        }
+
+        boolean isLoaded() {
+            return pipeline != null;
+        }
+
+        StanfordCoreNLP pipeline() {
+            StanfordCoreNLP result = pipeline;
+            if (result == null) {
+                synchronized (this) {
+                    result = pipeline;
+                    if (result == null) {
+                        result = build();
+                        pipeline = result;
+                    }
+                }
+            }
+            return result;
+        }
+
+        private StanfordCoreNLP build() {
+            // CoreNLP reescribe la lista de anotadores al construir el pipeline: se conserva la original
+            String annotators = props.getProperty("annotators");
+            Runtime runtime = Runtime.getRuntime();
+            long heapBefore = runtime.totalMemory() - runtime.freeMemory();
+            long start = System.nanoTime();
+
+            StanfordCoreNLP built = new StanfordCoreNLP(copyOf(props));
+
+            long loadTimeMs = (System.nanoTime() - start) / 1_000_000;
+            long heapAfter = runtime.totalMemory() - runtime.freeMemory();
+            stats = new PipelineStats(key, annotators, loadTimeMs, Math.max(0, heapAfter - heapBefore));
+            logger.info("CoreNLP pipeline [{}] loaded in {} ms (~{} MB heap)", key, loadTimeMs, stats.estimatedHeapBytes() / (1024 * 1024));
+            return built;
+        }
+    }
+}
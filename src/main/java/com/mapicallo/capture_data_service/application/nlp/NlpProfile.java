@@ -0,0 +1,69 @@
+package com.mapicallo.capture_data_service.application.nlp;
+
+import java.util.Optional;
+import java.util.Properties;
+
+/**
+ * Configuraciones de anotadores de CoreNLP utilizadas por los servicios de la aplicación.
+ *
+ * <p>Cada perfil describe un conjunto de anotadores y propiedades adicionales. Dos perfiles con
+ * exactamente las mismas propiedades comparten el mismo pipeline en {@link NlpPipelineRegistry}.
+ */
+public enum NlpProfile {
+
+    // análisis de sentimiento por frase
+    SENTIMENT("tokenize,ssplit,parse,sentiment", "tokenize.language", "es"),
+
+    // sentimiento de una única frase ya separada (memoización por frase)
+    SENTENCE_SENTIMENT("tokenize,ssplit,parse,sentiment", "tokenize.language", "es", "ssplit.isOneSentence", "true"),
+
+    // separación en frases, sin análisis adicional
+    SENTENCES("tokenize,ssplit", "tokenize.language", "es"),
+
+    // extracción de tripletas sujeto–relación–objeto (KBP)
+    TRIPLES("tokenize,ssplit,pos,lemma,ner,parse,coref,kbp", "kbp.language", "es"),
+
+    // reconocimiento de entidades nombradas
+    ENTITIES("tokenize,ssplit,pos,lemma,ner"),
+
+    // extracción de palabras clave por lema
+    KEYWORDS("tokenize,ssplit,pos,lemma", "tokenize.language", "es"),
+
+    // anonimización de textos clínicos
+    ANONYMIZATION("tokenize,ssplit,pos,lemma,ner", "tokenize.language", "es", "ner.applyFineGrained", "false");
+
+    private final String annotators;
+    private final String[] extraProperties;
+
+    NlpProfile(String annotators, String... extraProperties) {
+        this.annotators = annotators;
+        this.extraProperties = extraProperties;
+    }
+
+    /**
+     * Busca el perfil cuya configuración coincide exactamente con las propiedades indicadas.
+     */
+    public static Optional<NlpProfile> fromProperties(Properties props) {
+        String key = NlpPipelineRegistry.keyOf(props);
+        for (NlpProfile profile : values()) {
+            if (NlpPipelineRegistry.keyOf(profile.properties()).equals(key)) return Optional.of(profile);
+        }
+        return Optional.empty();
+    }
+
+    public String annotators() {
+        return annotators;
+    }
+
+    /**
+     * Devuelve una copia nueva de las propiedades del perfil, que el llamante puede modificar libremente.
+     */
+    public Properties properties() {
+        Properties props = new Properties();
+        props.setProperty("annotators", annotators);
+        for (int i = 0; i + 1 < extraProperties.length; i += 2) {
+            props.setProperty(extraProperties[i], extraProperties[i + 1]);
+        }
+        return props;
+    }
+}
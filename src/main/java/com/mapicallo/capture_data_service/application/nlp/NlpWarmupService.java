@@ -0,0 +1,153 @@
+package com.mapicallo.capture_data_service.application.nlp;
+
+import edu.stanford.nlp.pipeline.Annotation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Precarga de modelos de CoreNLP al arrancar la aplicación.
+ *
+ * <p>Cuando la aplicación está lista, un hilo en segundo plano carga los pipelines de los perfiles
+ * configurados en {@code nlp.warmup.profiles} y hace pasar por cada uno un documento sintético, de
+ * modo que la primera petición real no paga la carga de modelos. Hasta que termina, el servicio se
+ * declara "no listo" ({@link #isReady()}), lo que usan {@code /isAlive} y el indicador de readiness
+ * de actuator para que el balanceador solo envíe tráfico a instancias calientes.
+ *
+ * <p>El documento sintético se anota directamente con pipelines prestados de {@link NlpPipelinePool},
+ * sin pasar por la caché ni el almacén de anotaciones, que solo guardan documentos de peticiones.
+ */
+@Component
+public class NlpWarmupService {
+
+    private static final Logger logger = LoggerFactory.getLogger(NlpWarmupService.class);
+
+    // documento sintético corto que recorre tokenización, NER, parsing y sentimiento
+    private static final String SYNTHETIC_DOCUMENT =
+            "El paciente Juan Pérez acudió al Hospital General el 5 de mayo de 2025 con fiebre. Se recomienda reposo.";
+
+    private final NlpPipelineRegistry pipelineRegistry;
+    private final NlpPipelinePool pipelinePool;
+    private final SentenceParallelAnnotator sentenceAnnotator;
+    private final ParserSelection parserSelection;
+    private final BudgetedAnnotator budgetedAnnotator;
+    private final boolean enabled;
+    private final List<NlpProfile> profiles;
+
+    private final Map<NlpProfile, WarmupResult> results = new ConcurrentHashMap<>();
+    private volatile boolean ready;
+
+    @Autowired
+    public NlpWarmupService(NlpPipelineRegistry pipelineRegistry,
+                            NlpPipelinePool pipelinePool,
+                            SentenceParallelAnnotator sentenceAnnotator,
+                            ParserSelection parserSelection,
+                            BudgetedAnnotator budgetedAnnotator,
+                            @Value("${nlp.warmup.enabled:true}") boolean enabled,
+                            @Value("${nlp.warmup.profiles:ENTITIES,ANONYMIZATION,KEYWORDS,SENTENCES,SENTENCE_SENTIMENT}") List<String> profiles) {
+        this.pipelineRegistry = pipelineRegistry;
+        this.pipelinePool = pipelinePool;
+        this.sentenceAnnotator = sentenceAnnotator;
+        this.parserSelection = parserSelection;
+        this.budgetedAnnotator = budgetedAnnotator;
+        this.enabled = enabled;
+        this.profiles = profiles.stream()
+                .filter(name -> !name.isBlank())
+                .map(name -> NlpProfile.valueOf(name.trim().toUpperCase()))
+                .distinct()
+                .toList();
+        this.ready = !enabled || this.profiles.isEmpty();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void startWarmup() {
+        if (ready) {
+            logger.info("NLP warm-up disabled: the service is ready immediately");
+            return;
+        }
+        Thread thread = new Thread(this::warmUp, "nlp-warmup");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Indica si la precarga ha terminado (o está desactivada) y el servicio puede recibir tráfico.
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Resultado de la precarga de cada perfil, en el orden configurado.
+     */
+    public List<WarmupResult> getResults() {
+        List<WarmupResult> ordered = new ArrayList<>();
+        for (NlpProfile profile : profiles) {
+            ordered.add(results.getOrDefault(profile, new WarmupResult(profile, WarmupStatus.PENDING, 0, 0, null)));
+        }
+        return ordered;
+    }
+
+    private void warmUp() {
+        long start = System.nanoTime();
+        for (NlpProfile profile : profiles) {
+            results.put(profile, new WarmupResult(profile, WarmupStatus.LOADING, 0, 0, null));
+            try {
+                // con el parser configurado para el perfil y el límite de longitud de frase de
+                // BudgetedAnnotator: es la configuración (y el pipeline) que usarán las peticiones
+                Properties props = budgetedAnnotator.limited(parserSelection.propertiesOf(profile));
+                long loadStart = System.nanoTime();
+                pipelineRegistry.get(props);
+                long loadMs = (System.nanoTime() - loadStart) / 1_000_000;
+
+                // El documento sintético se anota con los mismos pipelines del pool que las
+                // peticiones: el completo y, si se reparten las frases, los de cada etapa
+                long annotateStart = System.nanoTime();
+                annotateWithPool(props);
+                if (sentenceAnnotator.appliesTo(props)) sentenceAnnotator.annotate(props, SYNTHETIC_DOCUMENT);
+                long annotateMs = (System.nanoTime() - annotateStart) / 1_000_000;
+
+                results.put(profile, new WarmupResult(profile, WarmupStatus.READY, loadMs, annotateMs, null));
+                logger.info("NLP warm-up [{}]: models loaded in {} ms, first annotation in {} ms", profile, loadMs, annotateMs);
+            } catch (RuntimeException | LinkageError e) {
+                results.put(profile, new WarmupResult(profile, WarmupStatus.FAILED, 0, 0, e.getMessage()));
+                logger.error("NLP warm-up [{}] failed: {}", profile, e.getMessage(), e);
+            }
+        }
+        ready = true;
+        logger.info("NLP warm-up finished in {} ms", (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private void annotateWithPool(Properties props) {
+        try (NlpPipelinePool.PipelineLease lease = pipelinePool.lease(props)) {
+            lease.pipeline().annotate(new Annotation(SYNTHETIC_DOCUMENT));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Precarga interrumpida", e);
+        }
+    }
+
+
+    public enum WarmupStatus {
+        PENDING, LOADING, READY, FAILED
+    }
+
+    /**
+     * Resultado de la precarga de un perfil.
+     *
+     * @param profile      perfil precargado
+     * @param status       estado de la precarga
+     * @param loadTimeMs   tiempo de carga de los modelos
+     * @param annotateTimeMs tiempo de la primera anotación del documento sintético
+     * @param error        mensaje de error si la precarga falló
+     */
+    public record WarmupResult(NlpProfile profile, WarmupStatus status, long loadTimeMs, long annotateTimeMs, String error) {
+    }
+}
@@ -0,0 +1,181 @@
+package com.mapicallo.capture_data_service.application.nlp;
+
+import edu.stanford.nlp.pipeline.Annotation;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Ejecuta la anotación de listas de documentos en paralelo sobre el {@link NlpPipelinePool}.
+ *
+ * <p>Cada documento se anota en un hilo de trabajo con un pipeline prestado del pool, de modo que la
+ * concurrencia por configuración queda limitada por el tamaño del pool. Los resultados se devuelven
+ * siempre en el mismo orden que la entrada.
+ *
+ * <p>Las tareas enviadas a este ejecutor no deben, a su vez, esperar a otras tareas del mismo
+ * ejecutor: podrían agotar los hilos de trabajo.
+ */
+@Component
+public class ParallelAnnotator {
+
+    private final NlpPipelinePool pipelinePool;
+    private final AnnotationCache annotationCache;
+    private final AnnotationStore annotationStore;
+    private final SentenceParallelAnnotator sentenceAnnotator;
+    private final int threads;
+    private final ExecutorService executor;
+
+    @Autowired
+    public ParallelAnnotator(NlpPipelinePool pipelinePool,
+                             AnnotationCache annotationCache,
+                             AnnotationStore annotationStore,
+                             SentenceParallelAnnotator sentenceAnnotator,
+                             @Value("${nlp.executor.threads:0}") int threads) {
+        this.pipelinePool = pipelinePool;
+        this.annotationCache = annotationCache;
+        this.annotationStore = annotationStore;
+        this.sentenceAnnotator = sentenceAnnotator;
+        int size = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        this.threads = size;
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(size, runnable -> {
+            Thread thread = new Thread(runnable, "nlp-worker-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Constructor para uso fuera del contenedor de Spring, sin reparto de frases entre hilos.
+     */
+    public ParallelAnnotator(NlpPipelinePool pipelinePool,
+                             AnnotationCache annotationCache,
+                             AnnotationStore annotationStore,
+                             int threads) {
+        this(pipelinePool, annotationCache, annotationStore, new SentenceParallelAnnotator(pipelinePool, false, 1, 0), threads);
+    }
+
+    /**
+     * Anota un único texto con un pipeline prestado del pool. Si el mismo texto ya se anotó con esta
+     * configuración, se devuelve la anotación de {@link AnnotationCache} (de solo lectura) o, si no
+     * está en memoria, se recupera de {@link AnnotationStore} sin volver a ejecutar los anotadores.
+     *
+     * <p>Si la configuración incluye anotadores por frase (parser, sentimiento), las frases del
+     * documento se reparten entre varios hilos ({@link SentenceParallelAnnotator}).
+     */
+    public Annotation annotate(Properties props, String text) {
+        return annotate(props, text, true, Long.MAX_VALUE);
+    }
+
+    /**
+     * Como {@link #annotate(Properties, String)}, pero abandona la anotación si tarda más de
+     * {@code budgetMillis} ({@link Watchdog}).
+     *
+     * @param splitSentences si se permite repartir las frases del documento entre hilos
+     *                       (ver {@link #splitsSentences(int)})
+     * @return la anotación, o vacío si se agotó el presupuesto.
+     */
+    public Optional<Annotation> annotateWithin(Properties props, String text, long budgetMillis, boolean splitSentences) {
+        try {
+            return Optional.of(annotate(props, text, splitSentences, budgetMillis));
+        } catch (BudgetExceededException e) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Indica si, en un lote de {@code documents} documentos, conviene repartir además las frases de
+     * cada documento entre hilos: solo cuando hay menos documentos que hilos de trabajo.
+     */
+    public boolean splitsSentences(int documents) {
+        return documents < threads;
+    }
+
+    private Annotation annotate(Properties props, String text, boolean splitSentences, long budgetMillis) {
+        String key = ContentHash.of(NlpPipelineRegistry.keyOf(props), text);
+        return annotationCache.getOrAnnotate(key, () -> annotationStore.load(key).orElseGet(() -> {
+            // solo la anotación es interrumpible; la escritura en el almacén queda fuera del presupuesto
+            Annotation document = Watchdog.run(budgetMillis, () -> splitSentences && sentenceAnnotator.appliesTo(props)
+                    ? sentenceAnnotator.annotate(props, text)
+                    : annotateWithPool(props, text));
+            annotationStore.save(key, document);
+            return document;
+        }));
+    }
+
+    private Annotation annotateWithPool(Properties props, String text) {
+        Annotation document = new Annotation(text);
+        try (NlpPipelinePool.PipelineLease lease = pipelinePool.lease(props)) {
+            lease.pipeline().annotate(document);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Anotación interrumpida", e);
+        }
+        return document;
+    }
+
+    /**
+     * Anota todos los textos en paralelo con el perfil indicado, conservando el orden de entrada.
+     */
+    public List<Annotation> annotateAll(NlpProfile profile, List<String> texts) {
+        return annotateAll(profile.properties(), texts);
+    }
+
+    /**
+     * Anota todos los textos en paralelo con la configuración indicada, conservando el orden de entrada.
+     * Con menos documentos que hilos de trabajo, además, las frases de cada documento se reparten
+     * entre hilos; con más, basta el paralelismo entre documentos.
+     */
+    public List<Annotation> annotateAll(Properties props, List<String> texts) {
+        boolean splitSentences = splitsSentences(texts.size());
+        return mapOrdered(texts, text -> annotate(props, text, splitSentences, Long.MAX_VALUE));
+    }
+
+    /**
+     * Aplica una función a cada elemento en los hilos de trabajo y devuelve los resultados en el
+     * orden de entrada. Si alguna tarea falla, se cancelan las pendientes y se propaga el error.
+     *
+     * <p>Las tareas que ya están en marcha no se interrumpen: el parser de CoreNLP capturaría la
+     * interrupción y dejaría árboles vacíos en una anotación que acabaría en la caché y en el
+     * almacén, y una interrupción durante la lectura o escritura del almacén cerraría sus ficheros.
+     * Terminan por su cuenta y su resultado se descarta.
+     */
+    public <T, R> List<R> mapOrdered(List<T> items, Function<T, R> task) {
+        if (items.isEmpty()) return new ArrayList<>();
+        if (items.size() == 1) return new ArrayList<>(Collections.singletonList(task.apply(items.get(0))));
+
+        List<Future<R>> futures = new ArrayList<>(items.size());
+        for (T item : items) {
+            futures.add(executor.submit(() -> task.apply(item)));
+        }
+
+        List<R> results = new ArrayList<>(items.size());
+        try {
+            for (Future<R> future : futures) {
+                results.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            futures.forEach(f -> f.cancel(false));
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Procesamiento paralelo interrumpido", e);
+        } catch (ExecutionException e) {
+            futures.forEach(f -> f.cancel(false));
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtime) throw runtime;
+            if (cause instanceof Error error) throw error;
+            throw new IllegalStateException(cause);
+        }
+        return results;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,214 @@
+package com.mapicallo.capture_data_service.application.nlp;
+
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+import edu.stanford.nlp.ie.util.RelationTriple;
+import edu.stanford.nlp.ling.CoreAnnotations;
+import edu.stanford.nlp.pipeline.Annotation;
+import edu.stanford.nlp.sentiment.SentimentCoreAnnotations;
+import edu.stanford.nlp.util.CoreMap;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Comparación de un parser con el de referencia (PCFG) sobre un conjunto de documentos, para elegir
+ * en cada despliegue el equilibrio entre velocidad y calidad ({@link ParserSelection}).
+ *
+ * <p>Los documentos se anotan con ambas configuraciones sobre pipelines prestados de
+ * {@link NlpPipelinePool}, sin pasar por la caché de anotaciones, y tras una anotación previa que
+ * carga los modelos y no se cronometra. El informe da el rendimiento de cada parser y la
+ * concordancia del candidato con el de referencia:
+ * <ul>
+ *   <li>sentimiento: proporción de frases con la misma etiqueta;</li>
+ *   <li>tripletas: precisión, exhaustividad y F1 de las tripletas del candidato tomando como
+ *   correctas las del PCFG.</li>
+ * </ul>
+ */
+@Component
+public class ParserBenchmark {
+
+    private static final String WARMUP_TEXT = "El paciente acudió al hospital con fiebre. Se recomienda reposo.";
+
+    private final NlpPipelinePool pipelinePool;
+    private final ParallelAnnotator parallelAnnotator;
+    private final ParserSelection parserSelection;
+
+    @Autowired
+    public ParserBenchmark(NlpPipelinePool pipelinePool, ParallelAnnotator parallelAnnotator, ParserSelection parserSelection) {
+        this.pipelinePool = pipelinePool;
+        this.parallelAnnotator = parallelAnnotator;
+        this.parserSelection = parserSelection;
+    }
+
+    /**
+     * Compara los parsers sobre los textos de un fichero JSON (lista de objetos con "text").
+     *
+     * @param limit número máximo de documentos (0 = todos)
+     */
+    public Report run(Task task, ParserModel candidate, Path file, int limit) throws IOException {
+        List<Map<String, Object>> documents;
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            documents = new Gson().fromJson(reader, new TypeToken<List<Map<String, Object>>>() {}.getType());
+        }
+        if (documents == null) throw new IOException("Archivo JSON vacío o malformado");
+        List<String> texts = new ArrayList<>();
+        for (Map<String, Object> doc : documents) {
+            if (doc.get("text") instanceof String text && !text.isBlank()) texts.add(text);
+            if (limit > 0 && texts.size() == limit) break;
+        }
+        return run(task, candidate, texts);
+    }
+
+    /**
+     * Compara los parsers sobre los textos indicados.
+     *
+     * @throws IllegalArgumentException si el candidato no sirve para la tarea (dependencias con sentimiento).
+     */
+    public Report run(Task task, ParserModel candidate, List<String> texts) {
+        Properties baseline = parserSelection.withParser(ParserModel.PCFG, task.profile.properties());
+        ParserModel effective = parserSelection.available(candidate);
+        Properties candidateProps = parserSelection.withParser(effective, task.profile.properties());
+
+        Run<List<String>> reference = time(baseline, texts, task == Task.SENTIMENT ? ParserBenchmark::labelsOf : ParserBenchmark::triplesOf);
+        Run<List<String>> compared = time(candidateProps, texts, task == Task.SENTIMENT ? ParserBenchmark::labelsOf : ParserBenchmark::triplesOf);
+
+        int sentences = 0;
+        for (Annotation annotation : reference.annotations()) sentences += sentencesOf(annotation).size();
+        Map<String, Double> agreement = task == Task.SENTIMENT
+                ? labelAgreement(reference.results(), compared.results())
+                : tripleAgreement(reference.results(), compared.results());
+
+        return new Report(task.name().toLowerCase(Locale.ROOT), candidate.key(), texts.size(), sentences,
+                reference.stats(ParserModel.PCFG, baseline, texts.size(), sentences),
+                compared.stats(effective, candidateProps, texts.size(), sentences),
+                compared.millis() > 0 ? (double) reference.millis() / compared.millis() : 0,
+                agreement);
+    }
+
+    private <R> Run<R> time(Properties props, List<String> texts, Function<Annotation, R> extract) {
+        annotate(props, WARMUP_TEXT);
+        long start = System.nanoTime();
+        List<Annotation> annotations = parallelAnnotator.mapOrdered(texts, text -> annotate(props, text));
+        long millis = (System.nanoTime() - start) / 1_000_000;
+        return new Run<>(annotations, annotations.stream().map(extract).toList(), millis);
+    }
+
+    // anotación sin caché: se mide el parser, no la caché
+    private Annotation annotate(Properties props, String text) {
+        Annotation document = new Annotation(text);
+        try (NlpPipelinePool.PipelineLease lease = pipelinePool.lease(props)) {
+            lease.pipeline().annotate(document);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Anotación interrumpida", e);
+        }
+        return document;
+    }
+
+    static Map<String, Double> labelAgreement(List<List<String>> reference, List<List<String>> candidate) {
+        long total = 0;
+        long equal = 0;
+        for (int i = 0; i < reference.size(); i++) {
+            List<String> expected = reference.get(i);
+            List<String> actual = candidate.get(i);
+            total += expected.size();
+            for (int s = 0; s < Math.min(expected.size(), actual.size()); s++) {
+                if (Objects.equals(expected.get(s), actual.get(s))) equal++;
+            }
+        }
+        Map<String, Double> agreement = new LinkedHashMap<>();
+        agreement.put("sentence_label_agreement", total == 0 ? 1.0 : (double) equal / total);
+        return agreement;
+    }
+
+    static Map<String, Double> tripleAgreement(List<List<String>> reference, List<List<String>> candidate) {
+        long expectedCount = 0;
+        long actualCount = 0;
+        long common = 0;
+        for (int i = 0; i < reference.size(); i++) {
+            Set<String> expected = new HashSet<>(reference.get(i));
+            Set<String> actual = new HashSet<>(candidate.get(i));
+            expectedCount += expected.size();
+            actualCount += actual.size();
+            for (String triple : actual) {
+                if (expected.contains(triple)) common++;
+            }
+        }
+        double precision = actualCount == 0 ? (expectedCount == 0 ? 1.0 : 0.0) : (double) common / actualCount;
+        double recall = expectedCount == 0 ? 1.0 : (double) common / expectedCount;
+        Map<String, Double> agreement = new LinkedHashMap<>();
+        agreement.put("triple_precision", precision);
+        agreement.put("triple_recall", recall);
+        agreement.put("triple_f1", precision + recall == 0 ? 0.0 : 2 * precision * recall / (precision + recall));
+        return agreement;
+    }
+
+    private static List<String> labelsOf(Annotation annotation) {
+        List<String> labels = new ArrayList<>();
+        for (CoreMap sentence : sentencesOf(annotation)) labels.add(sentence.get(SentimentCoreAnnotations.SentimentClass.class));
+        return labels;
+    }
+
+    private static List<String> triplesOf(Annotation annotation) {
+        List<String> triples = new ArrayList<>();
+        for (CoreMap sentence : sentencesOf(annotation)) {
+            Collection<RelationTriple> relations = sentence.get(CoreAnnotations.KBPTriplesAnnotation.class);
+            if (relations == null) continue;
+            for (RelationTriple triple : relations) {
+                triples.add(triple.subjectGloss() + "\t" + triple.relationGloss() + "\t" + triple.objectGloss());
+            }
+        }
+        return triples;
+    }
+
+    private static List<CoreMap> sentencesOf(Annotation annotation) {
+        List<CoreMap> sentences = annotation.get(CoreAnnotations.SentencesAnnotation.class);
+        return sentences != null ? sentences : List.of();
+    }
+
+    /**
+     * Tarea que se compara y perfil de anotadores que usa.
+     */
+    public enum Task {
+        SENTIMENT(NlpProfile.SENTIMENT),
+        TRIPLES(NlpProfile.TRIPLES);
+
+        private final NlpProfile profile;
+
+        Task(NlpProfile profile) {
+            this.profile = profile;
+        }
+    }
+
+    private record Run<R>(List<Annotation> annotations, List<R> results, long millis) {
+        RunStats stats(ParserModel parser, Properties props, int documents, int sentences) {
+            double seconds = Math.max(millis, 1) / 1000.0;
+            return new RunStats(parser.key(), props.getProperty("annotators"), millis, documents / seconds, sentences / seconds);
+        }
+    }
+
+    /**
+     * Rendimiento de un parser: tiempo total y documentos y frases por segundo.
+     */
+    public record RunStats(String parser, String annotators, long millis, double documentsPerSecond, double sentencesPerSecond) {
+    }
+
+    /**
+     * Resultado de la comparación.
+     *
+     * @param requested parser pedido; {@code candidate.parser()} es el que se usó realmente
+     * @param speedup   tiempo del PCFG dividido entre el del candidato
+     * @param agreement medidas de concordancia del candidato con el PCFG
+     */
+    public record Report(String task, String requested, int documents, int sentences,
+                         RunStats baseline, RunStats candidate, double speedup, Map<String, Double> agreement) {
+    }
+}
@@ -0,0 +1,66 @@
+package com.mapicallo.capture_data_service.application.nlp;
+
+import java.util.Locale;
+
+/**
+ * Analizadores sintácticos de CoreNLP que pueden usar los pipelines con parser.
+ *
+ * <ul>
+ *   <li>{@link #PCFG}: el parser de constituyentes por defecto ({@code parse}, modelo PCFG). Es el
+ *   más lento y el de referencia.</li>
+ *   <li>{@link #SHIFT_REDUCE}: parser de constituyentes shift-reduce ({@code parse} con otro
+ *   {@code parse.model}); mucho más rápido con calidad parecida, pero su modelo se distribuye en un
+ *   jar aparte ({@code stanford-srparser}).</li>
+ *   <li>{@link #DEPENDENCY}: parser neuronal de dependencias ({@code depparse}) en lugar del de
+ *   constituyentes. No produce árboles, así que no sirve para el modelo de sentimiento, pero sí para
+ *   coref y kbp.</li>
+ * </ul>
+ */
+public enum ParserModel {
+
+    PCFG("pcfg", "parse", true),
+    SHIFT_REDUCE("shift-reduce", "parse", true),
+    DEPENDENCY("dependency", "depparse", false);
+
+    private final String key;
+    private final String annotator;
+    private final boolean constituency;
+
+    ParserModel(String key, String annotator, boolean constituency) {
+        this.key = key;
+        this.annotator = annotator;
+        this.constituency = constituency;
+    }
+
+    /**
+     * Nombre en la configuración ("pcfg", "shift-reduce" o "dependency").
+     */
+    public String key() {
+        return key;
+    }
+
+    /**
+     * Anotador de CoreNLP que ejecuta el análisis.
+     */
+    public String annotator() {
+        return annotator;
+    }
+
+    /**
+     * Indica si produce árboles de constituyentes (los que necesita el modelo de sentimiento).
+     */
+    public boolean constituency() {
+        return constituency;
+    }
+
+    /**
+     * Busca el parser por su nombre en la configuración (o por el nombre de la constante).
+     */
+    public static ParserModel of(String name) {
+        String normalized = name.trim().toLowerCase(Locale.ROOT).replace('_', '-');
+        for (ParserModel model : values()) {
+            if (model.key.equals(normalized)) return model;
+        }
+        throw new IllegalArgumentException("Parser desconocido: " + name + " (pcfg, shift-reduce o dependency)");
+    }
+}
@@ -0,0 +1,129 @@
+package com.mapicallo.capture_data_service.application.nlp;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * Parser configurado para cada pipeline con análisis sintáctico: sentimiento
+ * ({@code nlp.parser.sentiment}) y tripletas ({@code nlp.parser.triples}), con valores
+ * {@link ParserModel#key()}. Por defecto ambos usan el PCFG, de modo que las propiedades, y por
+ * tanto las claves de caché y de los pipelines, son las mismas que sin esta selección.
+ *
+ * <p>El sentimiento necesita árboles de constituyentes, así que no admite {@link ParserModel#DEPENDENCY}.
+ * Si el modelo shift-reduce ({@code nlp.parser.shift-reduce-model}, recurso del classpath o fichero)
+ * no está disponible, se usa el PCFG y se avisa en el log.
+ */
+@Component
+public class ParserSelection {
+
+    private static final Logger logger = LoggerFactory.getLogger(ParserSelection.class);
+
+    static final String DEFAULT_SHIFT_REDUCE_MODEL = "edu/stanford/nlp/models/srparser/englishSR.ser.gz";
+
+    private final String shiftReduceModel;
+    private final ParserModel sentimentParser;
+    private final ParserModel triplesParser;
+
+    @Autowired
+    public ParserSelection(@Value("${nlp.parser.sentiment:pcfg}") String sentimentParser,
+                           @Value("${nlp.parser.triples:pcfg}") String triplesParser,
+                           @Value("${nlp.parser.shift-reduce-model:" + DEFAULT_SHIFT_REDUCE_MODEL + "}") String shiftReduceModel) {
+        this.shiftReduceModel = shiftReduceModel;
+        ParserModel sentiment = ParserModel.of(sentimentParser);
+        if (!sentiment.constituency()) {
+            throw new IllegalArgumentException("nlp.parser.sentiment: el modelo de sentimiento necesita un parser de constituyentes");
+        }
+        this.sentimentParser = available(sentiment);
+        this.triplesParser = available(ParserModel.of(triplesParser));
+    }
+
+    /**
+     * Selección por defecto (PCFG en todos los pipelines), para uso fuera del contenedor de Spring.
+     */
+    public static ParserSelection defaults() {
+        return new ParserSelection("pcfg", "pcfg", DEFAULT_SHIFT_REDUCE_MODEL);
+    }
+
+    public ParserModel sentimentParser() {
+        return sentimentParser;
+    }
+
+    public ParserModel triplesParser() {
+        return triplesParser;
+    }
+
+    /**
+     * Propiedades del perfil con el parser configurado para él; los perfiles sin parser no cambian.
+     */
+    public Properties propertiesOf(NlpProfile profile) {
+        return switch (profile) {
+            case SENTIMENT, SENTENCE_SENTIMENT -> withParser(sentimentParser, profile.properties());
+            case TRIPLES -> withParser(triplesParser, profile.properties());
+            default -> profile.properties();
+        };
+    }
+
+    /**
+     * Parser que se usará realmente al pedir {@code requested}: el PCFG si el modelo shift-reduce no
+     * está disponible.
+     */
+    public ParserModel available(ParserModel requested) {
+        if (requested != ParserModel.SHIFT_REDUCE || shiftReduceAvailable()) return requested;
+        logger.warn("Shift-reduce parser model {} not found, falling back to the PCFG parser", shiftReduceModel);
+        return ParserModel.PCFG;
+    }
+
+    /**
+     * Las mismas propiedades analizando con {@code model} en lugar del parser que tengan. Los parsers
+     * shift-reduce y de dependencias necesitan etiquetas POS, así que se añade {@code pos} si falta.
+     * Las propiedades sin parser se devuelven sin cambios.
+     *
+     * @throws IllegalArgumentException si se pide el parser de dependencias para una configuración con sentimiento.
+     */
+    public Properties withParser(ParserModel model, Properties props) {
+        List<String> annotators = new ArrayList<>();
+        for (String name : props.getProperty("annotators", "").split(",")) {
+            if (!name.isBlank()) annotators.add(name.trim());
+        }
+        int parser = annotators.indexOf("parse");
+        if (parser < 0) parser = annotators.indexOf("depparse");
+        if (parser < 0) return props;
+        if (!model.constituency() && annotators.contains("sentiment")) {
+            throw new IllegalArgumentException("El sentimiento necesita un parser de constituyentes, no " + model.key());
+        }
+        ParserModel effective = available(model);
+        if (effective == ParserModel.PCFG && annotators.get(parser).equals("parse") && !props.containsKey("parse.model")) {
+            return props;
+        }
+
+        annotators.set(parser, effective.annotator());
+        annotators.subList(parser + 1, annotators.size()).removeIf(name -> name.equals("parse") || name.equals("depparse"));
+        if (effective != ParserModel.PCFG && !annotators.subList(0, parser).contains("pos")) {
+            annotators.add(parser, "pos");
+        }
+
+        Properties copy = new Properties();
+        for (String name : props.stringPropertyNames()) copy.setProperty(name, props.getProperty(name));
+        copy.setProperty("annotators", String.join(",", annotators));
+        if (effective == ParserModel.SHIFT_REDUCE) {
+            copy.setProperty("parse.model", shiftReduceModel);
+        } else {
+            copy.remove("parse.model");
+        }
+        return copy;
+    }
+
+    private boolean shiftReduceAvailable() {
+        return ParserSelection.class.getClassLoader().getResource(shiftReduceModel) != null
+                || Files.isRegularFile(Path.of(shiftReduceModel));
+    }
+}
@@ -0,0 +1,187 @@
+package com.mapicallo.capture_data_service.application.nlp;
+
+import edu.stanford.nlp.ling.CoreAnnotations;
+import edu.stanford.nlp.pipeline.Annotation;
+import edu.stanford.nlp.util.CoreMap;
+import edu.stanford.nlp.util.RuntimeInterruptedException;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Anotación de un documento largo repartiendo sus frases entre varios hilos.
+ *
+ * <p>La configuración de anotadores se divide en tres etapas:
+ * <ol>
+ *   <li>cabecera, sobre el documento completo: tokenización, separación en frases y los anotadores
+ *   lineales que les siguen (pos, lemma, ner);</li>
+ *   <li>etapa por frase: el tramo consecutivo de anotadores que solo miran una frase
+ *   ({@link #SENTENCE_SCOPED}: parser, dependencias y sentimiento), que son los caros;</li>
+ *   <li>cola, de nuevo sobre el documento completo: los anotadores que necesitan ver todas las
+ *   frases, como coref o kbp.</li>
+ * </ol>
+ *
+ * <p>En la etapa por frase cada frase se anota por separado en un grupo fijo de hilos, empezando
+ * por las más largas para que ninguna quede sola al final. Si el hilo que espera se interrumpe
+ * ({@link Watchdog}), se interrumpen también los hilos que están anotando sus frases. Los
+ * anotadores escriben sobre el propio {@link CoreMap} de la frase, así que el documento conserva
+ * el orden original y el resultado es el mismo que anotándolo de una vez. Cada etapa usa un
+ * pipeline prestado de {@link NlpPipelinePool}.
+ */
+@Component
+public class SentenceParallelAnnotator {
+
+    // anotadores que trabajan frase a frase sin mirar el resto del documento
+    static final Set<String> SENTENCE_SCOPED = Set.of("parse", "depparse", "sentiment");
+
+    private final NlpPipelinePool pipelinePool;
+    private final boolean enabled;
+    private final int minSentences;
+    private final ExecutorService pool;
+
+    @Autowired
+    public SentenceParallelAnnotator(NlpPipelinePool pipelinePool,
+                                     @Value("${nlp.sentence-parallel.enabled:true}") boolean enabled,
+                                     @Value("${nlp.sentence-parallel.threads:0}") int threads,
+                                     @Value("${nlp.sentence-parallel.min-sentences:4}") int minSentences) {
+        this.pipelinePool = pipelinePool;
+        this.enabled = enabled;
+        this.minSentences = Math.max(2, minSentences);
+        AtomicInteger counter = new AtomicInteger();
+        this.pool = Executors.newFixedThreadPool(threads > 0 ? threads : Runtime.getRuntime().availableProcessors(), runnable -> {
+            Thread thread = new Thread(runnable, "nlp-sentence-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Indica si la configuración tiene anotadores por frase que merezca la pena repartir.
+     */
+    public boolean appliesTo(Properties props) {
+        return enabled && stagesOf(props).isPresent();
+    }
+
+    /**
+     * Anota el texto completo. Los documentos con menos de {@code nlp.sentence-parallel.min-sentences}
+     * frases se anotan en el hilo del llamante, sin repartir.
+     */
+    public Annotation annotate(Properties props, String text) {
+        Optional<Stages> split = stagesOf(props);
+        Annotation document = new Annotation(text);
+        if (!enabled || split.isEmpty()) {
+            run(props, document);
+            return document;
+        }
+        Stages stages = split.get();
+
+        run(stages.head(), document);
+        List<CoreMap> sentences = document.get(CoreAnnotations.SentencesAnnotation.class);
+        if (sentences == null || sentences.size() < minSentences) {
+            run(stages.sentences(), document);
+        } else {
+            annotateSentences(stages.sentences(), sentences);
+        }
+        if (stages.tail() != null) run(stages.tail(), document);
+        return document;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    private void annotateSentences(Properties props, List<CoreMap> sentences) {
+        Integer[] longestFirst = new Integer[sentences.size()];
+        for (int i = 0; i < longestFirst.length; i++) longestFirst[i] = i;
+        Arrays.sort(longestFirst, Comparator.comparingInt((Integer i) -> tokenCount(sentences.get(i))).reversed());
+
+        List<Future<?>> tasks = new ArrayList<>(longestFirst.length);
+        for (int index : longestFirst) {
+            CoreMap sentence = sentences.get(index);
+            tasks.add(pool.submit(() -> run(props, sentenceDocument(sentence))));
+        }
+        // espera interrumpible (Watchdog): al interrumpirse se cancelan las frases pendientes y se
+        // interrumpen los hilos que están anotando
+        try {
+            for (Future<?> task : tasks) task.get();
+        } catch (InterruptedException e) {
+            tasks.forEach(task -> task.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new RuntimeInterruptedException(e);
+        } catch (ExecutionException e) {
+            tasks.forEach(task -> task.cancel(true));
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtime) throw runtime;
+            if (cause instanceof Error error) throw error;
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    // documento de una sola frase que comparte tokens y CoreMap con el documento original
+    private static Annotation sentenceDocument(CoreMap sentence) {
+        Annotation single = new Annotation(sentence.get(CoreAnnotations.TextAnnotation.class));
+        single.set(CoreAnnotations.TokensAnnotation.class, sentence.get(CoreAnnotations.TokensAnnotation.class));
+        single.set(CoreAnnotations.SentencesAnnotation.class, Collections.singletonList(sentence));
+        return single;
+    }
+
+    private static int tokenCount(CoreMap sentence) {
+        List<?> tokens = sentence.get(CoreAnnotations.TokensAnnotation.class);
+        return tokens == null ? 0 : tokens.size();
+    }
+
+    private void run(Properties props, Annotation document) {
+        try (NlpPipelinePool.PipelineLease lease = pipelinePool.lease(props)) {
+            lease.pipeline().annotate(document);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Anotación interrumpida", e);
+        }
+    }
+
+    /**
+     * Divide la configuración en cabecera, etapa por frase y cola. Vacío si no hay anotadores por
+     * frase o si no van precedidos de la separación en frases.
+     */
+    static Optional<Stages> stagesOf(Properties props) {
+        List<String> annotators = new ArrayList<>();
+        for (String name : props.getProperty("annotators", "").split(",")) {
+            if (!name.isBlank()) annotators.add(name.trim());
+        }
+        int first = 0;
+        while (first < annotators.size() && !SENTENCE_SCOPED.contains(annotators.get(first))) first++;
+        if (first == annotators.size() || !annotators.subList(0, first).contains("ssplit")) return Optional.empty();
+        int end = first;
+        while (end < annotators.size() && SENTENCE_SCOPED.contains(annotators.get(end))) end++;
+
+        Properties head = withAnnotators(props, annotators.subList(0, first), true);
+        Properties sentences = withAnnotators(props, annotators.subList(first, end), false);
+        Properties tail = end < annotators.size() ? withAnnotators(props, annotators.subList(end, annotators.size()), false) : null;
+        return Optional.of(new Stages(head, sentences, tail));
+    }
+
+    // mismas propiedades con otra lista de anotadores; las etapas posteriores parten de un documento
+    // ya tokenizado, así que no pueden exigir que sus requisitos estén en su propio pipeline
+    private static Properties withAnnotators(Properties props, List<String> annotators, boolean enforceRequirements) {
+        Properties copy = new Properties();
+        for (String name : props.stringPropertyNames()) copy.setProperty(name, props.getProperty(name));
+        copy.setProperty("annotators", String.join(",", annotators));
+        if (!enforceRequirements) copy.setProperty("enforceRequirements", "false");
+        return copy;
+    }
+
+    /**
+     * Propiedades de cada etapa; {@code tail} es null si no hay anotadores de documento tras la etapa por frase.
+     */
+    record Stages(Properties head, Properties sentences, Properties tail) {
+    }
+}
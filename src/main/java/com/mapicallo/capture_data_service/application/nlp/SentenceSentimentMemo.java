@@ -0,0 +1,195 @@
+package com.mapicallo.capture_data_service.application.nlp;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import edu.stanford.nlp.ling.CoreAnnotations;
+import edu.stanford.nlp.pipeline.Annotation;
+import edu.stanford.nlp.sentiment.SentimentCoreAnnotations;
+import edu.stanford.nlp.util.CoreMap;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntFunction;
+
+/**
+ * Memoización del sentimiento a nivel de frase.
+ *
+ * <p>Los textos se separan primero en frases con un pipeline ligero ({@link NlpProfile#SENTENCES}).
+ * Cada frase normalizada se busca en una caché acotada de etiquetas; solo las frases nunca vistas,
+ * y cada una una única vez aunque se repita dentro del lote, pasan por el parser y el modelo de
+ * sentimiento ({@link NlpProfile#SENTENCE_SENTIMENT}). El modelo de sentimiento etiqueta cada frase
+ * a partir de su propio árbol, así que la frase aislada suele recibir la misma etiqueta que dentro
+ * del documento; puede diferir si la frase suelta se tokeniza o se analiza de otra forma.
+ *
+ * <p>El parser de las frases es el configurado para el sentimiento ({@link ParserSelection}).
+ *
+ * <p>Las frases de un documento comparten el presupuesto por documento de {@link BudgetedAnnotator},
+ * recortado al límite de la petición, que empieza a contar al analizar la primera de ellas; una frase
+ * repetida en varios documentos se carga al primero. El parser usa además el límite de longitud de
+ * frase de {@link BudgetedAnnotator}. Una frase que no se analiza a tiempo, o que es más larga que
+ * ese límite ({@link BudgetedAnnotator#isUnparsed(CoreMap)}), queda sin etiqueta ({@code null}) y no
+ * se memoiza.
+ */
+@Component
+public class SentenceSentimentMemo {
+
+    private final ParallelAnnotator parallelAnnotator;
+    private final NlpPipelinePool pipelinePool;
+    private final BudgetedAnnotator budgetedAnnotator;
+    private final Properties sentenceProperties;
+    private final Cache<String, String> labels;
+
+    private final LongAdder sentences = new LongAdder();
+    private final LongAdder parsed = new LongAdder();
+    private final LongAdder timedOut = new LongAdder();
+    private final LongAdder tooLong = new LongAdder();
+
+    @Autowired
+    public SentenceSentimentMemo(ParallelAnnotator parallelAnnotator,
+                                 NlpPipelinePool pipelinePool,
+                                 BudgetedAnnotator budgetedAnnotator,
+                                 ParserSelection parserSelection,
+                                 @Value("${nlp.sentiment.memo.max-sentences:100000}") long maxSentences) {
+        this.parallelAnnotator = parallelAnnotator;
+        this.pipelinePool = pipelinePool;
+        this.budgetedAnnotator = budgetedAnnotator;
+        this.sentenceProperties = budgetedAnnotator.limited(parserSelection.propertiesOf(NlpProfile.SENTENCE_SENTIMENT));
+        this.labels = Caffeine.newBuilder().maximumSize(maxSentences).build();
+    }
+
+    /**
+     * Constructor para uso fuera del contenedor de Spring, con el parser por defecto (PCFG).
+     */
+    public SentenceSentimentMemo(ParallelAnnotator parallelAnnotator,
+                                 NlpPipelinePool pipelinePool,
+                                 BudgetedAnnotator budgetedAnnotator,
+                                 long maxSentences) {
+        this(parallelAnnotator, pipelinePool, budgetedAnnotator, ParserSelection.defaults(), maxSentences);
+    }
+
+    /**
+     * Devuelve, para cada texto, la etiqueta de sentimiento de cada una de sus frases en orden
+     * ("Very Negative", "Negative", "Neutral", "Positive" o "Very Positive").
+     */
+    public List<List<String>> sentenceLabels(List<String> texts) {
+        return sentenceLabels(texts, Deadline.NONE);
+    }
+
+    /**
+     * Como {@link #sentenceLabels(List)}, sin pasar del límite de la petición: las frases que no se
+     * analizan a tiempo o que pasan del límite de longitud del parser tienen etiqueta {@code null}.
+     */
+    public List<List<String>> sentenceLabels(List<String> texts, Deadline deadline) {
+        List<List<String>> documents = new ArrayList<>(texts.size());
+        for (Annotation annotation : parallelAnnotator.annotateAll(NlpProfile.SENTENCES, texts)) {
+            List<String> normalized = new ArrayList<>();
+            for (CoreMap sentence : annotation.get(CoreAnnotations.SentencesAnnotation.class)) {
+                normalized.add(normalize(sentence.get(CoreAnnotations.TextAnnotation.class)));
+            }
+            documents.add(normalized);
+        }
+
+        // frases sin etiqueta conocida, sin repetir dentro del lote, con el documento al que se cargan
+        Map<String, Integer> unseen = new LinkedHashMap<>();
+        for (int d = 0; d < documents.size(); d++) {
+            for (String sentence : documents.get(d)) {
+                sentences.increment();
+                if (labels.getIfPresent(sentence) == null) unseen.putIfAbsent(sentence, d);
+            }
+        }
+
+        // un único límite por documento, creado al empezar su primera frase
+        Map<Integer, Deadline> documentDeadlines = new ConcurrentHashMap<>();
+        IntFunction<Deadline> documentDeadline = d -> documentDeadlines.computeIfAbsent(d,
+                started -> deadline.within(budgetedAnnotator.documentBudgetMillis()));
+
+        Map<String, String> batch = new HashMap<>();
+        List<String> pending = new ArrayList<>(unseen.keySet());
+        List<String> parsedLabels = parallelAnnotator.mapOrdered(pending,
+                sentence -> parseWithin(sentence, documentDeadline.apply(unseen.get(sentence))));
+        for (int i = 0; i < pending.size(); i++) {
+            batch.put(pending.get(i), parsedLabels.get(i));
+            if (parsedLabels.get(i) != null) labels.put(pending.get(i), parsedLabels.get(i));
+        }
+        parsed.add(pending.size());
+
+        List<List<String>> result = new ArrayList<>(documents.size());
+        for (int d = 0; d < documents.size(); d++) {
+            List<String> documentLabels = new ArrayList<>(documents.get(d).size());
+            for (String sentence : documents.get(d)) {
+                String label = batch.containsKey(sentence) ? batch.get(sentence) : labels.getIfPresent(sentence);
+                if (label == null && !batch.containsKey(sentence)) {
+                    // expulsada de la caché entre la búsqueda y ahora: se vuelve a analizar fuera de
+                    // la caché y solo después se guarda
+                    label = parseWithin(sentence, documentDeadline.apply(d));
+                    batch.put(sentence, label);
+                    if (label != null) labels.put(sentence, label);
+                }
+                documentLabels.add(label);
+            }
+            result.add(documentLabels);
+        }
+        return result;
+    }
+
+    /**
+     * Estado de la memoización: frases vistas, frases analizadas, frases sin analizar por falta de
+     * tiempo o por su longitud y ocupación de la caché.
+     */
+    public MemoReport getStats() {
+        long seen = sentences.sum();
+        long analyzed = parsed.sum();
+        return new MemoReport(seen, analyzed, seen == 0 ? 0.0 : 1.0 - (double) analyzed / seen,
+                timedOut.sum(), tooLong.sum(), labels.estimatedSize());
+    }
+
+    // Espacios colapsados: la misma frase con distinto espaciado comparte etiqueta.
+    static String normalize(String sentence) {
+        return sentence.trim().replaceAll("\\s+", " ");
+    }
+
+    private String parseWithin(String sentence, Deadline documentDeadline) {
+        try {
+            String label = Watchdog.run(documentDeadline.remainingMillis(), () -> parseLabel(sentence));
+            // terminada a tiempo pero sin analizar: más larga que el límite del parser
+            if (label == null) tooLong.increment();
+            return label;
+        } catch (BudgetExceededException e) {
+            timedOut.increment();
+            return null;
+        }
+    }
+
+    private String parseLabel(String sentence) {
+        Annotation annotation = new Annotation(sentence);
+        try (NlpPipelinePool.PipelineLease lease = pipelinePool.lease(sentenceProperties)) {
+            lease.pipeline().annotate(annotation);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Anotación interrumpida", e);
+        }
+        List<CoreMap> parsedSentences = annotation.get(CoreAnnotations.SentencesAnnotation.class);
+        if (parsedSentences.isEmpty()) return "Neutral";
+        if (BudgetedAnnotator.isUnparsed(parsedSentences.get(0))) return null;
+        String label = parsedSentences.get(0).get(SentimentCoreAnnotations.SentimentClass.class);
+        return label == null ? "Neutral" : label;
+    }
+
+
+    /**
+     * Estado de la memoización de sentimiento.
+     *
+     * @param sentences    frases procesadas
+     * @param parsed       frases que requirieron parser y modelo de sentimiento
+     * @param savedRatio   proporción de frases resueltas sin analizar
+     * @param timedOut     frases que agotaron su presupuesto de tiempo y quedaron sin etiqueta
+     * @param tooLong      frases más largas que el límite del parser, que quedaron sin etiqueta
+     * @param cachedLabels etiquetas guardadas en la caché
+     */
+    public record MemoReport(long sentences, long parsed, double savedRatio, long timedOut, long tooLong, long cachedLabels) {
+    }
+}
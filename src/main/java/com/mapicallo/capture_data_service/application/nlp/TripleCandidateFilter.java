@@ -0,0 +1,162 @@
+package com.mapicallo.capture_data_service.application.nlp;
+
+import edu.stanford.nlp.ling.CoreAnnotations;
+import edu.stanford.nlp.ling.CoreLabel;
+import edu.stanford.nlp.util.CoreMap;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+
+/**
+ * Primera etapa, barata, de la extracción de tripletas: descarta las frases de las que KBP no va a
+ * sacar ninguna relación antes de pasar por parser, coref y kbp.
+ *
+ * <p>Los textos se anotan con {@link NlpProfile#ENTITIES} (tokenize, ssplit, pos, lemma, ner: la
+ * cabecera de {@link NlpProfile#TRIPLES}, y la misma configuración que el reconocimiento de entidades,
+ * con el que comparte caché). Una frase es candidata si tiene al menos
+ * {@code nlp.triples.prefilter.min-mentions} menciones de entidad, o al menos una y un verbo de
+ * relación ({@code nlp.triples.prefilter.relation-verbs}, por forma o lema): KBP relaciona menciones
+ * entre sí, así que una frase sin ninguna no aporta tripletas.
+ *
+ * <p>La segunda etapa anota, de cada documento, solo el texto de sus frases candidatas; los documentos
+ * sin ninguna no se anotan. Si todas las frases son candidatas se anota el texto original, de modo que
+ * la caché de anotaciones sigue sirviendo. La correferencia solo ve las frases candidatas.
+ */
+@Component
+public class TripleCandidateFilter {
+
+    private final BudgetedAnnotator budgetedAnnotator;
+    private final boolean enabled;
+    private final int minMentions;
+    private final Set<String> relationVerbs;
+
+    @Autowired
+    public TripleCandidateFilter(BudgetedAnnotator budgetedAnnotator,
+                                 @Value("${nlp.triples.prefilter.enabled:true}") boolean enabled,
+                                 @Value("${nlp.triples.prefilter.min-mentions:2}") int minMentions,
+                                 @Value("${nlp.triples.prefilter.relation-verbs:}") List<String> relationVerbs) {
+        this.budgetedAnnotator = budgetedAnnotator;
+        this.enabled = enabled;
+        this.minMentions = Math.max(1, minMentions);
+        this.relationVerbs = new HashSet<>();
+        for (String verb : relationVerbs) {
+            if (!verb.isBlank()) this.relationVerbs.add(verb.trim().toLowerCase(Locale.ROOT));
+        }
+    }
+
+    /**
+     * Indica si el filtro está activado por configuración.
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Selecciona las frases candidatas de cada texto. Los textos cuya primera etapa agota su
+     * presupuesto se conservan completos.
+     */
+    public Selection select(List<String> texts, Deadline deadline) {
+        List<BudgetedAnnotator.BudgetedAnnotation> annotations = budgetedAnnotator.annotateAll(NlpProfile.ENTITIES, texts, deadline);
+        List<String> reduced = new ArrayList<>(texts.size());
+        int sentences = 0;
+        int kept = 0;
+        for (int i = 0; i < texts.size(); i++) {
+            String text = texts.get(i);
+            BudgetedAnnotator.BudgetedAnnotation annotation = annotations.get(i);
+            if (annotation.degradation().timedOut()) {
+                reduced.add(text);
+                continue;
+            }
+            List<CoreMap> documentSentences = annotation.annotation().get(CoreAnnotations.SentencesAnnotation.class);
+            StringJoiner candidates = new StringJoiner(" ");
+            int candidateCount = 0;
+            for (CoreMap sentence : documentSentences) {
+                if (!isCandidate(sentence)) continue;
+                candidates.add(text.substring(
+                        sentence.get(CoreAnnotations.CharacterOffsetBeginAnnotation.class),
+                        sentence.get(CoreAnnotations.CharacterOffsetEndAnnotation.class)));
+                candidateCount++;
+            }
+            sentences += documentSentences.size();
+            kept += candidateCount;
+            if (candidateCount == 0) {
+                reduced.add(null);
+            } else {
+                reduced.add(candidateCount == documentSentences.size() ? text : candidates.toString());
+            }
+        }
+        return new Selection(reduced, sentences, kept);
+    }
+
+    /**
+     * Selección sin filtrar: todos los textos pasan completos a la segunda etapa.
+     */
+    public static Selection all(List<String> texts) {
+        return new Selection(new ArrayList<>(texts), 0, 0);
+    }
+
+    boolean isCandidate(CoreMap sentence) {
+        List<CoreMap> mentions = sentence.get(CoreAnnotations.MentionsAnnotation.class);
+        int count = mentions == null ? 0 : mentions.size();
+        if (count >= minMentions) return true;
+        if (count == 0 || relationVerbs.isEmpty()) return false;
+        for (CoreLabel token : sentence.get(CoreAnnotations.TokensAnnotation.class)) {
+            if (relationVerbs.contains(token.word().toLowerCase(Locale.ROOT))) return true;
+            String lemma = token.lemma();
+            if (lemma != null && relationVerbs.contains(lemma.toLowerCase(Locale.ROOT))) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Resultado de la primera etapa: el texto reducido de cada documento (null si no tiene frases
+     * candidatas). Permite anotar solo los documentos con candidatas ({@link #texts()}) y recolocar
+     * después los resultados en el orden original ({@link #expand(List, Object)}).
+     */
+    public static final class Selection {
+
+        private final List<String> reduced;
+        private final int sentences;
+        private final int kept;
+
+        Selection(List<String> reduced, int sentences, int kept) {
+            this.reduced = reduced;
+            this.sentences = sentences;
+            this.kept = kept;
+        }
+
+        /**
+         * Textos reducidos de los documentos con alguna frase candidata, en orden.
+         */
+        public List<String> texts() {
+            return reduced.stream().filter(Objects::nonNull).toList();
+        }
+
+        /**
+         * Resultados por documento a partir de los de {@link #texts()}: los documentos sin frases
+         * candidatas reciben {@code none}.
+         */
+        public <T> List<T> expand(List<T> results, T none) {
+            List<T> expanded = new ArrayList<>(reduced.size());
+            Iterator<T> next = results.iterator();
+            for (String text : reduced) expanded.add(text != null ? next.next() : none);
+            return expanded;
+        }
+
+        /**
+         * Frases analizadas en la primera etapa (0 si no se filtró).
+         */
+        public int sentences() {
+            return sentences;
+        }
+
+        /**
+         * Frases descartadas, que no pasan por parser, coref ni kbp.
+         */
+        public int filtered() {
+            return sentences - kept;
+        }
+    }
+}
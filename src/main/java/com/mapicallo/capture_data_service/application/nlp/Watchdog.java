@@ -0,0 +1,89 @@
+package com.mapicallo.capture_data_service.application.nlp;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Límite de tiempo para un trabajo que se ejecuta en el hilo actual: al vencer el plazo, un hilo
+ * vigilante interrumpe al que trabaja. Los anotadores de CoreNLP comprueban la interrupción entre
+ * pasos y abandonan con una excepción.
+ *
+ * <p>El parser de CoreNLP, en cambio, captura la interrupción: deja la frase en curso con un árbol
+ * vacío ("X"), limpia la marca y sigue con la siguiente. Por eso, una vez vencido el plazo, el
+ * vigilante vuelve a interrumpir cada {@link #REPEAT_MILLIS} ms hasta que el trabajo termina, y el
+ * resultado de un trabajo interrumpido se descarta aunque haya terminado sin excepción.
+ *
+ * <p>La interrupción solo puede llegar mientras dura el trabajo y se limpia al terminar, así que no
+ * alcanza a la E/S que el hilo haga después (por ejemplo, los {@code FileChannel} de
+ * {@link AnnotationStore}, que se cerrarían).
+ */
+public final class Watchdog {
+
+    private static final ScheduledExecutorService SCHEDULER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "nlp-watchdog");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // intervalo entre interrupciones una vez vencido el plazo
+    static final long REPEAT_MILLIS = 10;
+
+    private Watchdog() {
+    }
+
+    /**
+     * Ejecuta el trabajo con un presupuesto de {@code budgetMillis} ({@link Long#MAX_VALUE}: sin límite).
+     *
+     * @throws BudgetExceededException si se agotó el presupuesto (o no era positivo), aunque el
+     *                                 trabajo terminara sin excepción tras la interrupción.
+     */
+    public static <T> T run(long budgetMillis, Supplier<T> work) {
+        if (budgetMillis == Long.MAX_VALUE) return work.get();
+        if (budgetMillis <= 0) throw new BudgetExceededException(budgetMillis, null);
+
+        Alarm alarm = new Alarm(Thread.currentThread());
+        ScheduledFuture<?> scheduled = SCHEDULER.scheduleWithFixedDelay(alarm::ring, budgetMillis, REPEAT_MILLIS, TimeUnit.MILLISECONDS);
+        T result;
+        try {
+            result = work.get();
+        } catch (RuntimeException e) {
+            if (finish(scheduled, alarm)) throw new BudgetExceededException(budgetMillis, e);
+            throw e;
+        }
+        // la interrupción pudo capturarse a medio trabajo (el parser deja árboles vacíos): no es fiable
+        if (finish(scheduled, alarm)) throw new BudgetExceededException(budgetMillis, null);
+        return result;
+    }
+
+    // desarma la alarma y limpia su interrupción; true si llegó a sonar
+    private static boolean finish(ScheduledFuture<?> scheduled, Alarm alarm) {
+        scheduled.cancel(false);
+        boolean rang = alarm.disarm();
+        if (rang) Thread.interrupted();
+        return rang;
+    }
+
+    private static final class Alarm {
+        private final Thread worker;
+        private boolean finished;
+        private boolean rang;
+
+        Alarm(Thread worker) {
+            this.worker = worker;
+        }
+
+        synchronized void ring() {
+            if (finished) return;
+            rang = true;
+            worker.interrupt();
+        }
+
+        synchronized boolean disarm() {
+            finished = true;
+            return rang;
+        }
+    }
+}
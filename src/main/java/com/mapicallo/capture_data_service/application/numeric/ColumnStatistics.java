@@ -0,0 +1,54 @@
+package com.mapicallo.capture_data_service.application.numeric;
+
+/**
+ * Estadísticos de una columna calculados en streaming: momentos ({@link RunningMoments}) y cuantiles
+ * aproximados ({@link KllSketch}). Ocupa lo mismo con cien valores que con cien millones.
+ *
+ * <p>Los momentos no se actualizan valor a valor: los valores se acumulan en un bloque de tamaño
+ * fijo que, al llenarse, se resume de una pasada con {@link NumericKernels#moments(double[], int)}
+ * (SIMD si está disponible) y se combina con lo anterior.
+ */
+public final class ColumnStatistics {
+
+    static final int BATCH_SIZE = 4096;
+
+    private final RunningMoments moments = new RunningMoments();
+    private final KllSketch sketch;
+    private final double[] batch = new double[BATCH_SIZE];
+    private int pending;
+
+    public ColumnStatistics(int sketchK) {
+        this.sketch = new KllSketch(sketchK);
+    }
+
+    public void add(double value) {
+        batch[pending++] = value;
+        sketch.add(value);
+        if (pending == BATCH_SIZE) flush();
+    }
+
+    /**
+     * Incorpora los valores de otra columna (por ejemplo, otro trozo del mismo fichero).
+     */
+    public void merge(ColumnStatistics other) {
+        flush();
+        other.flush();
+        moments.merge(other.moments);
+        sketch.merge(other.sketch);
+    }
+
+    public RunningMoments moments() {
+        flush();
+        return moments;
+    }
+
+    public KllSketch sketch() {
+        return sketch;
+    }
+
+    private void flush() {
+        if (pending == 0) return;
+        moments.merge(NumericKernels.moments(batch, pending));
+        pending = 0;
+    }
+}
@@ -0,0 +1,55 @@
+package com.mapicallo.capture_data_service.application.numeric;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Resumen estadístico de las columnas numéricas de un CSV en una sola lectura, fila a fila: cada
+ * columna acumula sus estadísticos ({@link ColumnStatistics}) sin guardar los valores, así que la
+ * memoria depende del número de columnas y no del tamaño del fichero.
+ *
+ * <p>El tamaño de los resúmenes de cuantiles es {@code bigdata.summary.sketch-k} (más grande, más
+ * preciso: el error en rango baja aproximadamente como {@code 1/k}).
+ */
+@Component
+public class ColumnSummarizer {
+
+    private final int sketchK;
+
+    @Autowired
+    public ColumnSummarizer(@Value("${bigdata.summary.sketch-k:" + KllSketch.DEFAULT_K + "}") int sketchK) {
+        this.sketchK = sketchK;
+    }
+
+    /**
+     * Lee las filas restantes de {@code rows} (ya sin la cabecera) y devuelve los estadísticos de cada
+     * columna con algún valor numérico, en orden de cabecera. Las columnas con el mismo nombre se
+     * acumulan juntas; los valores no numéricos y los que no tienen cabecera se ignoran.
+     */
+    public Map<String, ColumnStatistics> summarize(String[] headers, BufferedReader rows) throws IOException {
+        ColumnStatistics[] columns = new ColumnStatistics[headers.length];
+        Map<String, ColumnStatistics> byName = new LinkedHashMap<>();
+        String line;
+        while ((line = rows.readLine()) != null) {
+            String[] values = line.split(",");
+            for (int i = 0; i < values.length && i < headers.length; i++) {
+                double value;
+                try {
+                    value = Double.parseDouble(values[i]);
+                } catch (NumberFormatException ignored) {
+                    continue;
+                }
+                if (Double.isNaN(value)) continue;
+                if (columns[i] == null) columns[i] = byName.computeIfAbsent(headers[i], k -> new ColumnStatistics(sketchK));
+                columns[i].add(value);
+            }
+        }
+        return byName;
+    }
+}
@@ -0,0 +1,20 @@
+package com.mapicallo.capture_data_service.application.numeric;
+
+/**
+ * Implementación de los núcleos numéricos de {@link NumericKernels}. Todas las operaciones trabajan
+ * sobre los primeros {@code length} elementos de los arrays.
+ */
+interface Kernels {
+
+    String name();
+
+    Moments moments(double[] values, int length);
+
+    double dot(double[] a, double[] b, int length);
+
+    // a[i] = factor · a[i]
+    void scale(double[] a, double factor, int length);
+
+    // a[i] = factor · a[i] + b[i]
+    void scaleAndAdd(double[] a, double factor, double[] b, int length);
+}
@@ -0,0 +1,199 @@
+package com.mapicallo.capture_data_service.application.numeric;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Resumen de cuantiles KLL (Karnin, Lang y Liberty): aproxima cualquier cuantil de una serie de
+ * valores guardando solo unos {@code 3k} de ellos, sea cual sea su número.
+ *
+ * <p>Los valores se guardan en niveles; los del nivel {@code h} pesan {@code 2^h}. Cuando un nivel
+ * llega a su capacidad se ordena y la mitad de sus valores (los pares o los impares, al azar) sube
+ * al nivel siguiente con el doble de peso. La capacidad decrece geométricamente (factor 2/3) desde
+ * el nivel más alto, que tiene capacidad {@code k}. Dos resúmenes con el mismo {@code k} pueden
+ * combinarse ({@link #merge}).
+ *
+ * <p>Mientras no se compacta ningún nivel los cuantiles son exactos. Después, el error en rango de
+ * un cuantil es, con un 99 % de confianza, menor que {@link #rankError()} veces el número de valores
+ * (en torno al 1,3 % con {@code k = 200}).
+ *
+ * <p>No es seguro para uso concurrente.
+ */
+public final class KllSketch {
+
+    public static final int DEFAULT_K = 200;
+
+    private static final double CAPACITY_DECAY = 2.0 / 3.0;
+
+    private final int k;
+    private final SplittableRandom random;
+    private double[][] levels = new double[1][8];
+    private int[] sizes = new int[1];
+    private int height = 1;
+    private int retained;
+    private int maxRetained;
+    private long count;
+    private boolean compacted;
+
+    public KllSketch() {
+        this(DEFAULT_K);
+    }
+
+    public KllSketch(int k) {
+        // semilla fija: el mismo fichero da siempre el mismo resumen
+        this(k, new SplittableRandom(0x4B4C4CL));
+    }
+
+    KllSketch(int k, SplittableRandom random) {
+        if (k < 8) throw new IllegalArgumentException("k debe ser al menos 8: " + k);
+        this.k = k;
+        this.random = random;
+        this.maxRetained = capacity(0);
+    }
+
+    public void add(double value) {
+        if (Double.isNaN(value)) return;
+        append(0, value);
+        count++;
+        if (retained >= maxRetained) compress();
+    }
+
+    /**
+     * Incorpora los valores de otro resumen con el mismo {@code k}.
+     */
+    public void merge(KllSketch other) {
+        if (other.k != k) throw new IllegalArgumentException("No se pueden combinar resúmenes con k distinto: " + k + " y " + other.k);
+        while (height < other.height) grow();
+        for (int h = 0; h < other.height; h++) {
+            for (int i = 0; i < other.sizes[h]; i++) append(h, other.levels[h][i]);
+        }
+        count += other.count;
+        compacted |= other.compacted;
+        while (retained >= maxRetained) compress();
+    }
+
+    public int k() {
+        return k;
+    }
+
+    public long count() {
+        return count;
+    }
+
+    /**
+     * Valores guardados (el tamaño del resumen).
+     */
+    public int retained() {
+        return retained;
+    }
+
+    /**
+     * Indica si los cuantiles son exactos (no se ha descartado ningún valor).
+     */
+    public boolean isExact() {
+        return !compacted;
+    }
+
+    /**
+     * Error normalizado en rango de los cuantiles (fracción del número de valores) con un 99 % de
+     * confianza: 0 si son exactos y, si no, la cota empírica {@code 2,296 / k^0,9723} publicada para
+     * KLL con este factor de capacidad.
+     */
+    public double rankError() {
+        return compacted ? 2.296 / Math.pow(k, 0.9723) : 0;
+    }
+
+    /**
+     * Cuantil {@code fraction} (entre 0 y 1): el menor valor cuyo rango acumulado alcanza
+     * {@code fraction · count}. {@code NaN} si no hay valores.
+     */
+    public double quantile(double fraction) {
+        return quantiles(fraction)[0];
+    }
+
+    /**
+     * Varios cuantiles con una sola ordenación de los valores guardados.
+     */
+    public double[] quantiles(double... fractions) {
+        double[] result = new double[fractions.length];
+        if (count == 0) {
+            Arrays.fill(result, Double.NaN);
+            return result;
+        }
+        // valores ordenados con su peso: cada nivel se ordena y se mezcla con los anteriores
+        double[] values = new double[0];
+        long[] weights = new long[0];
+        for (int h = 0; h < height; h++) {
+            double[] level = Arrays.copyOf(levels[h], sizes[h]);
+            Arrays.sort(level);
+            double[] mergedValues = new double[values.length + level.length];
+            long[] mergedWeights = new long[mergedValues.length];
+            int i = 0, j = 0, m = 0;
+            while (i < values.length || j < level.length) {
+                if (j == level.length || (i < values.length && values[i] <= level[j])) {
+                    mergedValues[m] = values[i];
+                    mergedWeights[m++] = weights[i++];
+                } else {
+                    mergedValues[m] = level[j++];
+                    mergedWeights[m++] = 1L << h;
+                }
+            }
+            values = mergedValues;
+            weights = mergedWeights;
+        }
+
+        for (int q = 0; q < fractions.length; q++) {
+            if (fractions[q] < 0 || fractions[q] > 1) throw new IllegalArgumentException("Cuantil fuera de [0, 1]: " + fractions[q]);
+            double target = fractions[q] * count;
+            long cumulative = 0;
+            int i = 0;
+            while (i < values.length - 1 && (cumulative += weights[i]) < target) i++;
+            result[q] = values[i];
+        }
+        return result;
+    }
+
+    // capacidad del nivel h con la altura actual (al menos 2 valores)
+    private int capacity(int h) {
+        return (int) Math.ceil(Math.pow(CAPACITY_DECAY, height - h - 1) * k) + 1;
+    }
+
+    private void grow() {
+        levels = Arrays.copyOf(levels, height + 1);
+        sizes = Arrays.copyOf(sizes, height + 1);
+        levels[height] = new double[8];
+        height++;
+        maxRetained = 0;
+        for (int h = 0; h < height; h++) maxRetained += capacity(h);
+    }
+
+    // compacta niveles desde abajo hasta volver a estar por debajo del tamaño máximo
+    private void compress() {
+        for (int h = 0; h < height; h++) {
+            if (sizes[h] < capacity(h)) continue;
+            if (h + 1 == height) grow();
+            compact(h);
+            if (retained < maxRetained) break;
+        }
+    }
+
+    // ordena el nivel h y sube la mitad de sus valores al siguiente; con un número impar, uno se queda
+    private void compact(int h) {
+        double[] level = levels[h];
+        int size = sizes[h];
+        int paired = size & ~1;
+        Arrays.sort(level, 0, paired);
+        retained -= size;
+        for (int i = random.nextBoolean() ? 1 : 0; i < paired; i += 2) append(h + 1, level[i]);
+        if (paired < size) level[0] = level[paired];
+        sizes[h] = size - paired;
+        retained += sizes[h];
+        compacted = true;
+    }
+
+    private void append(int h, double value) {
+        if (sizes[h] == levels[h].length) levels[h] = Arrays.copyOf(levels[h], sizes[h] * 2);
+        levels[h][sizes[h]++] = value;
+        retained++;
+    }
+}
@@ -0,0 +1,30 @@
+package com.mapicallo.capture_data_service.application.numeric;
+
+/**
+ * Estadísticos de una columna numérica calculados en una sola pasada.
+ *
+ * @param count    número de valores
+ * @param sum      suma de los valores
+ * @param variance varianza poblacional (dividida entre {@code count})
+ * @param min      mínimo ({@code NaN} si no hay valores)
+ * @param max      máximo ({@code NaN} si no hay valores)
+ */
+public record Moments(int count, double sum, double variance, double min, double max) {
+
+    static final Moments EMPTY = new Moments(0, 0, Double.NaN, Double.NaN, Double.NaN);
+
+    public double mean() {
+        return sum / count;
+    }
+
+    public double stdDev() {
+        return Math.sqrt(variance);
+    }
+
+    // los sumatorios se acumulan desplazados por el primer valor para no perder precisión en la
+    // varianza cuando la media es grande respecto a la dispersión
+    static Moments of(int count, double shift, double shiftedSum, double shiftedSumOfSquares, double min, double max) {
+        double variance = Math.max(0, (shiftedSumOfSquares - shiftedSum * shiftedSum / count) / count);
+        return new Moments(count, shift * count + shiftedSum, variance, min, max);
+    }
+}
@@ -0,0 +1,91 @@
+package com.mapicallo.capture_data_service.application.numeric;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Núcleos numéricos sobre arrays primitivos {@code double[]}: estadísticos de un bloque de valores
+ * en una sola pasada ({@link ColumnStatistics}) y escalado y normalización de vectores (centroides
+ * de clustering).
+ *
+ * <p>Si la JVM tiene disponible la Vector API ({@code --add-modules jdk.incubator.vector}, ya
+ * configurado en los tests y en {@code spring-boot:run}; con {@code java -jar} hay que pasarlo en
+ * la línea de comandos) se usan instrucciones SIMD; si no, o con {@code -Dnumeric.kernels=scalar},
+ * bucles escalares con el mismo resultado salvo por el orden de redondeo de las sumas. La
+ * implementación en uso se consulta en {@code GET /api/v1/nlp/numeric-kernels}.
+ *
+ * <p>Solo {@link VectorKernels} se compila con el módulo incubador (una ejecución aparte del
+ * compilador en pom.xml); esta clase la carga por reflexión.
+ */
+public final class NumericKernels {
+
+    private static final Logger logger = LoggerFactory.getLogger(NumericKernels.class);
+
+    private static final Kernels KERNELS = load();
+
+    private NumericKernels() {
+    }
+
+    /**
+     * Implementación en uso: {@code scalar} o {@code vector-<bits>}.
+     */
+    public static String implementation() {
+        return KERNELS.name();
+    }
+
+    /**
+     * Cuenta, suma, varianza, mínimo y máximo de los primeros {@code length} valores.
+     */
+    public static Moments moments(double[] values, int length) {
+        checkLength(values, length);
+        return KERNELS.moments(values, length);
+    }
+
+    public static Moments moments(double[] values) {
+        return KERNELS.moments(values, values.length);
+    }
+
+    /**
+     * {@code a = factor · a + b}.
+     */
+    public static void scaleAndAdd(double[] a, double factor, double[] b) {
+        checkSameLength(a, b);
+        KERNELS.scaleAndAdd(a, factor, b, a.length);
+    }
+
+    /**
+     * Divide el vector por su norma euclídea; un vector nulo se deja igual.
+     */
+    public static void normalize(double[] a) {
+        double norm = KERNELS.dot(a, a, a.length);
+        if (norm > 0) KERNELS.scale(a, 1.0 / Math.sqrt(norm), a.length);
+    }
+
+    // la implementación vectorial se carga por nombre para que esta clase no dependa del módulo incubador
+    static Kernels load() {
+        if (!"scalar".equalsIgnoreCase(System.getProperty("numeric.kernels"))) {
+            try {
+                Kernels kernels = (Kernels) Class.forName(NumericKernels.class.getPackageName() + ".VectorKernels")
+                        .getDeclaredConstructor()
+                        .newInstance();
+                logger.info("Numeric kernels: {}", kernels.name());
+                return kernels;
+            } catch (ReflectiveOperationException | LinkageError | RuntimeException e) {
+                logger.info("Vector API not available ({}), using scalar numeric kernels; start the JVM with --add-modules jdk.incubator.vector to enable it", e.toString());
+            }
+        }
+        return new ScalarKernels();
+    }
+
+    private static void checkLength(double[] values, int length) {
+        if (length < 0 || length > values.length) {
+            throw new IllegalArgumentException("Longitud fuera de rango: " + length);
+        }
+    }
+
+    private static void checkSameLength(double[] a, double[] b) {
+        if (a.length != b.length) {
+            throw new IllegalArgumentException("Los vectores tienen distinta dimensión: " + a.length + " y " + b.length);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.mapicallo.capture_data_service.application.numeric;
+
+/**
+ * Cuenta, media, varianza, mínimo y máximo de una serie de valores que se reciben por bloques ya
+ * resumidos ({@link Moments}), sin guardarlos. Cada bloque se combina con lo anterior con la fórmula
+ * de Chan et al., y dos acumuladores pueden combinarse ({@link #merge}) con el mismo resultado que si
+ * hubieran visto todos los bloques.
+ *
+ * <p>No es seguro para uso concurrente.
+ */
+public final class RunningMoments {
+
+    private long count;
+    private double mean;
+    private double m2; // suma de cuadrados de las desviaciones respecto a la media
+    private double min = Double.NaN;
+    private double max = Double.NaN;
+
+    /**
+     * Incorpora los valores vistos por otro acumulador.
+     */
+    public void merge(RunningMoments other) {
+        merge(other.count, other.mean, other.m2, other.min, other.max);
+    }
+
+    /**
+     * Incorpora un bloque de valores resumido con {@link NumericKernels#moments(double[], int)}.
+     */
+    public void merge(Moments batch) {
+        if (batch.count() == 0) return;
+        merge(batch.count(), batch.mean(), batch.variance() * batch.count(), batch.min(), batch.max());
+    }
+
+    // combinación de Chan et al.
+    private void merge(long otherCount, double otherMean, double otherM2, double otherMin, double otherMax) {
+        if (otherCount == 0) return;
+        if (count == 0) {
+            count = otherCount;
+            mean = otherMean;
+            m2 = otherM2;
+            min = otherMin;
+            max = otherMax;
+            return;
+        }
+        long total = count + otherCount;
+        double delta = otherMean - mean;
+        mean += delta * otherCount / total;
+        m2 += otherM2 + delta * delta * ((double) count * otherCount / total);
+        count = total;
+        min = Math.min(min, otherMin);
+        max = Math.max(max, otherMax);
+    }
+
+    public long count() {
+        return count;
+    }
+
+    /**
+     * Media ({@code NaN} si no hay valores).
+     */
+    public double mean() {
+        return count == 0 ? Double.NaN : mean;
+    }
+
+    /**
+     * Varianza poblacional (dividida entre {@code count}), como {@link Moments#variance()}.
+     */
+    public double variance() {
+        return count == 0 ? Double.NaN : m2 / count;
+    }
+
+    public double stdDev() {
+        return Math.sqrt(variance());
+    }
+
+    public double min() {
+        return min;
+    }
+
+    public double max() {
+        return max;
+    }
+}
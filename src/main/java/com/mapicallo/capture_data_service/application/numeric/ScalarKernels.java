@@ -0,0 +1,48 @@
+package com.mapicallo.capture_data_service.application.numeric;
+
+/**
+ * Núcleos escalares: bucles simples que el JIT puede desenrollar y, en los casos sencillos, vectorizar.
+ */
+final class ScalarKernels implements Kernels {
+
+    @Override
+    public String name() {
+        return "scalar";
+    }
+
+    @Override
+    public Moments moments(double[] values, int length) {
+        if (length == 0) return Moments.EMPTY;
+        double shift = values[0];
+        double sum = 0;
+        double sumOfSquares = 0;
+        double min = values[0];
+        double max = values[0];
+        for (int i = 0; i < length; i++) {
+            double v = values[i];
+            double d = v - shift;
+            sum += d;
+            sumOfSquares += d * d;
+            if (v < min) min = v;
+            if (v > max) max = v;
+        }
+        return Moments.of(length, shift, sum, sumOfSquares, min, max);
+    }
+
+    @Override
+    public double dot(double[] a, double[] b, int length) {
+        double sum = 0;
+        for (int i = 0; i < length; i++) sum += a[i] * b[i];
+        return sum;
+    }
+
+    @Override
+    public void scale(double[] a, double factor, int length) {
+        for (int i = 0; i < length; i++) a[i] *= factor;
+    }
+
+    @Override
+    public void scaleAndAdd(double[] a, double factor, double[] b, int length) {
+        for (int i = 0; i < length; i++) a[i] = factor * a[i] + b[i];
+    }
+}
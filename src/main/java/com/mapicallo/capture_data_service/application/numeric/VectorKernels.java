@@ -0,0 +1,91 @@
+package com.mapicallo.capture_data_service.application.numeric;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Núcleos SIMD con la Vector API ({@code jdk.incubator.vector}), con el ancho de vector preferido
+ * por la CPU. El cuerpo se procesa por bloques de {@code SPECIES.length()} valores y el resto, con
+ * un bucle escalar.
+ *
+ * <p>Solo se carga por reflexión desde {@link NumericKernels}: si la JVM se arranca sin
+ * {@code --add-modules jdk.incubator.vector}, la carga falla y se usan los núcleos escalares.
+ */
+final class VectorKernels implements Kernels {
+
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+    VectorKernels() {
+        if (SPECIES.length() < 2) throw new IllegalStateException("Sin registros vectoriales para double");
+    }
+
+    @Override
+    public String name() {
+        return "vector-" + SPECIES.vectorBitSize();
+    }
+
+    @Override
+    public Moments moments(double[] values, int length) {
+        if (length == 0) return Moments.EMPTY;
+        double shift = values[0];
+        DoubleVector shiftV = DoubleVector.broadcast(SPECIES, shift);
+        DoubleVector sumV = DoubleVector.zero(SPECIES);
+        DoubleVector squaresV = DoubleVector.zero(SPECIES);
+        DoubleVector minV = DoubleVector.broadcast(SPECIES, shift);
+        DoubleVector maxV = minV;
+        int i = 0;
+        for (int bound = SPECIES.loopBound(length); i < bound; i += SPECIES.length()) {
+            DoubleVector v = DoubleVector.fromArray(SPECIES, values, i);
+            DoubleVector d = v.sub(shiftV);
+            sumV = sumV.add(d);
+            squaresV = d.fma(d, squaresV);
+            minV = minV.min(v);
+            maxV = maxV.max(v);
+        }
+        double sum = sumV.reduceLanes(VectorOperators.ADD);
+        double sumOfSquares = squaresV.reduceLanes(VectorOperators.ADD);
+        double min = minV.reduceLanes(VectorOperators.MIN);
+        double max = maxV.reduceLanes(VectorOperators.MAX);
+        for (; i < length; i++) {
+            double v = values[i];
+            double d = v - shift;
+            sum += d;
+            sumOfSquares += d * d;
+            if (v < min) min = v;
+            if (v > max) max = v;
+        }
+        return Moments.of(length, shift, sum, sumOfSquares, min, max);
+    }
+
+    @Override
+    public double dot(double[] a, double[] b, int length) {
+        DoubleVector sumV = DoubleVector.zero(SPECIES);
+        int i = 0;
+        for (int bound = SPECIES.loopBound(length); i < bound; i += SPECIES.length()) {
+            sumV = DoubleVector.fromArray(SPECIES, a, i).fma(DoubleVector.fromArray(SPECIES, b, i), sumV);
+        }
+        double sum = sumV.reduceLanes(VectorOperators.ADD);
+        for (; i < length; i++) sum += a[i] * b[i];
+        return sum;
+    }
+
+    @Override
+    public void scale(double[] a, double factor, int length) {
+        int i = 0;
+        for (int bound = SPECIES.loopBound(length); i < bound; i += SPECIES.length()) {
+            DoubleVector.fromArray(SPECIES, a, i).mul(factor).intoArray(a, i);
+        }
+        for (; i < length; i++) a[i] *= factor;
+    }
+
+    @Override
+    public void scaleAndAdd(double[] a, double factor, double[] b, int length) {
+        DoubleVector factorV = DoubleVector.broadcast(SPECIES, factor);
+        int i = 0;
+        for (int bound = SPECIES.loopBound(length); i < bound; i += SPECIES.length()) {
+            DoubleVector.fromArray(SPECIES, a, i).fma(factorV, DoubleVector.fromArray(SPECIES, b, i)).intoArray(a, i);
+        }
+        for (; i < length; i++) a[i] = factor * a[i] + b[i];
+    }
+}
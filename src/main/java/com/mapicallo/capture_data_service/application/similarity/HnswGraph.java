@@ -0,0 +1,288 @@
+package com.mapicallo.capture_data_service.application.similarity;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Grafo HNSW (Hierarchical Navigable Small World) para búsqueda aproximada de vecinos más
+ * próximos por similitud coseno entre {@link SparseVector}.
+ *
+ * <p>Cada nodo se inserta en los niveles 0..L, con L aleatorio de distribución geométrica. En cada
+ * nivel se enlaza con hasta {@code m} vecinos ({@code 2m} en el nivel 0) elegidos con la heurística
+ * de diversidad del artículo original: un candidato se descarta si es más similar a un vecino ya
+ * elegido que al nodo nuevo. Las búsquedas bajan de forma voraz por los niveles superiores y
+ * exploran el nivel 0 con una lista de {@code ef} candidatos.
+ *
+ * <p>No es seguro para uso concurrente salvo varias búsquedas simultáneas sin inserciones: quien lo
+ * usa debe serializar las inserciones ({@link SimilarityIndex}).
+ */
+final class HnswGraph {
+
+    private static final int[] NO_LINKS = new int[0];
+
+    private final int m;
+    private final int efConstruction;
+    private final double levelFactor;
+    private final Random random;
+
+    private SparseVector[] vectors = new SparseVector[1024];
+    // links[nodo][nivel] = vecinos del nodo en ese nivel
+    private int[][][] links = new int[1024][][];
+    private int size;
+    private int entryPoint = -1;
+    private int maxLevel = -1;
+
+    // marcas de nodos visitados por hilo, reutilizadas entre búsquedas mediante un contador de época
+    private final ThreadLocal<Visited> visited = ThreadLocal.withInitial(Visited::new);
+
+    HnswGraph(int m, int efConstruction, long seed) {
+        if (m < 2 || efConstruction < 1) throw new IllegalArgumentException("HNSW: m >= 2 y efConstruction >= 1");
+        this.m = m;
+        this.efConstruction = efConstruction;
+        this.levelFactor = 1.0 / Math.log(m);
+        this.random = new Random(seed);
+    }
+
+    int size() {
+        return size;
+    }
+
+    SparseVector vector(int node) {
+        return vectors[node];
+    }
+
+    /**
+     * Inserta el vector y devuelve su identificador de nodo (0, 1, 2...).
+     */
+    int insert(SparseVector vector) {
+        int node = size;
+        if (node == vectors.length) {
+            vectors = Arrays.copyOf(vectors, node * 2);
+            links = Arrays.copyOf(links, node * 2);
+        }
+        int level = (int) (-Math.log(1 - random.nextDouble()) * levelFactor);
+        vectors[node] = vector;
+        links[node] = new int[level + 1][];
+        Arrays.fill(links[node], NO_LINKS);
+        size++;
+
+        if (entryPoint < 0) {
+            entryPoint = node;
+            maxLevel = level;
+            return node;
+        }
+
+        int current = entryPoint;
+        for (int l = maxLevel; l > level; l--) {
+            current = greedyClosest(vector, current, l);
+        }
+        NodeQueue entryPoints = new NodeQueue(true, 1);
+        entryPoints.push(current, vector.dot(vectors[current]));
+        for (int l = Math.min(level, maxLevel); l >= 0; l--) {
+            NodeQueue candidates = searchLayer(vector, entryPoints, efConstruction, l);
+            int[] sorted = drainNearestFirst(candidates);
+            int[] neighbours = selectNeighbours(vector, sorted, maxLinks(l));
+            links[node][l] = neighbours;
+            for (int neighbour : neighbours) connect(neighbour, node, l);
+
+            entryPoints = new NodeQueue(true, sorted.length);
+            for (int candidate : sorted) entryPoints.push(candidate, vector.dot(vectors[candidate]));
+        }
+
+        if (level > maxLevel) {
+            maxLevel = level;
+            entryPoint = node;
+        }
+        return node;
+    }
+
+    /**
+     * Los {@code k} nodos más similares a {@code query}, de mayor a menor similitud, explorando
+     * {@code ef} candidatos en el nivel 0 (más candidatos: más precisión y más coste).
+     */
+    int[] search(SparseVector query, int k, int ef) {
+        if (entryPoint < 0 || k <= 0) return NO_LINKS;
+        int current = entryPoint;
+        for (int l = maxLevel; l > 0; l--) {
+            current = greedyClosest(query, current, l);
+        }
+        NodeQueue entryPoints = new NodeQueue(true, 1);
+        entryPoints.push(current, query.dot(vectors[current]));
+        int[] nearest = drainNearestFirst(searchLayer(query, entryPoints, Math.max(ef, k), 0));
+        return nearest.length > k ? Arrays.copyOf(nearest, k) : nearest;
+    }
+
+    private int maxLinks(int level) {
+        return level == 0 ? 2 * m : m;
+    }
+
+    private int greedyClosest(SparseVector query, int start, int level) {
+        int current = start;
+        float best = query.dot(vectors[current]);
+        boolean improved = true;
+        while (improved) {
+            improved = false;
+            for (int neighbour : linksOf(current, level)) {
+                float similarity = query.dot(vectors[neighbour]);
+                if (similarity > best) {
+                    best = similarity;
+                    current = neighbour;
+                    improved = true;
+                }
+            }
+        }
+        return current;
+    }
+
+    // búsqueda en un nivel: devuelve un montículo con los ef nodos más similares (el menos similar en la cima)
+    private NodeQueue searchLayer(SparseVector query, NodeQueue entryPoints, int ef, int level) {
+        Visited seen = visited.get();
+        seen.reset(size);
+        NodeQueue candidates = new NodeQueue(true, ef);
+        NodeQueue results = new NodeQueue(false, ef + 1);
+        while (!entryPoints.isEmpty()) {
+            float score = entryPoints.topScore();
+            int node = entryPoints.pop();
+            if (seen.mark(node)) {
+                candidates.push(node, score);
+                results.push(node, score);
+                if (results.size() > ef) results.pop();
+            }
+        }
+
+        while (!candidates.isEmpty()) {
+            float score = candidates.topScore();
+            if (results.size() >= ef && score < results.topScore()) break;
+            int node = candidates.pop();
+            for (int neighbour : linksOf(node, level)) {
+                if (!seen.mark(neighbour)) continue;
+                float similarity = query.dot(vectors[neighbour]);
+                if (results.size() < ef || similarity > results.topScore()) {
+                    candidates.push(neighbour, similarity);
+                    results.push(neighbour, similarity);
+                    if (results.size() > ef) results.pop();
+                }
+            }
+        }
+        return results;
+    }
+
+    // heurística de selección: candidatos en orden de similitud, descartando los que están más cerca
+    // de un vecino ya elegido que de la base; si faltan, se completan con los descartados más similares
+    private int[] selectNeighbours(SparseVector base, int[] nearestFirst, int max) {
+        int[] selected = new int[Math.min(max, nearestFirst.length)];
+        int count = 0;
+        boolean[] taken = new boolean[nearestFirst.length];
+        for (int c = 0; c < nearestFirst.length && count < selected.length; c++) {
+            int candidate = nearestFirst[c];
+            float toBase = base.dot(vectors[candidate]);
+            boolean diverse = true;
+            for (int s = 0; s < count; s++) {
+                if (vectors[candidate].dot(vectors[selected[s]]) > toBase) {
+                    diverse = false;
+                    break;
+                }
+            }
+            if (diverse) {
+                selected[count++] = candidate;
+                taken[c] = true;
+            }
+        }
+        for (int c = 0; c < nearestFirst.length && count < selected.length; c++) {
+            if (!taken[c]) selected[count++] = nearestFirst[c];
+        }
+        return selected;
+    }
+
+    private void connect(int node, int newNeighbour, int level) {
+        int[] current = linksOf(node, level);
+        int[] extended = Arrays.copyOf(current, current.length + 1);
+        extended[current.length] = newNeighbour;
+        if (extended.length <= maxLinks(level)) {
+            links[node][level] = extended;
+            return;
+        }
+        NodeQueue byScore = new NodeQueue(true, extended.length);
+        for (int neighbour : extended) byScore.push(neighbour, vectors[node].dot(vectors[neighbour]));
+        links[node][level] = selectNeighbours(vectors[node], drainNearestFirst(byScore), maxLinks(level));
+    }
+
+    private int[] linksOf(int node, int level) {
+        int[][] nodeLinks = links[node];
+        return level < nodeLinks.length ? nodeLinks[level] : NO_LINKS;
+    }
+
+    // vacía el montículo y devuelve los nodos de mayor a menor similitud
+    private static int[] drainNearestFirst(NodeQueue queue) {
+        int[] nodes = new int[queue.size()];
+        if (queue.isEmpty()) return nodes;
+        NodeQueue nearest = new NodeQueue(true, queue.size());
+        while (!queue.isEmpty()) {
+            float score = queue.topScore();
+            nearest.push(queue.pop(), score);
+        }
+        for (int i = 0; i < nodes.length; i++) nodes[i] = nearest.pop();
+        return nodes;
+    }
+
+    void writeTo(DataOutput out) throws IOException {
+        out.writeInt(m);
+        out.writeInt(efConstruction);
+        out.writeInt(size);
+        out.writeInt(entryPoint);
+        out.writeInt(maxLevel);
+        for (int node = 0; node < size; node++) {
+            vectors[node].writeTo(out);
+            out.writeInt(links[node].length);
+            for (int[] levelLinks : links[node]) {
+                out.writeInt(levelLinks.length);
+                for (int neighbour : levelLinks) out.writeInt(neighbour);
+            }
+        }
+    }
+
+    static HnswGraph readFrom(DataInput in, long seed) throws IOException {
+        HnswGraph graph = new HnswGraph(in.readInt(), in.readInt(), seed);
+        int size = in.readInt();
+        graph.entryPoint = in.readInt();
+        graph.maxLevel = in.readInt();
+        int capacity = Math.max(1024, Integer.highestOneBit(Math.max(1, size)) << 1);
+        graph.vectors = new SparseVector[capacity];
+        graph.links = new int[capacity][][];
+        for (int node = 0; node < size; node++) {
+            graph.vectors[node] = SparseVector.readFrom(in);
+            int levels = in.readInt();
+            graph.links[node] = new int[levels][];
+            for (int l = 0; l < levels; l++) {
+                int[] levelLinks = new int[in.readInt()];
+                for (int i = 0; i < levelLinks.length; i++) levelLinks[i] = in.readInt();
+                graph.links[node][l] = levelLinks;
+            }
+        }
+        graph.size = size;
+        return graph;
+    }
+
+    private static final class Visited {
+        private int[] marks = new int[1024];
+        private int epoch;
+
+        void reset(int size) {
+            if (marks.length < size) marks = new int[Math.max(size, marks.length * 2)];
+            if (++epoch == Integer.MAX_VALUE) {
+                Arrays.fill(marks, 0);
+                epoch = 1;
+            }
+        }
+
+        // true si el nodo no se había visitado en esta búsqueda
+        boolean mark(int node) {
+            if (marks[node] == epoch) return false;
+            marks[node] = epoch;
+            return true;
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.mapicallo.capture_data_service.application.similarity;
+
+import java.util.Arrays;
+
+/**
+ * Montículo binario de pares (nodo, similitud) sobre arrays primitivos, ordenado de mayor a menor
+ * similitud ({@code nearestFirst}) o al revés.
+ */
+final class NodeQueue {
+
+    private final boolean nearestFirst;
+    private int[] nodes;
+    private float[] scores;
+    private int size;
+
+    NodeQueue(boolean nearestFirst, int capacity) {
+        this.nearestFirst = nearestFirst;
+        this.nodes = new int[Math.max(4, capacity)];
+        this.scores = new float[nodes.length];
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    void push(int node, float score) {
+        if (size == nodes.length) {
+            nodes = Arrays.copyOf(nodes, size * 2);
+            scores = Arrays.copyOf(scores, size * 2);
+        }
+        nodes[size] = node;
+        scores[size] = score;
+        int i = size++;
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (!before(i, parent)) break;
+            swap(i, parent);
+            i = parent;
+        }
+    }
+
+    int topNode() {
+        return nodes[0];
+    }
+
+    float topScore() {
+        return scores[0];
+    }
+
+    /**
+     * Extrae la cima y devuelve su nodo.
+     */
+    int pop() {
+        int top = nodes[0];
+        size--;
+        if (size > 0) {
+            nodes[0] = nodes[size];
+            scores[0] = scores[size];
+            int i = 0;
+            while (true) {
+                int left = 2 * i + 1;
+                if (left >= size) break;
+                int child = left + 1 < size && before(left + 1, left) ? left + 1 : left;
+                if (!before(child, i)) break;
+                swap(i, child);
+                i = child;
+            }
+        }
+        return top;
+    }
+
+    private boolean before(int a, int b) {
+        return nearestFirst ? scores[a] > scores[b] : scores[a] < scores[b];
+    }
+
+    private void swap(int a, int b) {
+        int node = nodes[a];
+        nodes[a] = nodes[b];
+        nodes[b] = node;
+        float score = scores[a];
+        scores[a] = scores[b];
+        scores[b] = score;
+    }
+}
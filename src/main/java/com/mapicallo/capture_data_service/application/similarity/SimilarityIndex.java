@@ -0,0 +1,315 @@
+package com.mapicallo.capture_data_service.application.similarity;
+
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+import com.mapicallo.capture_data_service.application.clustering.DocumentVectorizer;
+import com.mapicallo.capture_data_service.application.nlp.ContentHash;
+import com.mapicallo.capture_data_service.application.storage.DocumentKey;
+import com.mapicallo.capture_data_service.application.storage.SnapshotFile;
+import com.mapicallo.capture_data_service.application.text.BagOfWords;
+import com.mapicallo.capture_data_service.application.text.TermDictionary;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Índice en memoria de "documentos similares": vecinos aproximados por similitud coseno entre
+ * vectores TF-IDF, sobre un grafo {@link HnswGraph}.
+ *
+ * <p>Los documentos se tokenizan igual que en el clustering ({@link DocumentVectorizer}) y se
+ * ponderan con el mismo IDF suavizado, calculado con las frecuencias de documento del propio índice
+ * en el momento de insertarlos. Las inserciones son incrementales (los ficheros JSON subidos se
+ * añaden en segundo plano) y los textos ya indexados se reconocen por su huella y no se repiten.
+ *
+ * <p>Las búsquedas pueden ejecutarse en paralelo; las inserciones se serializan. El índice se guarda
+ * en disco ({@code nlp.similarity.snapshot-file}, ver {@link SnapshotFile}) en segundo plano tras
+ * cada inserción y al parar la aplicación, y se carga al arrancar. Las escrituras de la ingesta y de
+ * las peticiones se serializan, así que una instantánea antigua no sustituye a una más reciente.
+ */
+@Component
+public class SimilarityIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(SimilarityIndex.class);
+
+    private static final int MAGIC = 0x53494D31; // "SIM1"
+    private static final int FINGERPRINT_BYTES = 32;
+    private static final long SEED = 42L;
+
+    private final SnapshotFile snapshot;
+    private final int efSearch;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private TermDictionary vocabulary = DocumentVectorizer.newVocabulary();
+    private int[] documentFrequencies = new int[1024];
+    // identificador externo y huella de cada nodo del grafo
+    private List<String> ids = new ArrayList<>();
+    private List<String> nodeFingerprints = new ArrayList<>();
+    private Set<String> fingerprints = new HashSet<>();
+    private HnswGraph graph;
+
+    // ingesta en segundo plano de los ficheros subidos, de uno en uno
+    private final ExecutorService ingestExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "similarity-ingest");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Autowired
+    public SimilarityIndex(@Value("${nlp.similarity.snapshot-file:C:/capture_data/similarity/index.bin}") String snapshotFile,
+                           @Value("${nlp.similarity.m:16}") int m,
+                           @Value("${nlp.similarity.ef-construction:100}") int efConstruction,
+                           @Value("${nlp.similarity.ef-search:64}") int efSearch) {
+        this.snapshot = new SnapshotFile(SnapshotFile.pathOf(snapshotFile), MAGIC, "similarity", this::writeTo);
+        this.efSearch = efSearch;
+        this.graph = new HnswGraph(m, efConstruction, SEED);
+    }
+
+    @PostConstruct
+    public void load() {
+        lock.writeLock().lock();
+        try {
+            if (snapshot.read(this::readFrom)) {
+                logger.info("Similarity index loaded from {}: {} documents, {} terms", snapshot.path(), ids.size(), vocabulary.size());
+            }
+        } catch (IOException e) {
+            logger.warn("Could not load similarity index {}: {}", snapshot.path(), e.getMessage());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Guarda ya una instantánea del índice en disco. Se puede llamar desde varios hilos: las
+     * escrituras se serializan y cada una guarda el estado del momento en que escribe.
+     */
+    public void save() throws IOException {
+        snapshot.save();
+    }
+
+    /**
+     * Espera a que se guarden en disco las inserciones anteriores.
+     */
+    public void flush() {
+        snapshot.flush();
+    }
+
+    // se lee entero antes de sustituir el estado: un fichero dañado deja el índice como estaba
+    private void readFrom(DataInputStream in) throws IOException {
+        TermDictionary loadedVocabulary = DocumentVectorizer.newVocabulary();
+        int terms = in.readInt();
+        int[] loadedFrequencies = new int[Math.max(1024, terms)];
+        for (int t = 0; t < terms; t++) {
+            loadedVocabulary.intern(in.readUTF());
+            loadedFrequencies[t] = in.readInt();
+        }
+        int documents = in.readInt();
+        List<String> loadedIds = new ArrayList<>(documents);
+        List<String> loadedFingerprints = new ArrayList<>(documents);
+        byte[] fingerprint = new byte[FINGERPRINT_BYTES];
+        for (int i = 0; i < documents; i++) {
+            loadedIds.add(in.readUTF());
+            in.readFully(fingerprint);
+            loadedFingerprints.add(HexFormat.of().formatHex(fingerprint));
+        }
+        HnswGraph loadedGraph = HnswGraph.readFrom(in, SEED);
+        if (loadedGraph.size() != documents) throw new IOException("Índice de similitud incoherente");
+
+        vocabulary = loadedVocabulary;
+        documentFrequencies = loadedFrequencies;
+        ids = loadedIds;
+        nodeFingerprints = loadedFingerprints;
+        fingerprints = new HashSet<>(loadedFingerprints);
+        graph = loadedGraph;
+    }
+
+    private void writeTo(DataOutputStream out) throws IOException {
+        lock.readLock().lock();
+        try {
+            int terms = vocabulary.size();
+            out.writeInt(terms);
+            for (int t = 0; t < terms; t++) {
+                out.writeUTF(vocabulary.term(t));
+                out.writeInt(documentFrequencies[t]);
+            }
+            out.writeInt(ids.size());
+            for (int node = 0; node < ids.size(); node++) {
+                out.writeUTF(ids.get(node));
+                out.write(HexFormat.of().parseHex(nodeFingerprints.get(node)));
+            }
+            graph.writeTo(out);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Añade un documento.
+     *
+     * @return false si el texto ya estaba indexado o no tiene ninguna palabra indexable.
+     */
+    public boolean add(String id, String text) {
+        boolean added = insert(id, text);
+        if (added) snapshot.changed();
+        return added;
+    }
+
+    private boolean insert(String id, String text) {
+        if (text == null || text.isBlank()) return false;
+        String fingerprint = ContentHash.of("similarity", text);
+        lock.writeLock().lock();
+        try {
+            if (fingerprints.contains(fingerprint)) return false;
+            BagOfWords bag = DocumentVectorizer.bagOf(text, vocabulary, true);
+            if (bag.size() == 0) return false;
+            for (int j = 0; j < bag.size(); j++) {
+                int term = bag.termId(j);
+                if (term >= documentFrequencies.length) {
+                    documentFrequencies = Arrays.copyOf(documentFrequencies, Math.max(term + 1, documentFrequencies.length * 2));
+                }
+                documentFrequencies[term]++;
+            }
+            fingerprints.add(fingerprint);
+            nodeFingerprints.add(fingerprint);
+            ids.add(id);
+            graph.insert(vectorOf(bag));
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Añade los documentos de un fichero JSON (lista de objetos con "text" y, opcionalmente, "id"),
+     * identificados por {@link DocumentKey}: {@code <fichero>#<id>} o {@code <fichero>#<posición>}.
+     *
+     * @return número de documentos nuevos.
+     */
+    public int addFile(Path file) throws IOException {
+        List<Map<String, Object>> documents;
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            documents = new Gson().fromJson(reader, new TypeToken<List<Map<String, Object>>>() {}.getType());
+        }
+        if (documents == null) return 0;
+        int added = 0;
+        for (int i = 0; i < documents.size(); i++) {
+            Map<String, Object> doc = documents.get(i);
+            String documentId = DocumentKey.of(file.getFileName().toString(), doc.get("id"), i);
+            if (doc.get("text") instanceof String text && insert(documentId, text)) added++;
+        }
+        if (added > 0) snapshot.changed();
+        return added;
+    }
+
+    /**
+     * Programa en segundo plano la indexación de un fichero JSON subido. Los ficheros de otro tipo se ignoran.
+     */
+    public void addFileAsync(Path file) {
+        if (!file.getFileName().toString().toLowerCase().endsWith(".json")) return;
+        ingestExecutor.submit(() -> {
+            try {
+                int added = addFile(file);
+                logger.info("Similarity index: {} new documents from {}", added, file.getFileName());
+            } catch (IOException | RuntimeException e) {
+                logger.warn("Could not add {} to the similarity index: {}", file.getFileName(), e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Los {@code k} documentos indexados más similares al texto, de mayor a menor similitud coseno.
+     *
+     * @param ef candidatos explorados (0 = {@code nlp.similarity.ef-search}); más candidatos dan más
+     *           precisión a cambio de más tiempo.
+     */
+    public List<Match> search(String text, int k, int ef) {
+        if (text == null || k < 1) return List.of();
+        lock.readLock().lock();
+        try {
+            BagOfWords bag = DocumentVectorizer.bagOf(text, vocabulary, false);
+            if (bag.size() == 0) return List.of();
+            SparseVector query = vectorOf(bag);
+            int[] nodes = graph.search(query, k, ef > 0 ? ef : efSearch);
+            List<Match> matches = new ArrayList<>(nodes.length);
+            for (int node : nodes) {
+                matches.add(new Match(ids.get(node), query.dot(graph.vector(node))));
+            }
+            return matches;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Como {@link #search(String, int, int)}, pero recorriendo todos los documentos: el resultado
+     * exacto con los mismos vectores, como referencia para medir la precisión del grafo.
+     */
+    List<Match> exactSearch(String text, int k) {
+        lock.readLock().lock();
+        try {
+            BagOfWords bag = DocumentVectorizer.bagOf(text, vocabulary, false);
+            if (bag.size() == 0 || k < 1) return List.of();
+            SparseVector query = vectorOf(bag);
+            List<Match> matches = new ArrayList<>(ids.size());
+            for (int node = 0; node < ids.size(); node++) {
+                matches.add(new Match(ids.get(node), query.dot(graph.vector(node))));
+            }
+            matches.sort(Comparator.comparingDouble(Match::score).reversed());
+            return matches.subList(0, Math.min(k, matches.size()));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return ids.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        ingestExecutor.shutdownNow();
+        snapshot.close();
+    }
+
+    // pesos TF-IDF (mismo IDF suavizado que el clustering) normalizados a norma 1
+    private SparseVector vectorOf(BagOfWords bag) {
+        int documents = ids.size();
+        int[] indices = new int[bag.size()];
+        float[] values = new float[bag.size()];
+        double norm = 0;
+        for (int j = 0; j < bag.size(); j++) {
+            int term = bag.termId(j);
+            int df = term < documentFrequencies.length ? documentFrequencies[term] : 0;
+            double weight = bag.count(j) * (Math.log((1.0 + documents) / (1.0 + df)) + 1.0);
+            indices[j] = term;
+            values[j] = (float) weight;
+            norm += weight * weight;
+        }
+        float scale = (float) (1.0 / Math.sqrt(norm));
+        for (int j = 0; j < values.length; j++) values[j] *= scale;
+        return new SparseVector(indices, values);
+    }
+
+    /**
+     * Documento similar y su similitud coseno con la consulta.
+     */
+    public record Match(String id, double score) {
+    }
+}
@@ -0,0 +1,67 @@
+package com.mapicallo.capture_data_service.application.similarity;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Vector disperso de norma 1: índices de término en orden creciente y sus pesos.
+ *
+ * <p>El producto escalar entre dos vectores es su similitud coseno y se calcula mezclando las dos
+ * listas ordenadas, en O(valores no nulos de ambos).
+ */
+final class SparseVector {
+
+    static final SparseVector EMPTY = new SparseVector(new int[0], new float[0]);
+
+    private final int[] indices;
+    private final float[] values;
+
+    SparseVector(int[] indices, float[] values) {
+        this.indices = indices;
+        this.values = values;
+    }
+
+    int nonZeros() {
+        return indices.length;
+    }
+
+    float dot(SparseVector other) {
+        int[] a = indices;
+        int[] b = other.indices;
+        int i = 0;
+        int j = 0;
+        float sum = 0;
+        while (i < a.length && j < b.length) {
+            int x = a[i];
+            int y = b[j];
+            if (x == y) {
+                sum += values[i++] * other.values[j++];
+            } else if (x < y) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return sum;
+    }
+
+    void writeTo(DataOutput out) throws IOException {
+        out.writeInt(indices.length);
+        for (int i = 0; i < indices.length; i++) {
+            out.writeInt(indices[i]);
+            out.writeFloat(values[i]);
+        }
+    }
+
+    static SparseVector readFrom(DataInput in) throws IOException {
+        int length = in.readInt();
+        int[] indices = new int[length];
+        float[] values = new float[length];
+        for (int i = 0; i < length; i++) {
+            indices[i] = in.readInt();
+            values[i] = in.readFloat();
+        }
+        return new SparseVector(indices, values);
+    }
+}
@@ -0,0 +1,28 @@
+package com.mapicallo.capture_data_service.application.storage;
+
+/**
+ * Clave de un documento de un fichero subido: {@code <fichero>#<id>}, o {@code <fichero>#<posición>}
+ * si no tiene "id". Es la misma en el índice de entidades, el almacén de tripletas y el índice de
+ * similitud, de modo que sus resultados se pueden cruzar.
+ */
+public final class DocumentKey {
+
+    private DocumentKey() {
+    }
+
+    /**
+     * @param id       valor de "id" tal como lo lee Gson (los números llegan como {@code Double}:
+     *                 {@code 7.0} se escribe {@code 7}), o null
+     * @param position posición del documento en el fichero
+     */
+    public static String of(String fileName, Object id, int position) {
+        return fileName + "#" + (id == null ? Integer.toString(position) : idOf(id));
+    }
+
+    private static String idOf(Object id) {
+        if (id instanceof Double number && number == Math.rint(number) && Math.abs(number) < 1e15) {
+            return Long.toString(number.longValue());
+        }
+        return String.valueOf(id);
+    }
+}
@@ -0,0 +1,185 @@
+package com.mapicallo.capture_data_service.application.storage;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Instantánea binaria en disco de una estructura en memoria.
+ *
+ * <p>El fichero empieza por un número mágico que identifica el formato. Se escribe en un fichero
+ * temporal del mismo directorio que después sustituye al anterior de forma atómica, así que un
+ * lector nunca ve una instantánea a medias. Las escrituras se serializan: dos llamadas concurrentes
+ * a {@link #save()} no pueden dejar en disco la más antigua.
+ *
+ * <p>Quien la usa llama a {@link #changed()} tras cada modificación y la instantánea se escribe en
+ * segundo plano, en un único hilo. {@link #flush()} espera a que se hayan escrito los cambios
+ * pendientes y {@link #close()} además detiene el hilo.
+ *
+ * <p>Sin fichero ({@link #pathOf(String)} con una ruta vacía) no se lee ni se escribe nada y la
+ * estructura vive solo en memoria, como en el perfil de tests.
+ */
+public final class SnapshotFile implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(SnapshotFile.class);
+
+    private static final long CLOSE_TIMEOUT_SECONDS = 30;
+
+    /**
+     * Escribe el contenido de la instantánea (sin el número mágico).
+     */
+    @FunctionalInterface
+    public interface Writer {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    /**
+     * Lee el contenido de la instantánea (el número mágico ya se ha comprobado).
+     */
+    @FunctionalInterface
+    public interface Reader {
+        void read(DataInputStream in) throws IOException;
+    }
+
+    private final Path path;
+    private final int magic;
+    private final String name;
+    private final Writer writer;
+    private final Object writeLock = new Object();
+    private final ExecutorService executor;
+    private volatile boolean dirty;
+
+    /**
+     * @param path   fichero de la instantánea, o null para no guardar nada
+     * @param magic  número mágico del formato
+     * @param name   nombre corto para el hilo, los ficheros temporales y los mensajes de log
+     * @param writer escribe el estado actual; debe tomar los bloqueos de lectura que necesite
+     */
+    public SnapshotFile(Path path, int magic, String name, Writer writer) {
+        this.path = path;
+        this.magic = magic;
+        this.name = name;
+        this.writer = writer;
+        this.executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, name + "-snapshot");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * La ruta configurada, o null si está vacía (sin instantánea en disco).
+     */
+    public static Path pathOf(String file) {
+        return file == null || file.isBlank() ? null : Path.of(file);
+    }
+
+    public Path path() {
+        return path;
+    }
+
+    /**
+     * Lee la instantánea si existe.
+     *
+     * @return false si no hay fichero.
+     * @throws IOException si no se puede leer o el formato no es el esperado.
+     */
+    public boolean read(Reader reader) throws IOException {
+        if (path == null || !Files.exists(path)) return false;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            if (in.readInt() != magic) throw new IOException("Formato de instantánea no reconocido: " + path);
+            reader.read(in);
+        }
+        return true;
+    }
+
+    /**
+     * Escribe ya la instantánea con el estado actual.
+     */
+    public void save() throws IOException {
+        if (path == null) return;
+        synchronized (writeLock) {
+            // lo que cambie mientras se escribe vuelve a marcarse y se guarda en la siguiente escritura
+            dirty = false;
+            try {
+                Path parent = path.toAbsolutePath().getParent();
+                Files.createDirectories(parent);
+                Path temp = Files.createTempFile(parent, name, ".tmp");
+                try {
+                    try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                        out.writeInt(magic);
+                        writer.write(out);
+                    }
+                    Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                } finally {
+                    Files.deleteIfExists(temp);
+                }
+            } catch (IOException | RuntimeException e) {
+                dirty = true;
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Marca el estado como modificado y programa una escritura en segundo plano.
+     */
+    public void changed() {
+        if (path == null) return;
+        dirty = true;
+        try {
+            executor.execute(this::saveIfDirty);
+        } catch (RejectedExecutionException e) {
+            // cerrada: close() ya guarda lo pendiente
+        }
+    }
+
+    /**
+     * Espera a que se escriban los cambios pendientes.
+     */
+    public void flush() {
+        try {
+            executor.submit(this::saveIfDirty).get();
+        } catch (RejectedExecutionException e) {
+            saveIfDirty();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            logger.warn("Could not save {} snapshot: {}", name, e.getCause().getMessage());
+        }
+    }
+
+    /**
+     * Espera a las escrituras en curso, guarda lo pendiente y detiene el hilo de escritura.
+     */
+    @Override
+    public void close() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(CLOSE_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                logger.warn("Timed out waiting for {} snapshot", name);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        saveIfDirty();
+    }
+
+    private void saveIfDirty() {
+        if (!dirty) return;
+        try {
+            save();
+        } catch (IOException e) {
+            logger.warn("Could not save {} snapshot {}: {}", name, path, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package com.mapicallo.capture_data_service.application.text;
+
+import java.util.*;
+
+/**
+ * Autómata de Aho-Corasick para buscar muchos patrones a la vez en una única pasada lineal.
+ *
+ * <p>El autómata se compila a una tabla de transiciones completa (DFA) sobre el alfabeto reducido de
+ * los caracteres que aparecen en los patrones; cualquier otro carácter vuelve al estado inicial. La
+ * búsqueda no distingue mayúsculas de minúsculas y no reserva memoria: cada carácter del texto cuesta
+ * una consulta a la tabla.
+ *
+ * <p>Las instancias son inmutables y pueden compartirse entre hilos.
+ */
+public final class AhoCorasick {
+
+    private static final int[] NO_OUTPUT = new int[0];
+
+    // clase de cada carácter (0 = no aparece en ningún patrón)
+    private final int[] charClass = new int[Character.MAX_VALUE + 1];
+    private final int alphabetSize;
+    // transiciones: estado * alphabetSize + clase → estado
+    private final int[] transitions;
+    // identificadores de los patrones que terminan en cada estado (incluidos los sufijos)
+    private final int[][] outputs;
+    private final int patternCount;
+
+    /**
+     * Compila el autómata. El identificador de cada patrón es su posición en la lista.
+     */
+    public AhoCorasick(List<String> patterns) {
+        this.patternCount = patterns.size();
+
+        int classes = 1;
+        for (String pattern : patterns) {
+            for (int i = 0; i < pattern.length(); i++) {
+                char c = Character.toLowerCase(pattern.charAt(i));
+                if (charClass[c] == 0) charClass[c] = classes++;
+            }
+        }
+        this.alphabetSize = classes;
+
+        // trie: goto parcial (-1 = sin transición)
+        List<int[]> trie = new ArrayList<>();
+        List<int[]> trieOutputs = new ArrayList<>();
+        trie.add(newRow(classes));
+        trieOutputs.add(NO_OUTPUT);
+        for (int id = 0; id < patterns.size(); id++) {
+            String pattern = patterns.get(id);
+            if (pattern.isEmpty()) continue;
+            int state = 0;
+            for (int i = 0; i < pattern.length(); i++) {
+                int cls = charClass[Character.toLowerCase(pattern.charAt(i))];
+                if (trie.get(state)[cls] < 0) {
+                    trie.get(state)[cls] = trie.size();
+                    trie.add(newRow(classes));
+                    trieOutputs.add(NO_OUTPUT);
+                }
+                state = trie.get(state)[cls];
+            }
+            trieOutputs.set(state, append(trieOutputs.get(state), id));
+        }
+
+        int states = trie.size();
+        this.transitions = new int[states * classes];
+        this.outputs = new int[states][];
+        int[] fail = new int[states];
+
+        // recorrido en anchura: completa las transiciones con los enlaces de fallo y hereda salidas
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        outputs[0] = trieOutputs.get(0);
+        for (int cls = 0; cls < classes; cls++) {
+            int next = trie.get(0)[cls];
+            if (next > 0 && cls > 0) {
+                transitions[cls] = next;
+                fail[next] = 0;
+                queue.add(next);
+            } else {
+                transitions[cls] = 0;
+            }
+        }
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            outputs[state] = merge(trieOutputs.get(state), outputs[fail[state]]);
+            for (int cls = 0; cls < classes; cls++) {
+                int next = trie.get(state)[cls];
+                if (next > 0 && cls > 0) {
+                    fail[next] = transitions[fail[state] * classes + cls];
+                    transitions[state * classes + cls] = next;
+                    queue.add(next);
+                } else {
+                    transitions[state * classes + cls] = cls == 0 ? 0 : transitions[fail[state] * classes + cls];
+                }
+            }
+        }
+    }
+
+    public int patternCount() {
+        return patternCount;
+    }
+
+    /**
+     * Recorre {@code text[start, end)} y notifica cada aparición de un patrón con su identificador y la
+     * posición (exclusiva) en la que termina.
+     */
+    public void scan(CharSequence text, int start, int end, MatchListener listener) {
+        int state = 0;
+        for (int i = start; i < end; i++) {
+            state = transitions[state * alphabetSize + charClass[Character.toLowerCase(text.charAt(i))]];
+            int[] matched = outputs[state];
+            for (int id : matched) {
+                listener.onMatch(id, i + 1);
+            }
+        }
+    }
+
+    /**
+     * Devuelve el menor identificador de patrón que aparece en {@code text[start, end)}, o -1 si no
+     * aparece ninguno. Útil cuando los identificadores expresan una prioridad.
+     */
+    public int firstPattern(CharSequence text, int start, int end) {
+        int best = Integer.MAX_VALUE;
+        int state = 0;
+        for (int i = start; i < end; i++) {
+            state = transitions[state * alphabetSize + charClass[Character.toLowerCase(text.charAt(i))]];
+            int[] matched = outputs[state];
+            if (matched.length > 0 && matched[0] < best) {
+                best = matched[0];
+                if (best == 0) return 0;
+            }
+        }
+        return best == Integer.MAX_VALUE ? -1 : best;
+    }
+
+    private static int[] newRow(int size) {
+        int[] row = new int[size];
+        Arrays.fill(row, -1);
+        return row;
+    }
+
+    private static int[] append(int[] values, int value) {
+        int[] result = Arrays.copyOf(values, values.length + 1);
+        result[values.length] = value;
+        Arrays.sort(result);
+        return result;
+    }
+
+    // unión ordenada de dos listas de identificadores
+    private static int[] merge(int[] own, int[] inherited) {
+        if (inherited.length == 0) return own;
+        if (own.length == 0) return inherited;
+        int[] result = new int[own.length + inherited.length];
+        System.arraycopy(own, 0, result, 0, own.length);
+        System.arraycopy(inherited, 0, result, own.length, inherited.length);
+        Arrays.sort(result);
+        return result;
+    }
+
+
+    /**
+     * Receptor de apariciones de patrones durante {@link #scan}.
+     */
+    @FunctionalInterface
+    public interface MatchListener {
+        void onMatch(int patternId, int end);
+    }
+}
@@ -0,0 +1,56 @@
+package com.mapicallo.capture_data_service.application.text;
+
+/**
+ * Bolsa de palabras de un documento: identificadores de término ({@link TermDictionary}) ordenados
+ * de menor a mayor y su frecuencia, en dos arrays paralelos.
+ *
+ * <p>Es una representación dispersa y compacta: ocupa O(términos distintos) y permite productos
+ * escalares entre documentos mezclando las dos listas ordenadas.
+ */
+public final class BagOfWords {
+
+    private final int[] termIds;
+    private final int[] counts;
+    private final int totalCount;
+
+    BagOfWords(int[] termIds, int[] counts) {
+        this.termIds = termIds;
+        this.counts = counts;
+        int total = 0;
+        for (int count : counts) total += count;
+        this.totalCount = total;
+    }
+
+    /**
+     * Construye la bolsa a partir de los identificadores de los tokens de un documento (con repeticiones).
+     */
+    public static BagOfWords of(int[] tokenIds, int length) {
+        IntIntCounter counter = new IntIntCounter(length);
+        for (int i = 0; i < length; i++) {
+            counter.increment(tokenIds[i]);
+        }
+        return counter.toBagOfWords();
+    }
+
+    /**
+     * Número de términos distintos.
+     */
+    public int size() {
+        return termIds.length;
+    }
+
+    public int termId(int index) {
+        return termIds[index];
+    }
+
+    public int count(int index) {
+        return counts[index];
+    }
+
+    /**
+     * Número total de tokens (suma de frecuencias).
+     */
+    public int totalCount() {
+        return totalCount;
+    }
+}
@@ -0,0 +1,272 @@
+package com.mapicallo.capture_data_service.application.text;
+
+import com.mapicallo.capture_data_service.application.storage.SnapshotFile;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.*;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Tabla de frecuencias de documento (DF) del corpus, persistente y actualizada de forma incremental.
+ *
+ * <p>Cada documento nuevo suma uno a la DF de sus términos distintos, con un coste proporcional al
+ * número de términos del documento. Los documentos se identifican por su huella, así que volver a
+ * subir o procesar el mismo texto no altera las frecuencias. Los términos se guardan en un
+ * {@link TermDictionary} y las frecuencias en un {@code int[]} indexado por identificador; los
+ * documentos llegan como {@link BagOfWords}.
+ *
+ * <p>Las huellas recordadas están acotadas ({@code nlp.keywords.max-fingerprints}, unos 150 bytes
+ * cada una en memoria y 32 en disco): al superar el límite se olvidan las más antiguas, y un texto
+ * cuya huella se olvidó se contaría otra vez si vuelve a llegar. Las frecuencias no se acotan: crecen
+ * con el vocabulario, no con el número de documentos.
+ *
+ * <p>En disco se guarda en un formato binario compacto ({@link SnapshotFile}): número de documentos y
+ * de tokens, cada término con su DF codificada como entero de longitud variable y las huellas de los
+ * documentos ya contados, de la más antigua a la más reciente. Las escrituras concurrentes (ingesta en
+ * segundo plano y peticiones) se serializan, así que una instantánea antigua no puede sustituir a una
+ * más reciente.
+ */
+@Component
+public class DocumentFrequencyIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(DocumentFrequencyIndex.class);
+
+    private static final int MAGIC = 0x43444631; // "CDF1"
+    private static final int FINGERPRINT_BYTES = 32;
+    static final int DEFAULT_MAX_FINGERPRINTS = 1_000_000;
+
+    // saturación de la frecuencia del término y normalización por longitud (valores habituales de BM25)
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    private final SnapshotFile snapshot;
+    private final int maxFingerprints;
+    private TermDictionary dictionary = new TermDictionary();
+    // en orden de llegada, para olvidar primero las más antiguas
+    private LinkedHashSet<String> fingerprints = new LinkedHashSet<>();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private int[] documentFrequencies = new int[1024];
+    private int documentCount;
+    private long tokenCount;
+
+    @Autowired
+    public DocumentFrequencyIndex(@Value("${nlp.keywords.df-file:C:/capture_data/keywords/document-frequencies.bin}") String file,
+                                  @Value("${nlp.keywords.max-fingerprints:" + DEFAULT_MAX_FINGERPRINTS + "}") int maxFingerprints) {
+        this.snapshot = new SnapshotFile(SnapshotFile.pathOf(file), MAGIC, "df", this::writeTo);
+        this.maxFingerprints = Math.max(1, maxFingerprints);
+    }
+
+    /**
+     * Constructor para uso fuera del contenedor de Spring, con el límite de huellas por defecto.
+     */
+    public DocumentFrequencyIndex(String file) {
+        this(file, DEFAULT_MAX_FINGERPRINTS);
+    }
+
+    @PostConstruct
+    public void load() {
+        lock.writeLock().lock();
+        try {
+            if (snapshot.read(this::readFrom)) {
+                logger.info("Document frequency index loaded from {}: {} documents, {} terms", snapshot.path(), documentCount, dictionary.size());
+            }
+        } catch (IOException e) {
+            logger.warn("Could not load document frequency index {}: {}", snapshot.path(), e.getMessage());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Guarda la tabla en disco. Se puede llamar desde varios hilos: las escrituras se serializan y
+     * cada una guarda el estado del momento en que escribe.
+     */
+    public void save() throws IOException {
+        snapshot.save();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        snapshot.close();
+    }
+
+    // se lee entero antes de sustituir el estado: un fichero dañado deja la tabla como estaba
+    private void readFrom(DataInputStream in) throws IOException {
+        int loadedDocuments = in.readInt();
+        long loadedTokens = in.readLong();
+        int terms = in.readInt();
+        TermDictionary loadedDictionary = new TermDictionary();
+        int[] loadedFrequencies = new int[Math.max(1024, terms)];
+        for (int i = 0; i < terms; i++) {
+            int id = loadedDictionary.intern(in.readUTF());
+            loadedFrequencies[id] = readVarInt(in);
+        }
+        int documents = in.readInt();
+        LinkedHashSet<String> loadedFingerprints = new LinkedHashSet<>();
+        byte[] fingerprint = new byte[FINGERPRINT_BYTES];
+        for (int i = 0; i < documents; i++) {
+            in.readFully(fingerprint);
+            loadedFingerprints.add(HexFormat.of().formatHex(fingerprint));
+        }
+
+        documentCount = loadedDocuments;
+        tokenCount = loadedTokens;
+        dictionary = loadedDictionary;
+        documentFrequencies = loadedFrequencies;
+        fingerprints = loadedFingerprints;
+        forgetOldestFingerprints();
+    }
+
+    private void writeTo(DataOutputStream out) throws IOException {
+        lock.readLock().lock();
+        try {
+            out.writeInt(documentCount);
+            out.writeLong(tokenCount);
+            int terms = dictionary.size();
+            out.writeInt(terms);
+            for (int id = 0; id < terms; id++) {
+                out.writeUTF(dictionary.term(id));
+                writeVarInt(out, documentFrequencies[id]);
+            }
+            out.writeInt(fingerprints.size());
+            for (String fingerprint : fingerprints) {
+                out.write(HexFormat.of().parseHex(fingerprint));
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Cuenta un documento nuevo. {@code terms} son los términos del documento (con repeticiones);
+     * {@code fingerprint} es su huella SHA-256 en hexadecimal.
+     *
+     * @return false si el documento ya estaba contado.
+     */
+    public boolean addDocument(String fingerprint, String[] terms) {
+        TermDictionary local = new TermDictionary();
+        int[] ids = new int[terms.length];
+        for (int i = 0; i < terms.length; i++) {
+            ids[i] = local.intern(terms[i]);
+        }
+        return addDocument(fingerprint, BagOfWords.of(ids, ids.length), local);
+    }
+
+    /**
+     * Cuenta un documento nuevo a partir de su bolsa de palabras, cuyos identificadores pertenecen a
+     * {@code terms}.
+     *
+     * @return false si el documento ya estaba contado.
+     */
+    public boolean addDocument(String fingerprint, BagOfWords bag, TermDictionary terms) {
+        lock.writeLock().lock();
+        try {
+            if (!fingerprints.add(fingerprint)) return false;
+            for (int i = 0; i < bag.size(); i++) {
+                int id = dictionary.intern(terms.term(bag.termId(i)));
+                if (id >= documentFrequencies.length) {
+                    documentFrequencies = Arrays.copyOf(documentFrequencies, Math.max(id + 1, documentFrequencies.length * 2));
+                }
+                documentFrequencies[id]++;
+            }
+            documentCount++;
+            tokenCount += bag.totalCount();
+            forgetOldestFingerprints();
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Puntúa los términos de un documento con BM25 respecto al corpus y deja los mejores en
+     * {@code topK}. Los identificadores ofrecidos al montículo son los de {@code terms}.
+     *
+     * @param bag   bolsa de palabras del documento
+     * @param terms diccionario al que pertenecen los identificadores de la bolsa
+     */
+    public void score(BagOfWords bag, TermDictionary terms, TopK topK) {
+        lock.readLock().lock();
+        try {
+            int length = bag.totalCount();
+            double averageLength = documentCount == 0 ? Math.max(1, length) : (double) tokenCount / documentCount;
+            double norm = K1 * (1 - B + B * length / averageLength);
+            for (int i = 0; i < bag.size(); i++) {
+                int id = dictionary.idOf(terms.term(bag.termId(i)));
+                int df = id < 0 ? 0 : documentFrequencies[id];
+                double idf = Math.log(1 + (documentCount - df + 0.5) / (df + 0.5));
+                int count = bag.count(i);
+                double tf = count * (K1 + 1) / (count + norm);
+                topK.offer(bag.termId(i), tf * idf);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int documentCount() {
+        lock.readLock().lock();
+        try {
+            return documentCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Frecuencia de documento del término (0 si nunca se ha visto).
+     */
+    public int documentFrequency(String term) {
+        lock.readLock().lock();
+        try {
+            int id = dictionary.idOf(term);
+            return id < 0 ? 0 : documentFrequencies[id];
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int termCount() {
+        return dictionary.size();
+    }
+
+    // con el bloqueo de escritura tomado
+    private void forgetOldestFingerprints() {
+        Iterator<String> oldest = fingerprints.iterator();
+        while (fingerprints.size() > maxFingerprints) {
+            oldest.next();
+            oldest.remove();
+        }
+    }
+
+    private static void writeVarInt(DataOutput out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    private static int readVarInt(DataInput in) throws IOException {
+        int value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = in.readByte();
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+}
@@ -0,0 +1,111 @@
+package com.mapicallo.capture_data_service.application.text;
+
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Resumen extractivo por frecuencia de términos.
+ *
+ * <p>Cada frase se puntúa con la suma de las frecuencias en el documento de sus palabras de más de 2
+ * caracteres y se devuelven las {@code k} frases con mayor puntuación en su orden original. A igual
+ * puntuación se prefiere la frase anterior.
+ *
+ * <p>El texto se recorre una sola vez con {@link SentenceSplitter} y {@link TextScanner}, sin
+ * {@code split} ni {@code toLowerCase}: los tokens se internan por tramos en un diccionario que
+ * ignora mayúsculas, sus identificadores se guardan en un array y la segunda pasada (puntuación) lee
+ * ese array. Las frases se eligen con un montículo {@link TopK} de tamaño {@code k}. Los buffers de
+ * trabajo son por hilo y se reutilizan entre documentos, así que resumir un fichero entero solo crea
+ * las frases del resumen y poco más.
+ */
+@Component
+public class ExtractiveSummarizer {
+
+    // palabras más cortas no puntúan (artículos, preposiciones...)
+    private static final int MIN_WORD_LENGTH = 3;
+
+    private final ThreadLocal<Workspace> workspaces = ThreadLocal.withInitial(Workspace::new);
+
+    /**
+     * Resume el texto con las {@code k} frases más representativas.
+     */
+    public Summary summarize(String text, int k) {
+        if (k < 1) throw new IllegalArgumentException("El número de frases del resumen debe ser mayor que 0");
+        if (text == null || text.isBlank()) return new Summary(0, List.of());
+
+        int[] bounds = SentenceSplitter.boundaries(text);
+        int sentenceCount = bounds.length / 2;
+        Workspace ws = workspaces.get();
+        ws.reset(sentenceCount);
+
+        // 1. Tokenizar una vez: identificadores de término y frecuencia en el documento
+        int tokens = 0;
+        for (int s = 0; s < sentenceCount; s++) {
+            ws.scanner.reset(text, bounds[2 * s], bounds[2 * s + 1]);
+            while (ws.scanner.next()) {
+                if (ws.scanner.tokenLength() < MIN_WORD_LENGTH) continue;
+                int id = ws.terms.intern(text, ws.scanner.tokenStart(), ws.scanner.tokenEnd());
+                ws.ensureTerm(id);
+                ws.frequencies[id]++;
+                ws.ensureTokens(tokens + 1);
+                ws.tokenIds[tokens++] = id;
+            }
+            ws.sentenceEnds[s] = tokens;
+        }
+
+        // 2. Puntuar cada frase y quedarse con las k mejores
+        TopK topK = new TopK(Math.min(k, sentenceCount));
+        int from = 0;
+        for (int s = 0; s < sentenceCount; s++) {
+            long score = 0;
+            for (int t = from; t < ws.sentenceEnds[s]; t++) {
+                score += ws.frequencies[ws.tokenIds[t]];
+            }
+            topK.offer(s, score);
+            from = ws.sentenceEnds[s];
+        }
+
+        // 3. Devolver las frases elegidas en el orden del texto
+        int[] selected = topK.drainDescending();
+        Arrays.sort(selected);
+        List<String> summary = new ArrayList<>(selected.length);
+        for (int s : selected) {
+            summary.add(text.substring(bounds[2 * s], bounds[2 * s + 1]));
+        }
+        return new Summary(sentenceCount, summary);
+    }
+
+    /**
+     * Resultado del resumen.
+     *
+     * @param originalLength número de frases del texto original
+     * @param sentences      frases seleccionadas, en su orden original
+     */
+    public record Summary(int originalLength, List<String> sentences) {
+    }
+
+    // buffers reutilizables de un hilo
+    private static final class Workspace {
+        final TextScanner scanner = new TextScanner();
+        final TermDictionary terms = new TermDictionary(true);
+        int[] frequencies = new int[256];
+        int[] tokenIds = new int[1024];
+        int[] sentenceEnds = new int[64];
+
+        void reset(int sentences) {
+            Arrays.fill(frequencies, 0, terms.size(), 0);
+            terms.clear();
+            if (sentenceEnds.length < sentences) sentenceEnds = new int[Math.max(sentences, sentenceEnds.length * 2)];
+        }
+
+        void ensureTerm(int id) {
+            if (id >= frequencies.length) frequencies = Arrays.copyOf(frequencies, frequencies.length * 2);
+        }
+
+        void ensureTokens(int count) {
+            if (count > tokenIds.length) tokenIds = Arrays.copyOf(tokenIds, tokenIds.length * 2);
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.mapicallo.capture_data_service.application.text;
+
+import java.util.Arrays;
+
+/**
+ * Contador entero → entero con direccionamiento abierto sobre arrays primitivos.
+ *
+ * <p>Sustituye a {@code Map<Integer, Integer>} / {@code Map<String, Integer>} en los recuentos de
+ * términos: incrementar no crea objetos ni reserva memoria salvo cuando la tabla crece. Las claves
+ * deben ser no negativas (identificadores de {@link TermDictionary}).
+ *
+ * <p>No es seguro para uso concurrente.
+ */
+public final class IntIntCounter {
+
+    private static final int FREE = -1;
+
+    private int[] keys;
+    private int[] values;
+    private int size;
+
+    public IntIntCounter() {
+        this(16);
+    }
+
+    public IntIntCounter(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(4, expectedSize) * 2 - 1) << 1;
+        keys = new int[capacity];
+        values = new int[capacity];
+        Arrays.fill(keys, FREE);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Suma {@code delta} al recuento de la clave y devuelve el nuevo valor.
+     */
+    public int add(int key, int delta) {
+        if (key < 0) throw new IllegalArgumentException("Clave negativa: " + key);
+        int slot = slotOf(key);
+        if (keys[slot] == FREE) {
+            keys[slot] = key;
+            values[slot] = delta;
+            if (++size * 2 > keys.length) grow();
+            return delta;
+        }
+        return values[slot] += delta;
+    }
+
+    public int increment(int key) {
+        return add(key, 1);
+    }
+
+    /**
+     * Recuento de la clave (0 si no está).
+     */
+    public int get(int key) {
+        if (key < 0) return 0;
+        int slot = slotOf(key);
+        return keys[slot] == FREE ? 0 : values[slot];
+    }
+
+    /**
+     * Vacía el contador conservando la capacidad, para reutilizarlo con otro documento.
+     */
+    public void clear() {
+        Arrays.fill(keys, FREE);
+        size = 0;
+    }
+
+    /**
+     * Recorre las entradas en orden de tabla (sin orden definido).
+     */
+    public void forEach(Entry action) {
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (keys[slot] != FREE) action.accept(keys[slot], values[slot]);
+        }
+    }
+
+    /**
+     * Copia las entradas como bolsa de palabras ordenada por identificador.
+     */
+    public BagOfWords toBagOfWords() {
+        int[] ids = new int[size];
+        int n = 0;
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (keys[slot] != FREE) ids[n++] = keys[slot];
+        }
+        Arrays.sort(ids);
+        int[] counts = new int[size];
+        for (int i = 0; i < size; i++) {
+            counts[i] = get(ids[i]);
+        }
+        return new BagOfWords(ids, counts);
+    }
+
+    private int slotOf(int key) {
+        int mask = keys.length - 1;
+        int slot = mix(key) & mask;
+        while (keys[slot] != FREE && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void grow() {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new int[oldKeys.length * 2];
+        values = new int[oldValues.length * 2];
+        Arrays.fill(keys, FREE);
+        for (int slot = 0; slot < oldKeys.length; slot++) {
+            if (oldKeys[slot] != FREE) {
+                int target = slotOf(oldKeys[slot]);
+                keys[target] = oldKeys[slot];
+                values[target] = oldValues[slot];
+            }
+        }
+    }
+
+    private static int mix(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Acción sobre cada entrada (clave, recuento) sin enteros en caja.
+     */
+    @FunctionalInterface
+    public interface Entry {
+        void accept(int key, int count);
+    }
+}
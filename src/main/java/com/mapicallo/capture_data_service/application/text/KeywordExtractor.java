@@ -0,0 +1,198 @@
+package com.mapicallo.capture_data_service.application.text;
+
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+import com.mapicallo.capture_data_service.application.nlp.ContentHash;
+import com.mapicallo.capture_data_service.application.nlp.NlpProfile;
+import com.mapicallo.capture_data_service.application.nlp.ParallelAnnotator;
+import edu.stanford.nlp.ling.CoreAnnotations;
+import edu.stanford.nlp.ling.CoreLabel;
+import edu.stanford.nlp.pipeline.Annotation;
+import edu.stanford.nlp.util.CoreMap;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Extracción de palabras clave a partir de los lemas de un documento.
+ *
+ * <p>Dos modos:
+ * <ul>
+ *   <li><b>frecuencia</b>: los lemas más repetidos del documento (comportamiento original).</li>
+ *   <li><b>tfidf</b>: los lemas con mayor peso BM25 frente al corpus de documentos subidos, usando
+ *   la tabla persistente {@link DocumentFrequencyIndex}. Los términos genéricos que aparecen en casi
+ *   todos los informes ("paciente", "tratamiento") pierden peso frente a los específicos.</li>
+ * </ul>
+ *
+ * <p>Se consideran lemas de sustantivos, verbos y adjetivos de más de 3 caracteres que no sean stopwords.
+ */
+@Component
+public class KeywordExtractor {
+
+    private static final Logger logger = LoggerFactory.getLogger(KeywordExtractor.class);
+
+    // Lista de stopwords en español para la extracción de palabras clave (puedes ampliar o externalizar)
+    static final Set<String> STOPWORDS = Set.of(
+            "para", "como", "este", "esta", "con", "los", "las", "del", "que", "una", "por",
+            "entre", "sobre", "pero", "tiene", "han", "ser", "más", "menos", "muy", "sin", "a",
+            "en", "de", "y", "o", "al", "es", "se", "el", "la", "un", "lo", "su"
+    );
+
+    private final ParallelAnnotator parallelAnnotator;
+    private final DocumentFrequencyIndex documentFrequencies;
+
+    // ingesta en segundo plano de los ficheros subidos, de uno en uno
+    private final ExecutorService ingestExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "keyword-ingest");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Autowired
+    public KeywordExtractor(ParallelAnnotator parallelAnnotator, DocumentFrequencyIndex documentFrequencies) {
+        this.parallelAnnotator = parallelAnnotator;
+        this.documentFrequencies = documentFrequencies;
+    }
+
+    /**
+     * Anota el texto (en minúsculas, con el perfil {@link NlpProfile#KEYWORDS}).
+     */
+    public Annotation annotate(String text) {
+        return parallelAnnotator.annotate(NlpProfile.KEYWORDS.properties(), text.toLowerCase());
+    }
+
+    /**
+     * Como {@link #annotate(String)} para una lista de textos, en paralelo y en el mismo orden.
+     */
+    public List<Annotation> annotateAll(List<String> texts) {
+        return parallelAnnotator.annotateAll(NlpProfile.KEYWORDS, texts.stream().map(String::toLowerCase).toList());
+    }
+
+    /**
+     * Lemas más frecuentes de un documento anotado con "pos,lemma".
+     */
+    public List<String> byFrequency(Annotation document, int limit) {
+        TermDictionary terms = new TermDictionary();
+        BagOfWords bag = bagOf(document, terms);
+
+        TopK topK = new TopK(limit);
+        for (int i = 0; i < bag.size(); i++) {
+            topK.offer(bag.termId(i), bag.count(i));
+        }
+        return termsOf(topK, terms);
+    }
+
+    /**
+     * Lemas con mayor peso BM25 respecto al corpus, seleccionados con un montículo de tamaño {@code limit}.
+     */
+    public List<String> byTfIdf(Annotation document, int limit) {
+        TermDictionary terms = new TermDictionary();
+        BagOfWords bag = bagOf(document, terms);
+
+        TopK topK = new TopK(limit);
+        documentFrequencies.score(bag, terms, topK);
+        return termsOf(topK, terms);
+    }
+
+    /**
+     * Suma los textos a la tabla de frecuencias del corpus (los ya contados se ignoran) y la guarda.
+     *
+     * @return número de documentos nuevos.
+     */
+    public int ingest(List<String> texts) {
+        List<Annotation> annotations = annotateAll(texts);
+        int added = 0;
+        for (int i = 0; i < texts.size(); i++) {
+            String fingerprint = ContentHash.of("keywords", texts.get(i));
+            TermDictionary terms = new TermDictionary();
+            if (documentFrequencies.addDocument(fingerprint, bagOf(annotations.get(i), terms), terms)) {
+                added++;
+            }
+        }
+        if (added > 0) {
+            try {
+                documentFrequencies.save();
+            } catch (IOException e) {
+                logger.warn("Could not save document frequency index: {}", e.getMessage());
+            }
+        }
+        return added;
+    }
+
+    /**
+     * Programa la ingesta en segundo plano de un fichero JSON subido (lista de documentos con campo
+     * "text" o "description"). Los ficheros de otro tipo se ignoran.
+     */
+    public void ingestFileAsync(Path file) {
+        if (!file.getFileName().toString().toLowerCase().endsWith(".json")) return;
+        ingestExecutor.submit(() -> {
+            try {
+                int added = ingest(textsOf(file));
+                logger.info("Keyword corpus: {} new documents from {}", added, file.getFileName());
+            } catch (IOException | RuntimeException e) {
+                logger.warn("Could not add {} to the keyword corpus: {}", file.getFileName(), e.getMessage());
+            }
+        });
+    }
+
+    public DocumentFrequencyIndex documentFrequencies() {
+        return documentFrequencies;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        ingestExecutor.shutdownNow();
+    }
+
+    // Bolsa de palabras de los lemas candidatos a palabra clave: sustantivos, verbos y adjetivos,
+    // sin stopwords ni palabras cortas.
+    private static BagOfWords bagOf(Annotation document, TermDictionary terms) {
+        IntIntCounter counter = new IntIntCounter();
+        for (CoreMap sentence : document.get(CoreAnnotations.SentencesAnnotation.class)) {
+            for (CoreLabel token : sentence.get(CoreAnnotations.TokensAnnotation.class)) {
+                String lemma = token.get(CoreAnnotations.LemmaAnnotation.class).toLowerCase();
+                String pos = token.get(CoreAnnotations.PartOfSpeechAnnotation.class);
+
+                if (lemma.length() > 3 && !STOPWORDS.contains(lemma) &&
+                        (pos.startsWith("N") || pos.startsWith("V") || pos.startsWith("J"))) {
+                    counter.increment(terms.intern(lemma));
+                }
+            }
+        }
+        return counter.toBagOfWords();
+    }
+
+    private static List<String> termsOf(TopK topK, TermDictionary terms) {
+        int[] ids = topK.drainDescending();
+        List<String> result = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            result.add(terms.term(id));
+        }
+        return result;
+    }
+
+    private static List<String> textsOf(Path file) throws IOException {
+        List<Map<String, Object>> documents;
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            documents = new Gson().fromJson(reader, new TypeToken<List<Map<String, Object>>>() {}.getType());
+        }
+        List<String> texts = new ArrayList<>();
+        if (documents == null) return texts;
+        for (Map<String, Object> doc : documents) {
+            Object text = doc.getOrDefault("description", doc.get("text"));
+            if (text instanceof String value && !value.isBlank()) texts.add(value);
+        }
+        return texts;
+    }
+}
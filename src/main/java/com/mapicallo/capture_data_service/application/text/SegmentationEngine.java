@@ -0,0 +1,105 @@
+package com.mapicallo.capture_data_service.application.text;
+
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Segmentación de texto clínico en bloques temáticos (síntomas, antecedentes, tratamiento...).
+ *
+ * <p>Las categorías y sus palabras clave se leen de un diccionario JSON configurable
+ * ({@code nlp.segmentation.dictionary}) cuyo orden fija la prioridad: si una frase contiene palabras
+ * de varias categorías, gana la primera. Todas las palabras clave se compilan en un único autómata
+ * {@link AhoCorasick}, de modo que cada frase se clasifica con una sola pasada lineal,
+ * independientemente del número de categorías y palabras. Las frases se obtienen con
+ * {@link SentenceSplitter}, sin cargar modelos de CoreNLP.
+ */
+@Component
+public class SegmentationEngine {
+
+    private final List<String> categories = new ArrayList<>();
+    // categoría (índice en categories) de cada patrón del autómata
+    private final int[] patternCategory;
+    private final AhoCorasick automaton;
+
+    @Autowired
+    public SegmentationEngine(@Value("${nlp.segmentation.dictionary:classpath:segmentation-dictionary.json}") Resource dictionary) {
+        this(readDictionary(dictionary));
+    }
+
+    /**
+     * Crea el motor a partir de un diccionario categoría → palabras clave, en orden de prioridad.
+     */
+    public SegmentationEngine(LinkedHashMap<String, List<String>> dictionary) {
+        List<String> patterns = new ArrayList<>();
+        List<Integer> owners = new ArrayList<>();
+        for (Map.Entry<String, List<String>> entry : dictionary.entrySet()) {
+            int category = categories.size();
+            categories.add(entry.getKey());
+            for (String keyword : entry.getValue()) {
+                if (keyword == null || keyword.isEmpty()) continue;
+                patterns.add(keyword.toLowerCase());
+                owners.add(category);
+            }
+        }
+        // los identificadores de patrón crecen con la prioridad de la categoría: el menor encontrado gana
+        this.automaton = new AhoCorasick(patterns);
+        this.patternCategory = owners.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * Separa el texto en frases y asigna cada una a su categoría. Para cada categoría se conserva la
+     * última frase asignada, en el orden en que aparecen las categorías por primera vez.
+     */
+    public Map<String, String> segment(String text) {
+        int[] bounds = SentenceSplitter.boundaries(text);
+        Map<String, String> segments = new LinkedHashMap<>();
+        for (int i = 0; i < bounds.length; i += 2) {
+            int category = categoryOf(text, bounds[i], bounds[i + 1]);
+            if (category >= 0) segments.put(categories.get(category), text.substring(bounds[i], bounds[i + 1]));
+        }
+        return segments;
+    }
+
+    /**
+     * Igual que {@link #segment(String)} para frases ya separadas (por ejemplo, por CoreNLP).
+     */
+    public Map<String, String> segmentSentences(List<String> sentences) {
+        Map<String, String> segments = new LinkedHashMap<>();
+        for (String sentence : sentences) {
+            int category = categoryOf(sentence, 0, sentence.length());
+            if (category >= 0) segments.put(categories.get(category), sentence);
+        }
+        return segments;
+    }
+
+    public List<String> categories() {
+        return Collections.unmodifiableList(categories);
+    }
+
+    private int categoryOf(CharSequence text, int start, int end) {
+        int pattern = automaton.firstPattern(text, start, end);
+        return pattern < 0 ? -1 : patternCategory[pattern];
+    }
+
+    private static LinkedHashMap<String, List<String>> readDictionary(Resource resource) {
+        try (Reader reader = new InputStreamReader(resource.getInputStream(), StandardCharsets.UTF_8)) {
+            LinkedHashMap<String, List<String>> dictionary = new Gson().fromJson(reader,
+                    new TypeToken<LinkedHashMap<String, List<String>>>() {}.getType());
+            if (dictionary == null) throw new IllegalStateException("Diccionario de segmentación vacío: " + resource);
+            return dictionary;
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo leer el diccionario de segmentación " + resource, e);
+        }
+    }
+}
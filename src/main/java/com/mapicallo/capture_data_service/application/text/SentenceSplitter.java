@@ -0,0 +1,136 @@
+package com.mapicallo.capture_data_service.application.text;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Separador de frases ligero basado en reglas, sin modelos.
+ *
+ * <p>Una frase termina en '.', '!', '?' o '…' (con comillas o paréntesis de cierre opcionales)
+ * seguido de espacio en blanco y del final del texto o de un carácter que puede abrir frase
+ * (mayúscula, dígito, '¿', '¡', comillas o paréntesis de apertura). También se corta en líneas en
+ * blanco. No se corta tras abreviaturas habituales en informes clínicos ("Dr.", "Sra.", "aprox.") ni
+ * dentro de números decimales como "37.5".
+ */
+public final class SentenceSplitter {
+
+    private static final Set<String> ABBREVIATIONS = Set.of(
+            "dr", "dra", "sr", "sra", "srta", "dto", "dpto", "etc", "aprox", "pág", "núm", "tel",
+            "mr", "mrs", "ms", "prof", "vs", "p.ej", "ej", "min", "máx", "mín", "hab", "av");
+
+    private SentenceSplitter() {
+    }
+
+    /**
+     * Devuelve los límites de cada frase como pares {@code [inicio, fin)} consecutivos en un único
+     * array, ya sin espacios en blanco en los extremos.
+     */
+    public static int[] boundaries(CharSequence text) {
+        int[] bounds = new int[16];
+        int count = 0;
+        int length = text.length();
+        int start = skipWhitespace(text, 0, length);
+
+        int i = start;
+        while (i < length) {
+            char c = text.charAt(i);
+            int end = -1;
+            int next = -1;
+
+            if (c == '.' || c == '!' || c == '?' || c == '…') {
+                int close = i + 1;
+                while (close < length && isClosing(text.charAt(close))) close++;
+                int after = skipWhitespace(text, close, length);
+                if (after > close && (after == length || opensSentence(text.charAt(after)))
+                        && !(c == '.' && isAbbreviation(text, start, i))) {
+                    end = close;
+                    next = after;
+                } else if (close == length) {
+                    end = close;
+                    next = length;
+                }
+            } else if (c == '\n' && isBlankLineAhead(text, i + 1, length)) {
+                end = i;
+                next = skipWhitespace(text, i, length);
+            }
+
+            if (end < 0) {
+                i++;
+                continue;
+            }
+            int trimmedEnd = trimEnd(text, start, end);
+            if (trimmedEnd > start) {
+                if (count + 2 > bounds.length) bounds = Arrays.copyOf(bounds, bounds.length * 2);
+                bounds[count++] = start;
+                bounds[count++] = trimmedEnd;
+            }
+            start = next;
+            i = next;
+        }
+
+        int trimmedEnd = trimEnd(text, start, length);
+        if (trimmedEnd > start) {
+            if (count + 2 > bounds.length) bounds = Arrays.copyOf(bounds, bounds.length + 2);
+            bounds[count++] = start;
+            bounds[count++] = trimmedEnd;
+        }
+        return Arrays.copyOf(bounds, count);
+    }
+
+    /**
+     * Devuelve el texto de cada frase.
+     */
+    public static List<String> split(String text) {
+        int[] bounds = boundaries(text);
+        List<String> sentences = new ArrayList<>(bounds.length / 2);
+        for (int i = 0; i < bounds.length; i += 2) {
+            sentences.add(text.substring(bounds[i], bounds[i + 1]));
+        }
+        return sentences;
+    }
+
+    private static boolean isClosing(char c) {
+        return c == '"' || c == '\'' || c == ')' || c == '»' || c == '”' || c == '’' || c == ']';
+    }
+
+    private static boolean opensSentence(char c) {
+        return Character.isUpperCase(c) || Character.isDigit(c)
+                || c == '¿' || c == '¡' || c == '"' || c == '«' || c == '“' || c == '(' || c == '-' || c == '•';
+    }
+
+    // palabra que precede al punto en [start, dot): abreviatura conocida o inicial suelta ("J. Pérez")
+    private static boolean isAbbreviation(CharSequence text, int start, int dot) {
+        int wordStart = dot;
+        while (wordStart > start && !Character.isWhitespace(text.charAt(wordStart - 1))
+                && text.charAt(wordStart - 1) != '(') {
+            wordStart--;
+        }
+        int wordLength = dot - wordStart;
+        if (wordLength == 0) return false;
+        if (wordLength == 1 && Character.isUpperCase(text.charAt(wordStart))) return true;
+        return ABBREVIATIONS.contains(text.subSequence(wordStart, dot).toString().toLowerCase());
+    }
+
+    private static boolean isBlankLineAhead(CharSequence text, int from, int length) {
+        for (int i = from; i < length; i++) {
+            char c = text.charAt(i);
+            if (c == '\n') return true;
+            if (!Character.isWhitespace(c)) return false;
+        }
+        return false;
+    }
+
+    private static int skipWhitespace(CharSequence text, int from, int length) {
+        int i = from;
+        while (i < length && Character.isWhitespace(text.charAt(i))) i++;
+        return i;
+    }
+
+    private static int trimEnd(CharSequence text, int start, int end) {
+        int i = end;
+        while (i > start && Character.isWhitespace(text.charAt(i - 1))) i--;
+        return i;
+    }
+}
@@ -0,0 +1,153 @@
+package com.mapicallo.capture_data_service.application.text;
+
+import java.util.Arrays;
+
+/**
+ * Diccionario de términos: asigna a cada término distinto un identificador entero denso (0, 1, 2...).
+ *
+ * <p>Es una tabla hash de direccionamiento abierto sobre arrays primitivos. Los términos pueden
+ * buscarse o añadirse a partir de un tramo de cualquier {@link CharSequence}, sin crear un
+ * {@code String} salvo cuando el término es nuevo. Opcionalmente ignora mayúsculas y minúsculas: los
+ * términos se guardan entonces en minúsculas.
+ *
+ * <p>Los métodos están sincronizados, de modo que una instancia puede compartirse entre hilos.
+ */
+public final class TermDictionary {
+
+    private static final int EMPTY = 0;
+
+    private final boolean foldCase;
+    // slots: identificador + 1 (0 = libre)
+    private int[] slots;
+    private int[] hashes = new int[16];
+    private String[] terms = new String[16];
+    private int size;
+
+    public TermDictionary() {
+        this(false);
+    }
+
+    public TermDictionary(boolean foldCase) {
+        this.foldCase = foldCase;
+        this.slots = new int[32];
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Identificador del término, añadiéndolo si no existía.
+     */
+    public int intern(CharSequence term) {
+        return intern(term, 0, term.length());
+    }
+
+    /**
+     * Identificador del término {@code text[start, end)}, añadiéndolo si no existía.
+     */
+    public synchronized int intern(CharSequence text, int start, int end) {
+        int hash = hash(text, start, end);
+        int mask = slots.length - 1;
+        int slot = hash & mask;
+        while (slots[slot] != EMPTY) {
+            int id = slots[slot] - 1;
+            if (hashes[id] == hash && matches(terms[id], text, start, end)) return id;
+            slot = (slot + 1) & mask;
+        }
+
+        int id = size++;
+        if (id == terms.length) {
+            terms = Arrays.copyOf(terms, id * 2);
+            hashes = Arrays.copyOf(hashes, id * 2);
+        }
+        terms[id] = copy(text, start, end);
+        hashes[id] = hash;
+        slots[slot] = id + 1;
+        if (size * 2 > slots.length) rehash();
+        return id;
+    }
+
+    /**
+     * Identificador del término, o -1 si no está en el diccionario.
+     */
+    public int idOf(CharSequence term) {
+        return idOf(term, 0, term.length());
+    }
+
+    /**
+     * Identificador del término {@code text[start, end)}, o -1 si no está en el diccionario.
+     */
+    public synchronized int idOf(CharSequence text, int start, int end) {
+        int hash = hash(text, start, end);
+        int mask = slots.length - 1;
+        int slot = hash & mask;
+        while (slots[slot] != EMPTY) {
+            int id = slots[slot] - 1;
+            if (hashes[id] == hash && matches(terms[id], text, start, end)) return id;
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Vacía el diccionario conservando la capacidad, para reutilizarlo con otro documento.
+     */
+    public synchronized void clear() {
+        Arrays.fill(slots, EMPTY);
+        Arrays.fill(terms, 0, size, null);
+        size = 0;
+    }
+
+    /**
+     * Término con ese identificador.
+     */
+    public synchronized String term(int id) {
+        if (id < 0 || id >= size) throw new IndexOutOfBoundsException("Término no encontrado: " + id);
+        return terms[id];
+    }
+
+    private void rehash() {
+        int[] resized = new int[slots.length * 2];
+        int mask = resized.length - 1;
+        for (int id = 0; id < size; id++) {
+            int slot = hashes[id] & mask;
+            while (resized[slot] != EMPTY) slot = (slot + 1) & mask;
+            resized[slot] = id + 1;
+        }
+        slots = resized;
+    }
+
+    private int hash(CharSequence text, int start, int end) {
+        int h = 0;
+        for (int i = start; i < end; i++) {
+            h = 31 * h + fold(text.charAt(i));
+        }
+        // mezcla de bits para repartir mejor los términos cortos en la tabla
+        h ^= (h >>> 16);
+        h *= 0x85ebca6b;
+        return h ^ (h >>> 13);
+    }
+
+    private boolean matches(String term, CharSequence text, int start, int end) {
+        if (term.length() != end - start) return false;
+        for (int i = 0; i < term.length(); i++) {
+            if (term.charAt(i) != fold(text.charAt(start + i))) return false;
+        }
+        return true;
+    }
+
+    // copia del tramo con el mismo plegado carácter a carácter que usan hash y matches
+    private String copy(CharSequence text, int start, int end) {
+        if (!foldCase) return text.subSequence(start, end).toString();
+        char[] chars = new char[end - start];
+        for (int i = start; i < end; i++) {
+            chars[i - start] = fold(text.charAt(i));
+        }
+        return new String(chars);
+    }
+
+    private char fold(char c) {
+        return foldCase ? Character.toLowerCase(c) : c;
+    }
+}
@@ -0,0 +1,74 @@
+package com.mapicallo.capture_data_service.application.text;
+
+/**
+ * Tokenizador por recorrido de caracteres, reutilizable y sin reservas de memoria.
+ *
+ * <p>Un token es una secuencia maximal de letras o dígitos ({@link Character#isLetterOrDigit}), así
+ * que las palabras con tildes o eñes ("neumonía", "año") no se parten como ocurría con
+ * {@code split("\\W+")}. El escáner no crea cadenas: expone los límites {@code [inicio, fin)} del
+ * token actual, que se pueden internar directamente con {@link TermDictionary#intern(CharSequence, int, int)}.
+ *
+ * <pre>{@code
+ * scanner.reset(text, start, end);
+ * while (scanner.next()) {
+ *     int id = terms.intern(text, scanner.tokenStart(), scanner.tokenEnd());
+ * }
+ * }</pre>
+ *
+ * <p>No es seguro para uso concurrente; cada hilo usa su propia instancia.
+ */
+public final class TextScanner {
+
+    private CharSequence text;
+    private int position;
+    private int limit;
+    private int tokenStart;
+    private int tokenEnd;
+
+    /**
+     * Prepara el escáner para recorrer {@code text[start, end)}.
+     */
+    public TextScanner reset(CharSequence text, int start, int end) {
+        this.text = text;
+        this.position = start;
+        this.limit = end;
+        this.tokenStart = start;
+        this.tokenEnd = start;
+        return this;
+    }
+
+    public TextScanner reset(CharSequence text) {
+        return reset(text, 0, text.length());
+    }
+
+    /**
+     * Avanza al siguiente token.
+     *
+     * @return false si no quedan más tokens en el tramo.
+     */
+    public boolean next() {
+        int i = position;
+        while (i < limit && !Character.isLetterOrDigit(text.charAt(i))) i++;
+        if (i == limit) {
+            position = limit;
+            return false;
+        }
+        tokenStart = i;
+        while (i < limit && Character.isLetterOrDigit(text.charAt(i))) i++;
+        tokenEnd = i;
+        position = i;
+        return true;
+    }
+
+    public int tokenStart() {
+        return tokenStart;
+    }
+
+    public int tokenEnd() {
+        return tokenEnd;
+    }
+
+    public int tokenLength() {
+        return tokenEnd - tokenStart;
+    }
+}
@@ -0,0 +1,105 @@
+package com.mapicallo.capture_data_service.application.text;
+
+/**
+ * Selección de los k elementos de mayor puntuación con un montículo de mínimos de tamaño fijo.
+ *
+ * <p>Cada elemento es un par (identificador entero, puntuación) guardado en arrays primitivos, así
+ * que ofrecer n candidatos cuesta O(n log k) sin ordenar todo el conjunto ni crear objetos. A igual
+ * puntuación se prefiere el identificador menor, de modo que el resultado es determinista.
+ */
+public final class TopK {
+
+    private final int[] ids;
+    private final double[] scores;
+    private int size;
+
+    public TopK(int k) {
+        if (k < 0) throw new IllegalArgumentException("k debe ser mayor o igual que 0");
+        this.ids = new int[k];
+        this.scores = new double[k];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Vacía el montículo para reutilizarlo con otro conjunto de candidatos.
+     */
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * Ofrece un candidato; se conserva solo si está entre los k mejores vistos hasta ahora.
+     */
+    public void offer(int id, double score) {
+        if (ids.length == 0) return;
+        if (size < ids.length) {
+            ids[size] = id;
+            scores[size] = score;
+            siftUp(size++);
+        } else if (worse(0, id, score)) {
+            ids[0] = id;
+            scores[0] = score;
+            siftDown(0);
+        }
+    }
+
+    /**
+     * Identificadores seleccionados, del de mayor puntuación al de menor. Vacía el montículo.
+     */
+    public int[] drainDescending() {
+        int[] result = new int[size];
+        for (int i = size - 1; i >= 0; i--) {
+            result[i] = ids[0];
+            size--;
+            if (size > 0) {
+                ids[0] = ids[size];
+                scores[0] = scores[size];
+                siftDown(0);
+            }
+        }
+        return result;
+    }
+
+    // ¿el elemento en la posición i es peor que (id, score)?
+    private boolean worse(int i, int id, double score) {
+        return scores[i] < score || (scores[i] == score && ids[i] > id);
+    }
+
+    private boolean less(int a, int b) {
+        return worse(a, ids[b], scores[b]);
+    }
+
+    private void siftUp(int i) {
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (!less(i, parent)) break;
+            swap(i, parent);
+            i = parent;
+        }
+    }
+
+    private void siftDown(int i) {
+        while (true) {
+            int left = 2 * i + 1;
+            if (left >= size) break;
+            int smallest = left;
+            int right = left + 1;
+            if (right < size && less(right, left)) smallest = right;
+            if (!less(smallest, i)) break;
+            swap(i, smallest);
+            i = smallest;
+        }
+    }
+
+    private void swap(int a, int b) {
+        int id = ids[a];
+        ids[a] = ids[b];
+        ids[b] = id;
+        double score = scores[a];
+        scores[a] = scores[b];
+        scores[b] = score;
+    }
+}
@@ -0,0 +1,100 @@
+package com.mapicallo.capture_data_service.application.triples;
+
+import java.util.Arrays;
+
+/**
+ * Índice ordenado de tripletas en un orden de sus tres términos (sujeto-relación-objeto o una de sus
+ * rotaciones). Cada tripleta se guarda como un {@code long} con los tres identificadores de término
+ * empaquetados en ese orden ({@link #BITS} bits cada uno), así que las tripletas que comparten los
+ * primeros términos forman un tramo contiguo del array y se localizan con dos búsquedas binarias.
+ *
+ * <p>No es seguro para uso concurrente: quien lo usa serializa las inserciones ({@link TripleStore}).
+ */
+final class PermutationIndex {
+
+    static final int BITS = 21;
+    static final int MAX_TERMS = 1 << BITS;
+    private static final long MASK = MAX_TERMS - 1;
+
+    private long[] keys = new long[0];
+
+    static long pack(int first, int second, int third) {
+        return ((long) first << (2 * BITS)) | ((long) second << BITS) | third;
+    }
+
+    static int first(long key) {
+        return (int) (key >>> (2 * BITS));
+    }
+
+    static int second(long key) {
+        return (int) ((key >>> BITS) & MASK);
+    }
+
+    static int third(long key) {
+        return (int) (key & MASK);
+    }
+
+    int size() {
+        return keys.length;
+    }
+
+    /**
+     * Añade claves nuevas (no presentes en el índice), mezclándolas con las existentes.
+     */
+    void insert(long[] added) {
+        if (added.length == 0) return;
+        long[] sorted = added.clone();
+        Arrays.sort(sorted);
+        long[] merged = new long[keys.length + sorted.length];
+        int i = 0, j = 0, k = 0;
+        while (i < keys.length && j < sorted.length) {
+            merged[k++] = keys[i] <= sorted[j] ? keys[i++] : sorted[j++];
+        }
+        while (i < keys.length) merged[k++] = keys[i++];
+        while (j < sorted.length) merged[k++] = sorted[j++];
+        keys = merged;
+    }
+
+    /**
+     * Claves cuyos primeros {@code bound} términos (0 a 3) coinciden con los de {@code prefix}, en orden.
+     * Devuelve como mucho {@code limit} claves.
+     */
+    long[] range(long prefix, int bound, int limit) {
+        int freeBits = (3 - bound) * BITS;
+        long low = freeBits == 3 * BITS ? 0 : (prefix >>> freeBits) << freeBits;
+        long high = freeBits == 3 * BITS ? Long.MAX_VALUE : low | ((1L << freeBits) - 1);
+        int from = lowerBound(low);
+        int to = (int) Math.min(upperBound(high), (long) from + Math.max(0, limit));
+        return Arrays.copyOfRange(keys, from, Math.max(from, to));
+    }
+
+    /**
+     * Número de claves con los mismos primeros {@code bound} términos que {@code prefix}.
+     */
+    int count(long prefix, int bound) {
+        int freeBits = (3 - bound) * BITS;
+        if (freeBits == 3 * BITS) return keys.length;
+        long low = (prefix >>> freeBits) << freeBits;
+        return upperBound(low | ((1L << freeBits) - 1)) - lowerBound(low);
+    }
+
+    // primera posición con clave >= key
+    private int lowerBound(long key) {
+        int low = 0, high = keys.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (keys[mid] < key) low = mid + 1; else high = mid;
+        }
+        return low;
+    }
+
+    // primera posición con clave > key
+    private int upperBound(long key) {
+        int low = 0, high = keys.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (keys[mid] <= key) low = mid + 1; else high = mid;
+        }
+        return low;
+    }
+}
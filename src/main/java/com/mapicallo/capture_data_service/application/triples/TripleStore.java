@@ -0,0 +1,412 @@
+package com.mapicallo.capture_data_service.application.triples;
+
+import com.mapicallo.capture_data_service.application.storage.SnapshotFile;
+import com.mapicallo.capture_data_service.application.text.TermDictionary;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.LongUnaryOperator;
+
+/**
+ * Almacén en memoria de las tripletas sujeto–relación–objeto extraídas de los documentos.
+ *
+ * <p>Los términos se internan en identificadores enteros ({@link TermDictionary}, sin distinguir
+ * mayúsculas y con los espacios normalizados; se conserva la primera forma vista para mostrarla).
+ * Cada tripleta distinta se guarda una vez: si vuelve a extraerse de otro documento, su confianza se
+ * combina como la probabilidad de que alguna de las extracciones sea correcta,
+ * {@code 1 - (1 - c1)(1 - c2)...}, y se cuenta una fuente más. Repetir la extracción de un mismo
+ * documento no la cambia.
+ *
+ * <p>Tres índices ordenados ({@link PermutationIndex}) en los órdenes sujeto-relación-objeto,
+ * relación-objeto-sujeto y objeto-sujeto-relación resuelven cualquier patrón con términos fijos y
+ * comodines como un tramo contiguo de uno de ellos, con búsquedas binarias.
+ *
+ * <p>Las consultas pueden ejecutarse en paralelo; las inserciones se serializan. Tras cada inserción
+ * se guarda en segundo plano una instantánea en disco ({@code nlp.triples.snapshot-file}, ver
+ * {@link SnapshotFile}), que se carga al arrancar.
+ */
+@Component
+public class TripleStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(TripleStore.class);
+
+    private static final int MAGIC = 0x54525031; // "TRP1"
+    private static final String WILDCARD = "*";
+
+    private final SnapshotFile snapshot;
+    private final int maxTerms;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private TermDictionary terms = new TermDictionary(true);
+    private List<String> labels = new ArrayList<>();
+    private TermDictionary sources = new TermDictionary();
+
+    // tripletas en orden de inserción: clave sujeto-relación-objeto, confianza combinada y fuentes
+    private long[] keys = new long[1024];
+    private double[] confidences = new double[1024];
+    private int[] occurrences = new int[1024];
+    private int size;
+    private Map<Long, Integer> positions = new HashMap<>();
+    // pares (tripleta, fuente) ya contabilizados
+    private Set<Long> observations = new HashSet<>();
+
+    private PermutationIndex spo = new PermutationIndex();
+    private PermutationIndex pos = new PermutationIndex();
+    private PermutationIndex osp = new PermutationIndex();
+
+    @Autowired
+    public TripleStore(@Value("${nlp.triples.snapshot-file:C:/capture_data/triples/store.bin}") String snapshotFile) {
+        this(snapshotFile, PermutationIndex.MAX_TERMS);
+    }
+
+    TripleStore(String snapshotFile, int maxTerms) {
+        this.snapshot = new SnapshotFile(SnapshotFile.pathOf(snapshotFile), MAGIC, "triples", this::writeTo);
+        this.maxTerms = Math.min(maxTerms, PermutationIndex.MAX_TERMS);
+    }
+
+    @PostConstruct
+    public void load() {
+        lock.writeLock().lock();
+        try {
+            if (snapshot.read(this::readFrom)) {
+                logger.info("Triple store loaded from {}: {} triples, {} terms", snapshot.path(), size, labels.size());
+            }
+        } catch (IOException e) {
+            logger.warn("Could not load triple store {}: {}", snapshot.path(), e.getMessage());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Guarda ya una instantánea del almacén en disco.
+     */
+    public void save() throws IOException {
+        snapshot.save();
+    }
+
+    /**
+     * Espera a que se guarden en disco las inserciones anteriores.
+     */
+    public void flush() {
+        snapshot.flush();
+    }
+
+    /**
+     * Añade tripletas extraídas. Las que no tienen sujeto, relación u objeto se ignoran.
+     *
+     * @return número de tripletas nuevas (no vistas antes de ninguna fuente).
+     * @throws IllegalStateException si se supera el número máximo de términos distintos.
+     */
+    public int addAll(Collection<Triple> triples) {
+        int added = 0;
+        boolean changed = false;
+        lock.writeLock().lock();
+        try {
+            // términos normalizados de cada tripleta (null si le falta alguno); los términos nuevos se
+            // cuentan antes de modificar nada, para que un lote que no cabe no deje el almacén a medias
+            List<String[]> normalized = new ArrayList<>(triples.size());
+            TermDictionary unseen = new TermDictionary(true);
+            for (Triple triple : triples) {
+                String[] spo = {normalize(triple.subject()), normalize(triple.relation()), normalize(triple.object())};
+                if (spo[0] == null || spo[1] == null || spo[2] == null) {
+                    normalized.add(null);
+                    continue;
+                }
+                for (String term : spo) {
+                    if (terms.idOf(term) < 0) unseen.intern(term);
+                }
+                normalized.add(spo);
+            }
+            if (terms.size() + unseen.size() > maxTerms) {
+                throw new IllegalStateException("Almacén de tripletas lleno: más de " + maxTerms + " términos");
+            }
+
+            long[] newKeys = new long[triples.size()];
+            Iterator<String[]> next = normalized.iterator();
+            for (Triple triple : triples) {
+                String[] spo = next.next();
+                if (spo == null) continue;
+
+                long key = PermutationIndex.pack(intern(spo[0]), intern(spo[1]), intern(spo[2]));
+                Integer position = positions.get(key);
+                if (position == null) {
+                    position = append(key);
+                    newKeys[added++] = key;
+                }
+                int source = sources.intern(triple.source() == null ? "" : triple.source());
+                if (observations.add(((long) position << 32) | source)) {
+                    double confidence = Math.max(0.0, Math.min(1.0, triple.confidence()));
+                    confidences[position] = 1 - (1 - confidences[position]) * (1 - confidence);
+                    occurrences[position]++;
+                    changed = true;
+                }
+            }
+            index(Arrays.copyOf(newKeys, added));
+        } finally {
+            lock.writeLock().unlock();
+        }
+        if (changed) snapshot.changed();
+        return added;
+    }
+
+    /**
+     * Tripletas que encajan con el patrón: cada término es fijo o comodín ({@code null}, vacío o
+     * {@code "*"}). Se devuelven en el orden del índice usado, como mucho {@code limit}.
+     */
+    public List<Match> match(String subject, String relation, String object, int limit) {
+        lock.readLock().lock();
+        try {
+            Pattern pattern = patternOf(subject, relation, object);
+            if (pattern == null) return List.of();
+            long[] found = pattern.index().range(pattern.prefix(), pattern.bound(), limit);
+            List<Match> matches = new ArrayList<>(found.length);
+            for (long key : found) matches.add(matchOf(pattern.toSpo(key)));
+            return matches;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Número total de tripletas que encajan con el patrón (ver {@link #match}).
+     */
+    public int count(String subject, String relation, String object) {
+        lock.readLock().lock();
+        try {
+            Pattern pattern = patternOf(subject, relation, object);
+            return pattern == null ? 0 : pattern.index().count(pattern.prefix(), pattern.bound());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Vecindario a un salto de un término: tripletas en las que es sujeto y en las que es objeto.
+     */
+    public Neighbourhood neighbourhood(String entity, int limit) {
+        lock.readLock().lock();
+        try {
+            String normalized = normalize(entity);
+            int id = normalized == null ? -1 : terms.idOf(normalized);
+            if (id < 0) return new Neighbourhood(entity, List.of(), List.of());
+            List<Match> outgoing = new ArrayList<>();
+            for (long key : spo.range(PermutationIndex.pack(id, 0, 0), 1, limit)) outgoing.add(matchOf(key));
+            List<Match> incoming = new ArrayList<>();
+            for (long key : osp.range(PermutationIndex.pack(id, 0, 0), 1, limit)) {
+                incoming.add(matchOf(PermutationIndex.pack(PermutationIndex.second(key), PermutationIndex.third(key), id)));
+            }
+            return new Neighbourhood(labels.get(id), outgoing, incoming);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        snapshot.close();
+    }
+
+    // instantánea: términos, fuentes, tripletas (clave, confianza y fuentes) y observaciones;
+    // los tres índices se reconstruyen al leerla
+    private void writeTo(DataOutputStream out) throws IOException {
+        lock.readLock().lock();
+        try {
+            out.writeInt(labels.size());
+            for (String label : labels) out.writeUTF(label);
+            out.writeInt(sources.size());
+            for (int s = 0; s < sources.size(); s++) out.writeUTF(sources.term(s));
+            out.writeInt(size);
+            for (int i = 0; i < size; i++) {
+                out.writeLong(keys[i]);
+                out.writeDouble(confidences[i]);
+                out.writeInt(occurrences[i]);
+            }
+            out.writeInt(observations.size());
+            for (long observation : observations) out.writeLong(observation);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void readFrom(DataInputStream in) throws IOException {
+        TermDictionary loadedTerms = new TermDictionary(true);
+        List<String> loadedLabels = new ArrayList<>();
+        int termCount = in.readInt();
+        for (int t = 0; t < termCount; t++) {
+            String label = in.readUTF();
+            loadedTerms.intern(label);
+            loadedLabels.add(label);
+        }
+        TermDictionary loadedSources = new TermDictionary();
+        int sourceCount = in.readInt();
+        for (int s = 0; s < sourceCount; s++) loadedSources.intern(in.readUTF());
+        if (loadedTerms.size() != termCount || loadedSources.size() != sourceCount) {
+            throw new IOException("Almacén de tripletas incoherente");
+        }
+
+        int triples = in.readInt();
+        int capacity = Math.max(1024, triples);
+        long[] loadedKeys = new long[capacity];
+        double[] loadedConfidences = new double[capacity];
+        int[] loadedOccurrences = new int[capacity];
+        Map<Long, Integer> loadedPositions = new HashMap<>();
+        for (int i = 0; i < triples; i++) {
+            loadedKeys[i] = in.readLong();
+            loadedConfidences[i] = in.readDouble();
+            loadedOccurrences[i] = in.readInt();
+            loadedPositions.put(loadedKeys[i], i);
+        }
+        int observationCount = in.readInt();
+        Set<Long> loadedObservations = new HashSet<>();
+        for (int i = 0; i < observationCount; i++) loadedObservations.add(in.readLong());
+
+        terms = loadedTerms;
+        labels = loadedLabels;
+        sources = loadedSources;
+        keys = loadedKeys;
+        confidences = loadedConfidences;
+        occurrences = loadedOccurrences;
+        size = triples;
+        positions = loadedPositions;
+        observations = loadedObservations;
+        spo = new PermutationIndex();
+        pos = new PermutationIndex();
+        osp = new PermutationIndex();
+        index(Arrays.copyOf(keys, size));
+    }
+
+    // addAll ya ha comprobado que los términos nuevos caben
+    private int intern(String term) {
+        int id = terms.idOf(term);
+        if (id >= 0) return id;
+        labels.add(term);
+        return terms.intern(term);
+    }
+
+    private int append(long key) {
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, size * 2);
+            confidences = Arrays.copyOf(confidences, size * 2);
+            occurrences = Arrays.copyOf(occurrences, size * 2);
+        }
+        keys[size] = key;
+        positions.put(key, size);
+        return size++;
+    }
+
+    // añade claves sujeto-relación-objeto nuevas a los tres índices
+    private void index(long[] spoKeys) {
+        long[] posKeys = new long[spoKeys.length];
+        long[] ospKeys = new long[spoKeys.length];
+        for (int i = 0; i < spoKeys.length; i++) {
+            int s = PermutationIndex.first(spoKeys[i]);
+            int p = PermutationIndex.second(spoKeys[i]);
+            int o = PermutationIndex.third(spoKeys[i]);
+            posKeys[i] = PermutationIndex.pack(p, o, s);
+            ospKeys[i] = PermutationIndex.pack(o, s, p);
+        }
+        spo.insert(spoKeys);
+        pos.insert(posKeys);
+        osp.insert(ospKeys);
+    }
+
+    private Match matchOf(long spoKey) {
+        int position = positions.get(spoKey);
+        return new Match(
+                labels.get(PermutationIndex.first(spoKey)),
+                labels.get(PermutationIndex.second(spoKey)),
+                labels.get(PermutationIndex.third(spoKey)),
+                confidences[position],
+                occurrences[position]);
+    }
+
+    // elige el índice cuyo prefijo cubre los términos fijos; null si algún término fijo no existe
+    private Pattern patternOf(String subject, String relation, String object) {
+        int s = termOf(subject);
+        int p = termOf(relation);
+        int o = termOf(object);
+        if (s == -1 || p == -1 || o == -1) return null;
+        boolean hasS = s >= 0, hasP = p >= 0, hasO = o >= 0;
+
+        if (hasS && (hasP || !hasO)) {
+            int bound = hasP ? (hasO ? 3 : 2) : 1;
+            return new Pattern(spo, PermutationIndex.pack(s, Math.max(p, 0), Math.max(o, 0)), bound, key -> key);
+        }
+        if (hasS) {
+            return new Pattern(osp, PermutationIndex.pack(o, s, 0), 2, TripleStore::fromOsp);
+        }
+        if (hasP) {
+            return new Pattern(pos, PermutationIndex.pack(p, Math.max(o, 0), 0), hasO ? 2 : 1, TripleStore::fromPos);
+        }
+        if (hasO) {
+            return new Pattern(osp, PermutationIndex.pack(o, 0, 0), 1, TripleStore::fromOsp);
+        }
+        return new Pattern(spo, 0, 0, key -> key);
+    }
+
+    // identificador del término, -2 si es comodín o -1 si no existe
+    private int termOf(String term) {
+        String normalized = normalize(term);
+        if (normalized == null || normalized.equals(WILDCARD)) return -2;
+        return terms.idOf(normalized);
+    }
+
+    private static long fromPos(long key) {
+        return PermutationIndex.pack(PermutationIndex.third(key), PermutationIndex.first(key), PermutationIndex.second(key));
+    }
+
+    private static long fromOsp(long key) {
+        return PermutationIndex.pack(PermutationIndex.second(key), PermutationIndex.third(key), PermutationIndex.first(key));
+    }
+
+    // espacios colapsados y recortados; null si queda vacío
+    private static String normalize(String term) {
+        if (term == null) return null;
+        String normalized = term.trim().replaceAll("\\s+", " ");
+        return normalized.isEmpty() ? null : normalized;
+    }
+
+    private record Pattern(PermutationIndex index, long prefix, int bound, LongUnaryOperator toSpoKey) {
+        long toSpo(long key) {
+            return toSpoKey.applyAsLong(key);
+        }
+    }
+
+    /**
+     * Tripleta extraída de un documento ({@code source}: identificador del documento de origen).
+     */
+    public record Triple(String subject, String relation, String object, double confidence, String source) {
+    }
+
+    /**
+     * Tripleta almacenada, con su confianza combinada y el número de documentos de los que se extrajo.
+     */
+    public record Match(String subject, String relation, String object, double confidence, int sources) {
+    }
+
+    /**
+     * Tripletas a un salto de un término: en las que es sujeto ({@code outgoing}) y objeto ({@code incoming}).
+     */
+    public record Neighbourhood(String entity, List<Match> outgoing, List<Match> incoming) {
+    }
+}
@@ -0,0 +1,27 @@
+package com.mapicallo.capture_data_service.infrastructure.config;
+
+import com.mapicallo.capture_data_service.application.nlp.NlpWarmupService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+/**
+ * Indicador de salud "nlpWarmup": OUT_OF_SERVICE mientras se precargan los modelos de CoreNLP.
+ * Se incluye en el grupo de readiness de actuator ({@code /actuator/health/readiness}).
+ */
+@Component("nlpWarmup")
+public class NlpWarmupHealthIndicator implements HealthIndicator {
+
+    @Autowired
+    private NlpWarmupService warmupService;
+
+    @Override
+    public Health health() {
+        Health.Builder builder = warmupService.isReady() ? Health.up() : Health.outOfService();
+        for (NlpWarmupService.WarmupResult result : warmupService.getResults()) {
+            builder.withDetail(result.profile().name(), result);
+        }
+        return builder.build();
+    }
+}
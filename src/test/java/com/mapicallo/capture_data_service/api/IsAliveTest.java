@@ -0,0 +1,36 @@
+package com.mapicallo.capture_data_service.api;
+
+import com.mapicallo.capture_data_service.application.nlp.NlpWarmupService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class IsAliveTest {
+
+    @Mock
+    private NlpWarmupService warmupService;
+
+    @InjectMocks
+    private isAlive controller;
+
+    @Test
+    void shouldReportServiceUnavailableUntilTheModelsAreWarm() {
+        when(warmupService.isReady()).thenReturn(false);
+        ResponseEntity<String> warming = controller.isAlive();
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, warming.getStatusCode());
+        assertEquals("Service is warming up NLP models", warming.getBody());
+
+        when(warmupService.isReady()).thenReturn(true);
+        ResponseEntity<String> ready = controller.isAlive();
+        assertEquals(HttpStatus.OK, ready.getStatusCode());
+        assertEquals("Service is running", ready.getBody());
+    }
+}
@@ -10,6 +10,7 @@ import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMock
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
 import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 
@@ -31,6 +32,7 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 
 @SpringBootTest
 @AutoConfigureMockMvc
+@ActiveProfiles("test")
 class OpenSearchControllerTest {
 
     @Autowired
@@ -217,10 +219,8 @@ class OpenSearchControllerTest {
 
     @Test
     public void testAnonymizeTextFromFileContent() {
-        TextAnonymizerService service = new TextAnonymizerService();
-
         String original = "El paciente Juan Pérez fue atendido por la Dra. Gómez en el Hospital Central el 2024-05-01.";
-        String anonymized = service.anonymizeTextFromFileContent(original);
+        String anonymized = textAnonymizerService.anonymizeTextFromFileContent(original);
 
         assertNotNull(anonymized);
         assertTrue(anonymized.contains("[NOMBRE]"));
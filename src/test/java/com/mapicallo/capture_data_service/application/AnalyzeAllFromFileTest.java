@@ -0,0 +1,105 @@
+package com.mapicallo.capture_data_service.application;
+
+import com.google.gson.Gson;
+import com.mapicallo.capture_data_service.application.OpenSearchService.AnalysisOutput;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.nio.file.Files;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * El análisis combinado debe dar, para cada texto, lo mismo que los endpoints individuales.
+ * Sin presupuesto por documento: la primera anotación también carga los modelos.
+ */
+@SpringBootTest(properties = "nlp.budget.document-ms=0")
+@ActiveProfiles("test")
+class AnalyzeAllFromFileTest {
+
+    private static final String UPLOAD_DIR = "C:/uploaded_files/";
+    private static final String FILE_NAME = "analyze_all_consistency.json";
+
+    // sin tildes: el servicio lee el archivo con la codificación por defecto de la JVM, que puede no ser UTF-8
+    private static final List<String> TEXTS = List.of(
+            "El paciente Juan Garcia acudio al Hospital General de Madrid el 5 de mayo con fiebre alta y tos persistente. "
+                    + "Tiene antecedentes de asma desde la infancia. "
+                    + "Se indico tratamiento con paracetamol cada ocho horas. "
+                    + "Se recomienda reposo y control en una semana.",
+            "La doctora Maria Lopez reviso a la paciente en Sevilla. "
+                    + "La paciente esta muy contenta con la atencion recibida. "
+                    + "No presenta dolor ni dificultad respiratoria.");
+
+    @Autowired
+    private OpenSearchService openSearchService;
+
+    @Autowired
+    private TextAnonymizerService textAnonymizerService;
+
+    private final File file = new File(UPLOAD_DIR + FILE_NAME);
+
+    @BeforeEach
+    void writeFile() throws Exception {
+        file.getParentFile().mkdirs();
+        List<Map<String, Object>> documents = List.of(
+                Map.of("id", "a1", "text", TEXTS.get(0)),
+                Map.of("id", "a2", "text", TEXTS.get(1)));
+        try (FileWriter writer = new FileWriter(file)) {
+            new Gson().toJson(documents, writer);
+        }
+    }
+
+    @AfterEach
+    void deleteFile() throws Exception {
+        Files.deleteIfExists(file.toPath());
+    }
+
+    @Test
+    void shouldMatchTheIndividualEndpointsForTheSameText() throws Exception {
+        List<Map<String, Object>> combined = openSearchService.analyzeAllFromFile(FILE_NAME, Set.of());
+        List<Map<String, Object>> segmented = openSearchService.segmentTextFromFile(FILE_NAME);
+        List<Map<String, Object>> sentiments = openSearchService.analyzeSentimentFromFile(FILE_NAME);
+
+        assertEquals(TEXTS.size(), combined.size());
+        for (int i = 0; i < TEXTS.size(); i++) {
+            Map<String, Object> result = combined.get(i);
+            String text = TEXTS.get(i);
+            assertEquals(text, result.get("original_text"));
+            assertEquals("none", result.get("degradation"));
+
+            assertEquals(openSearchService.extractKeywords(text), result.get("keywords"));
+            assertEquals(segmented.get(i).get("segments"), result.get("segments"));
+            assertEquals(textAnonymizerService.anonymizeTextFromFileContent(text), result.get("anonymized_text"));
+
+            @SuppressWarnings("unchecked")
+            Map<String, Object> sentiment = (Map<String, Object>) result.get("sentiment");
+            Map<String, Object> individual = sentiments.get(i);
+            for (String key : List.of("summary_sentiment", "sentences_analyzed", "distribution", "average_score")) {
+                assertEquals(individual.get(key), sentiment.get(key), key);
+            }
+        }
+    }
+
+    @Test
+    void shouldMatchTheEntityEndpointWhenAnonymizationIsNotRequested() throws Exception {
+        // con anonimización NER va sin etiquetas de grano fino; sin ella, las entidades son las del endpoint
+        List<Map<String, Object>> combined = openSearchService.analyzeAllFromFile(FILE_NAME, EnumSet.of(AnalysisOutput.ENTITIES));
+        List<Map<String, Object>> entities = openSearchService.recognizeEntitiesFromJsonFile(FILE_NAME);
+
+        assertEquals(entities.size(), combined.size());
+        for (int i = 0; i < combined.size(); i++) {
+            assertFalse(((Map<?, ?>) combined.get(i).get("entities")).isEmpty());
+            assertEquals(entities.get(i).get("entities"), combined.get(i).get("entities"));
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.mapicallo.capture_data_service.application;
+
+import edu.stanford.nlp.ling.CoreAnnotations;
+import edu.stanford.nlp.ling.CoreLabel;
+import edu.stanford.nlp.pipeline.Annotation;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TextAnonymizerServiceTest {
+
+    private final TextAnonymizerService service = new TextAnonymizerService(null);
+
+    @Test
+    void shouldSpliceEntitiesByOffsetKeepingLayout() {
+        String text = "Paciente:  Juan Pérez,\nvisto el 5 de mayo.";
+        Annotation document = annotated(text,
+                token(text, "Paciente", "O"), token(text, ":", "O"),
+                token(text, "Juan", "PERSON"), token(text, "Pérez", "PERSON"), token(text, ",", "O"),
+                token(text, "visto", "O"), token(text, "el", "O"),
+                token(text, "5", "DATE"), token(text, "de", "DATE"), token(text, "mayo", "DATE"), token(text, ".", "O"));
+
+        assertEquals("Paciente:  [NOMBRE],\nvisto el [FECHA].", service.anonymize(document));
+    }
+
+    @Test
+    void shouldKeepTextWithoutEntitiesUnchanged() {
+        String text = "Se recomienda reposo.";
+        Annotation document = annotated(text,
+                token(text, "Se", "O"), token(text, "recomienda", "O"), token(text, "reposo", "O"), token(text, ".", "O"));
+
+        assertEquals(text, service.anonymize(document));
+    }
+
+    private int cursor;
+
+    private CoreLabel token(String text, String word, String ner) {
+        int begin = text.indexOf(word, cursor);
+        cursor = begin + word.length();
+        CoreLabel token = new CoreLabel();
+        token.setOriginalText(word);
+        token.setBeginPosition(begin);
+        token.setEndPosition(cursor);
+        token.setNER(ner);
+        return token;
+    }
+
+    private Annotation annotated(String text, CoreLabel... tokens) {
+        Annotation document = new Annotation(text);
+        document.set(CoreAnnotations.TokensAnnotation.class, new ArrayList<>(List.of(tokens)));
+        return document;
+    }
+}
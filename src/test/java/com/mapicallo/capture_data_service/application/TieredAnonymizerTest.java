@@ -0,0 +1,33 @@
+package com.mapicallo.capture_data_service.application;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TieredAnonymizerTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    // sin pipeline NER: estas frases deben resolverse por completo en los niveles de reglas
+    private final TieredAnonymizer anonymizer = new TieredAnonymizer(null, meterRegistry, Set.of("juan", "maría"));
+
+    @Test
+    void shouldResolveRulesAndGazetteerWithoutNer() {
+        TieredAnonymizer.TieredResult result = anonymizer.anonymizeAll(List.of(
+                "El paciente Juan Pérez García fue atendido por la Dra. López en el Hospital Universitario de La Paz el 5 de mayo de 2025.",
+                "control en 15/06/2025, sin incidencias."));
+
+        assertEquals("El paciente [NOMBRE] fue atendido por la [PROFESIONAL] en el [CENTRO_MEDICO] el [FECHA].",
+                result.texts().get(0));
+        assertEquals("control en [FECHA], sin incidencias.", result.texts().get(1));
+        assertEquals(4, result.replacementsByTier().get(TieredAnonymizer.TIER_REGEX));
+        assertEquals(1, result.replacementsByTier().get(TieredAnonymizer.TIER_GAZETTEER));
+        assertEquals(0, result.sentencesWithNer());
+        assertEquals(2, result.sentencesWithoutNer());
+        assertEquals(1.0, meterRegistry.get("nlp.anonymization.replacements").tag("tier", "gazetteer").counter().count());
+    }
+}
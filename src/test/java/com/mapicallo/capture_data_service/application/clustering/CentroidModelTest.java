@@ -0,0 +1,73 @@
+package com.mapicallo.capture_data_service.application.clustering;
+
+import com.mapicallo.capture_data_service.application.text.BagOfWords;
+import com.mapicallo.capture_data_service.application.text.TermDictionary;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CentroidModelTest {
+
+    private static final List<String> TRAINING = List.of(
+            "Bronquitis aguda con tos y fiebre",
+            "Software hospitalario para la gestión de citas",
+            "Paciente con tos persistente y bronquitis",
+            "Actualización del software hospitalario y del servidor");
+
+    private final SphericalKMeans kMeans = new SphericalKMeans(1);
+
+    @TempDir
+    Path directory;
+
+    @AfterEach
+    void shutdown() {
+        kMeans.shutdown();
+    }
+
+    @Test
+    void shouldAssignNewDocumentsAfterReloadingTheModel() throws IOException {
+        CentroidModel model = train();
+        new CentroidModelStore(directory.toString()).save("temas", model);
+
+        CentroidModel reloaded = new CentroidModelStore(directory.toString()).load("temas").orElseThrow();
+
+        assertEquals(model.k(), reloaded.k());
+        assertEquals(model.dimensions(), reloaded.dimensions());
+        assertEquals(model.assign("tos con FIEBRE"), reloaded.assign("tos con FIEBRE"));
+        assertEquals(model.assign(TRAINING.get(0)).cluster(), reloaded.assign("fiebre y tos").cluster());
+        assertEquals(model.assign(TRAINING.get(1)).cluster(), reloaded.assign("nuevo servidor").cluster());
+        assertEquals(-1, reloaded.assign("sin vocabulario conocido").cluster());
+    }
+
+    @Test
+    void shouldMoveCentroidsWithMiniBatchUpdates() {
+        CentroidModel model = train();
+        int cluster = model.assign("servidor").cluster();
+        double before = model.assign("citas servidor").similarity();
+
+        List<CentroidModel.Assignment> assignments = model.assignAll(List.of("servidor", "servidor citas"), true);
+
+        assertEquals(cluster, assignments.get(0).cluster());
+        assertEquals(4, model.sizes()[cluster]);
+        assertTrue(model.assign("citas servidor").similarity() > before);
+        assertThrows(IllegalArgumentException.class, () -> new CentroidModelStore(directory.toString()).load("../x"));
+    }
+
+    private CentroidModel train() {
+        TermDictionary vocabulary = DocumentVectorizer.newVocabulary();
+        List<BagOfWords> bags = new ArrayList<>();
+        for (String text : TRAINING) bags.add(DocumentVectorizer.bagOf(text, vocabulary, true));
+        SparseVectors vectors = SparseVectors.of(bags, vocabulary.size(), TermWeighting.TFIDF);
+        SphericalKMeans.Result result = kMeans.cluster(vectors, 2, 20, 3L);
+        assertEquals(result.assignments()[0], result.assignments()[2]);
+        assertNotEquals(result.assignments()[0], result.assignments()[1]);
+        return CentroidModel.of(vocabulary, vectors, TermWeighting.TFIDF, result);
+    }
+}
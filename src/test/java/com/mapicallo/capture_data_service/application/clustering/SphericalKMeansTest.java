@@ -0,0 +1,64 @@
+package com.mapicallo.capture_data_service.application.clustering;
+
+import com.mapicallo.capture_data_service.application.text.BagOfWords;
+import com.mapicallo.capture_data_service.application.text.TermDictionary;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SphericalKMeansTest {
+
+    private final SphericalKMeans kMeans = new SphericalKMeans(2);
+
+    @AfterEach
+    void shutdown() {
+        kMeans.shutdown();
+    }
+
+    @Test
+    void shouldSeparateTopicsAndKeepDuplicateDocumentsApart() {
+        TermDictionary terms = new TermDictionary();
+        List<BagOfWords> bags = new ArrayList<>();
+        for (int i = 0; i < 600; i++) {
+            // documentos repetidos: cada uno debe conservar su propia posición
+            String[] words = i % 2 == 0
+                    ? new String[]{"bronquitis", "tos", "fiebre", "paciente"}
+                    : new String[]{"software", "hospitalario", "servidor", "paciente"};
+            bags.add(bagOf(terms, words));
+        }
+        SparseVectors vectors = SparseVectors.of(bags, terms.size(), TermWeighting.TFIDF);
+
+        SphericalKMeans.Result result = kMeans.cluster(vectors, 2, 20, 7L);
+
+        assertTrue(result.converged());
+        int[] assignments = result.assignments();
+        assertNotEquals(assignments[0], assignments[1]);
+        for (int i = 2; i < assignments.length; i++) {
+            assertEquals(assignments[i % 2], assignments[i]);
+        }
+        assertEquals(300, result.members(assignments[0]).length);
+        assertEquals(0, result.cost(), 1e-9);
+    }
+
+    @Test
+    void shouldNormalizeRowsAndRejectTooManyClusters() {
+        TermDictionary terms = new TermDictionary();
+        List<BagOfWords> bags = List.of(bagOf(terms, "dolor", "dolor", "torácico"), bagOf(terms, "dolor"));
+        SparseVectors vectors = SparseVectors.of(bags, terms.size(), TermWeighting.TF);
+
+        assertEquals(3, vectors.nonZeros());
+        assertEquals(2 / Math.sqrt(5), vectors.value(vectors.rowStart(0)), 1e-12);
+        assertEquals(1.0, vectors.value(vectors.rowStart(1)), 1e-12);
+        assertThrows(IllegalArgumentException.class, () -> kMeans.cluster(vectors, 3, 10, 1L));
+    }
+
+    private static BagOfWords bagOf(TermDictionary terms, String... words) {
+        int[] ids = new int[words.length];
+        for (int i = 0; i < words.length; i++) ids[i] = terms.intern(words[i]);
+        return BagOfWords.of(ids, ids.length);
+    }
+}
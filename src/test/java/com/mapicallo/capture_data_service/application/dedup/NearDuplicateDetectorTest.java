@@ -0,0 +1,77 @@
+package com.mapicallo.capture_data_service.application.dedup;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NearDuplicateDetectorTest {
+
+    private final NearDuplicateDetector detector = new NearDuplicateDetector(0.8, 128, 3);
+
+    private static final String NOTE = "El paciente acude a consulta por dolor torácico de dos días de evolución, "
+            + "sin fiebre ni disnea. Se solicita electrocardiograma y analítica completa con troponinas. "
+            + "Se pauta paracetamol cada ocho horas y control en una semana en atención primaria.";
+
+    @Test
+    void shouldGroupNearDuplicatesUnderTheFirstDocument() {
+        List<String> texts = List.of(
+                "Informe de alta tras neumonía adquirida en la comunidad tratada con amoxicilina.",
+                NOTE,
+                NOTE.replace("ocho horas", "OCHO horas"),
+                NOTE.replace("una semana", "dos semanas"),
+                "Revisión de software hospitalario: migración del servidor de citas.");
+
+        DuplicateGroups groups = detector.detect(texts);
+
+        assertEquals(1, groups.representative(2));
+        assertEquals(1, groups.representative(3));
+        assertFalse(groups.isDuplicate(0));
+        assertFalse(groups.isDuplicate(4));
+        assertEquals(2, groups.duplicateCount());
+        assertArrayEquals(new int[]{1, 2, 3}, groups.groups().get(0));
+        assertEquals(1.0, detector.similarity(texts.get(1), texts.get(2)));
+    }
+
+    @Test
+    void shouldNotChainDocumentsThatAreNotSimilarToTheRepresentative() {
+        // ventanas de 30 palabras desplazadas 5: A~B y B~C (0.70), pero A y C no (0.47)
+        String a = words(0, 30);
+        String b = words(5, 30);
+        String c = words(10, 30);
+        assertTrue(detector.similarity(a, b) >= 0.6);
+        assertTrue(detector.similarity(b, c) >= 0.6);
+        assertTrue(detector.similarity(a, c) < 0.6);
+
+        DuplicateGroups groups = detector.detect(List.of(a, b, c), 0.6);
+
+        assertEquals(0, groups.representative(1));
+        assertEquals(2, groups.representative(2));
+        assertEquals(1, groups.duplicateCount());
+    }
+
+    @Test
+    void shouldExpandRepresentativeResultsToEveryDocument() {
+        List<String> texts = new ArrayList<>();
+        for (int i = 0; i < 50; i++) texts.add(i % 5 == 0 ? NOTE : "Documento distinto número " + i + " sobre " + (i * 7919));
+
+        DuplicateGroups groups = detector.detect(texts, 0.9);
+        List<String> selected = groups.select(texts);
+        List<Integer> lengths = groups.expand(selected.stream().map(String::length).toList());
+
+        assertEquals(41, selected.size());
+        for (int i = 0; i < texts.size(); i++) {
+            assertEquals(texts.get(groups.representative(i)).length(), lengths.get(i));
+        }
+        assertEquals(0, DuplicateGroups.identity(3).duplicateCount());
+        assertThrows(IllegalArgumentException.class, () -> detector.detect(texts, 0));
+    }
+
+    private static String words(int first, int count) {
+        StringBuilder text = new StringBuilder();
+        for (int i = first; i < first + count; i++) text.append("palabra").append(i).append(' ');
+        return text.toString();
+    }
+}
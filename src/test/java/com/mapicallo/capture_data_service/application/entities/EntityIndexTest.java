@@ -0,0 +1,145 @@
+package com.mapicallo.capture_data_service.application.entities;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EntityIndexTest {
+
+    @TempDir
+    Path directory;
+
+    private final List<EntityIndex> indexes = new ArrayList<>();
+
+    // espera a las instantáneas en segundo plano antes de que se borre el directorio temporal
+    @AfterEach
+    void shutdown() {
+        indexes.forEach(EntityIndex::shutdown);
+    }
+
+    @Test
+    void shouldCompressPostingsAndCombineThemLikeSets() {
+        Random random = new Random(11);
+        PostingList dense = new PostingList();
+        PostingList sparse = new PostingList();
+        TreeSet<Integer> denseSet = new TreeSet<>();
+        TreeSet<Integer> sparseSet = new TreeSet<>();
+        for (int document = 0; document < 100_000; document++) {
+            if (random.nextInt(3) == 0) {
+                dense.add(document);
+                denseSet.add(document);
+            }
+            if (random.nextInt(500) == 0) {
+                sparse.add(document);
+                sparseSet.add(document);
+            }
+        }
+        assertArrayEquals(denseSet.stream().mapToInt(Integer::intValue).toArray(), dense.toArray());
+        // huecos pequeños: un byte por documento en lugar de los cuatro de un int
+        assertEquals(dense.size(), dense.byteSize());
+        assertThrows(IllegalArgumentException.class, () -> dense.add(5));
+
+        Set<Integer> and = new TreeSet<>(denseSet);
+        and.retainAll(sparseSet);
+        Set<Integer> or = new TreeSet<>(denseSet);
+        or.addAll(sparseSet);
+        assertArrayEquals(and.stream().mapToInt(Integer::intValue).toArray(), PostingList.intersect(dense.toArray(), sparse.toArray()));
+        assertArrayEquals(and.stream().mapToInt(Integer::intValue).toArray(), PostingList.intersect(sparse.toArray(), dense.toArray()));
+        assertArrayEquals(or.stream().mapToInt(Integer::intValue).toArray(), PostingList.union(dense.toArray(), sparse.toArray()));
+    }
+
+    @Test
+    void shouldCompressTheForwardIndex() {
+        Random random = new Random(13);
+        ForwardIndex forward = new ForwardIndex();
+        List<int[]> expected = new ArrayList<>();
+        int entityCount = 0;
+        for (int document = 0; document < 10_000; document++) {
+            // entidades cercanas entre sí y alguna lejana, como las de un informe
+            TreeSet<Integer> entities = new TreeSet<>();
+            int base = random.nextInt(1_000);
+            for (int i = random.nextInt(8); i > 0; i--) entities.add(base + random.nextInt(64));
+            if (random.nextInt(10) == 0) entities.add(100_000 + random.nextInt(100_000));
+            int[] ids = entities.stream().mapToInt(Integer::intValue).toArray();
+            forward.add(ids);
+            expected.add(ids);
+            entityCount += ids.length;
+        }
+        assertEquals(expected.size(), forward.size());
+        for (int document = 0; document < expected.size(); document++) {
+            assertArrayEquals(expected.get(document), forward.toArray(document));
+        }
+        List<Integer> visited = new ArrayList<>();
+        forward.forEach(7, visited::add);
+        assertEquals(Arrays.stream(expected.get(7)).boxed().toList(), visited);
+        // menos de dos bytes por entidad en lugar de los cuatro de un int
+        assertTrue(forward.byteSize() < 2 * entityCount, forward.byteSize() + " bytes, " + entityCount + " entidades");
+        assertThrows(IllegalArgumentException.class, () -> forward.add(new int[]{3, 3}));
+    }
+
+    @Test
+    void shouldAnswerAndOrAndCoOccurrenceQueries() {
+        EntityIndex index = newIndex();
+        Map<String, Map<String, List<String>>> documents = new LinkedHashMap<>();
+        documents.put("a.json#1", Map.of("PERSON", List.of("Pérez"), "ORGANIZATION", List.of("Clínica Vega")));
+        documents.put("a.json#2", Map.of("PERSON", List.of("pérez", "Castro"), "CITY", List.of("Madrid")));
+        documents.put("a.json#3", Map.of("PERSON", List.of("Castro"), "ORGANIZATION", List.of("Clínica  Vega")));
+        documents.put("a.json#4", Map.of("CITY", List.of("Pérez")));
+        assertEquals(4, index.addDocuments(documents));
+        // un documento ya indexado no se vuelve a indexar
+        assertEquals(0, index.addDocuments(Map.of("a.json#1", Map.of("PERSON", List.of("Otro")))));
+        assertEquals(4, index.documentCount());
+
+        assertEquals(List.of("a.json#1", "a.json#2"), index.documents(List.of("PERSON:PÉREZ"), true, 10).documents());
+        // sin tipo, el texto coincide con cualquier tipo
+        assertEquals(List.of("a.json#1", "a.json#2", "a.json#4"), index.documents(List.of("pérez"), true, 10).documents());
+        assertEquals(List.of("a.json#2"), index.documents(List.of("PERSON:Pérez", "PERSON:Castro"), true, 10).documents());
+        assertEquals(List.of("a.json#1", "a.json#2", "a.json#3"), index.documents(List.of("PERSON:Pérez", "PERSON:Castro"), false, 10).documents());
+        assertEquals(0, index.documents(List.of("PERSON:Pérez", "PERSON:Nadie"), true, 10).total());
+        assertEquals(2, index.documents(List.of("PERSON:Pérez", "PERSON:Nadie"), false, 10).total());
+
+        EntityIndex.DocumentMatches limited = index.documents(List.of("PERSON:Pérez", "PERSON:Castro"), false, 1);
+        assertEquals(3, limited.total());
+        assertEquals(List.of("a.json#1"), limited.documents());
+
+        index.addDocuments(Map.of("b.json#1", Map.of("PERSON", List.of("Castro"), "CITY", List.of("Madrid"))));
+        assertEquals(List.of(new EntityIndex.CoOccurrence("CITY", "Madrid", 2)), index.coOccurring("castro", 1));
+        assertEquals(Set.of(
+                new EntityIndex.CoOccurrence("CITY", "Madrid", 2),
+                new EntityIndex.CoOccurrence("PERSON", "Pérez", 1),
+                new EntityIndex.CoOccurrence("ORGANIZATION", "Clínica Vega", 1)), new HashSet<>(index.coOccurring("PERSON:Castro", 5)));
+        assertTrue(index.coOccurring("PERSON:Nadie", 5).isEmpty());
+    }
+
+    @Test
+    void shouldSurviveSnapshots() {
+        EntityIndex index = newIndex();
+        index.addDocuments(Map.of(
+                "a.json#1", Map.of("PERSON", List.of("Pérez"), "ORGANIZATION", List.of("Clínica Vega")),
+                "a.json#2", Map.of("ORGANIZATION", List.of("Clínica Vega"))));
+        // la instantánea programada por la inserción
+        index.flush();
+
+        EntityIndex reloaded = newIndex();
+        reloaded.load();
+        assertEquals(2, reloaded.documentCount());
+        assertEquals(2, reloaded.entityCount());
+        assertEquals(index.documents(List.of("clínica vega"), true, 10), reloaded.documents(List.of("clínica vega"), true, 10));
+        assertEquals(List.of(new EntityIndex.CoOccurrence("ORGANIZATION", "Clínica Vega", 1)), reloaded.coOccurring("PERSON:Pérez", 5));
+
+        // las inserciones después de cargar continúan la numeración de documentos
+        reloaded.addDocuments(Map.of("b.json#1", Map.of("PERSON", List.of("Pérez"))));
+        assertEquals(List.of("a.json#1", "b.json#1"), reloaded.documents(List.of("PERSON:Pérez"), true, 10).documents());
+    }
+
+    private EntityIndex newIndex() {
+        EntityIndex index = new EntityIndex(directory.resolve("index.bin").toString());
+        indexes.add(index);
+        return index;
+    }
+}
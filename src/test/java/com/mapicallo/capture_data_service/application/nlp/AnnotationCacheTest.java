@@ -0,0 +1,91 @@
+package com.mapicallo.capture_data_service.application.nlp;
+
+import edu.stanford.nlp.pipeline.Annotation;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AnnotationCacheTest {
+
+    @Test
+    void shouldAnnotateRepeatedTextOnlyOnce() {
+        AnnotationCache cache = new AnnotationCache(true, 1024 * 1024);
+        AtomicInteger annotations = new AtomicInteger();
+
+        Annotation first = cache.getOrAnnotate(NlpProfile.ENTITIES.properties(), "Paciente con fiebre.", text -> {
+            annotations.incrementAndGet();
+            return new Annotation(text);
+        });
+        Annotation second = cache.getOrAnnotate(NlpProfile.ENTITIES.properties(), "Paciente con fiebre.", text -> {
+            annotations.incrementAndGet();
+            return new Annotation(text);
+        });
+
+        assertSame(first, second);
+        assertEquals(1, annotations.get());
+        assertEquals(1, cache.getStats().hits());
+        assertEquals(1, cache.getStats().misses());
+    }
+
+    @Test
+    void shouldKeepSeparateEntriesPerConfiguration() {
+        AnnotationCache cache = new AnnotationCache(true, 1024 * 1024);
+
+        Annotation entities = cache.getOrAnnotate(NlpProfile.ENTITIES.properties(), "Dolor torácico.", Annotation::new);
+        Annotation keywords = cache.getOrAnnotate(NlpProfile.KEYWORDS.properties(), "Dolor torácico.", Annotation::new);
+
+        assertNotSame(entities, keywords);
+        assertEquals(2, cache.getStats().misses());
+    }
+
+    @Test
+    void shouldAnnotateOutsideTheCacheAndLetWaitersRetryAfterAFailure() throws Exception {
+        AnnotationCache cache = new AnnotationCache(true, 1024 * 1024);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<Annotation> failing = executor.submit(() -> cache.getOrAnnotate("slow", () -> {
+                started.countDown();
+                await(release);
+                throw new IllegalStateException("fallo");
+            }));
+            assertTrue(started.await(10, TimeUnit.SECONDS));
+
+            // mientras otra clave se está anotando, la caché sigue respondiendo
+            assertNotNull(cache.getOrAnnotate("other", () -> new Annotation("otro")));
+
+            Future<Annotation> waiting = executor.submit(() -> cache.getOrAnnotate("slow", () -> new Annotation("lento")));
+            release.countDown();
+            assertThrows(Exception.class, failing::get);
+            assertEquals("lento", waiting.get(10, TimeUnit.SECONDS).toString());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void shouldBypassCacheWhenDisabled() {
+        AnnotationCache cache = new AnnotationCache(false, 1024 * 1024);
+
+        Annotation first = cache.getOrAnnotate(NlpProfile.ENTITIES.properties(), "Se recomienda reposo.", Annotation::new);
+        Annotation second = cache.getOrAnnotate(NlpProfile.ENTITIES.properties(), "Se recomienda reposo.", Annotation::new);
+
+        assertNotSame(first, second);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.mapicallo.capture_data_service.application.nlp;
+
+import edu.stanford.nlp.ling.CoreAnnotations;
+import edu.stanford.nlp.pipeline.Annotation;
+import edu.stanford.nlp.pipeline.StanfordCoreNLP;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AnnotationStoreTest {
+
+    private static StanfordCoreNLP pipeline;
+
+    @TempDir
+    Path directory;
+
+    @BeforeAll
+    static void createPipeline() {
+        Properties props = new Properties();
+        props.setProperty("annotators", "tokenize,ssplit");
+        pipeline = new StanfordCoreNLP(props);
+    }
+
+    @Test
+    void shouldRehydrateAnnotationsAfterReopening() throws IOException {
+        String text = "El paciente acudió a consulta. Se recomienda reposo.";
+        String hash = ContentHash.of("tokenize,ssplit", text);
+
+        AnnotationStore store = open();
+        store.save(hash, annotate(text));
+        store.close();
+
+        AnnotationStore reopened = open();
+        Annotation restored = reopened.load(hash).orElseThrow();
+
+        assertEquals(text, restored.get(CoreAnnotations.TextAnnotation.class));
+        assertEquals(2, restored.get(CoreAnnotations.SentencesAnnotation.class).size());
+        assertEquals(1, reopened.getStats().entries());
+        assertEquals(1, reopened.getStats().hits());
+        reopened.close();
+    }
+
+    @Test
+    void shouldRecoverUnindexedRecordsAndDropTruncatedTail() throws IOException {
+        String first = ContentHash.of("tokenize,ssplit", "Dolor torácico.");
+        String second = ContentHash.of("tokenize,ssplit", "Fiebre alta.");
+
+        AnnotationStore store = open();
+        store.save(first, annotate("Dolor torácico."));
+        store.save(second, annotate("Fiebre alta."));
+        store.close();
+
+        // simula una parada tras escribir el segmento pero antes del índice, con un registro a medias
+        try (FileChannel index = FileChannel.open(directory.resolve("annotations.idx"), StandardOpenOption.WRITE)) {
+            index.truncate(index.size() / 2);
+        }
+        try (FileChannel segment = FileChannel.open(directory.resolve("annotations.seg"), StandardOpenOption.WRITE)) {
+            segment.write(ByteBuffer.wrap(new byte[10]), segment.size());
+        }
+
+        AnnotationStore recovered = open();
+        assertTrue(recovered.load(first).isPresent());
+        assertEquals("Fiebre alta.", recovered.load(second).orElseThrow().get(CoreAnnotations.TextAnnotation.class));
+        assertEquals(2, recovered.getStats().entries());
+        recovered.close();
+    }
+
+    @Test
+    void shouldDoNothingWhenDisabled() throws IOException {
+        AnnotationStore store = new AnnotationStore(false, directory.toString());
+        store.open();
+        store.save("00", annotate("Texto."));
+
+        assertTrue(store.load("00").isEmpty());
+        assertEquals(0, store.getStats().entries());
+    }
+
+    private AnnotationStore open() throws IOException {
+        AnnotationStore store = new AnnotationStore(true, directory.toString());
+        store.open();
+        return store;
+    }
+
+    private static Annotation annotate(String text) {
+        Annotation annotation = new Annotation(text);
+        pipeline.annotate(annotation);
+        return annotation;
+    }
+}
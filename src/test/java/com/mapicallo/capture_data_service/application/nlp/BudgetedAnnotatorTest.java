@@ -0,0 +1,123 @@
+package com.mapicallo.capture_data_service.application.nlp;
+
+import edu.stanford.nlp.ling.CoreAnnotations;
+import edu.stanford.nlp.sentiment.SentimentCoreAnnotations;
+import edu.stanford.nlp.util.CoreMap;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BudgetedAnnotatorTest {
+
+    private static final String REPORT = "The patient was admitted with severe chest pain and shortness of breath. "
+            + "After three days of observation in the cardiology ward, the symptoms improved considerably. "
+            + "The family was very unhappy with the long waiting times.";
+
+    private static NlpTestSupport nlp;
+    private static ParallelAnnotator parallelAnnotator;
+
+    @BeforeAll
+    static void createAnnotator() {
+        nlp = new NlpTestSupport(1, 1);
+        parallelAnnotator = nlp.parallelAnnotator();
+        // carga los modelos fuera de los presupuestos de las pruebas
+        new BudgetedAnnotator(parallelAnnotator, 0, 0, 80).annotateAll(NlpProfile.SENTIMENT, List.of("Rest is recommended."), Deadline.NONE);
+    }
+
+    @AfterAll
+    static void shutdown() {
+        nlp.close();
+    }
+
+    @Test
+    void shouldAnnotateFullyWithinBudget() {
+        BudgetedAnnotator budgeted = new BudgetedAnnotator(parallelAnnotator, 60_000, 60_000, 80);
+        BudgetedAnnotator.BudgetedAnnotation result = budgeted.annotateAll(NlpProfile.SENTIMENT, List.of(REPORT), Deadline.afterMillis(60_000L)).get(0);
+
+        assertEquals(Degradation.NONE, result.degradation());
+        for (CoreMap sentence : result.annotation().get(CoreAnnotations.SentencesAnnotation.class)) {
+            assertNotNull(sentence.get(SentimentCoreAnnotations.SentimentClass.class));
+        }
+    }
+
+    @Test
+    void shouldFallBackToCheaperAnnotatorsWhenTheBudgetRunsOut() {
+        BudgetedAnnotator budgeted = new BudgetedAnnotator(parallelAnnotator, 1, 60_000, 80);
+        BudgetedAnnotator.BudgetedAnnotation result = budgeted.annotateAll(NlpProfile.SENTIMENT, List.of(REPORT), Deadline.NONE).get(0);
+
+        assertEquals(Degradation.REDUCED, result.degradation());
+        List<CoreMap> sentences = result.annotation().get(CoreAnnotations.SentencesAnnotation.class);
+        assertEquals(3, sentences.size());
+        assertNull(sentences.get(0).get(SentimentCoreAnnotations.SentimentClass.class));
+        assertFalse(Thread.currentThread().isInterrupted());
+    }
+
+    @Test
+    void shouldReportSentencesLongerThanTheParserLimitAsReduced() {
+        // 13, 17 y 11 tokens: las dos primeras pasan del límite
+        BudgetedAnnotator budgeted = new BudgetedAnnotator(parallelAnnotator, 60_000, 60_000, 12);
+        List<BudgetedAnnotator.BudgetedAnnotation> results = budgeted.annotateAll(NlpProfile.SENTIMENT,
+                List.of(REPORT, "Rest is recommended."), Deadline.NONE);
+
+        assertEquals(Degradation.REDUCED, results.get(0).degradation());
+        assertEquals(Degradation.NONE, results.get(1).degradation());
+        List<CoreMap> sentences = results.get(0).annotation().get(CoreAnnotations.SentencesAnnotation.class);
+        assertTrue(BudgetedAnnotator.isUnparsed(sentences.get(0)));
+        assertTrue(BudgetedAnnotator.isUnparsed(sentences.get(1)));
+        assertFalse(BudgetedAnnotator.isUnparsed(sentences.get(2)));
+    }
+
+    @Test
+    void shouldSkipDocumentsOnceTheDeadlineHasPassed() throws InterruptedException {
+        Deadline deadline = Deadline.afterMillis(1L);
+        Thread.sleep(5);
+        BudgetedAnnotator budgeted = new BudgetedAnnotator(parallelAnnotator, 60_000, 60_000, 80);
+
+        List<BudgetedAnnotator.BudgetedAnnotation> results = budgeted.annotateAll(NlpProfile.SENTIMENT, List.of(REPORT, "Rest is recommended."), deadline);
+
+        assertEquals(List.of(Degradation.SKIPPED, Degradation.SKIPPED), results.stream().map(BudgetedAnnotator.BudgetedAnnotation::degradation).toList());
+        assertTrue(results.get(0).annotation().get(CoreAnnotations.SentencesAnnotation.class).isEmpty());
+    }
+
+    @Test
+    void shouldDropExpensiveAnnotatorsAndLimitParseLength() {
+        Properties fallback = BudgetedAnnotator.fallbackOf(NlpProfile.TRIPLES.properties());
+        assertEquals("tokenize,ssplit,pos,lemma,ner", fallback.getProperty("annotators"));
+        assertNull(BudgetedAnnotator.fallbackOf(NlpProfile.ENTITIES.properties()));
+
+        BudgetedAnnotator budgeted = new BudgetedAnnotator(parallelAnnotator, 1000, 1000, 60);
+        assertEquals("60", budgeted.limited(NlpProfile.SENTIMENT.properties()).getProperty("parse.maxlen"));
+        assertNull(budgeted.limited(NlpProfile.KEYWORDS.properties()).getProperty("parse.maxlen"));
+    }
+
+    @Test
+    void watchdogShouldInterruptSlowWorkAndClearTheInterruption() {
+        assertThrows(BudgetExceededException.class, () -> Watchdog.run(20, () -> {
+            try {
+                Thread.sleep(10_000);
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+            return "late";
+        }));
+        assertFalse(Thread.currentThread().isInterrupted());
+
+        // trabajo que captura la interrupción y sigue, como el parser de CoreNLP
+        assertThrows(BudgetExceededException.class, () -> Watchdog.run(20, () -> {
+            int interruptions = 0;
+            long end = System.nanoTime() + 200_000_000L;
+            while (System.nanoTime() < end) {
+                if (Thread.interrupted()) interruptions++;
+            }
+            return interruptions;
+        }));
+        assertFalse(Thread.currentThread().isInterrupted());
+        assertEquals("on time", Watchdog.run(10_000, () -> "on time"));
+        assertThrows(BudgetExceededException.class, () -> Watchdog.run(0, () -> "never"));
+    }
+}
@@ -0,0 +1,86 @@
+package com.mapicallo.capture_data_service.application.nlp;
+
+import edu.stanford.nlp.pipeline.StanfordCoreNLP;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NlpPipelinePoolTest {
+
+    @Test
+    void shouldBoundEachConfigurationAndHandBackReturnedInstances() throws Exception {
+        // tamaño por perfil para SENTENCES; el resto usa el tamaño por defecto
+        MockEnvironment environment = new MockEnvironment().withProperty("nlp.pool.size.sentences", "2");
+        NlpPipelinePool pool = new NlpPipelinePool(new NlpPipelineRegistry(), environment, 3);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            NlpPipelinePool.PipelineLease first = pool.lease(NlpProfile.SENTENCES);
+            NlpPipelinePool.PipelineLease second = pool.lease(NlpProfile.SENTENCES);
+            assertNotSame(first.pipeline(), second.pipeline());
+
+            // sin instancias libres, el tercer préstamo espera a que se devuelva una
+            Future<StanfordCoreNLP> third = executor.submit(() -> {
+                try (NlpPipelinePool.PipelineLease lease = pool.lease(NlpProfile.SENTENCES)) {
+                    return lease.pipeline();
+                }
+            });
+            assertThrows(TimeoutException.class, () -> third.get(200, TimeUnit.MILLISECONDS));
+            StanfordCoreNLP returned = first.pipeline();
+            first.close();
+            assertSame(returned, third.get(10, TimeUnit.SECONDS));
+
+            // un préstamo devuelto ya no da acceso al pipeline y cerrarlo de nuevo no hace nada
+            assertThrows(IllegalStateException.class, first::pipeline);
+            first.close();
+            second.close();
+
+            Properties tokenize = new Properties();
+            tokenize.setProperty("annotators", "tokenize");
+            pool.lease(tokenize).close();
+
+            List<NlpPipelinePool.PoolStats> stats = pool.getStats();
+            assertEquals(2, stats.size());
+            NlpPipelinePool.PoolStats sentences = stats.stream()
+                    .filter(s -> s.key().equals(NlpPipelineRegistry.keyOf(NlpProfile.SENTENCES.properties())))
+                    .findFirst().orElseThrow();
+            assertEquals(new NlpPipelinePool.PoolStats(sentences.key(), 2, 2, 2), sentences);
+            NlpPipelinePool.PoolStats other = stats.stream().filter(s -> s != sentences).findFirst().orElseThrow();
+            assertEquals(3, other.maxSize());
+            assertEquals(1, other.created());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void shouldNeverLendTheSameInstanceToTwoThreads() throws Exception {
+        NlpPipelinePool pool = new NlpPipelinePool(new NlpPipelineRegistry(), new MockEnvironment(), 2);
+        Set<StanfordCoreNLP> inUse = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> tasks = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                tasks.add(executor.submit(() -> {
+                    for (int i = 0; i < 50; i++) {
+                        try (NlpPipelinePool.PipelineLease lease = pool.lease(NlpProfile.SENTENCES)) {
+                            assertTrue(inUse.add(lease.pipeline()), "instancia prestada dos veces");
+                            Thread.yield();
+                            inUse.remove(lease.pipeline());
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> task : tasks) task.get(30, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+        NlpPipelinePool.PoolStats stats = pool.getStats().get(0);
+        assertEquals(2, stats.created());
+        assertEquals(2, stats.available());
+    }
+}
@@ -0,0 +1,68 @@
+package com.mapicallo.capture_data_service.application.nlp;
+
+import edu.stanford.nlp.pipeline.StanfordCoreNLP;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NlpPipelineRegistryTest {
+
+    @Test
+    void shouldBuildEachConfigurationOnceForConcurrentCallers() throws Exception {
+        NlpPipelineRegistry registry = new NlpPipelineRegistry();
+        assertFalse(registry.isLoaded(NlpProfile.SENTENCES));
+
+        int callers = 8;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(callers);
+        try {
+            List<Future<StanfordCoreNLP>> pipelines = new ArrayList<>();
+            for (int i = 0; i < callers; i++) {
+                pipelines.add(executor.submit(() -> {
+                    start.await();
+                    return registry.get(NlpProfile.SENTENCES);
+                }));
+            }
+            start.countDown();
+            StanfordCoreNLP shared = pipelines.get(0).get(30, TimeUnit.SECONDS);
+            for (Future<StanfordCoreNLP> pipeline : pipelines) {
+                assertSame(shared, pipeline.get(30, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertTrue(registry.isLoaded(NlpProfile.SENTENCES));
+        List<NlpPipelineRegistry.PipelineStats> stats = registry.getStats();
+        assertEquals(1, stats.size());
+        assertEquals("tokenize,ssplit", stats.get(0).annotators());
+
+        // las instancias del pool son nuevas, pero no vuelven a registrar la configuración
+        StanfordCoreNLP instance = registry.createInstance(NlpProfile.SENTENCES.properties());
+        assertNotSame(registry.get(NlpProfile.SENTENCES), instance);
+        assertEquals(stats, registry.getStats());
+    }
+
+    @Test
+    void shouldKeyConfigurationsIndependentlyOfPropertyOrder() {
+        Properties first = new Properties();
+        first.setProperty("annotators", "tokenize");
+        first.setProperty("tokenize.language", "es");
+        Properties second = new Properties();
+        second.setProperty("tokenize.language", "es");
+        second.setProperty("annotators", "tokenize");
+
+        assertEquals("annotators=tokenize;tokenize.language=es", NlpPipelineRegistry.keyOf(first));
+        assertEquals(NlpPipelineRegistry.keyOf(first), NlpPipelineRegistry.keyOf(second));
+
+        NlpPipelineRegistry registry = new NlpPipelineRegistry();
+        StanfordCoreNLP pipeline = registry.get(first);
+        // cambiar las propiedades después no altera el pipeline registrado
+        first.setProperty("annotators", "tokenize,ssplit");
+        assertSame(pipeline, registry.get(second));
+        assertEquals("tokenize", registry.getStats().get(0).annotators());
+    }
+}
@@ -0,0 +1,35 @@
+package com.mapicallo.capture_data_service.application.nlp;
+
+import org.springframework.mock.env.MockEnvironment;
+
+/**
+ * Pool de pipelines y anotador paralelo para las pruebas fuera del contenedor de Spring. Sin caché
+ * ni almacén: cada prueba anota de verdad. Debe cerrarse para detener los hilos de trabajo.
+ */
+final class NlpTestSupport implements AutoCloseable {
+
+    private final NlpPipelinePool pool;
+    private final ParallelAnnotator parallelAnnotator;
+
+    /**
+     * @param poolSize instancias por configuración de anotadores
+     * @param threads  hilos de trabajo del anotador paralelo
+     */
+    NlpTestSupport(int poolSize, int threads) {
+        this.pool = new NlpPipelinePool(new NlpPipelineRegistry(), new MockEnvironment(), poolSize);
+        this.parallelAnnotator = new ParallelAnnotator(pool, new AnnotationCache(false, 0), new AnnotationStore(false, ""), threads);
+    }
+
+    NlpPipelinePool pool() {
+        return pool;
+    }
+
+    ParallelAnnotator parallelAnnotator() {
+        return parallelAnnotator;
+    }
+
+    @Override
+    public void close() {
+        parallelAnnotator.shutdown();
+    }
+}
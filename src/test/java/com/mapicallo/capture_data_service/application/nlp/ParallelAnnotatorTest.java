@@ -0,0 +1,114 @@
+package com.mapicallo.capture_data_service.application.nlp;
+
+import edu.stanford.nlp.ling.CoreAnnotations;
+import edu.stanford.nlp.pipeline.Annotation;
+import edu.stanford.nlp.trees.Tree;
+import edu.stanford.nlp.trees.TreeCoreAnnotations;
+import edu.stanford.nlp.util.CoreMap;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParallelAnnotatorTest {
+
+    private static final String REPORT = "The patient was admitted to the emergency department with severe chest pain, "
+            + "shortness of breath and a persistent cough that had lasted for more than three weeks. "
+            + "After several days of careful observation in the cardiology ward, the attending physicians "
+            + "concluded that the symptoms were caused by an infection rather than by a heart condition. "
+            + "The family, who had travelled from another city, was very unhappy with the long waiting times "
+            + "and with the lack of information provided by the administrative staff during the weekend.";
+
+    private static NlpTestSupport nlp;
+
+    @BeforeAll
+    static void loadModels() {
+        nlp = new NlpTestSupport(2, 2);
+        // carga los modelos antes de medir nada
+        nlp.parallelAnnotator().annotate(NlpProfile.SENTIMENT.properties(), "Rest is recommended.");
+    }
+
+    @AfterAll
+    static void shutdown() {
+        nlp.close();
+    }
+
+    @Test
+    void shouldKeepInputOrderUnderParallelLoad() {
+        List<Integer> items = IntStream.range(0, 500).boxed().toList();
+        Set<String> workers = ConcurrentHashMap.newKeySet();
+        List<Integer> results = nlp.parallelAnnotator().mapOrdered(items, item -> {
+            workers.add(Thread.currentThread().getName());
+            // algunas tareas tardan más y terminan después que las siguientes
+            if (item % 50 == 0) sleep(20);
+            return item * 2;
+        });
+
+        assertEquals(items.stream().map(item -> item * 2).toList(), results);
+        assertEquals(2, workers.size());
+        assertEquals(List.of(), nlp.parallelAnnotator().mapOrdered(List.<Integer>of(), item -> item));
+        IllegalArgumentException error = assertThrows(IllegalArgumentException.class,
+                () -> nlp.parallelAnnotator().mapOrdered(items, item -> {
+                    if (item == 250) throw new IllegalArgumentException("tarea " + item);
+                    return item;
+                }));
+        assertEquals("tarea 250", error.getMessage());
+    }
+
+    @Test
+    void shouldLetRunningAnnotationsFinishWhenAnotherTaskFails() throws InterruptedException {
+        ParallelAnnotator annotator = new ParallelAnnotator(nlp.pool(), new AnnotationCache(true, 64 * 1024 * 1024),
+                new AnnotationStore(false, ""), 2);
+        try {
+            Properties props = NlpProfile.SENTIMENT.properties();
+            CountDownLatch parsing = new CountDownLatch(1);
+            assertThrows(IllegalStateException.class, () -> annotator.mapOrdered(List.of(0, 1), task -> {
+                if (task == 1) {
+                    parsing.countDown();
+                    return annotator.annotate(props, REPORT);
+                }
+                // la primera tarea falla mientras la segunda está en el parser
+                await(parsing);
+                sleep(200);
+                throw new IllegalStateException("fallo");
+            }));
+
+            // la anotación en curso termina entera: la caché no guarda árboles vacíos
+            Annotation cached = annotator.annotate(props, REPORT);
+            List<CoreMap> sentences = cached.get(CoreAnnotations.SentencesAnnotation.class);
+            assertEquals(3, sentences.size());
+            for (CoreMap sentence : sentences) {
+                Tree tree = sentence.get(TreeCoreAnnotations.TreeAnnotation.class);
+                assertEquals("ROOT", tree.value(), tree.toString());
+            }
+            assertFalse(Thread.currentThread().isInterrupted());
+        } finally {
+            annotator.shutdown();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(10, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
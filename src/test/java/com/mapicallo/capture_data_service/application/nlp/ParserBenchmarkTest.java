@@ -0,0 +1,48 @@
+package com.mapicallo.capture_data_service.application.nlp;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParserBenchmarkTest {
+
+    @Test
+    void shouldMeasureSentenceLabelAgreement() {
+        Map<String, Double> agreement = ParserBenchmark.labelAgreement(
+                List.of(List.of("Positive", "Neutral"), List.of("Negative", "Neutral")),
+                List.of(List.of("Positive", "Negative"), List.of("Negative", "Neutral")));
+
+        assertEquals(0.75, agreement.get("sentence_label_agreement"), 1e-9);
+    }
+
+    @Test
+    void shouldMeasureTriplePrecisionAndRecall() {
+        Map<String, Double> agreement = ParserBenchmark.tripleAgreement(
+                List.of(List.of("a\tr\tb", "c\tr\td"), List.of()),
+                List.of(List.of("a\tr\tb"), List.of("e\tr\tf")));
+
+        assertEquals(0.5, agreement.get("triple_precision"), 1e-9);
+        assertEquals(0.5, agreement.get("triple_recall"), 1e-9);
+        assertEquals(0.5, agreement.get("triple_f1"), 1e-9);
+    }
+
+    @Test
+    void shouldReportThroughputAndFullAgreementAgainstItself() {
+        try (NlpTestSupport nlp = new NlpTestSupport(1, 1)) {
+            // sin modelo shift-reduce instalado el candidato es también el PCFG
+            ParserBenchmark benchmark = new ParserBenchmark(nlp.pool(), nlp.parallelAnnotator(), ParserSelection.defaults());
+            ParserBenchmark.Report report = benchmark.run(ParserBenchmark.Task.SENTIMENT, ParserModel.SHIFT_REDUCE,
+                    List.of("The treatment was excellent. Rest is recommended.", "The pain persists."));
+
+            assertEquals("shift-reduce", report.requested());
+            assertEquals("pcfg", report.candidate().parser());
+            assertEquals(2, report.documents());
+            assertEquals(3, report.sentences());
+            assertTrue(report.baseline().documentsPerSecond() > 0);
+            assertEquals(1.0, report.agreement().get("sentence_label_agreement"), 1e-9);
+        }
+    }
+}
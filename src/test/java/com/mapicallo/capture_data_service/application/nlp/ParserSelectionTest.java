@@ -0,0 +1,60 @@
+package com.mapicallo.capture_data_service.application.nlp;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParserSelectionTest {
+
+    // recurso que sí está en el classpath, para simular que el modelo shift-reduce está instalado
+    private static final String INSTALLED_MODEL = "edu/stanford/nlp/models/lexparser/englishPCFG.ser.gz";
+
+    @Test
+    void shouldKeepProfilePropertiesWithThePcfgParser() {
+        ParserSelection selection = ParserSelection.defaults();
+
+        assertEquals(NlpProfile.TRIPLES.properties(), selection.propertiesOf(NlpProfile.TRIPLES));
+        assertEquals(NlpProfile.SENTENCE_SENTIMENT.properties(), selection.propertiesOf(NlpProfile.SENTENCE_SENTIMENT));
+        assertEquals(NlpProfile.ENTITIES.properties(), selection.withParser(ParserModel.DEPENDENCY, NlpProfile.ENTITIES.properties()));
+    }
+
+    @Test
+    void shouldUseDependencyParserForTriples() {
+        ParserSelection selection = new ParserSelection("pcfg", "dependency", INSTALLED_MODEL);
+
+        Properties props = selection.propertiesOf(NlpProfile.TRIPLES);
+        assertEquals("tokenize,ssplit,pos,lemma,ner,depparse,coref,kbp", props.getProperty("annotators"));
+        assertEquals("es", props.getProperty("kbp.language"));
+        assertEquals(ParserModel.DEPENDENCY, selection.triplesParser());
+    }
+
+    @Test
+    void shouldAddPosTagsForTheShiftReduceParser() {
+        ParserSelection selection = new ParserSelection("shift-reduce", "pcfg", INSTALLED_MODEL);
+
+        Properties props = selection.propertiesOf(NlpProfile.SENTIMENT);
+        assertEquals("tokenize,ssplit,pos,parse,sentiment", props.getProperty("annotators"));
+        assertEquals(INSTALLED_MODEL, props.getProperty("parse.model"));
+        // de vuelta al PCFG se quitan el modelo, aunque se conserva pos
+        assertFalse(selection.withParser(ParserModel.PCFG, props).containsKey("parse.model"));
+    }
+
+    @Test
+    void shouldFallBackToPcfgWhenShiftReduceModelIsMissing() {
+        ParserSelection selection = new ParserSelection("shift_reduce", "shift-reduce", "models/missing-sr.ser.gz");
+
+        assertEquals(ParserModel.PCFG, selection.sentimentParser());
+        assertEquals(ParserModel.PCFG, selection.triplesParser());
+        assertEquals(NlpProfile.SENTIMENT.properties(), selection.withParser(ParserModel.SHIFT_REDUCE, NlpProfile.SENTIMENT.properties()));
+    }
+
+    @Test
+    void shouldRejectDependencyParserForSentiment() {
+        assertThrows(IllegalArgumentException.class, () -> new ParserSelection("dependency", "pcfg", INSTALLED_MODEL));
+        assertThrows(IllegalArgumentException.class,
+                () -> ParserSelection.defaults().withParser(ParserModel.DEPENDENCY, NlpProfile.SENTIMENT.properties()));
+        assertThrows(IllegalArgumentException.class, () -> ParserModel.of("lexparser"));
+    }
+}
@@ -0,0 +1,82 @@
+package com.mapicallo.capture_data_service.application.nlp;
+
+import edu.stanford.nlp.ling.CoreAnnotations;
+import edu.stanford.nlp.pipeline.Annotation;
+import edu.stanford.nlp.sentiment.SentimentCoreAnnotations;
+import edu.stanford.nlp.trees.TreeCoreAnnotations;
+import edu.stanford.nlp.util.CoreMap;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SentenceParallelAnnotatorTest {
+
+    private static NlpTestSupport nlp;
+    private static NlpPipelinePool pool;
+    private static SentenceParallelAnnotator annotator;
+
+    @BeforeAll
+    static void createAnnotator() {
+        nlp = new NlpTestSupport(2, 1);
+        pool = nlp.pool();
+        annotator = new SentenceParallelAnnotator(pool, true, 2, 2);
+    }
+
+    @AfterAll
+    static void shutdown() {
+        annotator.shutdown();
+        nlp.close();
+    }
+
+    @Test
+    void shouldKeepDocumentLevelAnnotatorsAfterTheSentenceStage() {
+        SentenceParallelAnnotator.Stages triples = SentenceParallelAnnotator.stagesOf(NlpProfile.TRIPLES.properties()).orElseThrow();
+        assertEquals("tokenize,ssplit,pos,lemma,ner", triples.head().getProperty("annotators"));
+        assertEquals("parse", triples.sentences().getProperty("annotators"));
+        assertEquals("coref,kbp", triples.tail().getProperty("annotators"));
+        assertEquals("false", triples.tail().getProperty("enforceRequirements"));
+        assertEquals("es", triples.tail().getProperty("kbp.language"));
+
+        SentenceParallelAnnotator.Stages sentiment = SentenceParallelAnnotator.stagesOf(NlpProfile.SENTIMENT.properties()).orElseThrow();
+        assertEquals("tokenize,ssplit", sentiment.head().getProperty("annotators"));
+        assertEquals("parse,sentiment", sentiment.sentences().getProperty("annotators"));
+        assertNull(sentiment.tail());
+
+        assertTrue(SentenceParallelAnnotator.stagesOf(NlpProfile.ENTITIES.properties()).isEmpty());
+        assertFalse(annotator.appliesTo(NlpProfile.KEYWORDS.properties()));
+    }
+
+    @Test
+    void shouldMatchWholeDocumentAnnotationSentenceBySentence() {
+        String text = "The patient was admitted with severe chest pain and shortness of breath. "
+                + "The treatment was excellent. "
+                + "After three days of observation in the cardiology ward, the symptoms improved considerably and the patient was discharged home. "
+                + "Rest is recommended. "
+                + "The family was very unhappy with the long waiting times.";
+        Properties props = NlpProfile.SENTIMENT.properties();
+
+        Annotation parallel = annotator.annotate(props, text);
+        Annotation whole = new Annotation(text);
+        try (NlpPipelinePool.PipelineLease lease = pool.lease(props)) {
+            lease.pipeline().annotate(whole);
+        } catch (InterruptedException e) {
+            fail(e);
+        }
+
+        List<CoreMap> expected = whole.get(CoreAnnotations.SentencesAnnotation.class);
+        List<CoreMap> actual = parallel.get(CoreAnnotations.SentencesAnnotation.class);
+        assertEquals(5, actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).get(CoreAnnotations.TextAnnotation.class), actual.get(i).get(CoreAnnotations.TextAnnotation.class));
+            assertEquals(expected.get(i).get(TreeCoreAnnotations.TreeAnnotation.class).toString(),
+                    actual.get(i).get(TreeCoreAnnotations.TreeAnnotation.class).toString());
+            assertEquals(expected.get(i).get(SentimentCoreAnnotations.SentimentClass.class),
+                    actual.get(i).get(SentimentCoreAnnotations.SentimentClass.class));
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.mapicallo.capture_data_service.application.nlp;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SentenceSentimentMemoTest {
+
+    private static NlpTestSupport nlp;
+    private static SentenceSentimentMemo memo;
+
+    @BeforeAll
+    static void createMemo() {
+        nlp = new NlpTestSupport(1, 2);
+        ParallelAnnotator parallelAnnotator = nlp.parallelAnnotator();
+        memo = new SentenceSentimentMemo(parallelAnnotator, nlp.pool(), new BudgetedAnnotator(parallelAnnotator, 30000, 5000, 80), 1000);
+    }
+
+    @AfterAll
+    static void shutdown() {
+        nlp.close();
+    }
+
+    @Test
+    void shouldParseEachDistinctSentenceOnce() {
+        List<List<String>> labels = memo.sentenceLabels(List.of(
+                "The treatment was excellent. Rest is recommended.",
+                "Rest is recommended.",
+                "Rest   is recommended. The treatment was excellent."
+        ));
+
+        assertEquals(2, labels.get(0).size());
+        assertEquals(1, labels.get(1).size());
+        assertEquals(labels.get(0).get(1), labels.get(1).get(0));
+        assertEquals(labels.get(0), List.of(labels.get(2).get(1), labels.get(2).get(0)));
+        assertEquals(5, memo.getStats().sentences());
+        assertEquals(2, memo.getStats().parsed());
+
+        memo.sentenceLabels(List.of("The treatment was excellent."));
+        assertEquals(2, memo.getStats().parsed());
+    }
+
+    @Test
+    void shouldLeaveSentencesLongerThanTheParserLimitWithoutLabel() {
+        ParallelAnnotator parallelAnnotator = nlp.parallelAnnotator();
+        SentenceSentimentMemo limited = new SentenceSentimentMemo(parallelAnnotator, nlp.pool(),
+                new BudgetedAnnotator(parallelAnnotator, 30000, 5000, 8), 1000);
+        List<String> texts = List.of("Rest is recommended. The family was very unhappy with the long waiting times.");
+
+        for (int round = 1; round <= 2; round++) {
+            List<String> labels = limited.sentenceLabels(texts).get(0);
+            assertNotNull(labels.get(0));
+            assertNull(labels.get(1));
+        }
+        // la frase larga no se memoiza: se vuelve a intentar, y no cuenta como falta de tiempo
+        assertEquals(3, limited.getStats().parsed());
+        assertEquals(2, limited.getStats().tooLong());
+        assertEquals(0, limited.getStats().timedOut());
+        assertEquals(1, limited.getStats().cachedLabels());
+    }
+
+    @Test
+    void shouldNormalizeWhitespace() {
+        assertEquals("Se recomienda reposo.", SentenceSentimentMemo.normalize("  Se \t recomienda\nreposo. "));
+    }
+}
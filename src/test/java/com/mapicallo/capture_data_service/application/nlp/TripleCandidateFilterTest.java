@@ -0,0 +1,54 @@
+package com.mapicallo.capture_data_service.application.nlp;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TripleCandidateFilterTest {
+
+    private static NlpTestSupport nlp;
+    private static TripleCandidateFilter filter;
+
+    @BeforeAll
+    static void createFilter() {
+        nlp = new NlpTestSupport(1, 1);
+        filter = new TripleCandidateFilter(new BudgetedAnnotator(nlp.parallelAnnotator(), 0, 0, 80), true, 2, List.of("married"));
+    }
+
+    @AfterAll
+    static void shutdown() {
+        nlp.close();
+    }
+
+    @Test
+    void shouldKeepOnlySentencesThatMayHoldARelation() {
+        TripleCandidateFilter.Selection selection = filter.select(List.of(
+                "Barack Obama was born in Hawaii.",
+                "The patient is resting. Barack Obama visited Google in California.",
+                "The patient is resting.",
+                "She married Michelle Smith."
+        ), Deadline.NONE);
+
+        assertEquals(5, selection.sentences());
+        assertEquals(2, selection.filtered());
+        // el primer documento pasa entero; del segundo solo su frase candidata; el tercero no pasa
+        assertEquals(List.of(
+                "Barack Obama was born in Hawaii.",
+                "Barack Obama visited Google in California.",
+                "She married Michelle Smith."
+        ), selection.texts());
+        assertEquals(List.of("a", "b", "-", "c"), selection.expand(List.of("a", "b", "c"), "-"));
+    }
+
+    @Test
+    void shouldPassEveryTextWithoutFiltering() {
+        TripleCandidateFilter.Selection selection = TripleCandidateFilter.all(List.of("One.", "Two."));
+
+        assertEquals(List.of("One.", "Two."), selection.texts());
+        assertEquals(0, selection.filtered());
+    }
+}
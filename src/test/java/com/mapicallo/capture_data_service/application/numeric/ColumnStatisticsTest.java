@@ -0,0 +1,114 @@
+package com.mapicallo.capture_data_service.application.numeric;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Random;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ColumnStatisticsTest {
+
+    private static final double EPSILON = 1e-9;
+
+    @Test
+    void runningMomentsShouldMatchTheBatchKernelsAndMerge() {
+        Random random = new Random(3);
+        double[] values = random.doubles(10_000, 1e9 - 50, 1e9 + 50).toArray();
+        RunningMoments all = new RunningMoments();
+        RunningMoments first = new RunningMoments();
+        RunningMoments second = new RunningMoments();
+        // bloques de tamaños distintos, como el último bloque parcial de una columna
+        int[] bounds = {0, 1, 1_000, 3_000, 7_096, 10_000};
+        for (int b = 0; b + 1 < bounds.length; b++) {
+            Moments block = NumericKernels.moments(Arrays.copyOfRange(values, bounds[b], bounds[b + 1]));
+            all.merge(block);
+            (bounds[b] < 3_000 ? first : second).merge(block);
+        }
+        all.merge(NumericKernels.moments(new double[0]));
+        first.merge(second);
+
+        Moments expected = NumericKernels.moments(values);
+        for (RunningMoments moments : new RunningMoments[]{all, first}) {
+            assertEquals(expected.count(), moments.count());
+            assertEquals(expected.mean(), moments.mean(), 1e-5);
+            assertEquals(expected.variance(), moments.variance(), 1e-8 * expected.variance());
+            assertEquals(expected.min(), moments.min());
+            assertEquals(expected.max(), moments.max());
+        }
+        assertTrue(Double.isNaN(new RunningMoments().mean()));
+    }
+
+    @Test
+    void sketchShouldBeExactUntilItCompactsAndThenStayWithinItsRankError() {
+        KllSketch small = new KllSketch();
+        for (int i = 100; i >= 1; i--) small.add(i);
+        assertTrue(small.isExact());
+        assertEquals(0, small.rankError());
+        assertArrayEquals(new double[]{1, 50, 95, 99, 100}, small.quantiles(0, 0.5, 0.95, 0.99, 1), EPSILON);
+
+        int n = 1_000_000;
+        SplittableRandom random = new SplittableRandom(5);
+        double[] values = new double[n];
+        KllSketch whole = new KllSketch();
+        KllSketch left = new KllSketch(KllSketch.DEFAULT_K, new SplittableRandom(1));
+        KllSketch right = new KllSketch(KllSketch.DEFAULT_K, new SplittableRandom(2));
+        for (int i = 0; i < n; i++) {
+            // distribución sesgada, como tiempos o importes
+            values[i] = Math.exp(random.nextGaussian() * 1.5);
+            whole.add(values[i]);
+            (i % 2 == 0 ? left : right).add(values[i]);
+        }
+        left.merge(right);
+        Arrays.sort(values);
+
+        for (KllSketch sketch : new KllSketch[]{whole, left}) {
+            assertFalse(sketch.isExact());
+            assertEquals(n, sketch.count());
+            // memoria acotada: unos 3k valores de un millón
+            assertTrue(sketch.retained() < 4 * KllSketch.DEFAULT_K, String.valueOf(sketch.retained()));
+            for (double fraction : new double[]{0.01, 0.25, 0.5, 0.95, 0.99}) {
+                double estimate = sketch.quantile(fraction);
+                double rank = (double) lowerBound(values, estimate) / n;
+                assertEquals(fraction, rank, sketch.rankError(), "cuantil " + fraction);
+            }
+        }
+        assertThrows(IllegalArgumentException.class, () -> whole.merge(new KllSketch(100)));
+    }
+
+    @Test
+    void summarizerShouldStreamEveryNumericColumn() throws IOException {
+        StringBuilder csv = new StringBuilder();
+        for (int i = 1; i <= 5_000; i++) csv.append(i).append(',').append(i % 2 == 0 ? "sí" : "no").append(',').append(i * 0.5).append('\n');
+        csv.append("1,-,3,4\n");
+
+        Map<String, ColumnStatistics> columns = new ColumnSummarizer(64)
+                .summarize(new String[]{"id", "flag", "half"}, new BufferedReader(new StringReader(csv.toString())));
+
+        assertEquals(2, columns.size());
+        // más valores que un bloque de ColumnStatistics: momentos combinados de varios bloques
+        assertTrue(5_001 > ColumnStatistics.BATCH_SIZE);
+        assertEquals(5_001, columns.get("id").moments().count());
+        assertEquals((5_000 * 5_001 / 2 + 1) / 5_001.0, columns.get("id").moments().mean(), EPSILON);
+        assertEquals(1, columns.get("id").moments().min());
+        assertEquals(5_000 * 0.5, columns.get("half").moments().max(), EPSILON);
+        KllSketch sketch = columns.get("id").sketch();
+        assertEquals(64, sketch.k());
+        assertEquals(2_500, sketch.quantile(0.5), 5_001 * sketch.rankError());
+    }
+
+    // posición del primer valor >= value
+    private static int lowerBound(double[] sorted, double value) {
+        int low = 0, high = sorted.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sorted[mid] < value) low = mid + 1; else high = mid;
+        }
+        return low;
+    }
+}
@@ -0,0 +1,87 @@
+package com.mapicallo.capture_data_service.application.numeric;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Microbenchmark (JMH) de los núcleos numéricos: estadísticos de un bloque de columna frente a la
+ * implementación anterior (varias pasadas de streams sobre {@code List<Double>}) y el producto
+ * escalar de la normalización de centroides, escalar frente a vectorial.
+ *
+ * <p>No es un test: se ejecuta con su método {@code main} (desde el IDE o con el classpath de
+ * test tras {@code mvn test-compile}).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+public class NumericKernelsBenchmark {
+
+    @Param({"1000", "100000"})
+    int length;
+
+    private List<Double> boxed;
+    private double[] column;
+    private double[] a;
+    private double[] b;
+
+    private final Kernels scalar = new ScalarKernels();
+    private final Kernels vector = new VectorKernels();
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        column = random.doubles(length, 0, 120).toArray();
+        boxed = new ArrayList<>(length);
+        for (double v : column) boxed.add(v);
+        a = random.doubles(length).toArray();
+        b = random.doubles(length).toArray();
+    }
+
+    // cálculo anterior de summarizeBigDataFromFile
+    @Benchmark
+    public Map<String, Double> statsStreams() {
+        double sum = boxed.stream().mapToDouble(Double::doubleValue).sum();
+        double mean = sum / boxed.size();
+        double variance = boxed.stream().mapToDouble(v -> Math.pow(v - mean, 2)).sum() / boxed.size();
+        return Map.of(
+                "mean", mean,
+                "std_dev", Math.sqrt(variance),
+                "min", boxed.stream().mapToDouble(Double::doubleValue).min().orElse(0),
+                "max", boxed.stream().mapToDouble(Double::doubleValue).max().orElse(0));
+    }
+
+    @Benchmark
+    public Moments statsScalar() {
+        return scalar.moments(column, length);
+    }
+
+    @Benchmark
+    public Moments statsVector() {
+        return vector.moments(column, length);
+    }
+
+    @Benchmark
+    public double dotScalar() {
+        return scalar.dot(a, b, length);
+    }
+
+    @Benchmark
+    public double dotVector() {
+        return vector.dot(a, b, length);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(NumericKernelsBenchmark.class.getSimpleName()).build()).run();
+    }
+}
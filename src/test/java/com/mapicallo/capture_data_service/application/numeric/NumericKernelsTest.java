@@ -0,0 +1,100 @@
+package com.mapicallo.capture_data_service.application.numeric;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NumericKernelsTest {
+
+    private static final double EPSILON = 1e-9;
+
+    @Test
+    void shouldLoadTheVectorKernelsWhenTheModuleIsAvailable() {
+        // los tests se ejecutan con --add-modules jdk.incubator.vector (pom.xml)
+        assertTrue(NumericKernels.implementation().startsWith("vector"), NumericKernels.implementation());
+    }
+
+    @Test
+    void scalarAndVectorKernelsShouldAgreeWithTheNaiveComputation() {
+        Random random = new Random(7);
+        for (Kernels kernels : implementations()) {
+            // longitudes con y sin resto respecto al ancho del vector
+            for (int length = 0; length <= 67; length++) {
+                double[] a = random.doubles(length, -50, 50).toArray();
+                double[] b = random.doubles(length, -50, 50).toArray();
+
+                double dot = 0;
+                for (int i = 0; i < length; i++) dot += a[i] * b[i];
+                assertEquals(dot, kernels.dot(a, b, length), EPSILON, kernels.name());
+
+                double[] scaled = a.clone();
+                kernels.scaleAndAdd(scaled, 3, b, length);
+                for (int i = 0; i < length; i++) assertEquals(3 * a[i] + b[i], scaled[i], EPSILON);
+
+                if (length == 0) {
+                    assertEquals(0, kernels.moments(a, 0).count());
+                    continue;
+                }
+                double sum = 0;
+                double min = Double.POSITIVE_INFINITY;
+                double max = Double.NEGATIVE_INFINITY;
+                for (double v : a) {
+                    sum += v;
+                    min = Math.min(min, v);
+                    max = Math.max(max, v);
+                }
+                double mean = sum / length;
+                double variance = 0;
+                for (double v : a) variance += (v - mean) * (v - mean);
+                variance /= length;
+
+                Moments moments = kernels.moments(a, length);
+                assertEquals(length, moments.count());
+                assertEquals(sum, moments.sum(), EPSILON);
+                assertEquals(variance, moments.variance(), EPSILON);
+                assertEquals(min, moments.min());
+                assertEquals(max, moments.max());
+            }
+        }
+    }
+
+    @Test
+    void varianceShouldStayAccurateWithLargeOffsets() {
+        double[] values = new double[1000];
+        for (int i = 0; i < values.length; i++) values[i] = 1e9 + (i % 2 == 0 ? 1 : -1);
+
+        for (Kernels kernels : implementations()) {
+            Moments moments = kernels.moments(values, values.length);
+            assertEquals(1e9, moments.mean(), 1e-6, kernels.name());
+            assertEquals(1.0, moments.stdDev(), 1e-9, kernels.name());
+        }
+    }
+
+    @Test
+    void momentsOfAPrefixAndNormalizeShouldProduceUnitVectors() {
+        double[] values = new double[128];
+        for (int i = 0; i < 100; i++) values[i] = i + 1;
+        Moments moments = NumericKernels.moments(values, 100);
+        assertEquals(100, moments.count());
+        assertEquals(50.5, moments.mean(), EPSILON);
+        assertEquals(1, moments.min());
+        assertEquals(100, moments.max());
+        assertThrows(IllegalArgumentException.class, () -> NumericKernels.moments(values, 129));
+
+        double[] vector = {3, 0, 4};
+        NumericKernels.normalize(vector);
+        assertArrayEquals(new double[]{0.6, 0, 0.8}, vector, EPSILON);
+        assertThrows(IllegalArgumentException.class, () -> NumericKernels.scaleAndAdd(new double[2], 1, new double[3]));
+    }
+
+    private static List<Kernels> implementations() {
+        List<Kernels> kernels = new ArrayList<>();
+        kernels.add(new ScalarKernels());
+        kernels.add(new VectorKernels());
+        return kernels;
+    }
+}
@@ -0,0 +1,133 @@
+package com.mapicallo.capture_data_service.application.similarity;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SimilarityIndexTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void shouldFindTheSameNeighboursAsExhaustiveSearch() {
+        // solo en memoria: la precisión no depende de la instantánea
+        SimilarityIndex index = new SimilarityIndex("", 16, 100, 64);
+        List<String> texts = syntheticNotes(1000, 1);
+        for (int i = 0; i < texts.size(); i++) index.add("doc-" + i, texts.get(i));
+
+        List<String> queries = syntheticNotes(30, 2);
+        int found = 0;
+        for (String query : queries) {
+            Set<String> exact = new HashSet<>();
+            for (SimilarityIndex.Match match : index.exactSearch(query, 10)) exact.add(match.id());
+            for (SimilarityIndex.Match match : index.search(query, 10, 0)) {
+                if (exact.contains(match.id())) found++;
+            }
+        }
+        double recall = found / (30.0 * 10);
+        assertTrue(recall >= 0.9, "recall@10 = " + recall);
+    }
+
+    @Test
+    void shouldSkipRepeatedTextsAndSurviveSnapshots() throws IOException {
+        SimilarityIndex index = newIndex();
+        assertTrue(index.add("a", "Bronquitis aguda con tos productiva y fiebre"));
+        assertTrue(index.add("b", "Migración del servidor de software hospitalario"));
+        assertFalse(index.add("c", "Bronquitis aguda con tos productiva y fiebre"));
+        assertFalse(index.add("d", "y a"));
+        index.save();
+
+        SimilarityIndex reloaded = newIndex();
+        reloaded.load();
+
+        assertEquals(2, reloaded.size());
+        List<SimilarityIndex.Match> matches = reloaded.search("fiebre y tos", 1, 0);
+        assertEquals("a", matches.get(0).id());
+        assertEquals(index.search("fiebre y tos", 1, 0), matches);
+        assertTrue(reloaded.search("palabras desconocidas", 5, 0).isEmpty());
+        index.shutdown();
+        reloaded.shutdown();
+    }
+
+    @Test
+    void concurrentFileInsertsShouldAllReachTheSnapshot() throws Exception {
+        List<String> texts = syntheticNotes(200, 3);
+        Path first = directory.resolve("primero.json");
+        Path second = directory.resolve("segundo.json");
+        Files.writeString(first, jsonOf(texts.subList(0, 100)));
+        Files.writeString(second, jsonOf(texts.subList(100, 200)));
+        SimilarityIndex index = newIndex();
+
+        // la ingesta en segundo plano y una petición escriben a la vez
+        Thread ingest = new Thread(() -> {
+            try {
+                index.addFile(first);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        ingest.start();
+        assertEquals(100, index.addFile(second));
+        ingest.join();
+        index.shutdown();
+
+        SimilarityIndex reloaded = newIndex();
+        reloaded.load();
+        assertEquals(200, reloaded.size());
+        assertEquals("primero.json#7", reloaded.search(texts.get(7), 1, 0).get(0).id());
+        assertEquals("segundo.json#7", reloaded.search(texts.get(107), 1, 0).get(0).id());
+        try (var files = Files.list(directory)) {
+            assertEquals(Set.of("index.bin", "primero.json", "segundo.json"),
+                    new HashSet<>(files.map(file -> file.getFileName().toString()).toList()));
+        }
+        reloaded.shutdown();
+    }
+
+    @Test
+    void shouldKeyFileDocumentsByFileNameAndId() throws IOException {
+        Path file = directory.resolve("notas.json");
+        Files.writeString(file, "[{\"id\": 1, \"text\": \"Bronquitis aguda con fiebre\"},"
+                + " {\"id\": \"a-7\", \"text\": \"Fractura de cadera en paciente anciano\"},"
+                + " {\"text\": \"Migración del servidor hospitalario\"}]");
+        SimilarityIndex index = newIndex();
+
+        assertEquals(3, index.addFile(file));
+        assertEquals("notas.json#1", index.search("bronquitis con fiebre", 1, 0).get(0).id());
+        assertEquals("notas.json#a-7", index.search("fractura de cadera", 1, 0).get(0).id());
+        assertEquals("notas.json#2", index.search("servidor hospitalario", 1, 0).get(0).id());
+        index.shutdown();
+    }
+
+    private SimilarityIndex newIndex() {
+        return new SimilarityIndex(directory.resolve("index.bin").toString(), 16, 100, 64);
+    }
+
+    private static String jsonOf(List<String> texts) {
+        StringJoiner json = new StringJoiner(",", "[", "]");
+        for (int i = 0; i < texts.size(); i++) json.add("{\"id\": " + i + ", \"text\": \"" + texts.get(i) + "\"}");
+        return json.toString();
+    }
+
+    private static List<String> syntheticNotes(int count, long seed) {
+        Random random = new Random(seed);
+        List<String> notes = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int topic = random.nextInt(20);
+            StringBuilder note = new StringBuilder();
+            for (int w = 0; w < 30; w++) {
+                int term = random.nextDouble() < 0.6 ? topic * 50 + random.nextInt(50) : random.nextInt(2000);
+                note.append("term").append(term).append(' ');
+            }
+            notes.add(note.toString());
+        }
+        return notes;
+    }
+}
@@ -0,0 +1,89 @@
+package com.mapicallo.capture_data_service.application.storage;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SnapshotFileTest {
+
+    private static final int MAGIC = 0x54535431;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void flushShouldWaitForTheBackgroundSaveAndLeaveNoTemporaryFiles() throws IOException {
+        AtomicInteger state = new AtomicInteger();
+        SnapshotFile snapshot = new SnapshotFile(directory.resolve("state.bin"), MAGIC, "state", out -> out.writeInt(state.get()));
+        try {
+            for (int i = 1; i <= 50; i++) {
+                state.set(i);
+                snapshot.changed();
+            }
+            snapshot.flush();
+            assertEquals(50, read(snapshot));
+            try (Stream<Path> files = Files.list(directory)) {
+                assertEquals(List.of(directory.resolve("state.bin")), files.toList());
+            }
+        } finally {
+            snapshot.close();
+        }
+        assertThrows(IOException.class, () -> new SnapshotFile(directory.resolve("state.bin"), MAGIC + 1, "other", out -> {
+        }).read(in -> {
+        }));
+    }
+
+    @Test
+    void concurrentSavesShouldNeverLeaveAnOlderSnapshot() throws Exception {
+        AtomicInteger version = new AtomicInteger();
+        SnapshotFile snapshot = new SnapshotFile(directory.resolve("state.bin"), MAGIC, "state", (DataOutputStream out) -> {
+            int current = version.incrementAndGet();
+            Thread.yield();
+            out.writeInt(current);
+        });
+        List<Thread> writers = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            Thread writer = new Thread(() -> {
+                for (int i = 0; i < 25; i++) {
+                    try {
+                        snapshot.save();
+                    } catch (IOException e) {
+                        throw new IllegalStateException(e);
+                    }
+                }
+            });
+            writers.add(writer);
+            writer.start();
+        }
+        for (Thread writer : writers) writer.join();
+        snapshot.close();
+        assertEquals(version.get(), read(snapshot));
+    }
+
+    @Test
+    void emptyPathShouldKeepEverythingInMemory() throws IOException {
+        assertNull(SnapshotFile.pathOf(" "));
+        SnapshotFile snapshot = new SnapshotFile(SnapshotFile.pathOf(""), MAGIC, "state", out -> fail("no debe escribirse"));
+        snapshot.changed();
+        snapshot.save();
+        snapshot.flush();
+        snapshot.close();
+        assertFalse(snapshot.read(in -> fail("no debe leerse")));
+    }
+
+    private static int read(SnapshotFile snapshot) throws IOException {
+        int[] value = new int[1];
+        assertTrue(snapshot.read(in -> value[0] = in.readInt()));
+        return value[0];
+    }
+}
@@ -0,0 +1,39 @@
+package com.mapicallo.capture_data_service.application.text;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AhoCorasickTest {
+
+    @Test
+    void shouldReportOverlappingMatchesInOnePass() {
+        AhoCorasick automaton = new AhoCorasick(List.of("he", "she", "his", "hers"));
+        List<String> matches = new ArrayList<>();
+
+        automaton.scan("ushers", 0, 6, (id, end) -> matches.add(id + "@" + end));
+
+        assertEquals(List.of("0@4", "1@4", "3@6"), matches);
+    }
+
+    @Test
+    void shouldIgnoreCaseAndReturnLowestPatternId() {
+        AhoCorasick automaton = new AhoCorasick(List.of("fiebre", "dolor", "síntoma"));
+
+        assertEquals(0, automaton.firstPattern("Presenta DOLOR y Fiebre alta", 0, 28));
+        assertEquals(2, automaton.firstPattern("Síntomas leves", 0, 14));
+        assertEquals(-1, automaton.firstPattern("Sin hallazgos", 0, 13));
+    }
+
+    @Test
+    void shouldRespectScanRange() {
+        AhoCorasick automaton = new AhoCorasick(List.of("dolor"));
+        String text = "dolor. Nada más.";
+
+        assertEquals(0, automaton.firstPattern(text, 0, 6));
+        assertEquals(-1, automaton.firstPattern(text, 7, text.length()));
+    }
+}
@@ -0,0 +1,92 @@
+package com.mapicallo.capture_data_service.application.text;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DocumentFrequencyIndexTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void shouldCountEachDocumentOnceAndSurviveReload() throws IOException {
+        DocumentFrequencyIndex index = new DocumentFrequencyIndex(directory.resolve("df.bin").toString());
+        assertTrue(index.addDocument("aa".repeat(32), new String[]{"paciente", "fiebre", "paciente"}));
+        assertTrue(index.addDocument("bb".repeat(32), new String[]{"paciente", "disnea"}));
+        assertFalse(index.addDocument("aa".repeat(32), new String[]{"paciente", "fiebre"}));
+        index.save();
+
+        DocumentFrequencyIndex reloaded = new DocumentFrequencyIndex(directory.resolve("df.bin").toString());
+        reloaded.load();
+
+        assertEquals(2, reloaded.documentCount());
+        assertEquals(2, reloaded.documentFrequency("paciente"));
+        assertEquals(1, reloaded.documentFrequency("fiebre"));
+        assertEquals(0, reloaded.documentFrequency("tos"));
+        assertFalse(reloaded.addDocument("bb".repeat(32), new String[]{"disnea"}));
+    }
+
+    @Test
+    void shouldIgnoreATruncatedSnapshotEntirely() throws IOException {
+        Path file = directory.resolve("df.bin");
+        DocumentFrequencyIndex index = new DocumentFrequencyIndex(file.toString());
+        assertTrue(index.addDocument("aa".repeat(32), new String[]{"paciente", "fiebre"}));
+        assertTrue(index.addDocument("bb".repeat(32), new String[]{"paciente", "disnea"}));
+        index.save();
+        // cortado a mitad de las huellas: los contadores y el vocabulario ya se habrían leído
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length - 40));
+
+        DocumentFrequencyIndex reloaded = new DocumentFrequencyIndex(file.toString());
+        reloaded.load();
+
+        assertEquals(0, reloaded.documentCount());
+        assertEquals(0, reloaded.documentFrequency("paciente"));
+        assertTrue(reloaded.addDocument("aa".repeat(32), new String[]{"paciente"}));
+        assertEquals(1, reloaded.documentFrequency("paciente"));
+    }
+
+    @Test
+    void shouldForgetTheOldestFingerprintsBeyondTheLimit() throws IOException {
+        DocumentFrequencyIndex index = new DocumentFrequencyIndex(directory.resolve("df.bin").toString(), 2);
+        assertTrue(index.addDocument("aa".repeat(32), new String[]{"fiebre"}));
+        assertTrue(index.addDocument("bb".repeat(32), new String[]{"tos"}));
+        assertTrue(index.addDocument("cc".repeat(32), new String[]{"disnea"}));
+        index.save();
+
+        DocumentFrequencyIndex reloaded = new DocumentFrequencyIndex(directory.resolve("df.bin").toString(), 2);
+        reloaded.load();
+        assertFalse(reloaded.addDocument("cc".repeat(32), new String[]{"disnea"}));
+        assertFalse(reloaded.addDocument("bb".repeat(32), new String[]{"tos"}));
+        // la huella más antigua se olvidó: el mismo texto vuelve a contarse
+        assertTrue(reloaded.addDocument("aa".repeat(32), new String[]{"fiebre"}));
+        assertEquals(2, reloaded.documentFrequency("fiebre"));
+    }
+
+    @Test
+    void shouldRankCorpusSpecificTermsAboveGenericOnes() {
+        DocumentFrequencyIndex index = new DocumentFrequencyIndex(directory.resolve("df.bin").toString());
+        for (int i = 0; i < 10; i++) {
+            index.addDocument(String.format("%064x", i), new String[]{"paciente", "tratamiento", "control" + i});
+        }
+
+        TermDictionary terms = new TermDictionary();
+        int[] ids = new int[4];
+        ids[0] = terms.intern("neumonía");
+        for (int i = 1; i < ids.length; i++) {
+            ids[i] = terms.intern("paciente");
+        }
+
+        TopK topK = new TopK(1);
+        index.score(BagOfWords.of(ids, ids.length), terms, topK);
+
+        assertArrayEquals(new int[]{terms.idOf("neumonía")}, topK.drainDescending());
+    }
+}
@@ -0,0 +1,37 @@
+package com.mapicallo.capture_data_service.application.text;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExtractiveSummarizerTest {
+
+    private final ExtractiveSummarizer summarizer = new ExtractiveSummarizer();
+
+    private static final String REPORT = "Paciente con fiebre alta. Se pauta reposo. "
+            + "La fiebre persiste y el paciente refiere tos con fiebre nocturna. Buen ánimo. "
+            + "Control de fiebre del paciente en una semana.";
+
+    @Test
+    void shouldSelectTopSentencesInOriginalOrder() {
+        ExtractiveSummarizer.Summary summary = summarizer.summarize(REPORT, 2);
+
+        assertEquals(5, summary.originalLength());
+        assertEquals(List.of(
+                "La fiebre persiste y el paciente refiere tos con fiebre nocturna.",
+                "Control de fiebre del paciente en una semana."), summary.sentences());
+    }
+
+    @Test
+    void shouldIgnoreCaseAndReuseBuffersAcrossDocuments() {
+        summarizer.summarize(REPORT, 3);
+        ExtractiveSummarizer.Summary summary = summarizer.summarize("DOLOR torácico. Sin cambios. Dolor leve.", 5);
+
+        assertEquals(3, summary.originalLength());
+        assertEquals(List.of("DOLOR torácico.", "Sin cambios.", "Dolor leve."), summary.sentences());
+        assertEquals(List.of("DOLOR torácico."), summarizer.summarize("DOLOR torácico. Sin cambios. Dolor leve.", 1).sentences());
+        assertEquals(0, summarizer.summarize("  ", 3).originalLength());
+    }
+}
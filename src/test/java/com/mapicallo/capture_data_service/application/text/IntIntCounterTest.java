@@ -0,0 +1,49 @@
+package com.mapicallo.capture_data_service.application.text;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IntIntCounterTest {
+
+    @Test
+    void shouldMatchBoxedMapCountsAcrossGrowth() {
+        IntIntCounter counter = new IntIntCounter(2);
+        Map<Integer, Integer> expected = new HashMap<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 10_000; i++) {
+            int key = random.nextInt(3_000);
+            counter.increment(key);
+            expected.merge(key, 1, Integer::sum);
+        }
+
+        assertEquals(expected.size(), counter.size());
+        expected.forEach((key, count) -> assertEquals(count, counter.get(key)));
+        assertEquals(0, counter.get(5_000));
+    }
+
+    @Test
+    void shouldBuildSortedBagOfWords() {
+        TermDictionary terms = new TermDictionary(true);
+        int[] ids = new int[5];
+        String[] tokens = {"Fiebre", "tos", "fiebre", "FIEBRE", "disnea"};
+        for (int i = 0; i < tokens.length; i++) {
+            ids[i] = terms.intern(tokens[i]);
+        }
+
+        BagOfWords bag = BagOfWords.of(ids, ids.length);
+
+        assertEquals(3, terms.size());
+        assertEquals("fiebre", terms.term(0));
+        assertEquals(3, bag.size());
+        assertEquals(0, bag.termId(0));
+        assertEquals(3, bag.count(0));
+        assertEquals(5, bag.totalCount());
+        assertEquals(-1, terms.idOf("neumonía"));
+        assertEquals(1, terms.idOf("xtosx", 1, 4));
+    }
+}
@@ -0,0 +1,55 @@
+package com.mapicallo.capture_data_service.application.text;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SegmentationEngineTest {
+
+    private final SegmentationEngine engine = new SegmentationEngine(dictionary());
+
+    @Test
+    void shouldAssignSentencesByCategoryPriority() {
+        Map<String, String> segments = engine.segment(
+                "El paciente refiere fiebre. Se prescribe paracetamol para el dolor. Se recomienda reposo.");
+
+        assertEquals(Map.of(
+                "síntomas", "Se prescribe paracetamol para el dolor.",
+                "recomendaciones", "Se recomienda reposo."), segments);
+    }
+
+    @Test
+    void shouldNotSplitOnAbbreviationsOrDecimals() {
+        List<String> sentences = SentenceSplitter.split(
+                "Atendido por la Dra. García con 37.5 grados de fiebre. ¿Tiene dolor? Sí.\n\nSin alergias");
+
+        assertEquals(List.of(
+                "Atendido por la Dra. García con 37.5 grados de fiebre.",
+                "¿Tiene dolor?",
+                "Sí.",
+                "Sin alergias"), sentences);
+    }
+
+    @Test
+    void shouldLoadDefaultDictionaryInPriorityOrder() {
+        SegmentationEngine defaults = new SegmentationEngine(
+                new ClassPathResource("segmentation-dictionary.json"));
+
+        assertEquals(List.of("síntomas", "antecedentes", "tratamiento", "recomendaciones"),
+                defaults.categories().subList(0, 4));
+        assertEquals("Se aconseja dieta blanda.", defaults.segment("Se aconseja dieta blanda.").get("recomendaciones"));
+    }
+
+    private static LinkedHashMap<String, List<String>> dictionary() {
+        LinkedHashMap<String, List<String>> dictionary = new LinkedHashMap<>();
+        dictionary.put("síntomas", List.of("síntoma", "fiebre", "dolor"));
+        dictionary.put("tratamiento", List.of("prescribe", "tratamiento"));
+        dictionary.put("recomendaciones", List.of("recomienda", "aconseja"));
+        return dictionary;
+    }
+}
@@ -0,0 +1,25 @@
+package com.mapicallo.capture_data_service.application.text;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TextScannerTest {
+
+    @Test
+    void shouldKeepAccentedWordsWholeWithinTheRange() {
+        String text = "xx Neumonía, año 2024 (T-37.5ºC) xx";
+        TextScanner scanner = new TextScanner().reset(text, 3, text.length() - 3);
+
+        List<String> tokens = new ArrayList<>();
+        while (scanner.next()) {
+            tokens.add(text.substring(scanner.tokenStart(), scanner.tokenEnd()));
+        }
+
+        assertEquals(List.of("Neumonía", "año", "2024", "T", "37", "5ºC"), tokens);
+        assertFalse(scanner.next());
+    }
+}
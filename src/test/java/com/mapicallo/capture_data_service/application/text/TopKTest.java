@@ -0,0 +1,29 @@
+package com.mapicallo.capture_data_service.application.text;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TopKTest {
+
+    @Test
+    void shouldKeepHighestScoresInDescendingOrder() {
+        TopK topK = new TopK(3);
+        double[] scores = {0.5, 2.0, 0.1, 3.5, 2.0, 1.0};
+        for (int i = 0; i < scores.length; i++) {
+            topK.offer(i, scores[i]);
+        }
+
+        assertArrayEquals(new int[]{3, 1, 4}, topK.drainDescending());
+        assertEquals(0, topK.size());
+    }
+
+    @Test
+    void shouldReturnFewerThanKWhenNotEnoughCandidates() {
+        TopK topK = new TopK(5);
+        topK.offer(7, 1.0);
+        topK.offer(2, 4.0);
+
+        assertArrayEquals(new int[]{2, 7}, topK.drainDescending());
+    }
+}
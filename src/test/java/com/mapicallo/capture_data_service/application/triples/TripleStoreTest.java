@@ -0,0 +1,128 @@
+package com.mapicallo.capture_data_service.application.triples;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TripleStoreTest {
+
+    @TempDir
+    Path directory;
+
+    private final List<TripleStore> stores = new ArrayList<>();
+
+    // espera a las instantáneas en segundo plano antes de que se borre el directorio temporal
+    @AfterEach
+    void shutdown() {
+        stores.forEach(TripleStore::shutdown);
+    }
+
+    @Test
+    void shouldDeduplicateTriplesAndCombineConfidencePerSource() {
+        TripleStore store = newStore();
+        assertEquals(2, store.addAll(List.of(
+                new TripleStore.Triple("Pérez", "per:title", "doctor", 0.5, "a.json#1"),
+                new TripleStore.Triple("Rodríguez", "per:title", "doctor", 1.0, "a.json#1"))));
+        // misma tripleta desde otro documento (otra forma del sujeto) y repetida desde el mismo
+        assertEquals(0, store.addAll(List.of(
+                new TripleStore.Triple("  pérez ", "per:title", "Doctor", 0.5, "b.json#7"),
+                new TripleStore.Triple("Pérez", "per:title", "doctor", 0.9, "a.json#1"))));
+
+        List<TripleStore.Match> matches = store.match("PÉREZ", "*", null, 10);
+        assertEquals(List.of(new TripleStore.Match("Pérez", "per:title", "doctor", 0.75, 2)), matches);
+        assertEquals(2, store.size());
+    }
+
+    @Test
+    void shouldAnswerEveryPatternLikeAScan() {
+        TripleStore store = newStore();
+        Random random = new Random(7);
+        List<TripleStore.Triple> triples = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            triples.add(new TripleStore.Triple("s" + random.nextInt(40), "r" + random.nextInt(5), "o" + random.nextInt(40), 0.5, "doc#" + i));
+        }
+        store.addAll(triples.subList(0, 1000));
+        store.addAll(triples.subList(1000, 2000));
+
+        Set<String> distinct = new HashSet<>();
+        for (TripleStore.Triple triple : triples) distinct.add(triple.subject() + " " + triple.relation() + " " + triple.object());
+        assertEquals(distinct.size(), store.size());
+
+        String[][] patterns = {
+                {"s3", null, null}, {"s3", "r1", null}, {"s3", "r1", "o5"}, {"s3", null, "o5"},
+                {null, "r2", null}, {null, "r2", "o9"}, {null, null, "o9"}, {null, null, null}
+        };
+        for (String[] pattern : patterns) {
+            Set<String> expected = new HashSet<>();
+            for (String triple : distinct) {
+                String[] terms = triple.split(" ");
+                if ((pattern[0] == null || pattern[0].equals(terms[0]))
+                        && (pattern[1] == null || pattern[1].equals(terms[1]))
+                        && (pattern[2] == null || pattern[2].equals(terms[2]))) {
+                    expected.add(triple);
+                }
+            }
+            Set<String> actual = new HashSet<>();
+            for (TripleStore.Match match : store.match(pattern[0], pattern[1], pattern[2], Integer.MAX_VALUE)) {
+                actual.add(match.subject() + " " + match.relation() + " " + match.object());
+            }
+            assertEquals(expected, actual, Arrays.toString(pattern));
+            assertEquals(expected.size(), store.count(pattern[0], pattern[1], pattern[2]));
+        }
+        assertEquals(3, store.match(null, null, null, 3).size());
+        assertTrue(store.match("desconocido", null, null, 10).isEmpty());
+    }
+
+    @Test
+    void shouldReturnNeighbourhoodAndSurviveSnapshots() {
+        TripleStore store = newStore();
+        store.addAll(List.of(
+                new TripleStore.Triple("Pérez", "per:title", "doctor", 1.0, "a#1"),
+                new TripleStore.Triple("Clínica Vega", "org:top_members_employees", "Pérez", 0.8, "a#2"),
+                new TripleStore.Triple("Castro", "per:title", "paciente", 0.6, "a#3")));
+        // la instantánea programada por la inserción
+        store.flush();
+
+        TripleStore reloaded = newStore();
+        reloaded.load();
+
+        TripleStore.Neighbourhood neighbourhood = reloaded.neighbourhood("pérez", 10);
+        assertEquals("Pérez", neighbourhood.entity());
+        assertEquals(List.of(new TripleStore.Match("Pérez", "per:title", "doctor", 1.0, 1)), neighbourhood.outgoing());
+        assertEquals(List.of(new TripleStore.Match("Clínica Vega", "org:top_members_employees", "Pérez", 0.8, 1)), neighbourhood.incoming());
+        assertEquals(store.match(null, "per:title", null, 10), reloaded.match(null, "per:title", null, 10));
+
+        // las fuentes ya vistas se conservan: repetir la extracción no cambia la confianza
+        reloaded.addAll(List.of(new TripleStore.Triple("Castro", "per:title", "paciente", 0.6, "a#3")));
+        assertEquals(0.6, reloaded.match("Castro", null, null, 1).get(0).confidence(), 1e-9);
+    }
+
+    @Test
+    void shouldRejectABatchThatDoesNotFitWithoutChangingTheStore() {
+        TripleStore store = new TripleStore(directory.resolve("store.bin").toString(), 4);
+        stores.add(store);
+        store.addAll(List.of(new TripleStore.Triple("Pérez", "per:title", "doctor", 1.0, "a#1")));
+
+        // el primer término nuevo cabe, el segundo no: no debe quedar ninguno a medias
+        assertThrows(IllegalStateException.class, () -> store.addAll(List.of(
+                new TripleStore.Triple("pérez", "per:title", "Cirujano", 0.5, "a#2"),
+                new TripleStore.Triple("Castro", "per:title", "doctor", 0.5, "a#2"))));
+        assertEquals(1, store.size());
+        assertEquals(1, store.count(null, null, null));
+        assertEquals(0, store.count(null, null, "cirujano"));
+
+        assertEquals(1, store.addAll(List.of(new TripleStore.Triple("PÉREZ", "per:title", "cirujano", 0.5, "a#2"))));
+        assertEquals(2, store.match("Pérez", "per:title", null, 10).size());
+    }
+
+    private TripleStore newStore() {
+        TripleStore store = new TripleStore(directory.resolve("store.bin").toString());
+        stores.add(store);
+        return store;
+    }
+}
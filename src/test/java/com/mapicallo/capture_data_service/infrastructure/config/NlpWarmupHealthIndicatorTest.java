@@ -0,0 +1,50 @@
+package com.mapicallo.capture_data_service.infrastructure.config;
+
+import com.mapicallo.capture_data_service.application.nlp.NlpProfile;
+import com.mapicallo.capture_data_service.application.nlp.NlpWarmupService;
+import com.mapicallo.capture_data_service.application.nlp.NlpWarmupService.WarmupResult;
+import com.mapicallo.capture_data_service.application.nlp.NlpWarmupService.WarmupStatus;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.Status;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class NlpWarmupHealthIndicatorTest {
+
+    @Mock
+    private NlpWarmupService warmupService;
+
+    @InjectMocks
+    private NlpWarmupHealthIndicator indicator;
+
+    @Test
+    void shouldBeOutOfServiceWhileWarmingUp() {
+        WarmupResult entities = new WarmupResult(NlpProfile.ENTITIES, WarmupStatus.READY, 1200, 40, null);
+        WarmupResult sentiment = new WarmupResult(NlpProfile.SENTENCE_SENTIMENT, WarmupStatus.LOADING, 0, 0, null);
+        when(warmupService.isReady()).thenReturn(false);
+        when(warmupService.getResults()).thenReturn(List.of(entities, sentiment));
+
+        Health health = indicator.health();
+
+        assertEquals(Status.OUT_OF_SERVICE, health.getStatus());
+        assertEquals(entities, health.getDetails().get("ENTITIES"));
+        assertEquals(sentiment, health.getDetails().get("SENTENCE_SENTIMENT"));
+    }
+
+    @Test
+    void shouldBeUpOnceWarmedUp() {
+        when(warmupService.isReady()).thenReturn(true);
+        when(warmupService.getResults()).thenReturn(List.of());
+
+        assertEquals(Status.UP, indicator.health().getStatus());
+    }
+}